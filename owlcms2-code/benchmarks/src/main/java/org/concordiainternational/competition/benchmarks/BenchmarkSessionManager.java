@@ -0,0 +1,29 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Session;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * Same as the unit tests: the database runs in memory. Only the categories and the competition are read from it; the lifters used by the
+ * benchmarks are never saved.
+ *
+ * @author jflamy
+ */
+public class BenchmarkSessionManager implements HbnSessionManager {
+
+    @Override
+    public Session getHbnSession() {
+        final boolean testMode = true;
+        System.setProperty("owlcms.locale", "en"); //$NON-NLS-1$ //$NON-NLS-2$
+        return WebApplicationConfiguration.getSessionFactory(testMode, "benchmarks").getCurrentSession(); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Result orders and ranks, for every kind of ranking, as computed for the result boards and the competition book.
+ * <p>
+ * The rank assignments are given the lifters already sorted for the ranking, as their callers do.
+ * </p>
+ *
+ * @author jflamy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RankingBenchmark {
+
+    @Param({ "50", "500", "5000" })
+    public int size;
+
+    /** all the values of the enum */
+    @Param
+    public Ranking ranking;
+
+    private List<Lifter> lifters;
+    private List<Lifter> sorted;
+
+    @Setup
+    public void setUp() {
+        lifters = SyntheticCompetition.create(size, 0);
+        sorted = LifterSorter.resultsOrderCopy(lifters, ranking);
+    }
+
+    @Benchmark
+    public List<Lifter> resultsOrderCopy() {
+        return LifterSorter.resultsOrderCopy(lifters, ranking);
+    }
+
+    @Benchmark
+    public List<Lifter> assignCategoryRanks() {
+        LifterSorter.assignCategoryRanks(sorted, ranking);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Lifter> assignSinclairRanksAndPoints() {
+        LifterSorter.assignSinclairRanksAndPoints(sorted, ranking);
+        return sorted;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.concordiainternational.competition.ui.SessionData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the announcer's session data does after every decision or weight change: sort the lists, publish them and notify the views (none
+ * are registered here, so this is the cost of the session data itself).
+ * <p>
+ * <code>allLists</code> sorts from scratch; <code>oneLifterChanged</code> changes the snatch declaration of a lifter who has not lifted
+ * yet (so that the lifter moves in the lifting order) and says which lifter changed, as the lifter editors do.
+ * </p>
+ *
+ * @author jflamy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionDataBenchmark {
+
+    @Param({ "50", "500", "5000" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean sortKeys;
+
+    private List<Lifter> lifters;
+    private List<Lifter> waiting;
+    private SessionData sessionData;
+    private int next = 0;
+    private boolean raise = true;
+
+    @Setup
+    public void setUp() {
+        lifters = SyntheticCompetition.create(size, 0);
+        LifterSorter.setSortKeys(sortKeys);
+        // the constructor meant for unit tests, which does not read the lifters from the database.
+        sessionData = new SessionData(lifters);
+        waiting = new ArrayList<Lifter>();
+        for (Lifter lifter : lifters) {
+            if (lifter.getAttemptsDone() == 0) {
+                waiting.add(lifter);
+            }
+        }
+        if (waiting.isEmpty()) {
+            throw new IllegalStateException("no lifter left to declare a snatch"); //$NON-NLS-1$
+        }
+    }
+
+    @Benchmark
+    public SessionData allLists() {
+        sessionData.updateListsForLiftingOrderChange(null, true, false);
+        return sessionData;
+    }
+
+    @Benchmark
+    public SessionData oneLifterChanged() {
+        final Lifter updated = waiting.get(next);
+        next = (next + 1) % waiting.size();
+        // one kilogram up on the first pass over the lifters, back down on the next, so the weights stay put.
+        final int declaration = Integer.parseInt(updated.getSnatch1Declaration());
+        updated.setSnatch1Declaration(Integer.toString(raise ? declaration + 1 : declaration - 1));
+        if (next == 0) {
+            raise = !raise;
+        }
+        sessionData.updateListsForLiftingOrderChange(updated, false, false);
+        return sessionData;
+    }
+}
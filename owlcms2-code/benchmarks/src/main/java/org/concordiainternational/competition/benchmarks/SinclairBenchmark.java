@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sinclair and SMM (Sinclair-Meltzer-Malone) values for a whole competition.
+ * <p>
+ * {@link Lifter#getSinclair()} remembers its value until the next lift, so the computation itself is measured through
+ * {@link Lifter#getSinclair(Double)}. {@link Lifter#getSmm()} also reads the age coefficient.
+ * </p>
+ *
+ * @author jflamy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SinclairBenchmark {
+
+    @Param({ "50", "500", "5000" })
+    public int size;
+
+    private List<Lifter> lifters;
+
+    @Setup
+    public void setUp() {
+        lifters = SyntheticCompetition.create(size, 0);
+    }
+
+    @Benchmark
+    public void sinclair(Blackhole bh) {
+        for (Lifter lifter : lifters) {
+            bh.consume(lifter.getSinclair(lifter.getBodyWeight()));
+        }
+    }
+
+    @Benchmark
+    public void sinclairRemembered(Blackhole bh) {
+        for (Lifter lifter : lifters) {
+            bh.consume(lifter.getSinclair());
+        }
+    }
+
+    @Benchmark
+    public void smm(Blackhole bh) {
+        for (Lifter lifter : lifters) {
+            bh.consume(lifter.getSmm());
+        }
+    }
+}
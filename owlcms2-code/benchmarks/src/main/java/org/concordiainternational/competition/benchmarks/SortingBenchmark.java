@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The lifting and display orders, computed from scratch as when a session is loaded.
+ * <p>
+ * <code>sortKeys=false</code> measures the comparators alone (see {@link LifterSorter#setSortKeys(boolean)}). The sorts that work in place
+ * are given a fresh copy of the shuffled lifters each time; copying is negligible next to sorting.
+ * </p>
+ *
+ * @author jflamy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortingBenchmark {
+
+    @Param({ "50", "500", "5000" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean sortKeys;
+
+    private List<Lifter> lifters;
+
+    @Setup
+    public void setUp() {
+        lifters = SyntheticCompetition.create(size, 0);
+        LifterSorter.setSortKeys(sortKeys);
+    }
+
+    @Benchmark
+    public List<Lifter> liftingOrder() {
+        final List<Lifter> copy = new ArrayList<Lifter>(lifters);
+        LifterSorter.liftingOrder(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Lifter> displayOrderCopy() {
+        return LifterSorter.displayOrderCopy(lifters);
+    }
+}
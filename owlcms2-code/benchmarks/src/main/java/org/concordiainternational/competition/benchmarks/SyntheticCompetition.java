@@ -0,0 +1,99 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.concordiainternational.competition.data.CategoryLookup;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.concordiainternational.competition.ui.CompetitionApplication;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * Lifters for the benchmarks, generated like the sample data of {@link org.concordiainternational.competition.webapp.WebApplicationConfiguration},
+ * but with genders, body weights, birth years, clubs and declarations spread so that the comparators have real work to do, and with a
+ * random number of lifts already done.
+ * <p>
+ * The same seed always gives the same competition.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class SyntheticCompetition {
+
+    private static final String[] fnames = { "Peter", "Albert", "Joshua", "Mike", "Oliver", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            "Paul", "Alex", "Richard", "Dan", "Umberto", "Henrik", "Rene", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            "Fred", "Donald" }; //$NON-NLS-1$ //$NON-NLS-2$
+    private static final String[] lnames = { "Smith", "Gordon", "Simpson", "Brown", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "Clavel", "Simons", "Verne", "Scott", "Allison", "Gates", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            "Rowling", "Barks", "Ross", "Schneider", "Tate" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    private static final String[] clubs = { "Concordia", "Laval", "Sherbrooke", "Quebec", "Gatineau", "Montreal", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            "Trois-Rivieres", "Saguenay" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static HbnSessionManager sessionManager;
+
+    /**
+     * Make the environment the lifters expect: a current application and the category definitions.
+     */
+    public static synchronized void setUp() {
+        if (sessionManager != null) {
+            return;
+        }
+        sessionManager = new BenchmarkSessionManager();
+        sessionManager.getHbnSession().beginTransaction();
+        CompetitionApplication.setCurrent(new CompetitionApplication());
+        CategoryLookup.getSharedInstance(sessionManager);
+    }
+
+    /**
+     * @param size
+     *            number of lifters
+     * @param seed
+     * @return lifters with lot and start numbers, in random order.
+     */
+    public static List<Lifter> create(int size, long seed) {
+        setUp();
+        final Random r = new Random(seed);
+        final List<Lifter> lifters = new ArrayList<Lifter>(size);
+        for (int i = 0; i < size; i++) {
+            final Lifter p = new Lifter();
+            final boolean male = r.nextInt(3) > 0;
+            p.setFirstName(fnames[r.nextInt(fnames.length)]);
+            p.setLastName(lnames[r.nextInt(lnames.length)]);
+            p.setClub(clubs[r.nextInt(clubs.length)]);
+            p.setGender(male ? "M" : "F"); //$NON-NLS-1$ //$NON-NLS-2$
+            p.setBirthDate(1950 + r.nextInt(50));
+            final double bodyWeight = (male ? 55.0 + r.nextInt(60) : 46.0 + r.nextInt(45)) + r.nextInt(10) / 10.0;
+            p.setBodyWeight(bodyWeight);
+
+            final int snatch = (int) (bodyWeight * (0.8 + r.nextDouble() * 0.6));
+            p.setSnatch1Declaration(Integer.toString(snatch));
+            p.setCleanJerk1Declaration(Integer.toString(snatch + 15 + r.nextInt(20)));
+            lifters.add(p);
+        }
+        LifterSorter.assignLotNumbers(lifters);
+        LifterSorter.assignStartNumbers(lifters);
+
+        // lifts already done: each lifter is somewhere between the first snatch and the end of clean and jerk.
+        for (Lifter p : lifters) {
+            final int done = r.nextInt(7);
+            for (int attempt = 0; attempt < done; attempt++) {
+                if (r.nextInt(3) > 0) {
+                    p.successfulLift();
+                } else {
+                    p.failedLift();
+                }
+            }
+        }
+        return lifters;
+    }
+}
@@ -21,6 +21,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.Metrics;
 import org.hibernate.Criteria;
 import org.hibernate.EntityMode;
 import org.hibernate.HibernateException;
@@ -71,6 +73,11 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
 
     private static final long serialVersionUID = -4265365834988905889L;
 
+    /** time spent in list queries, counts and id lookups */
+    private static final Histogram queryTimes = Metrics.histogram("hibernate.query"); //$NON-NLS-1$
+    /** time spent loading one entity by id */
+    private static final Histogram loadTimes = Metrics.histogram("hibernate.load"); //$NON-NLS-1$
+
     public interface HbnSessionManager {
         /**
          * @return a Hibernate Session with open transaction
@@ -89,7 +96,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
         protected Map<Object, Property> properties = new HashMap<Object, Property>();
 
         public EntityItem(Serializable id) {
+            final long start = System.nanoTime();
             pojo = hbnSessionManager.getHbnSession().get(type, id);
+            loadTimes.recordSince(start);
 
             // add non-hibernate mapped container properties
             // (the hibernate-managed properties are created as
@@ -691,9 +700,11 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
     }
 
     public Collection<?> getAllItemIds() {
+        final long start = System.nanoTime();
         List<?> list = hbnSessionManager.getHbnSession().createQuery(
                 "select " + getClassMetadata().getIdentifierPropertyName() + " from " + getClassMetadata().getEntityName())
                 .list();
+        queryTimes.recordSince(start);
         return list;
     }
 
@@ -714,7 +725,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
      */
     @SuppressWarnings("unchecked")
     public List<T> getAllPojos() {
+        final long start = System.nanoTime();
         List<T> objectList = getCriteria().list();
+        queryTimes.recordSince(start);
         return objectList;
     }
 
@@ -822,7 +835,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
     @Override
     public int size() {
         if (size == null) {
+            final long start = System.nanoTime();
             size = (Integer) getBaseCriteria().setProjection(Projections.rowCount()).uniqueResult();
+            queryTimes.recordSince(start);
         }
         return size.intValue();
     }
@@ -927,7 +942,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
 
     public Object firstItemId(boolean byPassCache) {
         if (byPassCache) {
+            final long start = System.nanoTime();
             Object first = getCriteria().setMaxResults(1).setCacheable(true).uniqueResult();
+            queryTimes.recordSince(start);
             return getIdForPojo(first);
         } else {
             return firstItemId();
@@ -1075,7 +1092,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
         }
 
         crit = crit.setMaxResults(ROW_BUF_SIZE);
+        final long start = System.nanoTime();
         List<?> newBuffer = crit.list();
+        queryTimes.recordSince(start);
         if (newBuffer.size() > 0) {
             // save buffer to optimize query count
             setRowBuffer(newBuffer);
@@ -1160,7 +1179,9 @@ public class HbnContainer<T> implements Container.Indexed, Container.Sortable, C
 
     private void resetIndexRowBuffer(int index) {
         indexRowBufferFirstIndex = index;
+        final long start = System.nanoTime();
         indexRowBuffer = getCriteria().setFirstResult(index).setMaxResults(ROW_BUF_SIZE).list();
+        queryTimes.recordSince(start);
     }
 
     /*
@@ -185,7 +185,9 @@ public class Category implements Serializable {
 
     @SuppressWarnings("unchecked")
     static public List<Category> getAll() {
-        return CompetitionApplication.getCurrent().getHbnSession().createCriteria(Category.class).list();
+        return CompetitionApplication.getCurrent().getHbnSession().createCriteria(Category.class)
+                .setCacheable(true).setCacheRegion(ReferenceData.CACHE_REGION)
+                .list();
     }
 
     @Override
@@ -21,11 +21,15 @@ import javax.persistence.Id;
 import org.concordiainternational.competition.tests.AllTests;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Criteria;
 import org.hibernate.Session;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Competition implements Serializable {
     private static final long serialVersionUID = -2817516132425565754L;
 
@@ -155,7 +159,7 @@ public class Competition implements Serializable {
             return invitedThreshold;
         final CompetitionApplication currentApp = CompetitionApplication.getCurrent();
         final Session hbnSession = currentApp.getHbnSession();
-        List<Competition> competitions = hbnSession.createCriteria(Competition.class).list();
+        List<Competition> competitions = cachedCriteria(hbnSession).list();
         if (competitions.size() > 0) {
             final Competition competition = competitions.get(0);
             invitedThreshold = competition.getInvitedIfBornBefore();
@@ -167,7 +171,7 @@ public class Competition implements Serializable {
 
     @SuppressWarnings("unchecked")
     static public List<Competition> getAll() {
-        final List<Competition> list = CompetitionApplication.getCurrent().getHbnSession().createCriteria(Competition.class).list();
+        final List<Competition> list = cachedCriteria(CompetitionApplication.getCurrent().getHbnSession()).list();
         return list;
     }
 
@@ -203,7 +207,7 @@ public class Competition implements Serializable {
         final CompetitionApplication currentApp = CompetitionApplication.getCurrent();
         final Session hbnSession = (currentApp != null ? currentApp.getHbnSession() : AllTests.getSessionManager().getHbnSession());
         @SuppressWarnings("unchecked")
-        List<Competition> competitions = hbnSession.createCriteria(Competition.class).list();
+        List<Competition> competitions = cachedCriteria(hbnSession).list();
         Competition competition = null;
         if (competitions.size() > 0) {
             competition = competitions.get(0);
@@ -211,6 +215,22 @@ public class Competition implements Serializable {
         return competition;
     }
 
+    /**
+     * The competition is read from the query cache; see {@link ReferenceData}.
+     */
+    private static Criteria cachedCriteria(Session hbnSession) {
+        return hbnSession.createCriteria(Competition.class).setCacheable(true).setCacheRegion(ReferenceData.CACHE_REGION);
+    }
+
+    /**
+     * Forget the values computed from the competition, after it has been edited.
+     */
+    static void clearCache() {
+        isMasters = null;
+        isEnforce15_20rule = null;
+        invitedThreshold = null;
+    }
+
     /*
      * (non-Javadoc)
      *
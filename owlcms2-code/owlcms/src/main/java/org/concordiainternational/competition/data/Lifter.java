@@ -282,6 +282,15 @@ public class Lifter implements MethodEventSource, Notifier {
     boolean currentLifter = false;
     @Transient
     boolean forcedAsCurrent = false;
+    /*
+     * Primitive view of the attempt columns and the results derived from them. The persisted Strings above remain the reference; this
+     * is built from them on first use and discarded whenever an UpdateEvent is fired, so that sorting and the displays do not re-parse
+     * the cells on every call.
+     */
+    @Transient
+    private transient AttemptResults attemptResults = null;
+    @Transient
+    private transient Double sinclair = null;
     /*
      * Transient fields that have no relevance to the persistent state of a lifter All framework-related and pattern-related constructs go
      * here.
@@ -308,46 +317,28 @@ public class Lifter implements MethodEventSource, Notifier {
         return getAll(false);
     }
 
+    /**
+     * @param excludeNotWeighedIn
+     * @return copies of the lifters, from memory; see {@link LifterReadModel}.
+     */
     static public List<Lifter> getAll(boolean excludeNotWeighedIn) {
-        Session hbnSession = null;
-        try {
-            hbnSession = CompetitionApplication.getCurrent().openSession();
-            List<Lifter> lifters = getAll(hbnSession, excludeNotWeighedIn);
-            return lifters;
-        } finally {
-            if (hbnSession != null) {
-                hbnSession.clear();
-                hbnSession.close();
-            }
-        }
+        return LifterReadModel.getAll(excludeNotWeighedIn);
     }
 
+    /**
+     * @param session
+     * @param excludeNotWeighedIn
+     * @return copies of the lifters in the session, from memory; see {@link LifterReadModel}.
+     */
     static public List<Lifter> getAllCurrentGroup(CompetitionSession session, boolean excludeNotWeighedIn) {
-        Session hbnSession = null;
-        try {
-            hbnSession = CompetitionApplication.getCurrent().openSession();
-            List<Lifter> lifters = getAllCurrentGroup(hbnSession, session, excludeNotWeighedIn);
-            return lifters;
-        } finally {
-            if (hbnSession != null) {
-                hbnSession.clear();
-                hbnSession.close();
-            }
-        }
+        return LifterReadModel.getAllCurrentGroup(session, excludeNotWeighedIn);
     }
 
+    /**
+     * @return copies of the lifters that take part, from memory; see {@link LifterReadModel}.
+     */
     static public List<Lifter> getAllParticipants() {
-        Session hbnSession = null;
-        try {
-            hbnSession = CompetitionApplication.getCurrent().openSession();
-            List<Lifter> lifters = getAllParticipants(hbnSession);
-            return lifters;
-        } finally {
-            if (hbnSession != null) {
-                hbnSession.clear();
-                hbnSession.close();
-            }
-        }
+        return LifterReadModel.getAllParticipants();
     }
 
     @SuppressWarnings("unchecked")
@@ -388,13 +379,201 @@ public class Lifter implements MethodEventSource, Notifier {
     }
 
     public static int zeroIfInvalid(String value) {
-        try {
-            return Integer.valueOf(value);
-        } catch (NumberFormatException nfe) {
+        final int parsed = parseAttempt(value);
+        return (parsed == AttemptResults.EMPTY ? 0 : parsed);
+    }
+
+    /**
+     * Parse an attempt cell the way {@link Integer#valueOf(String)} would, without throwing.
+     *
+     * @param value
+     * @return {@link AttemptResults#EMPTY} for a blank cell, 0 for anything that is not a number ("-" and the like), the value
+     *         otherwise.
+     */
+    static int parseAttempt(String value) {
+        if (isEmpty(value)) {
+            return AttemptResults.EMPTY;
+        }
+        final int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        final char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = (first == '-');
+            i++;
+            if (length == 1) {
+                return 0;
+            }
+        }
+        long result = 0;
+        for (; i < length; i++) {
+            final int digit = Character.digit(value.charAt(i), 10);
+            if (digit < 0) {
+                return 0;
+            }
+            result = result * 10 + digit;
+            if (result > Integer.MAX_VALUE) {
+                return 0;
+            }
+        }
+        return (int) (negative ? -result : result);
+    }
+
+    /**
+     * Immutable primitive copy of the attempt cells, with the results that the comparators and displays ask for over and over.
+     */
+    static final class AttemptResults {
+        /** value of a blank cell */
+        static final int EMPTY = Integer.MIN_VALUE;
+        /** lift time of an attempt not yet taken */
+        static final long NO_LIFT_TIME = Long.MIN_VALUE;
+
+        static final int DECLARATION = 0;
+        static final int CHANGE1 = 1;
+        static final int CHANGE2 = 2;
+        static final int ACTUAL_LIFT = 3;
+        static final int CELLS_PER_ATTEMPT = 4;
+
+        /** [attempt * CELLS_PER_ATTEMPT + cell], attempts numbered 0 to 5 */
+        private final int[] values;
+        private final long[] liftTimes;
+
+        final int bestSnatch;
+        final int bestCleanJerk;
+        final int total;
+        final int snatchAttemptsDone;
+        final int cleanJerkAttemptsDone;
+        final int nextAttemptRequestedWeight;
+        final Date previousLiftTime;
+        final long previousLiftTimeMillis;
+
+        AttemptResults(String[] cells, Date[] times) {
+            values = new int[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                values[i] = parseAttempt(cells[i]);
+            }
+            liftTimes = new long[times.length];
+            for (int i = 0; i < times.length; i++) {
+                liftTimes[i] = (times[i] == null ? NO_LIFT_TIME : times[i].getTime());
+            }
+
+            bestSnatch = Math.max(0, Math.max(actualLift(0), Math.max(actualLift(1), actualLift(2))));
+            bestCleanJerk = Math.max(0, Math.max(actualLift(3), Math.max(actualLift(4), actualLift(5))));
+            total = (bestSnatch == 0 || bestCleanJerk == 0) ? 0 : bestSnatch + bestCleanJerk;
+            snatchAttemptsDone = attemptsDone(0);
+            cleanJerkAttemptsDone = attemptsDone(3);
+            final int attemptsDone = snatchAttemptsDone + cleanJerkAttemptsDone;
+            nextAttemptRequestedWeight = requestedWeightForAttempt(attemptsDone + 1);
+
+            // times are only compared within the same lift type
+            final int firstOfLift = (attemptsDone <= 3 ? 0 : 3);
+            int latest = -1;
+            for (int i = firstOfLift; i < firstOfLift + 3 && times[i] != null; i++) {
+                if (latest < 0 || liftTimes[i] >= liftTimes[latest]) {
+                    latest = i;
+                }
+            }
+            previousLiftTime = (latest < 0 ? null : times[latest]);
+            previousLiftTimeMillis = (latest < 0 ? NO_LIFT_TIME : liftTimes[latest]);
+        }
+
+        /**
+         * @param attempt
+         *            0 to 5
+         * @param cell
+         *            DECLARATION, CHANGE1, CHANGE2 or ACTUAL_LIFT
+         * @return the cell value, 0 if blank or invalid
+         */
+        int value(int attempt, int cell) {
+            final int v = values[attempt * CELLS_PER_ATTEMPT + cell];
+            return (v == EMPTY ? 0 : v);
+        }
+
+        boolean isBlank(int attempt, int cell) {
+            return values[attempt * CELLS_PER_ATTEMPT + cell] == EMPTY;
+        }
+
+        int actualLift(int attempt) {
+            return value(attempt, ACTUAL_LIFT);
+        }
+
+        long liftTime(int attempt) {
+            return liftTimes[attempt];
+        }
+
+        /**
+         * If lifter signals he wont take his remaining tries, a zero is entered; further lifts are not counted.
+         */
+        private int attemptsDone(int firstAttempt) {
+            int attempts = 0;
+            while (attempts < 3 && !isBlank(firstAttempt + attempts, ACTUAL_LIFT)) {
+                attempts++;
+            }
+            return attempts;
+        }
+
+        /**
+         * @param attempt
+         *            1 to 6, as in {@link Lifter#getRequestedWeightForAttempt(int)}
+         */
+        int requestedWeightForAttempt(int attempt) {
+            if (attempt < 1 || attempt > 6) {
+                return 0;
+            }
+            final int i = attempt - 1;
+            return last(automaticProgression(i), value(i, DECLARATION), value(i, CHANGE1), value(i, CHANGE2));
+        }
+
+        /**
+         * @return the weight implied by the previous attempt of the same lift (0 for first attempts)
+         */
+        int automaticProgression(int attempt) {
+            if (attempt == 0 || attempt == 3) {
+                return 0;
+            }
+            final int prevVal = actualLift(attempt - 1);
+            return (prevVal > 0 ? prevVal + 1 : Math.abs(prevVal));
+        }
+
+        private static int last(int automatic, int declaration, int change1, int change2) {
+            if (change2 > 0) return change2;
+            if (change1 > 0) return change1;
+            if (declaration > 0) return declaration;
+            if (automatic > 0) return automatic;
             return 0;
         }
     }
 
+    /**
+     * @return the primitive attempt model, rebuilt from the persisted cells if an update has occurred since last use.
+     */
+    AttemptResults getAttemptResults() {
+        AttemptResults results = attemptResults;
+        if (results == null) {
+            results = new AttemptResults(new String[] {
+                    snatch1Declaration, snatch1Change1, snatch1Change2, snatch1ActualLift,
+                    snatch2Declaration, snatch2Change1, snatch2Change2, snatch2ActualLift,
+                    snatch3Declaration, snatch3Change1, snatch3Change2, snatch3ActualLift,
+                    cleanJerk1Declaration, cleanJerk1Change1, cleanJerk1Change2, cleanJerk1ActualLift,
+                    cleanJerk2Declaration, cleanJerk2Change1, cleanJerk2Change2, cleanJerk2ActualLift,
+                    cleanJerk3Declaration, cleanJerk3Change1, cleanJerk3Change2, cleanJerk3ActualLift },
+                    new Date[] {
+                            snatch1LiftTime, snatch2LiftTime, snatch3LiftTime,
+                            cleanJerk1LiftTime, cleanJerk2LiftTime, cleanJerk3LiftTime });
+            attemptResults = results;
+        }
+        return results;
+    }
+
+    /**
+     * Discard the cached attempt model and derived results. Called whenever an UpdateEvent is fired, and by code that copies persistent
+     * fields behind our back (Hibernate merge).
+     */
+    public void resetCachedResults() {
+        attemptResults = null;
+        sinclair = null;
+    }
+
     public Lifter() {
         super();
     }
@@ -501,27 +680,26 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return the attemptsDone
      */
     public Integer getAttemptsDone() {
-        return getSnatchAttemptsDone() + getCleanJerkAttemptsDone();
+        final AttemptResults results = getAttemptResults();
+        return results.snatchAttemptsDone + results.cleanJerkAttemptsDone;
     }
 
     /**
      * @return the bestCleanJerk
      */
     public Integer getBestCleanJerk() {
-        final int cj1 = zeroIfInvalid(cleanJerk1ActualLift);
-        final int cj2 = zeroIfInvalid(cleanJerk2ActualLift);
-        final int cj3 = zeroIfInvalid(cleanJerk3ActualLift);
-        return max(0, cj1, cj2, cj3);
+        return getAttemptResults().bestCleanJerk;
     }
 
     public int getBestCleanJerkAttemptNumber() {
-        int referenceValue = getBestCleanJerk();
+        final AttemptResults results = getAttemptResults();
+        int referenceValue = results.bestCleanJerk;
         if (referenceValue > 0) {
-            if (zeroIfInvalid(cleanJerk3ActualLift) == referenceValue)
+            if (results.actualLift(5) == referenceValue)
                 return 6;
-            if (zeroIfInvalid(cleanJerk2ActualLift) == referenceValue)
+            if (results.actualLift(4) == referenceValue)
                 return 5;
-            if (zeroIfInvalid(cleanJerk1ActualLift) == referenceValue)
+            if (results.actualLift(3) == referenceValue)
                 return 4;
         }
         return 0; // no match - bomb-out.
@@ -554,20 +732,18 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return the bestSnatch
      */
     public Integer getBestSnatch() {
-        final int sn1 = zeroIfInvalid(snatch1ActualLift);
-        final int sn2 = zeroIfInvalid(snatch2ActualLift);
-        final int sn3 = zeroIfInvalid(snatch3ActualLift);
-        return max(0, sn1, sn2, sn3);
+        return getAttemptResults().bestSnatch;
     }
 
     public int getBestSnatchAttemptNumber() {
-        int referenceValue = getBestSnatch();
+        final AttemptResults results = getAttemptResults();
+        int referenceValue = results.bestSnatch;
         if (referenceValue > 0) {
-            if (zeroIfInvalid(snatch3ActualLift) == referenceValue)
+            if (results.actualLift(2) == referenceValue)
                 return 3;
-            if (zeroIfInvalid(snatch2ActualLift) == referenceValue)
+            if (results.actualLift(1) == referenceValue)
                 return 2;
-            if (zeroIfInvalid(snatch1ActualLift) == referenceValue)
+            if (results.actualLift(0) == referenceValue)
                 return 1;
         }
         return 0; // no match - bomb-out.
@@ -840,23 +1016,7 @@ public class Lifter implements MethodEventSource, Notifier {
     public Integer getCleanJerkAttemptsDone() {
         // if lifter signals he wont take his remaining tries, a zero is entered
         // further lifts are not counted.
-        int attempts = 0;
-        if (!isEmpty(cleanJerk1ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        if (!isEmpty(cleanJerk2ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        if (!isEmpty(cleanJerk3ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        return attempts;
+        return getAttemptResults().cleanJerkAttemptsDone;
     }
 
     public Float getCleanJerkPoints() {
@@ -873,9 +1033,7 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return total for clean and jerk
      */
     public int getCleanJerkTotal() {
-        final int cleanJerkTotal = max(0, zeroIfInvalid(cleanJerk1ActualLift), zeroIfInvalid(cleanJerk2ActualLift),
-                zeroIfInvalid(cleanJerk3ActualLift));
-        return cleanJerkTotal;
+        return getAttemptResults().bestCleanJerk;
     }
 
     /**
@@ -933,49 +1091,16 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return null if lifter has not lifted
      */
     public Date getPreviousLiftTime() {
-        Date max = null; // long ago
-
-        if (getAttemptsDone() <= 3) {
-            final Date sn1 = snatch1LiftTime;
-            if (sn1 != null) {
-                max = sn1;
-            } else {
-                return max;
-            }
-            final Date sn2 = snatch2LiftTime;
-            if (sn2 != null) {
-                max = (max.after(sn2) ? max : sn2);
-            } else {
-                return max;
-            }
-            final Date sn3 = snatch3LiftTime;
-            if (sn3 != null) {
-                max = (max.after(sn3) ? max : sn3);
-            } else {
-                return max;
-            }
-        } else {
-            final Date cj1 = cleanJerk1LiftTime;
-            if (cj1 != null) {
-                max = cj1;
-            } else {
-                return max;
-            }
-            final Date cj2 = cleanJerk2LiftTime;
-            if (cj2 != null) {
-                max = (max.after(cj2) ? max : cj2);
-            } else {
-                return max;
-            }
-            final Date cj3 = cleanJerk3LiftTime;
-            if (cj3 != null) {
-                max = (max.after(cj3) ? max : cj3);
-            } else {
-                return max;
-            }
-        }
+        return getAttemptResults().previousLiftTime;
+    }
 
-        return max;
+    /**
+     * Same as {@link #getPreviousLiftTime()}, without the Date.
+     *
+     * @return Long.MIN_VALUE if lifter has not lifted
+     */
+    public long getPreviousLiftTimeMillis() {
+        return getAttemptResults().previousLiftTimeMillis;
     }
 
     /**
@@ -986,66 +1111,70 @@ public class Lifter implements MethodEventSource, Notifier {
     }
 
     public Date getLastSuccessfulLiftTime() {
-        if (zeroIfInvalid(cleanJerk3ActualLift) > 0)
+        final AttemptResults results = getAttemptResults();
+        if (results.actualLift(5) > 0)
             return getCleanJerk3LiftTime();
-        if (zeroIfInvalid(cleanJerk2ActualLift) > 0)
+        if (results.actualLift(4) > 0)
             return getCleanJerk2LiftTime();
-        if (zeroIfInvalid(cleanJerk1ActualLift) > 0)
+        if (results.actualLift(3) > 0)
             return getCleanJerk1LiftTime();
-        if (zeroIfInvalid(snatch3ActualLift) > 0)
+        if (results.actualLift(2) > 0)
             return getSnatch3LiftTime();
-        if (zeroIfInvalid(snatch2ActualLift) > 0)
+        if (results.actualLift(1) > 0)
             return getSnatch2LiftTime();
-        if (zeroIfInvalid(snatch1ActualLift) > 0)
+        if (results.actualLift(0) > 0)
             return getSnatch1LiftTime();
         return new Date(0L); // long ago
     }
 
     public Date getLastAttemptedLiftTime() {
-        if (zeroIfInvalid(cleanJerk3ActualLift) != 0)
+        final AttemptResults results = getAttemptResults();
+        if (results.actualLift(5) != 0)
             return getCleanJerk3LiftTime();
-        if (zeroIfInvalid(cleanJerk2ActualLift) != 0)
+        if (results.actualLift(4) != 0)
             return getCleanJerk2LiftTime();
-        if (zeroIfInvalid(cleanJerk1ActualLift) != 0)
+        if (results.actualLift(3) != 0)
             return getCleanJerk1LiftTime();
-        if (zeroIfInvalid(snatch3ActualLift) != 0)
+        if (results.actualLift(2) != 0)
             return getSnatch3LiftTime();
-        if (zeroIfInvalid(snatch2ActualLift) != 0)
+        if (results.actualLift(1) != 0)
             return getSnatch2LiftTime();
-        if (zeroIfInvalid(snatch1ActualLift) != 0)
+        if (results.actualLift(0) != 0)
             return getSnatch1LiftTime();
         return new Date(0L); // long ago
     }
 
     public Date getFirstAttemptedLiftTime() {
-        if (zeroIfInvalid(snatch1ActualLift) != 0)
+        final AttemptResults results = getAttemptResults();
+        if (results.actualLift(0) != 0)
             return getSnatch1LiftTime();
-        if (zeroIfInvalid(snatch2ActualLift) != 0)
+        if (results.actualLift(1) != 0)
             return getSnatch2LiftTime();
-        if (zeroIfInvalid(snatch3ActualLift) != 0)
+        if (results.actualLift(2) != 0)
             return getSnatch3LiftTime();
-        if (zeroIfInvalid(cleanJerk1ActualLift) != 0)
+        if (results.actualLift(3) != 0)
             return getCleanJerk1LiftTime();
-        if (zeroIfInvalid(cleanJerk2ActualLift) != 0)
+        if (results.actualLift(4) != 0)
             return getCleanJerk2LiftTime();
-        if (zeroIfInvalid(cleanJerk3ActualLift) != 0)
+        if (results.actualLift(5) != 0)
             return getCleanJerk3LiftTime();
         return new Date(Long.MAX_VALUE); // forever in the future
     }
 
     public int getAttemptedLifts() {
+        final AttemptResults results = getAttemptResults();
         int i = 0;
-        if (zeroIfInvalid(snatch1ActualLift) != 0)
+        if (results.actualLift(0) != 0)
             i++;
-        if (zeroIfInvalid(snatch2ActualLift) != 0)
+        if (results.actualLift(1) != 0)
             i++;
-        if (zeroIfInvalid(snatch3ActualLift) != 0)
+        if (results.actualLift(2) != 0)
             i++;
-        if (zeroIfInvalid(cleanJerk1ActualLift) != 0)
+        if (results.actualLift(3) != 0)
             i++;
-        if (zeroIfInvalid(cleanJerk2ActualLift) != 0)
+        if (results.actualLift(4) != 0)
             i++;
-        if (zeroIfInvalid(cleanJerk3ActualLift) != 0)
+        if (results.actualLift(5) != 0)
             i++;
         return i; // long ago
     }
@@ -1069,35 +1198,11 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return the nextAttemptRequestedWeight
      */
     public Integer getNextAttemptRequestedWeight() {
-        int attempt = getAttemptsDone() + 1;
-        return getRequestedWeightForAttempt(attempt);
+        return getAttemptResults().nextAttemptRequestedWeight;
     }
 
     public Integer getRequestedWeightForAttempt(int attempt) {
-        switch (attempt) {
-        case 1:
-            return (Integer) last(zeroIfInvalid(getSnatch1AutomaticProgression()), zeroIfInvalid(snatch1Declaration),
-                    zeroIfInvalid(snatch1Change1), zeroIfInvalid(snatch1Change2));
-        case 2:
-            return (Integer) last(zeroIfInvalid(getSnatch2AutomaticProgression()), zeroIfInvalid(snatch2Declaration),
-                    zeroIfInvalid(snatch2Change1), zeroIfInvalid(snatch2Change2));
-        case 3:
-            return (Integer) last(zeroIfInvalid(getSnatch3AutomaticProgression()), zeroIfInvalid(snatch3Declaration),
-                    zeroIfInvalid(snatch3Change1), zeroIfInvalid(snatch3Change2));
-        case 4:
-            return (Integer) last(zeroIfInvalid(getCleanJerk1AutomaticProgression()),
-                    zeroIfInvalid(cleanJerk1Declaration), zeroIfInvalid(cleanJerk1Change1),
-                    zeroIfInvalid(cleanJerk1Change2));
-        case 5:
-            return (Integer) last(zeroIfInvalid(getCleanJerk2AutomaticProgression()),
-                    zeroIfInvalid(cleanJerk2Declaration), zeroIfInvalid(cleanJerk2Change1),
-                    zeroIfInvalid(cleanJerk2Change2));
-        case 6:
-            return (Integer) last(zeroIfInvalid(getCleanJerk3AutomaticProgression()),
-                    zeroIfInvalid(cleanJerk3Declaration), zeroIfInvalid(cleanJerk3Change1),
-                    zeroIfInvalid(cleanJerk3Change2));
-        }
-        return 0;
+        return getAttemptResults().requestedWeightForAttempt(attempt);
     }
 
     public Integer getQualifyingTotal() {
@@ -1125,10 +1230,15 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return the sinclair-adjusted value for the lifter
      */
     public Double getSinclair() {
-        final Double bodyWeight1 = getBodyWeight();
-        if (bodyWeight1 == null)
-            return 0.0;
-        return getSinclair(bodyWeight1);
+        Double sinclair1 = sinclair;
+        if (sinclair1 == null) {
+            final Double bodyWeight1 = getBodyWeight();
+            if (bodyWeight1 == null)
+                return 0.0;
+            sinclair1 = getSinclair(bodyWeight1);
+            sinclair = sinclair1;
+        }
+        return sinclair1;
     }
 
     /**
@@ -1277,23 +1387,7 @@ public class Lifter implements MethodEventSource, Notifier {
     public Integer getSnatchAttemptsDone() {
         // lifter signals he wont take his remaining tries, a zero is entered
         // further lifts are not counted.
-        int attempts = 0;
-        if (!isEmpty(snatch1ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        if (!isEmpty(snatch2ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        if (!isEmpty(snatch3ActualLift)) {
-            attempts++;
-        } else {
-            return attempts;
-        }
-        return attempts;
+        return getAttemptResults().snatchAttemptsDone;
     }
 
     public Float getSnatchPoints() {
@@ -1310,9 +1404,7 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return total for snatch.
      */
     public int getSnatchTotal() {
-        final int snatchTotal = max(0, zeroIfInvalid(snatch1ActualLift), zeroIfInvalid(snatch2ActualLift),
-                zeroIfInvalid(snatch3ActualLift));
-        return snatchTotal;
+        return getAttemptResults().bestSnatch;
     }
 
     public Integer getTeamCleanJerkRank() {
@@ -1347,13 +1439,7 @@ public class Lifter implements MethodEventSource, Notifier {
      * @return the total
      */
     public Integer getTotal() {
-        final int snatchTotal = getSnatchTotal();
-        if (snatchTotal == 0)
-            return 0;
-        final int cleanJerkTotal = getCleanJerkTotal();
-        if (cleanJerkTotal == 0)
-            return 0;
-        return snatchTotal + cleanJerkTotal;
+        return getAttemptResults().total;
     }
 
     public Float getTotalPoints() {
@@ -2186,12 +2272,6 @@ public class Lifter implements MethodEventSource, Notifier {
         return 0;
     }
 
-    private Integer max(Integer... items) {
-        List<Integer> itemList = Arrays.asList(items);
-        final Integer max = Collections.max(itemList);
-        return max;
-    }
-
     @SuppressWarnings("unused")
     private Integer max(String... items) {
         List<String> itemList = Arrays.asList(items);
@@ -2424,6 +2504,7 @@ public class Lifter implements MethodEventSource, Notifier {
     protected void fireEvent(UpdateEvent updateEvent) {
         logger
                 .debug("Lifter: firing event from " + System.identityHashCode(this) + " " + lastName + " " + firstName + " " + updateEvent.getPropertyIds()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        resetCachedResults();
         if (eventRouter != null) {
             eventRouter.fireEvent(updateEvent);
         }
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.Transient;
+
+import org.concordiainternational.competition.utils.Metrics;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Criteria;
+import org.hibernate.Session;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.event.PostDeleteEvent;
+import org.hibernate.event.PostDeleteEventListener;
+import org.hibernate.event.PostInsertEvent;
+import org.hibernate.event.PostInsertEventListener;
+import org.hibernate.event.PostUpdateEvent;
+import org.hibernate.event.PostUpdateEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The lifters as they are in the database, kept in memory for the reports and the views that read them all.
+ * <p>
+ * {@link Lifter#getAll(boolean)}, {@link Lifter#getAllCurrentGroup(CompetitionSession, boolean)} and
+ * {@link Lifter#getAllParticipants()} used to open a session and load every lifter each time they were called, which every report, every
+ * independent {@link org.concordiainternational.competition.ui.SessionData} and the result views do. The lifters are now loaded once;
+ * when a transaction that saved, merged or deleted lifters ends ({@link Listener}, registered with the session factory), those lifters
+ * are marked, and only they are read again, on the next call. Changing a session or a category reloads everything, since the lifters
+ * refer to them.
+ * </p>
+ * <p>
+ * The callers sort, rank and modify the lifters they get, so each call returns copies of the persistent fields; the lifters kept here are
+ * never handed out. Since the lifters are read again after the end of the transaction, what is returned is what is committed, as when
+ * the database was read each time: a change not yet saved, or rolled back, is not seen.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class LifterReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(LifterReadModel.class);
+
+    /** beyond this many changed lifters, everything is read again */
+    private static final int MAX_CHANGED = 200;
+
+    private static final AtomicLong fullLoads = Metrics.counter("lifters.fullLoads"); //$NON-NLS-1$
+    private static final AtomicLong partialLoads = Metrics.counter("lifters.partialLoads"); //$NON-NLS-1$
+    private static final AtomicLong reads = Metrics.counter("lifters.reads"); //$NON-NLS-1$
+
+    /** by id, so the lifters come out in the same order as from the database; guarded by the class */
+    private static final TreeMap<Long, Lifter> lifters = new TreeMap<Long, Lifter>();
+    /** lifters to be read again; guarded by itself */
+    private static final Set<Long> changed = new HashSet<Long>();
+    private static volatile boolean loaded = false;
+
+    private static final List<Field> persistentFields = persistentFields();
+
+    private LifterReadModel() {
+    }
+
+    /**
+     * @param excludeNotWeighedIn
+     * @return copies of all the lifters.
+     */
+    public static List<Lifter> getAll(boolean excludeNotWeighedIn) {
+        return select(null, excludeNotWeighedIn, false);
+    }
+
+    /**
+     * @param session
+     *            null for all the lifters
+     * @param excludeNotWeighedIn
+     * @return copies of the lifters in the session.
+     */
+    public static List<Lifter> getAllCurrentGroup(CompetitionSession session, boolean excludeNotWeighedIn) {
+        final String sessionName = (session != null ? session.getName() : null);
+        return select(sessionName, excludeNotWeighedIn, false);
+    }
+
+    /**
+     * @return copies of the lifters that are in a session and are team members.
+     */
+    public static List<Lifter> getAllParticipants() {
+        return select(null, false, true);
+    }
+
+    /**
+     * Read the lifter again on the next call.
+     *
+     * @param id
+     */
+    public static void changed(Serializable id) {
+        if (id instanceof Long) {
+            synchronized (changed) {
+                changed.add((Long) id);
+            }
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Read all the lifters again on the next call.
+     */
+    public static void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * Forget the lifters. Called when the database is closed.
+     */
+    public static synchronized void clear() {
+        loaded = false;
+        lifters.clear();
+    }
+
+    private static synchronized List<Lifter> select(String sessionName, boolean excludeNotWeighedIn, boolean participantsOnly) {
+        reads.incrementAndGet();
+        refresh();
+        final List<Lifter> selected = new ArrayList<Lifter>(lifters.size());
+        for (Lifter lifter : lifters.values()) {
+            // same conditions as the queries in Lifter.
+            final CompetitionSession session = lifter.competitionSession;
+            if (sessionName != null && (session == null || !sessionName.equals(session.getName()))) {
+                continue;
+            }
+            if (excludeNotWeighedIn && (lifter.bodyWeight == null || lifter.bodyWeight <= 0.01D)) {
+                continue;
+            }
+            if (participantsOnly && (session == null || !lifter.isATeamMember())) {
+                continue;
+            }
+            selected.add(copy(lifter));
+        }
+        return selected;
+    }
+
+    /**
+     * Read the lifters that changed since the last call, or all of them.
+     */
+    private static void refresh() {
+        final Set<Long> ids;
+        synchronized (changed) {
+            ids = new HashSet<Long>(changed);
+            changed.clear();
+        }
+        // a lifter committed after this point is marked again, and read on the next call.
+        if (!loaded || ids.size() > MAX_CHANGED) {
+            loaded = true;
+            load(null);
+            fullLoads.incrementAndGet();
+        } else if (!ids.isEmpty()) {
+            load(ids);
+            partialLoads.incrementAndGet();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void load(Set<Long> ids) {
+        final Session session = WebApplicationConfiguration.getSessionFactory().openSession();
+        try {
+            final Criteria criteria = session.createCriteria(Lifter.class);
+            if (ids != null) {
+                criteria.add(Restrictions.in("id", ids)); //$NON-NLS-1$
+            }
+            final List<Lifter> found = criteria.list();
+            if (ids == null) {
+                lifters.clear();
+            } else {
+                // the ones not found have been deleted.
+                lifters.keySet().removeAll(ids);
+            }
+            for (Lifter lifter : found) {
+                lifters.put(lifter.getId(), lifter);
+            }
+            logger.debug("read {} lifters", found.size()); //$NON-NLS-1$
+        } catch (RuntimeException e) {
+            loaded = false;
+            throw e;
+        } finally {
+            session.clear();
+            session.close();
+        }
+    }
+
+    /**
+     * @param lifter
+     * @return a new lifter with the same persistent fields; listeners and computed values are not copied.
+     */
+    static Lifter copy(Lifter lifter) {
+        final Lifter copy = new Lifter();
+        try {
+            for (Field field : persistentFields) {
+                field.set(copy, field.get(lifter));
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return copy;
+    }
+
+    static List<Field> persistentFields() {
+        final List<Field> fields = new ArrayList<Field>();
+        for (Field field : Lifter.class.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers)
+                    || field.isAnnotationPresent(Transient.class)) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * Marks the lifters whose changes have been committed (or rolled back: the lifter is read again either way). Registered for the
+     * post-commit events in {@link WebApplicationConfiguration#getSessionFactory(boolean, String)}.
+     */
+    @SuppressWarnings("serial")
+    public static class Listener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            changed(event.getEntity(), event.getId());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            changed(event.getEntity(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            changed(event.getEntity(), event.getId());
+        }
+
+        private void changed(Object entity, Serializable id) {
+            if (entity instanceof Lifter) {
+                LifterReadModel.changed(id);
+            } else if (entity instanceof CompetitionSession || entity instanceof Category) {
+                invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,725 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import javax.persistence.Entity;
+
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.EntityMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.Transaction;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves the lifters in the background, when the writeBehind parameter is set (off by default).
+ * <p>
+ * Every change made by the announcer or the marshal used to be merged into the Hibernate session of the HTTP request and committed at
+ * the end of the request, so a click waited for the database. In this mode,
+ * {@link org.concordiainternational.competition.ui.SessionData#persistPojo(Object)} and
+ * {@link org.concordiainternational.competition.ui.SessionData#saveLifter(Lifter)} only copy the persistent fields of the lifter, which
+ * is already up to date in memory, and append the copy to a journal kept next to the database. A background thread writes the latest
+ * copy of each lifter, all of them in one transaction, at most {@link #FLUSH_DELAY_MS} milliseconds later, and empties the journal once
+ * nothing is left to write. Until then, the reports and the other views that read the database ({@link LifterReadModel}) see the lifter
+ * as it was.
+ * </p>
+ * <p>
+ * If that transaction fails, the lifters are written one at a time. A change that still cannot be written is set aside, so that the
+ * others are not held back by it: it is logged with its values, counted, and reported to the next user who saves a lifter
+ * ({@link #takeRejected()}). While the database cannot be reached at all, nothing is set aside and the writer tries again every
+ * {@link #RETRY_DELAY_MS} milliseconds.
+ * </p>
+ * <p>
+ * The journal is forced to disk before the change is shown, so a change that was seen is not lost. If the application stops before
+ * everything is written, the journal is replayed when it starts again ({@link #start(File)}); a record cut short by the stop is ignored,
+ * as are the lifters deleted in the meantime.
+ * </p>
+ * <p>
+ * As with merge ({@link org.hibernate.event.def.OverrideMergeEventListener}), the version is checked: the weigh-in and registration lists
+ * also merge lifters, and their changes must not be overwritten by the copy kept by the session data. A change carries the version of the
+ * lifter in memory; the writer remembers the version its own writes gave each lifter, since the lifter in memory does not see them. If the
+ * stored lifter has been changed by someone else since, the change is refused ({@link StaleObjectStateException}) and set aside as above,
+ * unless it holds the values already stored (a change replayed after being written).
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class LifterWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(LifterWriteBehind.class);
+
+    /** changes made within this delay are written together */
+    static final long FLUSH_DELAY_MS = 200;
+    /** wait before writing again after a failure */
+    private static final long RETRY_DELAY_MS = 5000;
+    /** when the application stops, wait this long for the writer to finish */
+    private static final long STOP_DELAY_MS = 10000;
+    /** the journal is rewritten with the changes not yet written when it grows beyond this */
+    private static final long MAX_JOURNAL_BYTES = 4 * 1024 * 1024;
+    /** larger records are taken to be damaged */
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+    private static final AtomicLong queued = Metrics.counter("lifters.writeBehind.queued"); //$NON-NLS-1$
+    private static final AtomicLong written = Metrics.counter("lifters.writeBehind.written"); //$NON-NLS-1$
+    private static final AtomicLong replayed = Metrics.counter("lifters.writeBehind.replayed"); //$NON-NLS-1$
+    private static final AtomicLong failures = Metrics.counter("lifters.writeBehind.failures"); //$NON-NLS-1$
+    private static final AtomicLong rejectedChanges = Metrics.counter("lifters.writeBehind.rejected"); //$NON-NLS-1$
+    private static final Histogram appendTimes = Metrics.histogram("lifters.writeBehind.append"); //$NON-NLS-1$
+    private static final Histogram flushTimes = Metrics.histogram("lifters.writeBehind.flush"); //$NON-NLS-1$
+
+    private static final Object lock = new Object();
+    /** latest change of each lifter not yet written, by id; guarded by lock */
+    private static final LinkedHashMap<Long, Change> pending = new LinkedHashMap<Long, Change>();
+    /** names of the lifters whose change was set aside, not yet reported; guarded by lock */
+    private static final List<String> rejected = new ArrayList<String>();
+    /**
+     * for each lifter written, the version of the lifter in memory and the version the write stored; guarded by lock
+     */
+    private static final Map<Long, long[]> ownVersions = new HashMap<Long, long[]>();
+    /** guarded by lock */
+    private static FileChannel journal = null;
+    /** guarded by lock */
+    private static boolean stopping = false;
+    private static Thread writer = null;
+    private static volatile boolean enabled = false;
+
+    /** persistent fields, except the id and the version */
+    private static final Map<String, Field> fields = copiedFields();
+
+    static {
+        Metrics.gauge("lifters.writeBehind.pending", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                synchronized (lock) {
+                    return pending.size();
+                }
+            }
+        });
+    }
+
+    private LifterWriteBehind() {
+    }
+
+    /**
+     * The persistent fields of a lifter, as they were when the change was made.
+     */
+    static final class Change implements Serializable {
+        private static final long serialVersionUID = 6113573627148350711L;
+
+        final Long id;
+        /** version of the lifter in memory; null in the records of older versions of the program */
+        final Long version;
+        final HashMap<String, Serializable> values;
+
+        Change(Long id, Long version, HashMap<String, Serializable> values) {
+            this.id = id;
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    /**
+     * A session, category or platform, kept as its id.
+     */
+    static final class EntityRef implements Serializable {
+        private static final long serialVersionUID = -2591744235137734428L;
+
+        final Class<?> type;
+        final Serializable id;
+
+        EntityRef(Class<?> type, Serializable id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "#" + id; //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Replay the changes left in the journal, and save the lifters in the background from now on.
+     *
+     * @param journalFile
+     *            created if needed
+     * @throws IOException
+     */
+    public static synchronized void start(File journalFile) throws IOException {
+        if (enabled) {
+            return;
+        }
+        final List<Change> left = read(journalFile);
+        synchronized (lock) {
+            for (Change change : left) {
+                pending.remove(change.id);
+                pending.put(change.id, change);
+            }
+            journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            // drops a record cut short.
+            rewrite();
+            stopping = false;
+        }
+        if (!left.isEmpty()) {
+            logger.info("replaying {} changes from {}", left.size(), journalFile); //$NON-NLS-1$
+            replayed.addAndGet(left.size());
+            flush();
+        }
+        writer = new Thread(new Writer(), "lifter-writer"); //$NON-NLS-1$
+        writer.setDaemon(true);
+        writer.start();
+        enabled = true;
+        logger.info("saving lifters in the background, journal {}", journalFile); //$NON-NLS-1$
+    }
+
+    /**
+     * Write what is left and stop. Called when the application stops, before the database is closed.
+     */
+    public static synchronized void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        synchronized (lock) {
+            stopping = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join(STOP_DELAY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            if (!pending.isEmpty()) {
+                logger.warn("{} lifters not saved, they will be on the next start", pending.size()); //$NON-NLS-1$
+                pending.clear();
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LoggerUtils.infoException(logger, e);
+            }
+            journal = null;
+        }
+        writer = null;
+        logger.debug("lifter writer stopped, written={}", written.get()); //$NON-NLS-1$
+    }
+
+    /**
+     * @return true if the lifters are saved in the background.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Keep the change in the journal, to be written in the background.
+     *
+     * @param object
+     * @return false if the object must be saved as usual: the lifters are not saved in the background, or it is not a lifter, or the
+     *         lifter has never been saved.
+     */
+    public static boolean save(Object object) {
+        if (!enabled || !(object instanceof Lifter) || ((Lifter) object).getId() == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        final Change change = copy((Lifter) object);
+        final byte[] record = record(change);
+        synchronized (lock) {
+            if (journal == null) {
+                return false;
+            }
+            try {
+                append(journal, record);
+            } catch (IOException e) {
+                // not kept: save as usual.
+                LoggerUtils.errorException(logger, e);
+                return false;
+            }
+            pending.remove(change.id);
+            pending.put(change.id, change);
+            lock.notifyAll();
+        }
+        queued.incrementAndGet();
+        appendTimes.recordSince(start);
+        return true;
+    }
+
+    /**
+     * @return the names of the lifters whose change could not be saved since the last call, so that the user can be told; empty if there
+     *         are none.
+     */
+    public static List<String> takeRejected() {
+        synchronized (lock) {
+            final List<String> names = new ArrayList<String>(rejected);
+            rejected.clear();
+            return names;
+        }
+    }
+
+    /**
+     * Write the pending changes.
+     *
+     * @return false if some could not be written because the database is unavailable; they are kept for the next time.
+     */
+    static boolean flush() {
+        final List<Change> batch;
+        synchronized (lock) {
+            batch = new ArrayList<Change>(pending.values());
+        }
+        if (batch.isEmpty()) {
+            return true;
+        }
+        final long start = System.nanoTime();
+        List<Change> done = batch;
+        try {
+            write(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            if (unavailable(e)) {
+                logger.error("could not save {} lifters, will try again: {}", batch.size(), e.toString()); //$NON-NLS-1$
+                LoggerUtils.debugException(logger, e);
+                return false;
+            }
+            logger.warn("could not save {} lifters together, saving them one by one: {}", batch.size(), e.toString()); //$NON-NLS-1$
+            LoggerUtils.debugException(logger, e);
+            done = writeEach(batch, e);
+        }
+        synchronized (lock) {
+            for (Change change : done) {
+                // a more recent change is written next time.
+                if (pending.get(change.id) == change) {
+                    pending.remove(change.id);
+                }
+            }
+            try {
+                if (journal != null && (pending.isEmpty() || journal.size() > MAX_JOURNAL_BYTES)) {
+                    rewrite();
+                }
+            } catch (IOException e) {
+                // replaying written changes again is harmless.
+                LoggerUtils.warnException(logger, e);
+            }
+        }
+        flushTimes.recordSince(start);
+        return done.size() == batch.size();
+    }
+
+    /**
+     * Write the changes one at a time, setting aside those that fail.
+     *
+     * @param batch
+     * @param batchFailure
+     *            why the changes could not be written together; reused when there is a single change.
+     * @return the changes written or set aside, in order; the others are kept because the database became unavailable.
+     */
+    private static List<Change> writeEach(List<Change> batch, RuntimeException batchFailure) {
+        final List<Change> done = new ArrayList<Change>();
+        for (Change change : batch) {
+            RuntimeException failure = batchFailure;
+            if (batch.size() > 1) {
+                try {
+                    write(Collections.singletonList(change));
+                    written.incrementAndGet();
+                    done.add(change);
+                    continue;
+                } catch (RuntimeException e) {
+                    if (unavailable(e)) {
+                        logger.error("could not save lifter {}, will try again: {}", change.id, e.toString()); //$NON-NLS-1$
+                        LoggerUtils.debugException(logger, e);
+                        break;
+                    }
+                    failure = e;
+                }
+            }
+            setAside(change, failure);
+            done.add(change);
+        }
+        return done;
+    }
+
+    /**
+     * Give up on a change that cannot be written, keeping the values in the log.
+     */
+    private static void setAside(Change change, RuntimeException e) {
+        rejectedChanges.incrementAndGet();
+        final String name = change.values.get("firstName") + " " + change.values.get("lastName"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        logger.error("lifter {} ({}) not saved, change set aside: {}, values {}", new Object[] { change.id, name, e.toString(), //$NON-NLS-1$
+                new TreeMap<String, Serializable>(change.values) });
+        LoggerUtils.debugException(logger, e);
+        synchronized (lock) {
+            rejected.add(name);
+        }
+    }
+
+    /**
+     * @return true if the database could not be reached, rather than refusing the change.
+     */
+    private static boolean unavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JDBCConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                final String state = ((SQLException) cause).getSQLState();
+                // class 08: connection exception.
+                if (state != null && state.startsWith("08")) { //$NON-NLS-1$
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void write(List<Change> batch) {
+        final Session session = WebApplicationConfiguration.getSessionFactory().openSession();
+        Transaction transaction = null;
+        try {
+            transaction = session.beginTransaction();
+            final Map<Change, Lifter> applied = new LinkedHashMap<Change, Lifter>();
+            for (Change change : batch) {
+                final Lifter lifter = (Lifter) session.get(Lifter.class, change.id);
+                if (lifter == null) {
+                    logger.info("lifter {} has been deleted, change not saved", change.id); //$NON-NLS-1$
+                    continue;
+                }
+                if (!isCurrent(change, lifter)) {
+                    if (sameValues(session, change, lifter)) {
+                        continue;
+                    }
+                    throw new StaleObjectStateException(Lifter.class.getName(), change.id);
+                }
+                apply(session, change, lifter);
+                applied.put(change, lifter);
+            }
+            session.flush();
+            transaction.commit();
+            synchronized (lock) {
+                for (Map.Entry<Change, Lifter> entry : applied.entrySet()) {
+                    final Change change = entry.getKey();
+                    if (change.version != null) {
+                        ownVersions.put(change.id, new long[] { change.version, entry.getValue().getVersion() });
+                    }
+                }
+            }
+            logger.debug("saved {} lifters", batch.size()); //$NON-NLS-1$
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * @return true if nobody else has changed the stored lifter since the lifter in memory was read.
+     */
+    private static boolean isCurrent(Change change, Lifter stored) {
+        if (change.version == null || change.version.equals(stored.getVersion())) {
+            return true;
+        }
+        synchronized (lock) {
+            final long[] own = ownVersions.get(change.id);
+            return own != null && own[0] == change.version && stored.getVersion() != null && own[1] == stored.getVersion();
+        }
+    }
+
+    /**
+     * @return true if the stored lifter already has the values of the change.
+     */
+    private static boolean sameValues(Session session, Change change, Lifter stored) {
+        try {
+            for (Map.Entry<String, Serializable> entry : change.values.entrySet()) {
+                final Field field = fields.get(entry.getKey());
+                if (field == null) {
+                    continue;
+                }
+                Object value = entry.getValue();
+                if (value instanceof EntityRef) {
+                    final EntityRef ref = (EntityRef) value;
+                    value = session.get(ref.type, ref.id);
+                }
+                final Object current = field.get(stored);
+                // a Timestamp read from the database is not equal to the Date it was written from, the other way round it is.
+                if (value != current && (value == null || current == null || !(value.equals(current) || current.equals(value)))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void apply(Session session, Change change, Lifter lifter) {
+        try {
+            for (Map.Entry<String, Serializable> entry : change.values.entrySet()) {
+                final Field field = fields.get(entry.getKey());
+                if (field == null) {
+                    continue; // from an older version of the program.
+                }
+                Object value = entry.getValue();
+                if (value instanceof EntityRef) {
+                    final EntityRef ref = (EntityRef) value;
+                    value = session.get(ref.type, ref.id);
+                    if (value == null) {
+                        logger.warn("lifter {}: {} {} has been deleted", new Object[] { change.id, ref.type.getSimpleName(), ref.id }); //$NON-NLS-1$
+                    }
+                }
+                field.set(lifter, value);
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        // as in OverrideMergeEventListener, the cached results were computed from the values just overwritten.
+        lifter.resetCachedResults();
+    }
+
+    private static Change copy(Lifter lifter) {
+        final HashMap<String, Serializable> values = new HashMap<String, Serializable>();
+        try {
+            for (Field field : fields.values()) {
+                values.put(field.getName(), value(field.get(lifter)));
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return new Change(lifter.getId(), lifter.getVersion(), values);
+    }
+
+    private static Serializable value(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof HibernateProxy) {
+            final HibernateProxy proxy = (HibernateProxy) value;
+            return new EntityRef(Hibernate.getClass(proxy), proxy.getHibernateLazyInitializer().getIdentifier());
+        }
+        final Class<?> type = value.getClass();
+        if (type.isAnnotationPresent(Entity.class)) {
+            final Serializable id = WebApplicationConfiguration.getSessionFactory().getClassMetadata(type)
+                    .getIdentifier(value, EntityMode.POJO);
+            return new EntityRef(type, id);
+        }
+        return (Serializable) value;
+    }
+
+    private static Map<String, Field> copiedFields() {
+        final Map<String, Field> copied = new HashMap<String, Field>();
+        for (Field field : LifterReadModel.persistentFields()) {
+            final String name = field.getName();
+            if (!"id".equals(name) && !"version".equals(name)) { //$NON-NLS-1$ //$NON-NLS-2$
+                copied.put(name, field);
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * @return the length, the checksum and the serialized change.
+     */
+    private static byte[] record(Change change) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(change);
+            out.close();
+            final byte[] serialized = bytes.toByteArray();
+            final CRC32 crc = new CRC32();
+            crc.update(serialized);
+            final ByteBuffer record = ByteBuffer.allocate(4 + 8 + serialized.length);
+            record.putInt(serialized.length);
+            record.putLong(crc.getValue());
+            record.put(serialized);
+            return record.array();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** guarded by lock when channel is the journal */
+    private static void append(FileChannel channel, byte[] record) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Append the change of a lifter to a journal, as {@link #save(Object)} does, without writing it to the database: the change is
+     * written when the journal is replayed by {@link #start(File)}. Used by the tests, to build a journal as a stop would leave it.
+     *
+     * @param journalFile
+     *            created if needed; must not be the journal in use.
+     * @param lifter
+     *            a lifter already saved
+     * @throws IOException
+     */
+    static void journal(File journalFile, Lifter lifter) throws IOException {
+        if (enabled) {
+            throw new IllegalStateException("the lifters are already saved in the background"); //$NON-NLS-1$
+        }
+        final FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            append(channel, record(copy(lifter)));
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Keep only the changes not yet written. Guarded by lock.
+     *
+     * @throws IOException
+     */
+    private static void rewrite() throws IOException {
+        journal.truncate(0);
+        for (Change change : pending.values()) {
+            final ByteBuffer buffer = ByteBuffer.wrap(record(change));
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+        }
+        journal.force(false);
+    }
+
+    /**
+     * @param journalFile
+     * @return the changes in the journal, in the order they were made, up to the first damaged record.
+     * @throws IOException
+     */
+    static List<Change> read(File journalFile) throws IOException {
+        final List<Change> changes = new ArrayList<Change>();
+        if (!journalFile.exists()) {
+            return changes;
+        }
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+        try {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    logger.warn("damaged record after {} changes in {}", changes.size(), journalFile); //$NON-NLS-1$
+                    break;
+                }
+                final byte[] serialized = new byte[length];
+                try {
+                    final long checksum = in.readLong();
+                    in.readFully(serialized);
+                    final CRC32 crc = new CRC32();
+                    crc.update(serialized);
+                    if (crc.getValue() != checksum) {
+                        logger.warn("damaged record after {} changes in {}", changes.size(), journalFile); //$NON-NLS-1$
+                        break;
+                    }
+                } catch (EOFException e) {
+                    logger.warn("incomplete record after {} changes in {}", changes.size(), journalFile); //$NON-NLS-1$
+                    break;
+                }
+                final ObjectInputStream object = new ObjectInputStream(new ByteArrayInputStream(serialized));
+                try {
+                    changes.add((Change) object.readObject());
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                } finally {
+                    object.close();
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the pending changes, after waiting a little for others.
+     */
+    private static final class Writer implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                boolean stop;
+                synchronized (lock) {
+                    while (pending.isEmpty() && !stopping) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    stop = stopping;
+                }
+                if (!stop && !sleep(FLUSH_DELAY_MS)) {
+                    return;
+                }
+                if (!flush()) {
+                    // kept in the journal for the next start.
+                    if (stop || !sleep(RETRY_DELAY_MS)) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@
 package org.concordiainternational.competition.data;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -121,26 +122,42 @@ public class Platform implements Serializable {
     static private TreeMap<String,Platform> platformMap = null;
     static private List<Platform> platformList = null;
 
+    /**
+     * @return the platforms, as last loaded from the database.
+     */
+    static public synchronized List<Platform> getAll() {
+        if (platformList == null) {
+            reload();
+        }
+        return new ArrayList<Platform>(platformList);
+    }
+
+    /**
+     * Load the platforms from the database. Called when the platforms are edited, see {@link ReferenceData#platformsChanged()}.
+     */
     @SuppressWarnings("unchecked")
-    static public List<Platform> getAll() {
+    static public synchronized void reload() {
         platformList = CompetitionApplication.getCurrent().getHbnSession().createCriteria(Platform.class).addOrder(
                 Order.asc("name")) //$NON-NLS-1$
+                .setCacheable(true).setCacheRegion(ReferenceData.CACHE_REGION)
                 .list();
         platformMap = new TreeMap<String,Platform>();
         for (Platform p : platformList) {
             logger.debug("adding {} {} {}",p.getName(),p.getMixerName(), System.identityHashCode(p));
             platformMap.put(p.getName(),p);
         }
-        return platformList;
     }
 
-    public static TreeMap<String, Platform> getPlatformMap() {
+    public static synchronized TreeMap<String, Platform> getPlatformMap() {
+        if (platformMap == null) {
+            reload();
+        }
         return platformMap;
     }
 
-    static public Platform getByName(String name) {
+    static public synchronized Platform getByName(String name) {
         if (platformList == null) {
-            getAll();
+            reload();
         }
         final Platform platform = platformMap.get(name);
         String mixerName2 = null;
@@ -152,8 +169,11 @@ public class Platform implements Serializable {
         return platform;
     }
 
-    public static int getSize() {
-        return getAll().size();
+    public static synchronized int getSize() {
+        if (platformList == null) {
+            reload();
+        }
+        return platformList.size();
     }
 
     @Override
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data;
+
+import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Competition, platforms and categories are read on every board update and screen refresh, but only change when an editor is used.
+ * <p>
+ * Queries on them are cached in the {@link #CACHE_REGION} region of the Hibernate query cache (the entities themselves are in the second
+ * level cache), and the platforms and active categories are also kept in memory by {@link Platform} and {@link CategoryLookup}. The
+ * editors call the methods below after saving, so the cached copies are only reloaded when something actually changed.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class ReferenceData {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceData.class);
+
+    /**
+     * Query cache region for the reference data; see ehcache.xml.
+     */
+    public static final String CACHE_REGION = "referenceData"; //$NON-NLS-1$
+
+    private ReferenceData() {
+    }
+
+    /**
+     * The competition information has been edited or imported.
+     */
+    public static void competitionChanged() {
+        logger.debug("competition changed"); //$NON-NLS-1$
+        evict(Competition.class);
+        Competition.clearCache();
+    }
+
+    /**
+     * Platforms have been added, removed or edited.
+     */
+    public static void platformsChanged() {
+        logger.debug("platforms changed"); //$NON-NLS-1$
+        evict(Platform.class);
+        Platform.reload();
+    }
+
+    /**
+     * Categories have been added, removed or edited.
+     */
+    public static void categoriesChanged() {
+        logger.debug("categories changed"); //$NON-NLS-1$
+        evict(Category.class);
+        CategoryLookup.getSharedInstance().reload();
+    }
+
+    private static void evict(Class<?> entityClass) {
+        final CompetitionApplication current = CompetitionApplication.getCurrent();
+        if (current == null) {
+            return;
+        }
+        final Session hbnSession = current.getHbnSession();
+        final SessionFactory sessionFactory = hbnSession.getSessionFactory();
+        sessionFactory.evictQueries(CACHE_REGION);
+        sessionFactory.evict(entityClass);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data.lifterSort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSortKeys.CategoryColumns;
+import org.concordiainternational.competition.data.lifterSort.LifterSortKeys.WinningOrderKeys;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * All the rankings needed for the competition book, computed together.
+ * <p>
+ * The individual rankings (snatch, clean and jerk, total, Sinclair, custom) are computed first, since the team rankings rely on the points
+ * they assign. Every ranking is sorted from the same starting list, so ties are resolved exactly as separate calls to
+ * {@link LifterSorter#resultsOrderCopy(List, Ranking)} and {@link LifterSorter#teamRankingOrderCopy(List, Ranking)} would. The category
+ * columns of the sort keys are shared between the individual rankings.
+ * </p>
+ * <p>
+ * Each ranking still has its own sort: the orders cannot be derived from one another. The individual rankings do not group the lifters
+ * the same way (categories or registration categories depending on the ranking and the configuration, age groups for masters, gender only
+ * for Sinclair), and within a group they are ordered by a different result, each with its own tie-breaks; the team rankings group by team
+ * and depend on the points just assigned. What is shared is done once: the copy of the lifters, the gender split, the club list and the
+ * category columns of the sort keys.
+ * </p>
+ * <p>
+ * The lists returned are unmodifiable and can be shared by the report beans.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class CompetitionRankings {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompetitionRankings.class);
+
+    private static final Ranking[] INDIVIDUAL_RANKINGS = { Ranking.SNATCH, Ranking.CLEANJERK, Ranking.TOTAL, Ranking.SINCLAIR,
+            Ranking.CUSTOM };
+
+    private final List<Lifter> lifters;
+    private final List<Lifter> men;
+    private final List<Lifter> women;
+    private final SortedSet<String> clubs;
+
+    private final Map<Ranking, GenderSplit> results = new EnumMap<Ranking, GenderSplit>(Ranking.class);
+    private final Map<Ranking, GenderSplit> teamResults = new EnumMap<Ranking, GenderSplit>(Ranking.class);
+
+    /**
+     * Compute all rankings and points. Ranks and points are stored in the lifters.
+     *
+     * @param lifters
+     *            the lifters to rank; the list itself is not modified.
+     */
+    public CompetitionRankings(List<Lifter> lifters) {
+        final long start = System.currentTimeMillis();
+        this.lifters = Collections.unmodifiableList(new ArrayList<Lifter>(lifters));
+
+        final TreeSet<String> clubSet = new TreeSet<String>();
+        final List<Lifter> menList = new ArrayList<Lifter>(lifters.size());
+        final List<Lifter> womenList = new ArrayList<Lifter>(lifters.size());
+        for (Lifter curLifter : lifters) {
+            final String club = curLifter.getClub();
+            if (club != null) {
+                clubSet.add(club);
+            }
+            if (isMale(curLifter)) {
+                menList.add(curLifter);
+            } else {
+                womenList.add(curLifter);
+            }
+        }
+        this.clubs = Collections.unmodifiableSortedSet(clubSet);
+        this.men = Collections.unmodifiableList(menList);
+        this.women = Collections.unmodifiableList(womenList);
+
+        // individual rankings; the category columns are the same for all of them.
+        final CategoryColumns categoryColumns = new CategoryColumns();
+        for (Ranking rankingType : INDIVIDUAL_RANKINGS) {
+            final List<Lifter> sorted = new ArrayList<Lifter>(lifters);
+            if (LifterSorter.isSortKeys()) {
+                LifterSortKeys.sort(sorted, new WinningOrderKeys(rankingType, categoryColumns));
+            } else {
+                Collections.sort(sorted, new WinningOrderComparator(rankingType));
+            }
+            LifterSorter.assignResultOrderRanks(sorted, rankingType);
+            if (rankingType == Ranking.SINCLAIR) {
+                LifterSorter.assignSinclairRanksAndPoints(sorted, rankingType);
+            } else {
+                LifterSorter.assignCategoryRanks(sorted, rankingType);
+            }
+            results.put(rankingType, new GenderSplit(sorted));
+        }
+
+        // team rankings put the lifters from the same team together, best first, so that the top "n" can be given points.
+        // The total ranking starts from the combined one, so combined points break ties.
+        teamResults.put(Ranking.CUSTOM, new GenderSplit(LifterSorter.teamRankingOrderCopy(lifters, Ranking.CUSTOM)));
+        final List<Lifter> combined = LifterSorter.teamRankingOrderCopy(lifters, Ranking.COMBINED);
+        teamResults.put(Ranking.COMBINED, new GenderSplit(combined));
+        teamResults.put(Ranking.TOTAL, new GenderSplit(LifterSorter.teamRankingOrderCopy(combined, Ranking.TOTAL)));
+
+        logger.debug("rankings for {} lifters computed in {} ms", lifters.size(), System.currentTimeMillis() - start); //$NON-NLS-1$
+    }
+
+    /**
+     * @return all lifters, in the order given to the constructor.
+     */
+    public List<Lifter> getLifters() {
+        return lifters;
+    }
+
+    public List<Lifter> getMen() {
+        return men;
+    }
+
+    public List<Lifter> getWomen() {
+        return women;
+    }
+
+    /**
+     * @return the clubs of all lifters, in alphabetical order.
+     */
+    public SortedSet<String> getClubs() {
+        return clubs;
+    }
+
+    /**
+     * @param rankingType
+     *            SNATCH, CLEANJERK, TOTAL, SINCLAIR or CUSTOM
+     * @return all lifters, in winning order
+     */
+    public List<Lifter> getResults(Ranking rankingType) {
+        return split(results, rankingType).all;
+    }
+
+    public List<Lifter> getMenResults(Ranking rankingType) {
+        return split(results, rankingType).men;
+    }
+
+    public List<Lifter> getWomenResults(Ranking rankingType) {
+        return split(results, rankingType).women;
+    }
+
+    /**
+     * @param rankingType
+     *            CUSTOM, COMBINED or TOTAL
+     * @return all lifters, grouped by team in points order
+     */
+    public List<Lifter> getTeamResults(Ranking rankingType) {
+        return split(teamResults, rankingType).all;
+    }
+
+    public List<Lifter> getMenTeamResults(Ranking rankingType) {
+        return split(teamResults, rankingType).men;
+    }
+
+    public List<Lifter> getWomenTeamResults(Ranking rankingType) {
+        return split(teamResults, rankingType).women;
+    }
+
+    private static GenderSplit split(Map<Ranking, GenderSplit> splits, Ranking rankingType) {
+        final GenderSplit split = splits.get(rankingType);
+        if (split == null) {
+            throw new IllegalArgumentException("ranking not computed: " + rankingType); //$NON-NLS-1$
+        }
+        return split;
+    }
+
+    private static boolean isMale(Lifter lifter) {
+        return "m".equalsIgnoreCase(lifter.getGender()); //$NON-NLS-1$
+    }
+
+    /**
+     * A sorted list and its men and women sublists, in the same order.
+     */
+    private static class GenderSplit {
+        final List<Lifter> all;
+        final List<Lifter> men;
+        final List<Lifter> women;
+
+        GenderSplit(List<Lifter> sorted) {
+            final List<Lifter> menList = new ArrayList<Lifter>(sorted.size());
+            final List<Lifter> womenList = new ArrayList<Lifter>(sorted.size());
+            for (Lifter curLifter : sorted) {
+                if (isMale(curLifter)) {
+                    menList.add(curLifter);
+                } else {
+                    womenList.add(curLifter);
+                }
+            }
+            this.all = Collections.unmodifiableList(sorted);
+            this.men = Collections.unmodifiableList(menList);
+            this.women = Collections.unmodifiableList(womenList);
+        }
+    }
+}
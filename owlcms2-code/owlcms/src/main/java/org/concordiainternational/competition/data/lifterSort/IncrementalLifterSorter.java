@@ -0,0 +1,284 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data.lifterSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the lifting, display, result and lift-time orders of a session sorted.
+ * <p>
+ * All the comparators used for these orders only look at the two lifters being compared. When a single lifter changes, the lists are
+ * therefore still sorted once that lifter has been taken out, and it is put back with a binary search instead of n log n comparisons.
+ * </p>
+ * <p>
+ * The orders used to be obtained by a stable sort of the lifters in their previous lifting order, so lifters that compare equal are
+ * left in that order. Since the previous lifting order of two tied lifters can differ from their place in the list being updated, each
+ * run of tied lifters is put back in the previous lifting order after the changed lifters have been inserted, which takes one comparison
+ * per lifter.
+ * </p>
+ * <p>
+ * The lifting order is sorted in place, since the session's list of lifters is the lifting order. The other orders are kept internally
+ * and handed out as copies, because JSPs and other sessions may still be iterating over the previously published lists.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class IncrementalLifterSorter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalLifterSorter.class);
+
+    /**
+     * When true, every incremental update is checked against a full sort. Meant for tests.
+     */
+    private static boolean consistencyCheck = false;
+
+    private final Comparator<Lifter> liftOrderComparator = new LiftOrderComparator();
+    private final Comparator<Lifter> displayOrderComparator = new DisplayOrderComparator();
+    private final Comparator<Lifter> resultOrderComparator = new WinningOrderComparator(Ranking.TOTAL);
+    private final Comparator<Lifter> liftTimeComparator = new LiftTimeStampComparator();
+
+    private List<Lifter> liftingOrder = null;
+    private final List<Lifter> displayOrder = new ArrayList<Lifter>();
+    private final List<Lifter> resultOrder = new ArrayList<Lifter>();
+    private final List<Lifter> liftTimeOrder = new ArrayList<Lifter>();
+
+    /**
+     * Lifters whose sort key changed without an update event (e.g. the "forced as current" flag being reset by
+     * {@link LifterSorter#markCurrentLifter(List)}); they are repositioned on the next update.
+     */
+    private final List<Lifter> pending = new ArrayList<Lifter>();
+
+    /**
+     * Sort all the orders from scratch.
+     *
+     * @param lifters
+     *            the session's lifters, sorted in place in lifting order.
+     */
+    public void sortAll(List<Lifter> lifters) {
+        liftingOrder = lifters;
+        // the other orders are sorted from the previous lifting order.
+        resetCopy(displayOrder, lifters);
+        LifterSorter.displayOrder(displayOrder);
+        resetCopy(resultOrder, lifters);
+        if (LifterSorter.isSortKeys()) {
+            LifterSortKeys.resultsOrder(resultOrder, Ranking.TOTAL);
+        } else {
+            Collections.sort(resultOrder, resultOrderComparator);
+        }
+        resetCopy(liftTimeOrder, lifters);
+        Collections.sort(liftTimeOrder, liftTimeComparator);
+        if (LifterSorter.isSortKeys()) {
+            LifterSortKeys.liftingOrder(liftingOrder);
+        } else {
+            Collections.sort(liftingOrder, liftOrderComparator);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Reposition the lifter that changed, falling back to a full sort when the list is not the one we are tracking or the lifter is
+     * unknown.
+     *
+     * @param lifters
+     *            the session's lifters, sorted in place in lifting order.
+     * @param updatedLifter
+     *            the lifter that changed, null if unknown.
+     * @return true if the update was done incrementally.
+     */
+    public boolean update(List<Lifter> lifters, Lifter updatedLifter) {
+        if (updatedLifter == null || lifters != liftingOrder || lifters.size() != displayOrder.size()) {
+            sortAll(lifters);
+            return false;
+        }
+        if (!pending.contains(updatedLifter)) {
+            pending.add(updatedLifter);
+        }
+        final List<Lifter> previousLiftingOrder = new ArrayList<Lifter>(liftingOrder);
+        final Map<Lifter, Integer> previousRanks = new IdentityHashMap<Lifter, Integer>();
+        for (int i = 0; i < previousLiftingOrder.size(); i++) {
+            previousRanks.put(previousLiftingOrder.get(i), i);
+        }
+        if (!reposition(liftingOrder, pending, liftOrderComparator, previousRanks)
+                || !reposition(displayOrder, pending, displayOrderComparator, previousRanks)
+                || !reposition(resultOrder, pending, resultOrderComparator, previousRanks)
+                || !reposition(liftTimeOrder, pending, liftTimeComparator, previousRanks)) {
+            logger.debug("{} not found, sorting all lifters", pending); //$NON-NLS-1$
+            sortAll(lifters);
+            return false;
+        }
+        pending.clear();
+
+        if (consistencyCheck) {
+            checkConsistency(previousLiftingOrder);
+        }
+        return true;
+    }
+
+    /**
+     * Remember that a lifter's sort key changed outside of the usual update events.
+     *
+     * @param lifter
+     */
+    public void markPending(Lifter lifter) {
+        if (lifter != null && !pending.contains(lifter)) {
+            pending.add(lifter);
+        }
+    }
+
+    /**
+     * @return a new list, in display order
+     */
+    public List<Lifter> displayOrderCopy() {
+        return new ArrayList<Lifter>(displayOrder);
+    }
+
+    /**
+     * @return a new list, in result order for the total
+     */
+    public List<Lifter> resultOrderCopy() {
+        return new ArrayList<Lifter>(resultOrder);
+    }
+
+    /**
+     * @return a new list, most recent lifter first
+     */
+    public List<Lifter> liftTimeOrderCopy() {
+        return new ArrayList<Lifter>(liftTimeOrder);
+    }
+
+    /**
+     * Compare every order with what a full sort of the previous lifting order would give.
+     *
+     * @param previousLiftingOrder
+     *            the lifting order before the last update
+     * @throws IllegalStateException
+     *             if an order differs
+     */
+    public void checkConsistency(List<Lifter> previousLiftingOrder) {
+        checkOrder("lifting", liftingOrder, previousLiftingOrder, liftOrderComparator); //$NON-NLS-1$
+        checkOrder("display", displayOrder, previousLiftingOrder, displayOrderComparator); //$NON-NLS-1$
+        checkOrder("result", resultOrder, previousLiftingOrder, resultOrderComparator); //$NON-NLS-1$
+        checkOrder("liftTime", liftTimeOrder, previousLiftingOrder, liftTimeComparator); //$NON-NLS-1$
+    }
+
+    public static boolean isConsistencyCheck() {
+        return consistencyCheck;
+    }
+
+    public static void setConsistencyCheck(boolean consistencyCheck) {
+        IncrementalLifterSorter.consistencyCheck = consistencyCheck;
+    }
+
+    private void checkOrder(String orderName, List<Lifter> order, List<Lifter> previousLiftingOrder, Comparator<Lifter> comparator) {
+        List<Lifter> expected = new ArrayList<Lifter>(previousLiftingOrder);
+        Collections.sort(expected, comparator);
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) != order.get(i)) {
+                throw new IllegalStateException(orderName + " order differs from full sort at position " + i + ": " //$NON-NLS-1$ //$NON-NLS-2$
+                        + order.get(i) + " instead of " + expected.get(i)); //$NON-NLS-1$
+            }
+        }
+    }
+
+    private static void resetCopy(List<Lifter> order, List<Lifter> lifters) {
+        order.clear();
+        order.addAll(lifters);
+    }
+
+    /**
+     * Take the changed lifters out, binary-search their new positions, then put the tied lifters in their previous lifting order, as
+     * Collections.sort (which is stable) of the previous lifting order would leave them.
+     *
+     * @return false if one of the lifters is not in the list.
+     */
+    private static boolean reposition(List<Lifter> order, List<Lifter> changed, Comparator<Lifter> comparator,
+            Map<Lifter, Integer> previousRanks) {
+        final int nbChanged = changed.size();
+        final int[] from = new int[nbChanged];
+        for (int i = 0; i < nbChanged; i++) {
+            from[i] = indexOf(order, changed.get(i));
+            if (from[i] < 0) {
+                return false;
+            }
+        }
+        // remove from the end so the other indexes stay valid.
+        Arrays.sort(from);
+        for (int i = nbChanged - 1; i >= 0; i--) {
+            order.remove(from[i]);
+        }
+        for (Lifter lifter : changed) {
+            insert(order, lifter, comparator);
+        }
+        orderTies(order, comparator, previousRanks);
+        return true;
+    }
+
+    /**
+     * Insert after the lifters that compare equal.
+     */
+    private static void insert(List<Lifter> order, Lifter lifter, Comparator<Lifter> comparator) {
+        int lo = 0;
+        int hi = order.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(order.get(mid), lifter) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        order.add(lo, lifter);
+    }
+
+    /**
+     * Put each run of lifters that compare equal in their previous lifting order.
+     */
+    private static void orderTies(List<Lifter> order, Comparator<Lifter> comparator, final Map<Lifter, Integer> previousRanks) {
+        final Comparator<Lifter> previousLiftingOrder = new Comparator<Lifter>() {
+            @Override
+            public int compare(Lifter lifter1, Lifter lifter2) {
+                return previousRanks.get(lifter1).compareTo(previousRanks.get(lifter2));
+            }
+        };
+        final int size = order.size();
+        int runStart = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || comparator.compare(order.get(i - 1), order.get(i)) != 0) {
+                if (i - runStart > 1) {
+                    Collections.sort(order.subList(runStart, i), previousLiftingOrder);
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    /**
+     * The same lifter can be present as two objects that are equals() but not ==, so we look for identity.
+     */
+    private static int indexOf(List<Lifter> order, Lifter lifter) {
+        final int size = order.size();
+        for (int i = 0; i < size; i++) {
+            if (order.get(i) == lifter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data.lifterSort;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.concordiainternational.competition.data.Category;
+import org.concordiainternational.competition.data.Competition;
+import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+
+/**
+ * Sorts lifters on precomputed keys instead of comparators.
+ * <p>
+ * Each lifter is turned once into a row of longs that collates exactly like the corresponding comparator ({@link LiftOrderComparator},
+ * {@link DisplayOrderComparator}, {@link WinningOrderComparator}, {@link TeamRankingComparator}). The getters, the category prefix regular
+ * expression and the configuration flags are therefore evaluated n times instead of n log n times, and the sort itself only compares
+ * primitive values. Strings are replaced by their rank among the distinct values present in the list being sorted.
+ * </p>
+ * <p>
+ * The sort is stable, like Collections.sort, so lifters that compare equal keep their relative order. Where a comparator would throw a
+ * NullPointerException (e.g. a category without a maximum weight), missing values collate first.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class LifterSortKeys {
+
+    private static final long NULL_FIRST = Long.MIN_VALUE;
+    private static final long NULL_LAST = Long.MAX_VALUE;
+
+    private LifterSortKeys() {
+    }
+
+    /**
+     * @see LiftOrderComparator
+     */
+    public static void liftingOrder(List<Lifter> toBeSorted) {
+        sort(toBeSorted, new LiftOrderKeys());
+    }
+
+    /**
+     * @see DisplayOrderComparator
+     */
+    public static void displayOrder(List<Lifter> toBeSorted) {
+        sort(toBeSorted, new DisplayOrderKeys());
+    }
+
+    /**
+     * @see WinningOrderComparator
+     */
+    public static void resultsOrder(List<Lifter> toBeSorted, Ranking rankingType) {
+        sort(toBeSorted, new WinningOrderKeys(rankingType));
+    }
+
+    /**
+     * @see TeamRankingComparator
+     */
+    public static void teamRankingOrder(List<Lifter> toBeSorted, Ranking rankingType) {
+        sort(toBeSorted, new TeamRankingKeys(rankingType));
+    }
+
+    static void sort(List<Lifter> toBeSorted, KeyExtractor extractor) {
+        final int size = toBeSorted.size();
+        if (size < 2) {
+            return;
+        }
+        final int width = extractor.width();
+        final Key[] keys = new Key[size];
+        int i = 0;
+        for (Lifter lifter : toBeSorted) {
+            final Key key = new Key(lifter, width);
+            extractor.extract(lifter, key);
+            keys[i++] = key;
+        }
+        rankTexts(keys, width);
+
+        // stable, same as Collections.sort
+        Arrays.sort(keys);
+
+        final ListIterator<Lifter> iterator = toBeSorted.listIterator();
+        for (Key key : keys) {
+            iterator.next();
+            iterator.set(key.lifter);
+        }
+    }
+
+    /**
+     * Replace the strings by their rank in natural order, so that comparing ranks is the same as comparing the strings.
+     */
+    private static void rankTexts(Key[] keys, int width) {
+        for (int column = 0; column < width; column++) {
+            Map<String, Long> ranks = null;
+            for (Key key : keys) {
+                final String text = key.texts[column];
+                if (text != null) {
+                    if (ranks == null) {
+                        ranks = new HashMap<String, Long>();
+                    }
+                    ranks.put(text, null);
+                }
+            }
+            if (ranks == null) {
+                continue;
+            }
+            final String[] distinct = ranks.keySet().toArray(new String[ranks.size()]);
+            Arrays.sort(distinct);
+            for (int rank = 0; rank < distinct.length; rank++) {
+                ranks.put(distinct[rank], (long) rank);
+            }
+            for (Key key : keys) {
+                final String text = key.texts[column];
+                if (text != null) {
+                    key.values[column] = ranks.get(text);
+                }
+            }
+        }
+    }
+
+    /**
+     * A lifter and its sort key.
+     */
+    static final class Key implements Comparable<Key> {
+        final Lifter lifter;
+        final long[] values;
+        final String[] texts;
+
+        Key(Lifter lifter, int width) {
+            this.lifter = lifter;
+            this.values = new long[width];
+            this.texts = new String[width];
+        }
+
+        void number(int column, long value) {
+            values[column] = value;
+        }
+
+        /**
+         * null collates first.
+         */
+        void number(int column, Integer value) {
+            values[column] = (value == null ? NULL_FIRST : value.longValue());
+        }
+
+        /**
+         * null collates first.
+         */
+        void decimal(int column, Double value) {
+            values[column] = (value == null ? NULL_FIRST : order(value));
+        }
+
+        /**
+         * null collates first; other values are ranked once all keys are known.
+         */
+        void text(int column, String value) {
+            texts[column] = value;
+            values[column] = (value == null ? NULL_FIRST : 0L);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            final long[] otherValues = other.values;
+            for (int i = 0; i < values.length; i++) {
+                final long value = values[i];
+                final long otherValue = otherValues[i];
+                if (value != otherValue) {
+                    return (value < otherValue ? -1 : 1);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Computes the key for one ordering. Flags are read when the extractor is created, once per sort.
+     */
+    abstract static class KeyExtractor {
+        abstract int width();
+
+        abstract void extract(Lifter lifter, Key key);
+    }
+
+    /**
+     * @return a long that sorts like {@link Double#compareTo(Double)}
+     */
+    static long order(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the value in reverse order, null last.
+     */
+    static long descending(Integer value) {
+        return (value == null ? NULL_LAST : ~value.longValue());
+    }
+
+    static long descending(double value) {
+        return ~order(value);
+    }
+
+    /**
+     * Four columns: presence, gender, name prefix (registration categories only), maximum weight.
+     *
+     * @see AbstractLifterComparator#compareCategory(Lifter, Lifter)
+     * @see AbstractLifterComparator#compareRegistrationCategory(Lifter, Lifter)
+     */
+    static final class CategoryColumns {
+        static final int WIDTH = 4;
+
+        private final boolean useRegistrationCategory;
+        private final Map<String, String> prefixes = new HashMap<String, String>();
+
+        CategoryColumns() {
+            useRegistrationCategory = WebApplicationConfiguration.isUseRegistrationCategory();
+        }
+
+        void extract(Lifter lifter, Key key, int column) {
+            final Category category = (useRegistrationCategory ? lifter.getRegistrationCategory() : lifter.getCategory());
+            if (category == null) {
+                key.number(column, NULL_FIRST);
+                return;
+            }
+            key.number(column, 0L);
+            key.text(column + 1, lifter.getGender());
+            if (useRegistrationCategory) {
+                key.text(column + 2, prefix(category.getName()));
+            }
+            key.decimal(column + 3, category.getMaximumWeight());
+        }
+
+        private String prefix(String categoryName) {
+            if (categoryName == null) {
+                return null;
+            }
+            String prefix = prefixes.get(categoryName);
+            if (prefix == null) {
+                prefix = AbstractLifterComparator.getCategoryPrefix(categoryName);
+                prefixes.put(categoryName, prefix);
+            }
+            return prefix;
+        }
+    }
+
+    /**
+     * @see WinningOrderComparator
+     */
+    static long competitionSessionTime(Lifter lifter) {
+        final CompetitionSession session = lifter.getCompetitionSession();
+        if (session == null) {
+            return NULL_FIRST;
+        }
+        final Date competitionTime = session.getCompetitionTime();
+        if (competitionTime == null) {
+            return NULL_FIRST + 1;
+        }
+        return competitionTime.getTime();
+    }
+
+    /**
+     * One column per attempt, from the sixth down to the first (or fourth, if excluding snatch).
+     *
+     * @see AbstractLifterComparator#comparePreviousAttempts(int, boolean, Lifter, Lifter)
+     */
+    static int previousAttempts(Lifter lifter, Key key, int column, int startingFrom, boolean excludeSnatch) {
+        final int last = (excludeSnatch ? 4 : 1);
+        for (int attempt = 6; attempt >= last; attempt--) {
+            key.number(column++, (startingFrom >= attempt ? attempted(lifter, attempt) : 0L));
+        }
+        return column;
+    }
+
+    /**
+     * @return absolute value of the actual lift, 0 if none.
+     */
+    static int attempted(Lifter lifter, int attempt) {
+        String actualLift;
+        switch (attempt) {
+        case 1:
+            actualLift = lifter.getSnatch1ActualLift();
+            break;
+        case 2:
+            actualLift = lifter.getSnatch2ActualLift();
+            break;
+        case 3:
+            actualLift = lifter.getSnatch3ActualLift();
+            break;
+        case 4:
+            actualLift = lifter.getCleanJerk1ActualLift();
+            break;
+        case 5:
+            actualLift = lifter.getCleanJerk2ActualLift();
+            break;
+        case 6:
+            actualLift = lifter.getCleanJerk3ActualLift();
+            break;
+        default:
+            return 0;
+        }
+        return Math.abs(Lifter.zeroIfInvalid(actualLift));
+    }
+
+    /**
+     * @see LiftOrderComparator
+     */
+    static final class LiftOrderKeys extends KeyExtractor {
+
+        @Override
+        int width() {
+            return 10;
+        }
+
+        @Override
+        void extract(Lifter lifter, Key key) {
+            final int attemptsDone = lifter.getAttemptsDone();
+            final boolean done = attemptsDone >= 6;
+
+            key.number(0, lifter.getForcedAsCurrent() ? 0L : 1L);
+            // lifters who are done go last, in descending total
+            key.number(1, done ? 1L : 0L);
+            key.number(2, done ? ~lifter.getTotal().longValue() : 0L);
+            key.number(3, attemptsDone < 3 ? 0L : 1L);
+            key.number(4, lifter.getLotNumber());
+            key.number(5, attemptsDone);
+            key.number(6, lifter.getStartNumber());
+
+            Integer requested = lifter.getNextAttemptRequestedWeight();
+            if (requested == null || requested == 0) {
+                requested = 999;
+            }
+            key.number(7, requested);
+
+            // progression: smaller previous attempts were lifted first
+            final int currentTry = attemptsDone + 1;
+            if (currentTry > 3) {
+                if (currentTry == 6) {
+                    key.number(8, attempted(lifter, 5));
+                    key.number(9, attempted(lifter, 4));
+                } else if (currentTry >= 5) {
+                    key.number(8, attempted(lifter, 4));
+                }
+            } else {
+                if (currentTry == 3) {
+                    key.number(8, attempted(lifter, 2));
+                    key.number(9, attempted(lifter, 1));
+                } else if (currentTry >= 2) {
+                    key.number(8, attempted(lifter, 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * @see DisplayOrderComparator
+     */
+    static final class DisplayOrderKeys extends KeyExtractor {
+        private final boolean masters = Competition.isMasters();
+        private final CategoryColumns category = new CategoryColumns();
+
+        @Override
+        int width() {
+            return 4 + CategoryColumns.WIDTH;
+        }
+
+        @Override
+        void extract(Lifter lifter, Key key) {
+            if (masters) {
+                key.number(0, descending(lifter.getAgeGroup()));
+            }
+            category.extract(lifter, key, 1);
+            int column = 1 + CategoryColumns.WIDTH;
+            key.number(column++, lifter.getLotNumber());
+            key.text(column++, lifter.getLastName());
+            key.text(column++, lifter.getFirstName());
+        }
+    }
+
+    /**
+     * @see WinningOrderComparator
+     */
+    static final class WinningOrderKeys extends KeyExtractor {
+        private static final int TIE_BREAK_WIDTH = 8;
+
+        private final Ranking rankingType;
+        private final boolean masters = Competition.isMasters();
+        private final boolean useCategorySinclair = WebApplicationConfiguration.isUseCategorySinclair();
+        private final boolean bodyWeightTieBreak = WebApplicationConfiguration.isUseOldBodyWeightTieBreak();
+        private final CategoryColumns category;
+
+        WinningOrderKeys(Ranking rankingType) {
+            this(rankingType, new CategoryColumns());
+        }
+
+        /**
+         * @param category
+         *            shared between orderings so category prefixes are only computed once.
+         */
+        WinningOrderKeys(Ranking rankingType, CategoryColumns category) {
+            this.rankingType = rankingType;
+            this.category = category;
+        }
+
+        @Override
+        int width() {
+            switch (rankingType) {
+            case SNATCH:
+                return CategoryColumns.WIDTH + 11;
+            case CLEANJERK:
+                return CategoryColumns.WIDTH + 1 + TIE_BREAK_WIDTH;
+            case TOTAL:
+                return 2 + CategoryColumns.WIDTH + 1 + TIE_BREAK_WIDTH;
+            case CUSTOM:
+                return 1;
+            case SINCLAIR:
+                return 2 + TIE_BREAK_WIDTH;
+            default:
+                return 0;
+            }
+        }
+
+        @Override
+        void extract(Lifter lifter, Key key) {
+            switch (rankingType) {
+            case SNATCH:
+                extractSnatch(lifter, key);
+                break;
+            case CLEANJERK:
+                category.extract(lifter, key, 0);
+                key.number(CategoryColumns.WIDTH, ~lifter.getBestCleanJerk().longValue());
+                tieBreak(lifter, key, CategoryColumns.WIDTH + 1, bodyWeightTieBreak);
+                break;
+            case TOTAL:
+                if (masters) {
+                    key.text(0, lifter.getGender());
+                    key.number(1, descending(lifter.getAgeGroup()));
+                }
+                category.extract(lifter, key, 2);
+                key.number(2 + CategoryColumns.WIDTH, ~lifter.getTotal().longValue());
+                tieBreak(lifter, key, 2 + CategoryColumns.WIDTH + 1, bodyWeightTieBreak);
+                break;
+            case CUSTOM:
+                key.number(0, lifter.getStartNumber());
+                break;
+            case SINCLAIR:
+                Double score;
+                if (masters) {
+                    score = lifter.getSmm();
+                } else if (useCategorySinclair) {
+                    score = lifter.getCategorySinclair();
+                } else {
+                    score = lifter.getSinclair();
+                }
+                key.text(0, lifter.getGender());
+                key.number(1, descending(score == null ? 0D : score));
+                tieBreak(lifter, key, 2, true);
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void extractSnatch(Lifter lifter, Key key) {
+            category.extract(lifter, key, 0);
+            int column = CategoryColumns.WIDTH;
+            key.number(column++, ~lifter.getBestSnatch().longValue());
+            key.number(column++, competitionSessionTime(lifter));
+            key.number(column++, bodyWeightTieBreak ? bodyWeight(lifter) : 0L);
+            final int bestSnatchAttemptNumber = lifter.getBestSnatchAttemptNumber();
+            key.number(column++, bestSnatchAttemptNumber);
+            column = previousAttempts(lifter, key, column, bestSnatchAttemptNumber, false);
+            key.number(column, lifter.getLotNumber());
+        }
+
+        private void tieBreak(Lifter lifter, Key key, int column, boolean useBodyWeight) {
+            key.number(column++, competitionSessionTime(lifter));
+            key.number(column++, useBodyWeight ? bodyWeight(lifter) : 0L);
+            key.number(column++, lifter.getBestCleanJerk());
+            final int bestCleanJerkAttemptNumber = lifter.getBestCleanJerkAttemptNumber();
+            key.number(column++, bestCleanJerkAttemptNumber);
+            column = previousAttempts(lifter, key, column, bestCleanJerkAttemptNumber, true);
+            key.number(column, lifter.getLotNumber());
+        }
+
+        private static long bodyWeight(Lifter lifter) {
+            final Double bodyWeight = lifter.getBodyWeight();
+            return order(bodyWeight == null ? 0D : bodyWeight);
+        }
+    }
+
+    /**
+     * @see TeamRankingComparator
+     */
+    static final class TeamRankingKeys extends KeyExtractor {
+        private final Ranking rankingType;
+
+        TeamRankingKeys(Ranking rankingType) {
+            this.rankingType = rankingType;
+        }
+
+        @Override
+        int width() {
+            return 4;
+        }
+
+        @Override
+        void extract(Lifter lifter, Key key) {
+            key.text(0, lifter.getClub());
+            key.text(1, lifter.getGender());
+            // more points first
+            switch (rankingType) {
+            case SNATCH:
+                key.number(2, descending(lifter.getSnatchPoints()));
+                break;
+            case CLEANJERK:
+                key.number(2, descending(lifter.getCleanJerkPoints()));
+                break;
+            case TOTAL:
+                key.number(2, descending(lifter.getTotalPoints()));
+                break;
+            case COMBINED:
+                key.number(2, descending(lifter.getCombinedPoints()));
+                break;
+            case CUSTOM:
+                key.number(2, lifter.getLotNumber());
+                key.number(3, lifter.getStartNumber());
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+}
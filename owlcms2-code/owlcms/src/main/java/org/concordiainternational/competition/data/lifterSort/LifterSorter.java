@@ -36,6 +36,20 @@ public class LifterSorter implements Serializable {
         SNATCH, CLEANJERK, TOTAL, COMBINED, SINCLAIR, CUSTOM
     }
 
+    /**
+     * When true, the lifting, display, result and team orders are computed on precomputed keys (see {@link LifterSortKeys}) rather than
+     * by calling the comparators for every pair.
+     */
+    private static boolean sortKeys = true;
+
+    public static boolean isSortKeys() {
+        return sortKeys;
+    }
+
+    public static void setSortKeys(boolean sortKeys) {
+        LifterSorter.sortKeys = sortKeys;
+    }
+
     /**
      * Sort lifters according to official rules, creating a new list.
      *
@@ -59,9 +73,20 @@ public class LifterSorter implements Serializable {
      * </p>
      */
     static public void liftingOrder(List<Lifter> toBeSorted) {
-        Collections.sort(toBeSorted, new LiftOrderComparator());
+        if (sortKeys) {
+            LifterSortKeys.liftingOrder(toBeSorted);
+        } else {
+            Collections.sort(toBeSorted, new LiftOrderComparator());
+        }
+        assignLiftOrderRanks(toBeSorted);
+    }
+
+    /**
+     * Number lifters according to their position in a list already sorted in lifting order.
+     */
+    static public void assignLiftOrderRanks(List<Lifter> sorted) {
         int liftOrder = 1;
-        for (Lifter curLifter : toBeSorted) {
+        for (Lifter curLifter : sorted) {
             curLifter.setLiftOrderRank(liftOrder++);
         }
     }
@@ -70,7 +95,11 @@ public class LifterSorter implements Serializable {
      * Sort lifters according to official rules (in place) <tableToolbar> <li>by category</li> <li>by lot number</li> </tableToolbar>
      */
     static public void displayOrder(List<Lifter> toBeSorted) {
-        Collections.sort(toBeSorted, new DisplayOrderComparator());
+        if (sortKeys) {
+            LifterSortKeys.displayOrder(toBeSorted);
+        } else {
+            Collections.sort(toBeSorted, new DisplayOrderComparator());
+        }
     }
 
     /**
@@ -163,9 +192,20 @@ public class LifterSorter implements Serializable {
      * Sort lifters according to winning order.
      */
     static public void resultsOrder(List<Lifter> toBeSorted, Ranking rankingType) {
-        Collections.sort(toBeSorted, new WinningOrderComparator(rankingType));
+        if (sortKeys) {
+            LifterSortKeys.resultsOrder(toBeSorted, rankingType);
+        } else {
+            Collections.sort(toBeSorted, new WinningOrderComparator(rankingType));
+        }
+        assignResultOrderRanks(toBeSorted, rankingType);
+    }
+
+    /**
+     * Number lifters according to their position in a list already sorted in winning order.
+     */
+    static public void assignResultOrderRanks(List<Lifter> sorted, Ranking rankingType) {
         int liftOrder = 1;
-        for (Lifter curLifter : toBeSorted) {
+        for (Lifter curLifter : sorted) {
             curLifter.setResultOrderRank(liftOrder++, rankingType);
         }
     }
@@ -305,7 +345,11 @@ public class LifterSorter implements Serializable {
      * @return
      */
     static public void teamRankingOrder(List<Lifter> toBeSorted, Ranking rankingType) {
-        Collections.sort(toBeSorted, new TeamRankingComparator(rankingType));
+        if (sortKeys) {
+            LifterSortKeys.teamRankingOrder(toBeSorted, rankingType);
+        } else {
+            Collections.sort(toBeSorted, new TeamRankingComparator(rankingType));
+        }
     }
 
     /**
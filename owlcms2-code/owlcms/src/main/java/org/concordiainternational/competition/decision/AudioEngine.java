@@ -0,0 +1,327 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.decision;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plays the buzzer sounds and the down signal with as little delay as possible.
+ * <p>
+ * Each WAV resource is decoded once and each tone computed once; the samples are kept in memory. For every mixer (the speakers of a
+ * platform) and sample format, a line is opened the first time it is needed and stays open, fed by a thread of its own, so playing is
+ * only a matter of writing the samples. Sounds with the same format on the same mixer are played one after the other.
+ * </p>
+ * <p>
+ * When the mixer is null (no speakers configured for the platform) or when {@link #setSilent(boolean)} has been called, nothing is played
+ * and the plays are only counted (<code>audio.silent</code>): the callbacks do not run, so no sound time is recorded for a sound that
+ * nobody heard.
+ * </p>
+ * <p>
+ * The delay from the call to the first samples being written is in the <code>audio.start</code> histogram on the metrics page.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class AudioEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudioEngine.class);
+
+    /** format used for the generated tones */
+    private static final AudioFormat TONE_FORMAT = new AudioFormat(8000f, 8, 1, true, false);
+
+    private static final ConcurrentMap<String, Samples> samples = new ConcurrentHashMap<String, Samples>();
+    private static final ConcurrentMap<String, Output> outputs = new ConcurrentHashMap<String, Output>();
+
+    private static final AtomicLong played = Metrics.counter("audio.played"); //$NON-NLS-1$
+    private static final AtomicLong silent = Metrics.counter("audio.silent"); //$NON-NLS-1$
+    private static final AtomicLong failed = Metrics.counter("audio.failed"); //$NON-NLS-1$
+    private static final Histogram startTimes = Metrics.histogram("audio.start"); //$NON-NLS-1$
+    private static final Histogram openTimes = Metrics.histogram("audio.open"); //$NON-NLS-1$
+
+    private static volatile boolean silentMode = false;
+
+    private AudioEngine() {
+    }
+
+    /**
+     * Decoded sound, ready to be written to a line.
+     */
+    public static final class Samples {
+        private final String name;
+        private final AudioFormat format;
+        private final byte[] data;
+
+        Samples(String name, AudioFormat format, byte[] data) {
+            this.name = name;
+            this.format = format;
+            this.data = data;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public AudioFormat getFormat() {
+            return format;
+        }
+
+        public int getLength() {
+            return data.length;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+    }
+
+    /**
+     * @param resourceName
+     *            a WAV file on the class path, e.g. /sounds/initialWarning2.wav
+     * @return the decoded sound, read only the first time.
+     */
+    public static Samples sound(String resourceName) {
+        Samples result = samples.get(resourceName);
+        if (result == null) {
+            result = decode(resourceName);
+            final Samples previous = samples.putIfAbsent(resourceName, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param hz
+     * @param msecs
+     * @param vol
+     *            between 0.0 and 1.0
+     * @return the sine wave, computed only the first time.
+     */
+    public static Samples tone(int hz, int msecs, double vol) {
+        if (vol > 1.0 || vol < 0.0)
+            throw new IllegalArgumentException("Volume out of range 0.0 - 1.0");
+        final String key = "tone:" + hz + ":" + msecs + ":" + vol; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        Samples result = samples.get(key);
+        if (result == null) {
+            result = new Samples(key, TONE_FORMAT, sine(hz, msecs, vol));
+            final Samples previous = samples.putIfAbsent(key, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Open the line that will play these samples, so that the first play does not wait for it.
+     *
+     * @param mixer
+     * @param sound
+     */
+    public static void prepare(Mixer mixer, Samples sound) {
+        if (mixer == null || silentMode) {
+            return;
+        }
+        getOutput(mixer, sound.getFormat());
+    }
+
+    /**
+     * Play in the background.
+     *
+     * @param mixer
+     *            null to count the play without any sound
+     * @param sound
+     * @param started
+     *            run when the first samples are written (never in silent mode), may be null
+     */
+    public static void play(Mixer mixer, final Samples sound, final Runnable started) {
+        final long requested = System.nanoTime();
+        if (mixer == null || silentMode) {
+            silent.incrementAndGet();
+            return;
+        }
+        final Output output = getOutput(mixer, sound.getFormat());
+        if (output == null) {
+            failed.incrementAndGet();
+            return;
+        }
+        output.play(sound, requested, started);
+    }
+
+    /**
+     * @param silent
+     *            true to count plays without sending anything to the speakers, e.g. in tests.
+     */
+    public static void setSilent(boolean silent) {
+        silentMode = silent;
+    }
+
+    public static boolean isSilent() {
+        return silentMode;
+    }
+
+    /**
+     * Close the lines and stop their threads. Called when the web application is stopped; lines are opened again if needed afterwards.
+     */
+    public static synchronized void shutdown() {
+        for (Output output : outputs.values()) {
+            output.close();
+        }
+        outputs.clear();
+        logger.debug("audio stopped, played={} silent={} failed={}", new Object[] { played.get(), silent.get(), failed.get() }); //$NON-NLS-1$
+    }
+
+    private static synchronized Output getOutput(Mixer mixer, AudioFormat format) {
+        final String key = mixer.getMixerInfo().getName() + "|" + format; //$NON-NLS-1$
+        Output output = outputs.get(key);
+        if (output == null) {
+            final long start = System.nanoTime();
+            try {
+                output = new Output(mixer, format);
+            } catch (LineUnavailableException e) {
+                logger.warn("no sound on {}: {}", mixer.getMixerInfo().getName(), e.toString()); //$NON-NLS-1$
+                return null;
+            } catch (IllegalArgumentException e) {
+                logger.warn("no sound on {}: {}", mixer.getMixerInfo().getName(), e.toString()); //$NON-NLS-1$
+                return null;
+            }
+            openTimes.recordSince(start);
+            outputs.put(key, output);
+        }
+        return output;
+    }
+
+    private static Samples decode(String resourceName) {
+        final InputStream resource = AudioEngine.class.getResourceAsStream(resourceName);
+        if (resource == null) {
+            throw new IllegalArgumentException(resourceName + " not found"); //$NON-NLS-1$
+        }
+        try {
+            // the stream must support mark/reset for the file type to be recognized.
+            final AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(resource));
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+                return new Samples(resourceName, in.getFormat(), out.toByteArray());
+            } finally {
+                in.close();
+            }
+        } catch (UnsupportedAudioFileException e) {
+            throw new IllegalArgumentException(resourceName, e);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(resourceName, e);
+        }
+    }
+
+    static byte[] sine(int hz, int msecs, double vol) {
+        final byte[] buf = new byte[msecs * 8];
+        for (int i = 0; i < buf.length; i++) {
+            double angle = i / (8000.0 / hz) * 2.0 * Math.PI;
+            buf[i] = (byte) (Math.sin(angle) * 127.0 * vol);
+        }
+
+        // shape the front and back ends of the wave form
+        for (int i = 0; i < 20 && i < buf.length / 2; i++) {
+            buf[i] = (byte) (buf[i] * i / 20);
+            buf[buf.length - 1 - i] = (byte) (buf[buf.length - 1 - i] * i / 20);
+        }
+        return buf;
+    }
+
+    /**
+     * An open line and the thread that writes to it.
+     */
+    private static final class Output {
+        private final String name;
+        private final SourceDataLine line;
+        private final ExecutorService writer;
+
+        Output(Mixer mixer, AudioFormat format) throws LineUnavailableException {
+            this.name = mixer.getMixerInfo().getName();
+            this.line = AudioSystem.getSourceDataLine(format, mixer.getMixerInfo());
+            line.open(format);
+            line.start();
+            this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "audio-" + name); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MAX_PRIORITY);
+                    return thread;
+                }
+            });
+            logger.debug("audio line open on {} for {}", name, format); //$NON-NLS-1$
+        }
+
+        void play(final Samples sound, final long requested, final Runnable started) {
+            try {
+                execute(sound, requested, started);
+            } catch (RejectedExecutionException e) {
+                // closed by shutdown() in the meantime.
+                failed.incrementAndGet();
+                LoggerUtils.infoException(logger, e);
+            }
+        }
+
+        private void execute(final Samples sound, final long requested, final Runnable started) {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startTimes.recordSince(requested);
+                        if (started != null) {
+                            started.run();
+                        }
+                        final byte[] data = sound.getData();
+                        line.write(data, 0, data.length);
+                        played.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        LoggerUtils.infoException(logger, e);
+                    }
+                }
+            });
+        }
+
+        void close() {
+            writer.shutdownNow();
+            line.stop();
+            line.flush();
+            line.close();
+        }
+    }
+}
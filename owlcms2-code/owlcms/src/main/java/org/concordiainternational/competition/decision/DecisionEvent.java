@@ -31,6 +31,8 @@ public class DecisionEvent extends EventObject {
     private Integer attempt;
     private Boolean accepted;
     private Integer attemptedWeight;
+    private final long firedNanos = System.nanoTime();
+    private DecisionTrace trace;
 
     public DecisionEvent(IDecisionController source, Type down, long currentTimeMillis, Decision[] refereeDecisions) {
         super(source);
@@ -127,4 +129,22 @@ public class DecisionEvent extends EventObject {
         this.attemptedWeight = attemptedWeight;
     }
 
+    /**
+     * @return System.nanoTime() when the event was created, just before being fired.
+     */
+    public long getFiredNanos() {
+        return firedNanos;
+    }
+
+    /**
+     * @return the timeline of the decision this event belongs to, null for jury decisions.
+     */
+    public DecisionTrace getTrace() {
+        return trace;
+    }
+
+    public void setTrace(DecisionTrace trace) {
+        this.trace = trace;
+    }
+
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.decision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The timeline of one referee decision, from the first keypad press until the lights are reset, so that one can tell which board shows
+ * the lights late and why.
+ * <p>
+ * A trace is created by the {@link RefereeDecisionController} when the first referee presses, and is attached to every
+ * {@link DecisionEvent} fired until the reset. It records when each referee's press was received by the console, when the controller
+ * processed it, when the down signal sounded, and when each board pushed each event to its browser. Times are System.nanoTime() values,
+ * shown in milliseconds after the first press.
+ * </p>
+ * <p>
+ * The durations also go to per-platform histograms on the metrics page:
+ * <ul>
+ * <li><code>decision.&lt;platform&gt;.keypad</code>: from the press reaching the console to the controller recording it</li>
+ * <li><code>decision.&lt;platform&gt;.sound</code>: from the deciding press to the down signal</li>
+ * <li><code>decision.&lt;platform&gt;.down</code>: from the deciding press to each board showing "down"</li>
+ * <li><code>decision.&lt;platform&gt;.&lt;TYPE&gt;.&lt;board&gt;</code>: from the event being fired to the board pushing it</li>
+ * </ul>
+ * The last {@link #KEPT} traces of each platform are listed on jsp/decisions.jsp.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class DecisionTrace {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionTrace.class);
+
+    /** number of traces kept per platform */
+    public static final int KEPT = 20;
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final ConcurrentMap<String, LinkedList<DecisionTrace>> recent = new ConcurrentHashMap<String, LinkedList<DecisionTrace>>();
+
+    /**
+     * One event shown by one board.
+     */
+    public static class Push {
+        private final String board;
+        private final DecisionEvent.Type type;
+        private final long firedNanos;
+        private final long pushedNanos;
+
+        Push(String board, DecisionEvent.Type type, long firedNanos, long pushedNanos) {
+            this.board = board;
+            this.type = type;
+            this.firedNanos = firedNanos;
+            this.pushedNanos = pushedNanos;
+        }
+
+        public String getBoard() {
+            return board;
+        }
+
+        public DecisionEvent.Type getType() {
+            return type;
+        }
+
+        /**
+         * @return from the event being fired to the push, in milliseconds.
+         */
+        public double getDelayMillis() {
+            return (pushedNanos - firedNanos) / 1000000.0;
+        }
+    }
+
+    private final long id;
+    private final String platformName;
+    private final String lifterName;
+    private final long startMillis;
+    private final long[] receivedNanos = new long[3];
+    private final long[] processedNanos = new long[3];
+    private volatile long decidingNanos;
+    private volatile long soundNanos;
+    private final List<Push> pushes = Collections.synchronizedList(new ArrayList<Push>());
+
+    DecisionTrace(String platformName, String lifterName) {
+        this.id = sequence.incrementAndGet();
+        this.platformName = (platformName != null ? platformName : "-"); //$NON-NLS-1$
+        this.lifterName = (lifterName != null ? lifterName : ""); //$NON-NLS-1$
+        this.startMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Add the trace to the ones listed for its platform. Done separately from the creation, because a trace created by a press that lost
+     * the race to another one is dropped.
+     */
+    void register() {
+        LinkedList<DecisionTrace> traces = recent.get(this.platformName);
+        if (traces == null) {
+            traces = new LinkedList<DecisionTrace>();
+            final LinkedList<DecisionTrace> previous = recent.putIfAbsent(this.platformName, traces);
+            if (previous != null) {
+                traces = previous;
+            }
+        }
+        synchronized (traces) {
+            traces.addFirst(this);
+            if (traces.size() > KEPT) {
+                traces.removeLast();
+            }
+        }
+    }
+
+    /**
+     * A referee's decision has been processed by the controller.
+     *
+     * @param refereeNo
+     * @param received
+     *            when the console got the press
+     */
+    synchronized void processed(int refereeNo, long received) {
+        final long now = System.nanoTime();
+        receivedNanos[refereeNo] = received;
+        processedNanos[refereeNo] = now;
+        Metrics.histogram(prefix() + "keypad").recordNanos(now - received); //$NON-NLS-1$
+    }
+
+    /**
+     * The press that made a majority; the down signal and the "down" display are measured from it.
+     *
+     * @param received
+     */
+    void deciding(long received) {
+        decidingNanos = received;
+    }
+
+    /**
+     * The down signal has started playing.
+     */
+    void soundEmitted() {
+        soundNanos = System.nanoTime();
+        if (decidingNanos != 0L) {
+            Metrics.histogram(prefix() + "sound").recordNanos(soundNanos - decidingNanos); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * A board has pushed an event to its browser.
+     *
+     * @param board
+     *            the kind of board, e.g. attemptBoard
+     * @param event
+     */
+    public void pushed(String board, DecisionEvent event) {
+        final long now = System.nanoTime();
+        final Push push = new Push(board, event.getType(), event.getFiredNanos(), now);
+        pushes.add(push);
+        Metrics.histogram(prefix() + push.getType() + "." + board).recordNanos(now - push.firedNanos); //$NON-NLS-1$
+        if (push.getType() == DecisionEvent.Type.DOWN && decidingNanos != 0L) {
+            Metrics.histogram(prefix() + "down").recordNanos(now - decidingNanos); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Log the timeline when the decision is over (the pushes of the reset itself are not included).
+     */
+    void finished() {
+        if (logger.isInfoEnabled()) {
+            logger.info("decision trace {}", this); //$NON-NLS-1$
+        }
+    }
+
+    private String prefix() {
+        return "decision." + platformName + "."; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private long origin() {
+        long first = Long.MAX_VALUE;
+        for (long received : receivedNanos) {
+            if (received != 0L && received < first) {
+                first = received;
+            }
+        }
+        return (first == Long.MAX_VALUE ? 0L : first);
+    }
+
+    private String offset(long nanos) {
+        if (nanos == 0L) {
+            return "-"; //$NON-NLS-1$
+        }
+        return String.format(Locale.ENGLISH, "%.1f", (nanos - origin()) / 1000000.0); //$NON-NLS-1$
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getPlatformName() {
+        return platformName;
+    }
+
+    public String getLifterName() {
+        return lifterName;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * @param refereeNo
+     * @return when the console got the press, in ms after the first press, "-" if the referee has not pressed.
+     */
+    public synchronized String getReceived(int refereeNo) {
+        return offset(receivedNanos[refereeNo]);
+    }
+
+    /**
+     * @param refereeNo
+     * @return when the controller processed the press, in ms after the first press.
+     */
+    public synchronized String getProcessed(int refereeNo) {
+        return offset(processedNanos[refereeNo]);
+    }
+
+    /**
+     * @return when the down signal sounded, in ms after the first press.
+     */
+    public synchronized String getSound() {
+        return offset(soundNanos);
+    }
+
+    /**
+     * @return each push, with the time in ms after the first press, e.g. "attemptBoard DOWN +412.3 (fired +405.0)"
+     */
+    public List<String> getPushes() {
+        final List<Push> copy;
+        synchronized (pushes) {
+            copy = new ArrayList<Push>(pushes);
+        }
+        final List<String> result = new ArrayList<String>(copy.size());
+        synchronized (this) {
+            for (Push push : copy) {
+                result.add(push.board + " " + push.type + " +" + offset(push.pushedNanos) + " (fired +" + offset(push.firedNanos) + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('#').append(id).append(' ').append(platformName).append(' ').append(lifterName);
+        for (int i = 0; i < 3; i++) {
+            sb.append(" ref").append(i + 1).append('=').append(getReceived(i)).append('/').append(getProcessed(i)); //$NON-NLS-1$
+        }
+        sb.append(" sound=").append(getSound()); //$NON-NLS-1$
+        for (String push : getPushes()) {
+            sb.append("; ").append(push); //$NON-NLS-1$
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the platforms for which decisions have been traced.
+     */
+    public static Set<String> getPlatformNames() {
+        return new TreeSet<String>(recent.keySet());
+    }
+
+    /**
+     * @param platformName
+     * @return the last traces for the platform, most recent first.
+     */
+    public static List<DecisionTrace> getRecent(String platformName) {
+        final LinkedList<DecisionTrace> traces = recent.get(platformName);
+        if (traces == null) {
+            return Collections.emptyList();
+        }
+        synchronized (traces) {
+            return new ArrayList<DecisionTrace>(traces);
+        }
+    }
+
+    /**
+     * @return a plain text report, platform by platform.
+     */
+    public static String report() {
+        final StringBuilder sb = new StringBuilder();
+        for (String platformName : getPlatformNames()) {
+            sb.append(platformName).append('\n');
+            for (DecisionTrace trace : getRecent(platformName)) {
+                sb.append("  ").append(trace).append('\n'); //$NON-NLS-1$
+            }
+        }
+        return sb.toString();
+    }
+}
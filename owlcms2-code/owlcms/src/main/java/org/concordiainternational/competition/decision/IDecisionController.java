@@ -31,6 +31,16 @@ public interface IDecisionController {
      */
     public abstract void decisionMade(int refereeNo, boolean accepted);
 
+    /**
+     * Record a decision made by the officials, broacasting to the listeners.
+     *
+     * @param refereeNo
+     * @param accepted
+     * @param receivedNanos
+     *            System.nanoTime() when the console received the press, before being queued.
+     */
+    public abstract void decisionMade(int refereeNo, boolean accepted, long receivedNanos);
+
     /**
      * Register a new DecisionEventListener in order to be informed of updates.
      *
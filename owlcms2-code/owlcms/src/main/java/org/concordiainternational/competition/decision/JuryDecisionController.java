@@ -8,12 +8,11 @@
 package org.concordiainternational.competition.decision;
 
 import java.lang.reflect.Method;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.mobile.IRefereeConsole;
 import org.concordiainternational.competition.timer.CountdownTimerListener;
+import org.concordiainternational.competition.timer.TimingService;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.ui.InteractionNotificationReason;
 import org.concordiainternational.competition.ui.SessionData;
@@ -74,6 +73,16 @@ public class JuryDecisionController implements IDecisionController, CountdownTim
         fireEvent(new DecisionEvent(this, DecisionEvent.Type.RESET, System.currentTimeMillis(), juryDecisions));
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.concordiainternational.competition.decision.IDecisionController#decisionMade(int, boolean)
+     */
+    @Override
+    public void decisionMade(int juryNo, boolean accepted, long receivedNanos) {
+        decisionMade(juryNo, accepted);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -152,8 +161,7 @@ public class JuryDecisionController implements IDecisionController, CountdownTim
      *
      */
     private void scheduleBlock() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
                 fireEvent(new DecisionEvent(JuryDecisionController.this, DecisionEvent.Type.BLOCK, System.currentTimeMillis(),
@@ -167,8 +175,7 @@ public class JuryDecisionController implements IDecisionController, CountdownTim
      *
      */
     private void scheduleReset() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
                 reset();
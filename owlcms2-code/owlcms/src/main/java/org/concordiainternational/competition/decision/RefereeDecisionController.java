@@ -8,8 +8,7 @@
 package org.concordiainternational.competition.decision;
 
 import java.lang.reflect.Method;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.sound.sampled.Mixer;
 
@@ -17,10 +16,14 @@ import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.Platform;
 import org.concordiainternational.competition.mobile.IRefereeConsole;
 import org.concordiainternational.competition.timer.CountdownTimerListener;
+import org.concordiainternational.competition.timer.TimingService;
 import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.concordiainternational.competition.ui.EventDispatchQueue;
 import org.concordiainternational.competition.ui.InteractionNotificationReason;
 import org.concordiainternational.competition.ui.SessionData;
 import org.concordiainternational.competition.utils.EventHelper;
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,17 +56,36 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
     //    private static final Logger buttonLogger = LoggerFactory.getLogger("buttons."+SessionData.class.getSimpleName()); //$NON-NLS-1$
     private static Logger listenerLogger = LoggerFactory.getLogger("listeners." + SessionData.class.getSimpleName()); //$NON-NLS-1$
 
-    Decision[] refereeDecisions = new Decision[3];
+    /** time the keypad waits for the decision to be recorded; events are sent afterwards */
+    private static final Histogram decisionTimes = Metrics.histogram("decision.referee"); //$NON-NLS-1$
+    /** the lift is recorded and the lifting order updated, once the decision can no longer be changed */
+    private static final Histogram recordTimes = Metrics.histogram("decision.record"); //$NON-NLS-1$
+
     DecisionEventListener[] listeners = new DecisionEventListener[3];
 
     private SessionData groupData;
-    private Tone downSignal = null;
+    private volatile Tone downSignal = null;
+
+    /**
+     * The decisions of the three referees for the current lift. A new snapshot replaces the previous one with compareAndSet, so that
+     * referees pressing at the same time never wait for one another, and so that whatever must happen once per lift (the down signal, the
+     * scheduling of the display) is done by the one press whose update made it happen.
+     */
+    private final AtomicReference<State> state = new AtomicReference<State>(State.initial());
+
+    /**
+     * Events are sent to the listeners in order, from the pool of the event dispatch queues, so the keypad thread returns as soon as the
+     * decision is recorded. The listeners belong to different applications (referee consoles, attempt boards), and each one hands the
+     * event to the queue of its own application; this queue belongs to none.
+     */
+    private final EventDispatchQueue events;
+
+    /** version of the state of the last event sent; only used by the tasks of {@link #events}, which run one at a time */
+    private long lastEventVersion = -1L;
 
     public RefereeDecisionController(SessionData groupData) {
         this.groupData = groupData;
-        for (int i = 0; i < refereeDecisions.length; i++) {
-            refereeDecisions[i] = new Decision();
-        }
+        this.events = new EventDispatchQueue(null);
         initDownSignal();
     }
 
@@ -87,13 +109,9 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
         }
     }
 
-    long allDecisionsMadeTime = 0L; // all 3 referees have pressed
-    int decisionsMade = 0;
-    private EventRouter eventRouter;
+    private volatile EventRouter eventRouter;
 
-    private Boolean downSignaled = false;
-
-    private boolean blocked = true;
+    private volatile boolean blocked = true;
 
     /*
      * (non-Javadoc)
@@ -102,16 +120,21 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
      */
     @Override
     public void reset() {
-        for (int i = 0; i < refereeDecisions.length; i++) {
-            refereeDecisions[i].accepted = null;
-            refereeDecisions[i].time = 0L;
-        }
-        allDecisionsMadeTime = 0L; // all 3 referees have pressed
-        decisionsMade = 0;
-        downSignaled = false;
+        State previous;
+        State next;
+        do {
+            previous = state.get();
+            next = previous.reset();
+        } while (!state.compareAndSet(previous, next));
+
         groupData.setAnnounced(false);
         this.initDownSignal();
-        fireEvent(new DecisionEvent(this, DecisionEvent.Type.RESET, System.currentTimeMillis(), refereeDecisions));
+        final DecisionEvent resetEvent = new DecisionEvent(this, DecisionEvent.Type.RESET, System.currentTimeMillis(), next.toDecisions());
+        resetEvent.setTrace(previous.trace);
+        fireEvent(resetEvent, next.version);
+        if (previous.trace != null) {
+            previous.trace.finished();
+        }
     }
 
     /*
@@ -120,161 +143,307 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
      * @see org.concordiainternational.competition.decision.IDecisionController#decisionMade(int, boolean)
      */
     @Override
-    public synchronized void decisionMade(int refereeNo, boolean accepted) {
+    public void decisionMade(int refereeNo, boolean accepted) {
+        decisionMade(refereeNo, accepted, System.nanoTime());
+    }
 
-        if (refereeDecisions[refereeNo] == null) {
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.concordiainternational.competition.decision.IDecisionController#decisionMade(int, boolean, long)
+     */
+    @Override
+    public void decisionMade(int refereeNo, boolean accepted, long receivedNanos) {
+        final long start = System.nanoTime();
+        try {
+            recordDecision(refereeNo, accepted, receivedNanos);
+        } finally {
+            decisionTimes.recordSince(start);
+        }
+    }
+
+    private void recordDecision(int refereeNo, boolean accepted, long receivedNanos) {
+        if (refereeNo < 0 || refereeNo >= 3) {
             logger.warn("decision IGNORED from referee {}: {} (not in a session)",
                     refereeNo + 1,
                     (accepted ? "lift" : "no lift"));
             return;
         }
 
-        if ((refereeDecisions[refereeNo].accepted != null)) {
-            // prevent reversal from red to white.
-            if (accepted && !(refereeDecisions[refereeNo].accepted)) {
-                // cannot reverse from red to white.
-                logger.warn("decision IGNORED from referee {}: {} (cannot reverse {})",
-                        new Object[] { refereeNo + 1,
-                                (accepted ? "lift" : "no lift"),
-                                refereeDecisions[refereeNo].accepted });
-                return;
-            } else if (accepted == (refereeDecisions[refereeNo].accepted)) {
-                // same decision as before, ignore.
+        final long currentTimeMillis = System.currentTimeMillis();
+        DecisionTrace newTrace = null;
+        State previous;
+        State next;
+        do {
+            previous = state.get();
+            final Boolean prior = previous.accepted[refereeNo];
+            if (prior != null) {
+                // prevent reversal from red to white.
+                if (accepted && !prior) {
+                    // cannot reverse from red to white.
+                    logger.warn("decision IGNORED from referee {}: {} (cannot reverse {})",
+                            new Object[] { refereeNo + 1,
+                                    (accepted ? "lift" : "no lift"),
+                                    prior });
+                    return;
+                } else if (accepted == prior) {
+                    // same decision as before, ignore.
+                    return;
+                }
+            }
+
+            long deltaTime = currentTimeMillis - previous.allDecisionsMadeTime;
+            if (previous.decisionsMade == 3 && deltaTime > decisionReversalDelay) {
+                // too late to reverse decision
+                logger.warn("decision IGNORED from referee {}: {} (too late by {} ms)", new Object[] { refereeNo + 1,
+                        (accepted ? "lift" : "no lift"), deltaTime - decisionReversalDelay });
                 return;
             }
-        }
 
-        final long currentTimeMillis = System.currentTimeMillis();
-        long deltaTime = currentTimeMillis - allDecisionsMadeTime;
-        if (decisionsMade == 3 && deltaTime > decisionReversalDelay) {
-            // too late to reverse decision
-            logger.warn("decision IGNORED from referee {}: {} (too late by {} ms)", new Object[] { refereeNo + 1,
-                    (accepted ? "lift" : "no lift"), deltaTime - decisionReversalDelay });
-            return;
-        }
+            DecisionTrace trace = previous.trace;
+            if (trace == null) {
+                if (newTrace == null) {
+                    final Platform platform = groupData.getPlatform();
+                    final Lifter lifter = getLifter();
+                    newTrace = new DecisionTrace(platform != null ? platform.getName() : null, lifter != null ? lifter.toString() : null);
+                }
+                trace = newTrace;
+            }
+            next = previous.decide(refereeNo, accepted, currentTimeMillis, trace);
+        } while (!state.compareAndSet(previous, next));
 
-        refereeDecisions[refereeNo].accepted = accepted;
-        refereeDecisions[refereeNo].time = currentTimeMillis;
+        // from here on, "previous" and "next" are the exact transition made by this press.
+        if (previous.trace == null) {
+            next.trace.register();
+        }
+        next.trace.processed(refereeNo, receivedNanos);
         logger.info("decision by referee {}: {}", refereeNo + 1, (accepted ? "lift" : "no lift"));
 
-        decisionsMade = 0;
-        int pros = 0;
-        int cons = 0;
-        for (int i = 0; i < refereeDecisions.length; i++) {
-            final Boolean accepted2 = refereeDecisions[i].accepted;
-            if (accepted2 != null) {
-                decisionsMade++;
-                if (accepted2)
-                    pros++;
-                else
-                    cons++;
-            }
+        final boolean down = next.downSignaled && !previous.downSignaled;
+        if (down) {
+            // the only press that made a majority; sound first, everything else can wait.
+            next.trace.deciding(receivedNanos);
+            emitDownSignal(next.trace);
         }
 
-        if (decisionsMade >= 2) {
+        if (next.decisionsMade >= 2) {
             // audible down signal is emitted right away by the main computer.
             // request lifter-facing display should display the "down" signal.
             // also, downSignal() signals timeKeeper that time has been stopped if they
             // had not stopped it manually.
-            if (pros >= 2 || cons >= 2) {
-                synchronized (groupData.getTimer()) {
-                    if (!downSignaled) {
-                        new Thread(new Runnable() {
-                            @Override
-                            public void run() {
-                                if (downSignal != null) {
-                                    downSignal.emit();
-                                }
-                                groupData.downSignal();
-                            }
-                        }).start();
-                        downSignaled = true;
-                        fireEvent(new DecisionEvent(this,
-                                DecisionEvent.Type.DOWN, currentTimeMillis,
-                                refereeDecisions));
-                        logger.info("*** down signal");
-                    }
+            if (next.isMajority()) {
+                if (down) {
+                    events.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            groupData.downSignal();
+                        }
+                    });
+                    fireEvent(new DecisionEvent(this,
+                            DecisionEvent.Type.DOWN, currentTimeMillis,
+                            next.toDecisions()), next.version);
+                    logger.info("*** down signal");
                 }
             } else {
                 logger.debug("no majority");
-                fireEvent(new DecisionEvent(this, DecisionEvent.Type.WAITING, currentTimeMillis, refereeDecisions));
+                fireEvent(new DecisionEvent(this, DecisionEvent.Type.WAITING, currentTimeMillis, next.toDecisions()), next.version);
             }
         } else {
             // Jury sees all changes, other displays will ignore this.
-            synchronized (groupData.getTimer()) {
-                logger.debug("broadcasting");
-                fireEvent(new DecisionEvent(this, DecisionEvent.Type.UPDATE, currentTimeMillis, refereeDecisions));
-            }
+            logger.debug("broadcasting");
+            fireEvent(new DecisionEvent(this, DecisionEvent.Type.UPDATE, currentTimeMillis, next.toDecisions()), next.version);
         }
 
-        if (decisionsMade == 3) {
+        if (next.decisionsMade == 3) {
             // NOTE: we wait for referee keypads to be blocked (see scheduleBlock)
             // before sending the decision to groupData.
 
             // broadcast the decision
-            if (allDecisionsMadeTime == 0L) {
+            if (previous.allDecisionsMadeTime == 0L) {
                 // all 3 referees have just made a choice; schedule the display
                 // in 3 seconds
-                allDecisionsMadeTime = System.currentTimeMillis();
-                logger.info("all decisions made {}", allDecisionsMadeTime);
-                scheduleDisplay(currentTimeMillis);
-                scheduleBlock();
-                scheduleReset();
+                logger.info("all decisions made {}", next.allDecisionsMadeTime);
+                scheduleDisplay(currentTimeMillis, next.cycle);
+                scheduleBlock(next.cycle);
+                scheduleReset(next.cycle);
             } else {
                 // referees have changed their mind
                 logger.debug("three + change");
-                fireEvent(new DecisionEvent(this, DecisionEvent.Type.UPDATE, currentTimeMillis, refereeDecisions));
+                fireEvent(new DecisionEvent(this, DecisionEvent.Type.UPDATE, currentTimeMillis, next.toDecisions()), next.version);
             }
         }
 
     }
 
+    /**
+     * @param trace
+     */
+    private void emitDownSignal(final DecisionTrace trace) {
+        final Tone tone = downSignal;
+        if (tone == null) {
+            return;
+        }
+        // the line is already open; this only queues the samples.
+        tone.emit(new Runnable() {
+            @Override
+            public void run() {
+                trace.soundEmitted();
+            }
+        });
+    }
+
     /**
      * @param currentTimeMillis
-     * @param goodLift
+     * @param cycle
+     *            the lift for which the display is scheduled; nothing is shown if the decisions were reset in the meantime.
      */
-    private void scheduleDisplay(final long currentTimeMillis) {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+    private void scheduleDisplay(final long currentTimeMillis, final long cycle) {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
-                fireEvent(new DecisionEvent(RefereeDecisionController.this, DecisionEvent.Type.SHOW, currentTimeMillis,
-                        refereeDecisions));
+                // the decisions are read when the event is sent, not when it is queued: nothing sent before can be more recent, so the
+                // display is never dropped as stale.
+                events.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final State current = state.get();
+                        if (current.cycle != cycle) {
+                            return;
+                        }
+                        final DecisionEvent showEvent = new DecisionEvent(RefereeDecisionController.this, DecisionEvent.Type.SHOW,
+                                currentTimeMillis, current.toDecisions());
+                        showEvent.setTrace(current.trace);
+                        deliver(showEvent, current.version);
+                    }
+                });
             }
         }, decisionDisplayDelay);
     }
 
     /**
-     *
+     * @param cycle
      */
-    private void scheduleBlock() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+    private void scheduleBlock(final long cycle) {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
-                // save the decision
-                groupData.majorityDecision(refereeDecisions);
+                final State current = state.get();
+                if (current.cycle != cycle) {
+                    logger.info("decisions reset before being recorded");
+                    return;
+                }
+                // save the decision; referees can no longer change their minds.
+                final Decision[] decisions = current.toDecisions();
+                final long start = System.nanoTime();
+                groupData.majorityDecision(decisions);
+                recordTimes.recordSince(start);
 
                 fireEvent(new DecisionEvent(RefereeDecisionController.this, DecisionEvent.Type.BLOCK, System.currentTimeMillis(),
-                        refereeDecisions));
+                        decisions), current.version);
                 setBlocked(true);
             }
         }, decisionReversalDelay);
     }
 
     /**
-     *
+     * @param cycle
      */
-    private void scheduleReset() {
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
+    private void scheduleReset(final long cycle) {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
+                if (state.get().cycle != cycle) {
+                    // already reset, e.g. the next lifter has been called.
+                    return;
+                }
                 reset();
             }
         }, decisionReversalDelay + resetDisplayDelay);
     }
 
+    /**
+     * The decisions for one lift, never modified once created.
+     */
+    private static final class State {
+        /** incremented on every change, to recognize stale updates */
+        final long version;
+        /** incremented on every reset; scheduled tasks of a previous lift are ignored */
+        final long cycle;
+        final Boolean[] accepted;
+        final long[] times;
+        final int decisionsMade;
+        final int pros;
+        final boolean downSignaled;
+        /** all 3 referees have pressed */
+        final long allDecisionsMadeTime;
+        final DecisionTrace trace;
+
+        private State(long version, long cycle, Boolean[] accepted, long[] times, boolean downSignaled, long allDecisionsMadeTime,
+                DecisionTrace trace) {
+            this.version = version;
+            this.cycle = cycle;
+            this.accepted = accepted;
+            this.times = times;
+            this.downSignaled = downSignaled;
+            this.allDecisionsMadeTime = allDecisionsMadeTime;
+            this.trace = trace;
+            int made = 0;
+            int good = 0;
+            for (Boolean a : accepted) {
+                if (a != null) {
+                    made++;
+                    if (a) {
+                        good++;
+                    }
+                }
+            }
+            this.decisionsMade = made;
+            this.pros = good;
+        }
+
+        static State initial() {
+            return new State(0L, 0L, new Boolean[3], new long[3], false, 0L, null);
+        }
+
+        State reset() {
+            return new State(version + 1, cycle + 1, new Boolean[3], new long[3], false, 0L, null);
+        }
+
+        State decide(int refereeNo, boolean decision, long timeMillis, DecisionTrace decisionTrace) {
+            final Boolean[] newAccepted = accepted.clone();
+            final long[] newTimes = times.clone();
+            newAccepted[refereeNo] = decision;
+            newTimes[refereeNo] = timeMillis;
+            final State next = new State(version + 1, cycle, newAccepted, newTimes, downSignaled, allDecisionsMadeTime, decisionTrace);
+            final boolean down = downSignaled || next.isMajority();
+            final long allMade = (allDecisionsMadeTime == 0L && next.decisionsMade == 3 ? timeMillis : allDecisionsMadeTime);
+            if (down == downSignaled && allMade == allDecisionsMadeTime) {
+                return next;
+            }
+            return new State(version + 1, cycle, newAccepted, newTimes, down, allMade, decisionTrace);
+        }
+
+        /**
+         * @return true if two referees agree.
+         */
+        boolean isMajority() {
+            return pros >= 2 || (decisionsMade - pros) >= 2;
+        }
+
+        /**
+         * @return copies, so listeners see the decisions as they were when the event was fired.
+         */
+        Decision[] toDecisions() {
+            final Decision[] decisions = new Decision[accepted.length];
+            for (int i = 0; i < accepted.length; i++) {
+                decisions[i] = new Decision();
+                decisions[i].accepted = accepted[i];
+                decisions[i].time = times[i];
+            }
+            return decisions;
+        }
+    }
+
     /**
      * This method is the Java object for the method in the Listener interface. It allows the framework to know how to pass the event
      * information.
@@ -285,19 +454,46 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
             "updateEvent"); // ... will be called with this method. //$NON-NLS-1$;
 
     /**
-     * Broadcast a DecisionEvent to all registered listeners
+     * Broadcast a DecisionEvent to all registered listeners, in the background. An event is dropped if one from a more recent state has
+     * already been sent, so that two presses processed at the same time cannot leave the lights showing the older one.
      *
      * @param updateEvent
      *            contains the source (ourself) and the list of properties to be refreshed.
+     * @param version
+     *            of the state the event was created from
      */
-    protected void fireEvent(DecisionEvent updateEvent) {
-        logger.debug("firing event from RDC " + System.identityHashCode(this)
+    protected void fireEvent(final DecisionEvent updateEvent, final long version) {
+        if (updateEvent.getTrace() == null) {
+            updateEvent.setTrace(state.get().trace);
+        }
+        events.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(updateEvent, version);
+            }
+        });
+    }
+
+    /**
+     * Send the event to the listeners, unless it is stale. Only called from the tasks of {@link #events}.
+     *
+     * @param updateEvent
+     * @param version
+     *            of the state the event was created from
+     */
+    private void deliver(final DecisionEvent updateEvent, final long version) {
+        if (version < lastEventVersion) {
+            logger.debug("stale event from RDC {} ignored: {}", System.identityHashCode(RefereeDecisionController.this), updateEvent);
+            return;
+        }
+        lastEventVersion = version;
+        logger.debug("firing event from RDC " + System.identityHashCode(RefereeDecisionController.this)
                 + " event=" + updateEvent.toString());
         // logger.trace("                        listeners"+eventRouter.dumpListeners(this));
-        if (eventRouter != null) {
-            eventRouter.fireEvent(updateEvent);
+        final EventRouter router = eventRouter;
+        if (router != null) {
+            router.fireEvent(updateEvent);
         }
-
     }
 
     /*
@@ -335,7 +531,7 @@ public class RefereeDecisionController implements CountdownTimerListener, IDecis
     /**
      * @return the object's event router.
      */
-    private EventRouter getEventRouter() {
+    private synchronized EventRouter getEventRouter() {
         if (eventRouter == null) {
             eventRouter = new EventRouter();
             logger.trace("new event router for RefereeDecisionController " + System.identityHashCode(this) + " = " + System.identityHashCode(eventRouter)); //$NON-NLS-1$ //$NON-NLS-2$
@@ -29,6 +29,8 @@ public class Speakers {
         for (Mixer mixer : mixers) {
             System.out.println(mixer.getMixerInfo().getName());
             new Speakers().testSound(mixer);
+            // sounds are played in the background.
+            Thread.sleep(2000);
         }
     }
 
@@ -1,78 +1,54 @@
 /*
  * Copyright 2009-2012, Jean-François Lamy
- * 
+ *
  * This Source Code Form is subject to the terms of the Mozilla Public License,
  * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
  * http://mozilla.org/MPL/2.0/.
  */
 package org.concordiainternational.competition.decision;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.Mixer;
-import javax.sound.sampled.SourceDataLine;
 
+/**
+ * A sine wave, e.g. the down signal. The samples are computed once and the line stays open (see {@link AudioEngine}), so creating a
+ * tone for every lift costs nothing.
+ *
+ * @author jflamy
+ */
 public class Tone {
-    private byte[] buf;
-    private AudioFormat af;
-    private SourceDataLine sdl;
-
-    Tone(Mixer mixer, int hz, int msecs, double vol) throws IllegalArgumentException {
-        if (mixer == null)
-            return;
-        init(hz, msecs, vol, mixer);
-    }
+    private final Mixer mixer;
+    private final AudioEngine.Samples samples;
 
     /**
+     * @param mixer
+     *            null for a silent tone
      * @param hz
      * @param msecs
      * @param vol
-     * @param mixer
+     *            between 0.0 and 1.0
+     * @throws IllegalArgumentException
      */
-    protected void init(int hz, int msecs, double vol, Mixer mixer) {
-        if (vol > 1.0 || vol < 0.0)
-            throw new IllegalArgumentException("Volume out of range 0.0 - 1.0");
-        buf = new byte[msecs * 8];
-
-        for (int i = 0; i < buf.length; i++) {
-            double angle = i / (8000.0 / hz) * 2.0 * Math.PI;
-            buf[i] = (byte) (Math.sin(angle) * 127.0 * vol);
-        }
-
-        // shape the front and back ends of the wave form
-        for (int i = 0; i < 20 && i < buf.length / 2; i++) {
-            buf[i] = (byte) (buf[i] * i / 20);
-            buf[buf.length - 1 - i] = (byte) (buf[buf.length - 1 - i] *
-                    i / 20);
-        }
-
-        af = new AudioFormat(8000f, 8, 1, true, false);
-        try {
-            sdl = AudioSystem.getSourceDataLine(af, mixer.getMixerInfo());
-        } catch (LineUnavailableException e) {
-            throw new RuntimeException(e);
-        }
+    Tone(Mixer mixer, int hz, int msecs, double vol) throws IllegalArgumentException {
+        this.mixer = mixer;
+        this.samples = AudioEngine.tone(hz, msecs, vol);
+        AudioEngine.prepare(mixer, samples);
     }
 
     /**
-     * @param buf
-     * @param af
-     * @param sdl
-     * @throws LineUnavailableException
+     * Play the tone in the background.
      */
     public void emit() {
-        if (sdl == null)
-            return;
-        try {
-            sdl.open(af);
-            sdl.start();
-            sdl.write(buf, 0, buf.length);
-            sdl.drain();
-            sdl.close();
-        } catch (LineUnavailableException e) {
-            throw new RuntimeException(e);
-        }
+        emit(null);
+    }
+
+    /**
+     * Play the tone in the background.
+     *
+     * @param started
+     *            run when the tone starts playing, may be null
+     */
+    public void emit(Runnable started) {
+        AudioEngine.play(mixer, samples, started);
     }
 
 }
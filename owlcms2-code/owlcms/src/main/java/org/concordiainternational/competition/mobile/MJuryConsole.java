@@ -131,13 +131,13 @@ public class MJuryConsole extends VerticalLayout implements DecisionEventListene
 
             @Override
             public void onTouch(TouchEvent event) {
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         LoggerUtils.mdcPut(LoggerUtils.LoggingKeys.view, getLoggingId());
                         decisionController.decisionMade(juryIndex, false);
                     }
-                }).start();
+                });
                 redSelected();
             }
         });
@@ -150,13 +150,13 @@ public class MJuryConsole extends VerticalLayout implements DecisionEventListene
 
             @Override
             public void onTouch(TouchEvent event) {
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         LoggerUtils.mdcPut(LoggerUtils.LoggingKeys.view, getLoggingId());
                         decisionController.decisionMade(juryIndex, true);
                     }
-                }).start();
+                });
                 whiteSelected();
             }
         });
@@ -234,7 +234,7 @@ public class MJuryConsole extends VerticalLayout implements DecisionEventListene
      */
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -279,7 +279,7 @@ public class MJuryConsole extends VerticalLayout implements DecisionEventListene
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
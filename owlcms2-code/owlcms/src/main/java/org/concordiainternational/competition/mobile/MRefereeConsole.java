@@ -142,13 +142,10 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
 
             @Override
             public void onTouch(TouchEvent event) {
+                final long receivedNanos = System.nanoTime();
                 redSelected();
-                new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        decisionController.decisionMade(refereeIndex, false);
-                    }
-                }).start();
+                // the controller records the decision at once and sends the events from its own queue.
+                decisionController.decisionMade(refereeIndex, false, receivedNanos);
             }
         });
 
@@ -160,14 +157,9 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
 
             @Override
             public void onTouch(TouchEvent event) {
+                final long receivedNanos = System.nanoTime();
                 whiteSelected();
-                new Thread(new Runnable() {
-                    @Override
-                    public void run() {
-                        decisionController
-                                .decisionMade(refereeIndex, true);
-                    }
-                }).start();
+                decisionController.decisionMade(refereeIndex, true, receivedNanos);
             }
         });
 
@@ -251,7 +243,7 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
      */
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -292,7 +284,7 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
@@ -331,7 +323,7 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
     }
 
     private void reset() {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 top.removeAllComponents();
@@ -340,7 +332,7 @@ public class MRefereeConsole extends VerticalLayout implements DecisionEventList
                 init();
                 requestRepaintAll();
             }
-        }).start();
+        });
     }
 
     // /**
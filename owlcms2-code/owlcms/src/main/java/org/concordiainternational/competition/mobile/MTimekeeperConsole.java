@@ -178,12 +178,12 @@ public class MTimekeeperConsole extends VerticalLayout implements
             @Override
             public void onTouch(TouchEvent event) {
                 // startSelected();
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         startDoIt();
                     }
-                }).start();
+                });
             }
         });
 
@@ -198,12 +198,12 @@ public class MTimekeeperConsole extends VerticalLayout implements
             @Override
             public void onTouch(TouchEvent event) {
                 // stopSelected();
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         stopDoIt();
                     }
-                }).start();
+                });
             }
         });
 
@@ -217,12 +217,12 @@ public class MTimekeeperConsole extends VerticalLayout implements
             @Override
             public void onTouch(TouchEvent event) {
                 // stopSelected();
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         oneMinuteDoIt();
                     }
-                }).start();
+                });
             }
         });
 
@@ -236,12 +236,12 @@ public class MTimekeeperConsole extends VerticalLayout implements
             @Override
             public void onTouch(TouchEvent event) {
                 // stopSelected();
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         twoMinutesDoIt();
                     }
-                }).start();
+                });
             }
         });
 
@@ -409,7 +409,7 @@ public class MTimekeeperConsole extends VerticalLayout implements
 
             @Override
             public void sessionDataUpdateEvent(final SessionDataUpdateEvent sessionDataUpdateEvent) {
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().execute(new Runnable() {
                     @Override
                     public void run() {
                         synchronized (app) {
@@ -426,7 +426,7 @@ public class MTimekeeperConsole extends VerticalLayout implements
                         }
                         app.push();
                     }
-                }).start();
+                });
             }
 
         };
@@ -137,7 +137,7 @@ public class RefereeDecisions extends VerticalLayout implements DecisionEventLis
 
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
 
             @Override
             public void run() {
@@ -171,7 +171,7 @@ public class RefereeDecisions extends VerticalLayout implements DecisionEventLis
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
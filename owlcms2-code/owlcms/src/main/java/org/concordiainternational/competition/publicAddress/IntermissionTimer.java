@@ -9,8 +9,9 @@ package org.concordiainternational.competition.publicAddress;
 
 import java.io.Serializable;
 import java.util.Date;
-import java.util.Timer;
+import java.util.concurrent.ScheduledFuture;
 
+import org.concordiainternational.competition.timer.TimingService;
 import org.concordiainternational.competition.ui.SessionData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +34,7 @@ public class IntermissionTimer implements Serializable {
     private Date endTime = new Date();
     private int remainingSeconds;
 
-    Timer timer = null;
+    transient ScheduledFuture<?> timer = null;
     private PublicAddressCountdownTask countdownTask;
 
     private SessionData masterData;
@@ -52,20 +53,14 @@ public class IntermissionTimer implements Serializable {
      */
     public void start() {
         logger.debug("enter start {}", getRemainingSeconds()); //$NON-NLS-1$
-        if (timer != null) {
-            timer.cancel();
-        }
-        if (countdownTask != null) {
-            countdownTask.cancel();
-        }
+        TimingService.cancel(timer);
 
         if (remainingSeconds <= 0) {
             remainingSeconds = 0;
             return;
         }
-        timer = new Timer();
-        countdownTask = new PublicAddressCountdownTask(timer, remainingSeconds * 1000, DECREMENT, masterData);
-        timer.scheduleAtFixedRate(countdownTask, 0, // start right away
+        countdownTask = new PublicAddressCountdownTask(this, remainingSeconds * 1000, DECREMENT, masterData);
+        timer = TimingService.scheduleAtFixedRate(countdownTask, 0, // start right away
                 DECREMENT);
     }
 
@@ -83,12 +78,7 @@ public class IntermissionTimer implements Serializable {
     }
 
     public void clear() {
-        if (timer != null) {
-            timer.cancel();
-        }
-        if (countdownTask != null) {
-            countdownTask.cancel();
-        }
+        TimingService.cancel(timer);
 //        if (requestedSeconds <= 0) {
 //            requestedSeconds = 0;
 //            return;
@@ -107,20 +97,14 @@ public class IntermissionTimer implements Serializable {
         logger.debug("enter unPause remainingSeconds={}", remainingSeconds); //$NON-NLS-1$
         fixRemainingSeconds();
         paused = false;
-        if (timer != null) {
-            timer.cancel();
-        }
-        if (countdownTask != null) {
-            countdownTask.cancel();
-        }
+        TimingService.cancel(timer);
         if (remainingSeconds <= 0) {
             remainingSeconds = 0;
             return;
         }
 
-        timer = new Timer();
-        countdownTask = new PublicAddressCountdownTask(timer, remainingSeconds * 1000, DECREMENT, masterData);
-        timer.scheduleAtFixedRate(countdownTask, 0, // start right away
+        countdownTask = new PublicAddressCountdownTask(this, remainingSeconds * 1000, DECREMENT, masterData);
+        timer = TimingService.scheduleAtFixedRate(countdownTask, 0, // start right away
                 DECREMENT);
 
     }
@@ -131,11 +115,9 @@ public class IntermissionTimer implements Serializable {
     public void pause() {
         logger.debug("enter pause remainingMillis={}", getRemainingMilliseconds()); //$NON-NLS-1$
         paused = true;
-        if (timer != null)
-            timer.cancel();
+        TimingService.cancel(timer);
         timer = null;
         if (countdownTask != null) {
-            countdownTask.cancel();
             fixRemainingSeconds();
             countdownTask = null;
         }
@@ -147,6 +129,13 @@ public class IntermissionTimer implements Serializable {
         }
     }
 
+    /**
+     * Stop the ticks once the countdown is over, without clearing the timer state.
+     */
+    void cancelTicks() {
+        TimingService.cancel(timer);
+    }
+
     /**
 	 *
 	 */
@@ -8,8 +8,6 @@
 package org.concordiainternational.competition.publicAddress;
 
 import java.io.Serializable;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import org.concordiainternational.competition.ui.SessionData;
 import org.slf4j.Logger;
@@ -21,11 +19,11 @@ import org.slf4j.LoggerFactory;
  *
  */
 @SuppressWarnings("serial")
-class PublicAddressCountdownTask extends TimerTask implements Serializable {
+class PublicAddressCountdownTask implements Runnable, Serializable {
 
     final private static Logger logger = LoggerFactory.getLogger(PublicAddressCountdownTask.class);
 
-    private final Timer countdownTimer;
+    private final IntermissionTimer countdownTimer;
     int ticks;
     long startMillis = System.currentTimeMillis();
 
@@ -40,7 +38,7 @@ class PublicAddressCountdownTask extends TimerTask implements Serializable {
 
     private IntermissionTimerEvent timerEvent;
 
-    PublicAddressCountdownTask(Timer countdownTimer, int countdownFrom, int decrement, SessionData masterData) {
+    PublicAddressCountdownTask(IntermissionTimer countdownTimer, int countdownFrom, int decrement, SessionData masterData) {
         this.masterData = masterData;
         this.startTime = countdownFrom;
         this.countdownTimer = countdownTimer;
@@ -94,7 +92,7 @@ class PublicAddressCountdownTask extends TimerTask implements Serializable {
     /*
      * (non-Javadoc)
      *
-     * @see java.util.TimerTask#run()
+     * @see java.lang.Runnable#run()
      */
     @Override
     public void run() {
@@ -107,7 +105,7 @@ class PublicAddressCountdownTask extends TimerTask implements Serializable {
         }
 
         if (ticks <= 0) {
-            countdownTimer.cancel();
+            countdownTimer.cancelTicks();
         } else {
             ticks = ticks - decrement;
         }
@@ -11,16 +11,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import org.concordiainternational.competition.data.Category;
-import org.concordiainternational.competition.data.CategoryLookup;
-import org.concordiainternational.competition.data.CategoryLookupByName;
 import org.concordiainternational.competition.data.CompetitionSession;
-import org.concordiainternational.competition.data.CompetitionSessionLookup;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
 import org.hibernate.Session;
@@ -30,9 +25,9 @@ import org.supercsv.cellprocessor.CellProcessorAdaptor;
 import org.supercsv.cellprocessor.Optional;
 import org.supercsv.cellprocessor.ParseDate;
 import org.supercsv.cellprocessor.ParseInt;
-import org.supercsv.cellprocessor.constraint.IsIncludedIn;
 import org.supercsv.cellprocessor.constraint.StrRegEx;
 import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCSVException;
 import org.supercsv.io.CsvBeanReader;
 import org.supercsv.prefs.CsvPreference;
 import org.supercsv.util.CSVContext;
@@ -66,36 +61,28 @@ import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
  * @author Jean-François Lamy
  *
  */
-public class CSVHelper implements InputSheet {
+public class CSVHelper implements InputSheet, RegistrationImporter.RowReader {
     final private Logger logger = LoggerFactory.getLogger(CSVHelper.class);
-    private CompetitionSessionLookup competitionSessionLookup;
-    private CategoryLookupByName categoryLookupByName;
+    private ImportIndex importIndex;
     private CellProcessor[] processors;
 
     public CSVHelper(HbnSessionManager hbnSessionManager) {
-        initProcessors(hbnSessionManager);
+        this(new ImportIndex(hbnSessionManager));
+    }
+
+    /**
+     * @param importIndex
+     *            the categories and sessions, shared with the other readers of the upload.
+     */
+    public CSVHelper(ImportIndex importIndex) {
+        this.importIndex = importIndex;
+        initProcessors();
     }
 
     /**
      * Configure the cell validators and value converters.
-     *
-     * @param hbnSessionManager
-     *            to access current database.
      */
-    private void initProcessors(HbnSessionManager hbnSessionManager) {
-        categoryLookupByName = new CategoryLookupByName(hbnSessionManager);
-        competitionSessionLookup = new CompetitionSessionLookup(hbnSessionManager);
-
-        List<CompetitionSession> sessionList = CompetitionSession.getAll(hbnSessionManager);
-        Set<Object> sessionNameSet = new HashSet<Object>();
-        for (CompetitionSession s : sessionList) {
-            sessionNameSet.add(s.getName());
-        }
-        List<Category> categoryList = CategoryLookup.getSharedInstance().getCategories();
-        Set<Object> categoryNameSet = new HashSet<Object>();
-        for (Category c : categoryList) {
-            categoryNameSet.add(c.getName());
-        }
+    private void initProcessors() {
 
         CellProcessor dateparser = new ParseDate("yyyy-MM-dd");
         if (WebApplicationConfiguration.isUseBirthYear()) {
@@ -107,8 +94,8 @@ public class CSVHelper implements InputSheet {
                 new StrRegEx("[mfMF]"), // gender
                 null, // club, as is.
                 dateparser, // birth date or birth year
-                new Optional(new IsIncludedIn(categoryNameSet, new AsCategory())), // registrationCategory
-                new IsIncludedIn(sessionNameSet, new AsCompetitionSession()), // sessionName
+                new Optional(new AsCategory()), // registrationCategory
+                new Optional(new AsCompetitionSession()), // sessionName, blank for a lifter without a group
                 new Optional(new ParseInt()), // registration total
         };
     }
@@ -138,6 +125,40 @@ public class CSVHelper implements InputSheet {
         return allLifters;
     }
 
+    /**
+     * Read the lifters one row at a time. A row that cannot be converted (unknown session or category, badly formatted date...) is
+     * reported to the handler, and reading goes on with the next row.
+     *
+     * @see org.concordiainternational.competition.spreadsheet.RegistrationImporter.RowReader#readRows(java.io.InputStream,
+     *      org.concordiainternational.competition.spreadsheet.RegistrationImporter.RowHandler)
+     */
+    @Override
+    public void readRows(InputStream is, RegistrationImporter.RowHandler handler) throws IOException, InterruptedException {
+        CsvBeanReader cbr = new CsvBeanReader(new InputStreamReader(is), CsvPreference.EXCEL_PREFERENCE);
+        try {
+            final String[] header = cbr.getCSVHeader(true);
+            while (true) {
+                final Lifter lifter;
+                try {
+                    lifter = cbr.read(Lifter.class, header, processors);
+                } catch (SuperCSVException e) {
+                    handler.row(cbr.getLineNumber(), null, e.getMessage());
+                    continue;
+                }
+                if (lifter == null) {
+                    break;
+                }
+                handler.row(cbr.getLineNumber(), lifter, null);
+            }
+        } finally {
+            try {
+                cbr.close();
+            } catch (Exception e) {
+                // ignored
+            }
+        }
+    }
+
     @SuppressWarnings("unused")
     private class AsCategory extends CellProcessorAdaptor {
 
@@ -151,7 +172,11 @@ public class CSVHelper implements InputSheet {
 
         @Override
         public Object execute(Object value, CSVContext context) {
-            final Category result = categoryLookupByName.lookup((String) value);
+            final Category result = importIndex.getCategory((String) value);
+            if (result == null) {
+                importIndex.categoryNotFound((String) value);
+                throw new SuperCSVException(ExtenXLSReader.rowError("RegistrationImporter.UnknownCategory", (String) value), context, this); //$NON-NLS-1$
+            }
             return next.execute(result, context);
         }
     }
@@ -169,7 +194,11 @@ public class CSVHelper implements InputSheet {
 
         @Override
         public Object execute(Object value, CSVContext context) {
-            final CompetitionSession result = competitionSessionLookup.lookup((String) value);
+            final CompetitionSession result = importIndex.getSession((String) value);
+            if (result == null) {
+                importIndex.sessionNotFound((String) value);
+                throw new SuperCSVException(ExtenXLSReader.rowError("RegistrationImporter.UnknownSession", (String) value), context, this); //$NON-NLS-1$
+            }
             return next.execute(result, context);
         }
     }
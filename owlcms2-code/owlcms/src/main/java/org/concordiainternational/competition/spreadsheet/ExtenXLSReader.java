@@ -9,19 +9,25 @@ package org.concordiainternational.competition.spreadsheet;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.concordiainternational.competition.data.Category;
-import org.concordiainternational.competition.data.CategoryLookup;
-import org.concordiainternational.competition.data.CategoryLookupByName;
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.CompetitionSession;
-import org.concordiainternational.competition.data.CompetitionSessionLookup;
 import org.concordiainternational.competition.data.Gender;
 import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.ReferenceData;
+import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,26 +40,36 @@ import com.extentech.formats.XLS.CellNotFoundException;
 import com.extentech.formats.XLS.WorkSheetNotFoundException;
 import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
 
-public class ExtenXLSReader implements InputSheet, LifterReader {
+public class ExtenXLSReader implements InputSheet, LifterReader, RegistrationImporter.RowReader {
     final private static Logger logger = LoggerFactory.getLogger(ExtenXLSReader.class);
 
     // constants
     final static int START_ROW = 7;
     static final int GENDER_COLUMN = 4;
     static final int BODY_WEIGHT_COLUMN = 6;
+    private static final int LAST_NAME_COLUMN = 2;
+    private static final int FIRST_NAME_COLUMN = 3;
+    /** columns read for a lifter: up to the qualifying total */
+    private static final int COLUMNS = 24;
+    /** rows converted by one task; smaller ranges are not worth a thread */
+    private static final int ROWS_PER_TASK = 64;
 
-    private CategoryLookup categoryLookup;
-    private CompetitionSessionLookup competitionSessionLookup;
-    private CategoryLookupByName categoryLookupByName;
+    private ImportIndex importIndex;
 
     private WorkBookHandle workBookHandle;
 
     private WorkSheetHandle workSheet;
 
     public ExtenXLSReader(HbnSessionManager hbnSessionManager) {
-        categoryLookup = CategoryLookup.getSharedInstance(hbnSessionManager);
-        categoryLookupByName = new CategoryLookupByName(hbnSessionManager);
-        competitionSessionLookup = new CompetitionSessionLookup(hbnSessionManager);
+        this(new ImportIndex(hbnSessionManager));
+    }
+
+    /**
+     * @param importIndex
+     *            the categories and sessions, shared with the other readers of the upload.
+     */
+    public ExtenXLSReader(ImportIndex importIndex) {
+        this.importIndex = importIndex;
     }
 
     /*
@@ -76,7 +92,7 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
                 final Lifter lifter = readLifter(i);
                 if (lifter != null) {
                     allLifters.add(lifter);
-                    System.err.println("added lifter " + ExtenXLSReader.toString(lifter));
+                    logger.debug("added lifter {}", lifter.getLastName()); //$NON-NLS-1$
                 } else {
                     break;
                 }
@@ -182,36 +198,76 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
         return toString(lifter, true);
     }
 
-    private Integer getInt(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
-        CellHandle cell = sheet.getCell(row, column);
-        Integer intVal = (cell != null ? cell.getIntVal() : null);
-        return intVal;
+    public String getString(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
+        return new LiveCells(sheet).getString(row, column);
     }
 
-    private Double getDouble(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
-        CellHandle cell = sheet.getCell(row, column);
-        Double val = (cell != null ? cell.getDoubleVal() : null);
-        return val;
+    /**
+     * Values of the cells of a sheet, by row and column (starting at 0).
+     */
+    interface Cells {
+        String getString(int row, int column) throws CellNotFoundException;
+
+        /** @return null if the cell is empty as opposed to a number or - */
+        Integer getInt(int row, int column) throws CellNotFoundException;
+
+        Double getDouble(int row, int column) throws CellNotFoundException;
+
+        boolean isDate(int row, int column) throws CellNotFoundException;
+
+        Date getDate(int row, int column) throws CellNotFoundException;
     }
 
-    private Date getDate(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
-        CellHandle cell = sheet.getCell(row, column);
-        Date val = null;
-        if (cell != null) {
-            Double doubleVal = getDouble(sheet, row, column);
-            if (doubleVal > 9999) {
-                val = DateConverter.getDateFromNumber(doubleVal);
-            } else {
-                val = DateConverter.getDateFromCell(cell);
+    /**
+     * The cells, read from the workbook as they are needed.
+     */
+    private static class LiveCells implements Cells {
+        private final WorkSheetHandle sheet;
+
+        LiveCells(WorkSheetHandle sheet) {
+            this.sheet = sheet;
+        }
+
+        @Override
+        public Integer getInt(int row, int column) throws CellNotFoundException {
+            CellHandle cell = sheet.getCell(row, column);
+            Integer intVal = (cell != null ? cell.getIntVal() : null);
+            return intVal;
+        }
+
+        @Override
+        public Double getDouble(int row, int column) throws CellNotFoundException {
+            CellHandle cell = sheet.getCell(row, column);
+            Double val = (cell != null ? cell.getDoubleVal() : null);
+            return val;
+        }
+
+        @Override
+        public boolean isDate(int row, int column) throws CellNotFoundException {
+            return sheet.getCell(row, column).isDate();
+        }
+
+        @Override
+        public Date getDate(int row, int column) throws CellNotFoundException {
+            CellHandle cell = sheet.getCell(row, column);
+            Date val = null;
+            if (cell != null) {
+                Double doubleVal = getDouble(row, column);
+                if (doubleVal > 9999) {
+                    val = DateConverter.getDateFromNumber(doubleVal);
+                } else {
+                    val = DateConverter.getDateFromCell(cell);
+                }
+                logger.info("date = {}", val);
             }
-            logger.info("date = {}", val);
+            return val;
         }
-        return val;
-    }
 
-    public String getString(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
-        CellHandle cell = sheet.getCell(row, column);
-        return cell.getStringVal().trim();
+        @Override
+        public String getString(int row, int column) throws CellNotFoundException {
+            CellHandle cell = sheet.getCell(row, column);
+            return cell.getStringVal().trim();
+        }
     }
 
     /**
@@ -223,69 +279,232 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
      */
     @Override
     public Lifter readLifter(int lifterNumber) {
-        int row = lifterNumber + START_ROW;
+        try {
+            return readLifterRow(new LiveCells(workSheet), lifterNumber + START_ROW);
+        } catch (CellNotFoundException c) {
+            logger.error(c.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param cells
+     * @param row
+     *            index of the row in the sheet, starting at 0
+     * @return the lifter, null if the row is empty.
+     * @throws CellNotFoundException
+     *             if the row is past the end of the sheet
+     */
+    private Lifter readLifterRow(Cells cells, int row) throws CellNotFoundException {
         Lifter lifter = new Lifter();
 
         // read in values; getInt returns null if the cell is empty as opposed
         // to a number or -
 
+        lifter.setMembership(cells.getString(row, 0));
+        lifter.setLotNumber(cells.getInt(row, 1));
+        final String lastName = cells.getString(row, 2);
+        final String firstName = cells.getString(row, 3);
+        if (lastName.isEmpty() && firstName.isEmpty()) {
+            return null; // no data on this row.
+        }
+        lifter.setLastName(lastName);
+        lifter.setFirstName(firstName);
+        lifter.setGender(getGender(cells, row, GENDER_COLUMN));
+        lifter.setRegistrationCategory(getCategory(cells, row, 5));
+        lifter.setBodyWeight(cells.getDouble(row, BODY_WEIGHT_COLUMN));
+        lifter.setClub(cells.getString(row, 7));
+
+        boolean date = cells.isDate(row, 8);
+        logger.info("{} {}", lastName, date);
+        if (date) {
+            lifter.setFullBirthDate(cells.getDate(row, 8));
+        } else {
+            Integer int1 = cells.getInt(row, 8);
+            if (int1 > 9999) {
+                lifter.setFullBirthDate(cells.getDate(row, 8));
+            } else {
+                lifter.setYearOfBirth(int1);
+            }
+
+        }
+        ;
+        lifter.setSnatch1Declaration(cells.getString(row, 9));
+        lifter.setSnatch1ActualLift(cells.getString(row, 10));
+        lifter.setSnatch2ActualLift(cells.getString(row, 11));
+        lifter.setSnatch3ActualLift(cells.getString(row, 12));
+        lifter.setCleanJerk1Declaration(cells.getString(row, 14));
+        lifter.setCleanJerk1ActualLift(cells.getString(row, 15));
+        lifter.setCleanJerk2ActualLift(cells.getString(row, 16));
+        lifter.setCleanJerk3ActualLift(cells.getString(row, 17));
+        lifter.setCompetitionSession(getCompetitionSession(cells, row, 22));
+        try {
+            lifter.setQualifyingTotal(cells.getInt(row, 23));
+        } catch (CellNotFoundException e) {
+        }
+        try {
+            logger.debug("setQualifyingTotal");
+            lifter.setQualifyingTotal(cells.getInt(row, 23));
+        } catch (CellNotFoundException e) {
+            logger.error(e.getLocalizedMessage());
+        }
+        logger.debug(toString(lifter, false));
+        return lifter;
+    }
+
+    /**
+     * Read the lifters and hand them over in the order of the sheet. A row that cannot be converted is reported to the handler, as is a
+     * session or category name that is not known, or a cell missing from the row; the first row without names ends the list.
+     * <p>
+     * The workbook is only read once, even if {@link #readHeader(InputStream, Session)} was called first. The rows are copied from it
+     * in order ({@link SheetRows}), and then converted to lifters in parallel, in ranges of {@link #ROWS_PER_TASK} rows. Each range is
+     * handed over as soon as it and the ones before it are converted, and only a few ranges are converted ahead of the handler, so the
+     * import starts right away and a slow handler holds back the conversion instead of letting the converted lifters pile up.
+     * </p>
+     *
+     * @see org.concordiainternational.competition.spreadsheet.RegistrationImporter.RowReader#readRows(java.io.InputStream,
+     *      org.concordiainternational.competition.spreadsheet.RegistrationImporter.RowHandler)
+     */
+    @Override
+    public synchronized void readRows(InputStream is, RegistrationImporter.RowHandler handler) throws WorkSheetNotFoundException,
+            IOException, InterruptedException {
+        final SheetRows rows;
         try {
-            lifter.setMembership(getString(workSheet, row, 0));
-            lifter.setLotNumber(getInt(workSheet, row, 1));
-            final String lastName = getString(workSheet, row, 2);
-            final String firstName = getString(workSheet, row, 3);
-            if (lastName.isEmpty() && firstName.isEmpty()) {
-                return null; // no data on this row.
+            getWorkSheet(is);
+            rows = SheetRows.read(workSheet, START_ROW, COLUMNS, LAST_NAME_COLUMN, FIRST_NAME_COLUMN);
+        } finally {
+            // close workbook file and hide lock
+            if (workBookHandle != null)
+                workBookHandle.close();
+            if (is != null)
+                is.close();
+        }
+
+        final long start = System.nanoTime();
+        final CompetitionApplication app = CompetitionApplication.getCurrent();
+        final int endRow = rows.getEndRow();
+        final ForkJoinPool pool = new ForkJoinPool();
+        final int window = 2 * pool.getParallelism();
+        final ArrayDeque<Future<ConvertedRow[]>> pending = new ArrayDeque<Future<ConvertedRow[]>>(window);
+        int nextRow = START_ROW;
+        try {
+            while (nextRow < endRow && pending.size() < window) {
+                pending.addLast(pool.submit(new ConvertRows(rows, nextRow, Math.min(nextRow + ROWS_PER_TASK, endRow), app)));
+                nextRow += ROWS_PER_TASK;
             }
-            lifter.setLastName(lastName);
-            lifter.setFirstName(firstName);
-            lifter.setGender(getGender(workSheet, row, GENDER_COLUMN));
-            lifter.setRegistrationCategory(getCategory(workSheet, row, 5));
-            lifter.setBodyWeight(getDouble(workSheet, row, BODY_WEIGHT_COLUMN));
-            lifter.setClub(getString(workSheet, row, 7));
-
-            CellHandle birthDate = workSheet.getCell(row, 8);
-            boolean date = birthDate.isDate();
-            logger.info("{} {}", lastName, date);
-            if (date) {
-                lifter.setFullBirthDate(getDate(workSheet, row, 8));
-            } else {
-                Integer int1 = getInt(workSheet, row, 8);
-                if (int1 > 9999) {
-                    lifter.setFullBirthDate(getDate(workSheet, row, 8));
-                } else {
-                    lifter.setYearOfBirth(int1);
+            int row = START_ROW;
+            while (!pending.isEmpty()) {
+                final ConvertedRow[] converted = converted(pending.removeFirst());
+                // keep the pool busy while the handler works.
+                if (nextRow < endRow) {
+                    pending.addLast(pool.submit(new ConvertRows(rows, nextRow, Math.min(nextRow + ROWS_PER_TASK, endRow), app)));
+                    nextRow += ROWS_PER_TASK;
+                }
+                for (ConvertedRow convertedRow : converted) {
+                    // rows are numbered from 1 in the spreadsheet.
+                    handler.row(++row, convertedRow.lifter, convertedRow.error);
                 }
+            }
+        } finally {
+            // the handler may have given up.
+            pool.shutdownNow();
+        }
+        logger.debug("{} rows read in {} ms", endRow - START_ROW, (System.nanoTime() - start) / 1000000); //$NON-NLS-1$
+    }
 
+    /**
+     * @param future
+     * @return the rows converted by the task.
+     * @throws InterruptedException
+     */
+    private static ConvertedRow[] converted(Future<ConvertedRow[]> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // convert() reports the exceptions of a row as its error, so this is a bug or an Error.
+            final Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
             }
-            ;
-            lifter.setSnatch1Declaration(getString(workSheet, row, 9));
-            lifter.setSnatch1ActualLift(getString(workSheet, row, 10));
-            lifter.setSnatch2ActualLift(getString(workSheet, row, 11));
-            lifter.setSnatch3ActualLift(getString(workSheet, row, 12));
-            lifter.setCleanJerk1Declaration(getString(workSheet, row, 14));
-            lifter.setCleanJerk1ActualLift(getString(workSheet, row, 15));
-            lifter.setCleanJerk2ActualLift(getString(workSheet, row, 16));
-            lifter.setCleanJerk3ActualLift(getString(workSheet, row, 17));
-            lifter.setCompetitionSession(getCompetitionSession(workSheet, row, 22));
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * A row converted to a lifter, or the reason why it could not be.
+     */
+    private static final class ConvertedRow {
+        final Lifter lifter;
+        final String error;
+
+        ConvertedRow(Lifter lifter, String error) {
+            this.lifter = lifter;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Convert a range of rows.
+     */
+    private class ConvertRows implements Callable<ConvertedRow[]> {
+        private final SheetRows rows;
+        private final int from;
+        private final int to;
+        private final CompetitionApplication app;
+
+        ConvertRows(SheetRows rows, int from, int to, CompetitionApplication app) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.app = app;
+        }
+
+        @Override
+        public ConvertedRow[] call() {
+            final ConvertedRow[] converted = new ConvertedRow[to - from];
+            // rule violation messages are in the language of the application.
+            final CompetitionApplication previous = CompetitionApplication.getCurrent();
+            CompetitionApplication.setCurrent(app);
             try {
-                lifter.setQualifyingTotal(getInt(workSheet, row, 23));
-            } catch (CellNotFoundException e) {
+                for (int row = from; row < to; row++) {
+                    converted[row - from] = convert(rows, row);
+                }
+            } finally {
+                CompetitionApplication.setCurrent(previous);
             }
-            try {
-                logger.debug("setQualifyingTotal");
-                lifter.setQualifyingTotal(getInt(workSheet, row, 23));
-            } catch (CellNotFoundException e) {
-                logger.error(e.getLocalizedMessage());
+            return converted;
+        }
+    }
+
+    private ConvertedRow convert(SheetRows rows, int row) {
+        try {
+            final Lifter lifter = readLifterRow(rows, row);
+            // a blank session is allowed: the lifter is imported without a group.
+            if (lifter.getCompetitionSession() == null && !rows.getString(row, 22).isEmpty()) {
+                return new ConvertedRow(null, rowError("RegistrationImporter.UnknownSession", rows.getString(row, 22))); //$NON-NLS-1$
+            } else if (lifter.getRegistrationCategory() == null && !rows.getString(row, 5).isEmpty()) {
+                return new ConvertedRow(null, rowError("RegistrationImporter.UnknownCategory", rows.getString(row, 5))); //$NON-NLS-1$
             }
-            logger.debug(toString(lifter, false));
-            return lifter;
-        } catch (CellNotFoundException c) {
-            logger.error(c.toString());
-            return null;
+            return new ConvertedRow(lifter, null);
+        } catch (CellNotFoundException e) {
+            return new ConvertedRow(null, rowError("RegistrationImporter.MissingCell", e.getMessage())); //$NON-NLS-1$
+        } catch (RuntimeException e) {
+            // e.g. a gender other than M or F, a birth year that is not a number.
+            return new ConvertedRow(null, e.getLocalizedMessage() != null ? e.getLocalizedMessage() : e.toString());
         }
     }
 
+    /**
+     * @param key
+     *            of a message with one argument
+     * @param value
+     *            the cell or value at fault
+     * @return the message, in the language of the application.
+     */
+    static String rowError(String key, String value) {
+        return MessageFormat.format(Messages.getString(key, CompetitionApplication.getCurrentLocale()), value);
+    }
+
     @SuppressWarnings({ "unchecked" })
     public void readHeader(Session hbnSession) throws CellNotFoundException {
         List<Competition> competitions = hbnSession.createCriteria(Competition.class).list();
@@ -306,29 +525,37 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
             competition.setCompetitionCity(workSheet.getCell("X2").getStringVal()); //$NON-NLS-1$
             competition.setCompetitionOrganizer(workSheet.getCell("I3").getStringVal()); //$NON-NLS-1$
             competition.setInvitedIfBornBefore(workSheet.getCell("I4").getIntVal()); //$NON-NLS-1$
+            ReferenceData.competitionChanged();
         }
     }
 
     Category getCategory(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
+        return getCategory(new LiveCells(sheet), row, column);
+    }
+
+    private Category getCategory(Cells sheet, int row, int column) throws CellNotFoundException {
         // first try category as written
-        String catString = getString(sheet, row, column);
-        Category lookup = categoryLookupByName.lookup(catString);
+        String catString = sheet.getString(row, column);
+        Category lookup = importIndex.getCategory(catString);
         if (lookup != null)
             return lookup;
 
         // else try category made up from sex and category.
-        String genderString = getString(sheet, row, GENDER_COLUMN);
-        lookup = categoryLookupByName.lookup(genderString + catString);
+        String genderString = sheet.getString(row, GENDER_COLUMN);
+        lookup = importIndex.getCategory(genderString + catString);
         if (lookup != null)
             return lookup;
 
         // else try bodyWeight and sex
         final String gender = getGender(sheet, row, GENDER_COLUMN);
-        final Double bodyweight = getDouble(sheet, row, BODY_WEIGHT_COLUMN);
-        lookup = categoryLookup.lookup(gender, bodyweight);
+        final Double bodyweight = sheet.getDouble(row, BODY_WEIGHT_COLUMN);
+        lookup = importIndex.getCategory(gender, bodyweight);
         if (lookup != null)
             return lookup;
 
+        if (!catString.isEmpty()) {
+            importIndex.categoryNotFound(catString);
+        }
         return null;
     }
 
@@ -340,7 +567,11 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
      * @throws CellNotFoundException
      */
     public String getGender(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
-        final String genderString = getString(sheet, row, column);
+        return getGender(new LiveCells(sheet), row, column);
+    }
+
+    private String getGender(Cells sheet, int row, int column) throws CellNotFoundException {
+        final String genderString = sheet.getString(row, column);
         if (genderString != null && genderString.trim().length() > 0) {
             return Gender.valueOf(genderString.toUpperCase()).toString();
         } else {
@@ -349,11 +580,18 @@ public class ExtenXLSReader implements InputSheet, LifterReader {
     }
 
     public CompetitionSession getCompetitionSession(WorkSheetHandle sheet, int row, int column) throws CellNotFoundException {
+        return getCompetitionSession(new LiveCells(sheet), row, column);
+    }
+
+    private CompetitionSession getCompetitionSession(Cells sheet, int row, int column) throws CellNotFoundException {
         // try group as written
-        String catString = getString(sheet, row, column);
-        CompetitionSession lookup = competitionSessionLookup.lookup(catString);
+        String catString = sheet.getString(row, column);
+        CompetitionSession lookup = importIndex.getSession(catString);
         if (lookup != null)
             return lookup;
+        if (!catString.isEmpty()) {
+            importIndex.sessionNotFound(catString);
+        }
         return null;
     }
 
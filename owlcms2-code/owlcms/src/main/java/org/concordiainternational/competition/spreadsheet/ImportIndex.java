@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.concordiainternational.competition.data.Category;
+import org.concordiainternational.competition.data.CategoryContainer;
+import org.concordiainternational.competition.data.CompetitionSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * The categories and sessions a registration file refers to, read once for the whole upload.
+ * <p>
+ * Each reader used to load the active categories and the sessions from the database on its own (the CSV reader twice), and then to look
+ * up every row with a binary search. The index is built once per upload and shared by the readers ({@link CSVHelper},
+ * {@link ExtenXLSReader} and the {@link WeighInSheetReader} that delegates to it). Names are found by hashing; a category is found from
+ * the gender and body weight by hashing the kilogram, since a kilogram is shared by at most two categories.
+ * </p>
+ * <p>
+ * The names that could not be found are counted, so that a file that consistently uses a wrong session or category name can be fixed
+ * in one go.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class ImportIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportIndex.class);
+
+    /** body weights above this are all in the same bucket (the heaviest category) */
+    private static final int MAX_WEIGHT = 250;
+
+    private final Map<String, Category> categoriesByName = new HashMap<String, Category>();
+    private final Map<String, CompetitionSession> sessionsByName = new HashMap<String, CompetitionSession>();
+    /** gender and kilogram (e.g. "M|68") to the categories that include some weight within that kilogram */
+    private final Map<String, List<Category>> categoriesByWeight = new HashMap<String, List<Category>>();
+
+    private final Map<String, Integer> unmatchedCategories = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> unmatchedSessions = new LinkedHashMap<String, Integer>();
+
+    /**
+     * Read the active categories and the sessions.
+     *
+     * @param hbnSessionManager
+     */
+    public ImportIndex(HbnSessionManager hbnSessionManager) {
+        this(new CategoryContainer(hbnSessionManager, true).getAllPojos(), CompetitionSession.getAll(hbnSessionManager));
+    }
+
+    /**
+     * @param categories
+     *            the active categories
+     * @param sessions
+     */
+    public ImportIndex(List<Category> categories, List<CompetitionSession> sessions) {
+        for (Category category : categories) {
+            putFirst(categoriesByName, category.getName(), category);
+            indexWeights(category);
+        }
+        for (CompetitionSession session : sessions) {
+            putFirst(sessionsByName, session.getName(), session);
+        }
+        logger.debug("{} categories, {} sessions", categoriesByName.size(), sessionsByName.size()); //$NON-NLS-1$
+    }
+
+    /**
+     * @param name
+     *            as found in the file, e.g. "m69"; case and surrounding spaces are ignored.
+     * @return the active category, null if there is none by that name.
+     */
+    public Category getCategory(String name) {
+        return categoriesByName.get(normalize(name));
+    }
+
+    /**
+     * @param gender
+     *            M or F
+     * @param bodyWeight
+     * @return the active category for the body weight, null if there is none.
+     */
+    public Category getCategory(String gender, Double bodyWeight) {
+        if (bodyWeight == null || gender == null || bodyWeight < 0.1 || gender.trim().isEmpty()) {
+            return null;
+        }
+        final List<Category> candidates = categoriesByWeight.get(weightKey(gender, kilogram(bodyWeight)));
+        if (candidates != null) {
+            for (Category category : candidates) {
+                // same bounds as CategoryLookup: the minimum is excluded, the maximum included.
+                if (category.getMinimumWeight() < bodyWeight && bodyWeight <= category.getMaximumWeight()) {
+                    return category;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name
+     *            as found in the file, e.g. "H1"; case and surrounding spaces are ignored.
+     * @return the session, null if there is none by that name.
+     */
+    public CompetitionSession getSession(String name) {
+        return sessionsByName.get(normalize(name));
+    }
+
+    /**
+     * Count a category name that could not be found.
+     *
+     * @param name
+     */
+    public void categoryNotFound(String name) {
+        count(unmatchedCategories, name);
+    }
+
+    /**
+     * Count a session name that could not be found.
+     *
+     * @param name
+     */
+    public void sessionNotFound(String name) {
+        count(unmatchedSessions, name);
+    }
+
+    /**
+     * @return the category names that were not found, with the number of rows for each.
+     */
+    public Map<String, Integer> getUnmatchedCategories() {
+        synchronized (unmatchedCategories) {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(unmatchedCategories));
+        }
+    }
+
+    /**
+     * @return the session names that were not found, with the number of rows for each.
+     */
+    public Map<String, Integer> getUnmatchedSessions() {
+        synchronized (unmatchedSessions) {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(unmatchedSessions));
+        }
+    }
+
+    /**
+     * @return e.g. "H7 (12)", "m170 (1)"; sessions first, then categories. Empty if all names were found.
+     */
+    public List<String> getUnmatched() {
+        final List<String> report = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry : getUnmatchedSessions().entrySet()) {
+            report.add(entry.getKey() + " (" + entry.getValue() + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        for (Map.Entry<String, Integer> entry : getUnmatchedCategories().entrySet()) {
+            report.add(entry.getKey() + " (" + entry.getValue() + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return report;
+    }
+
+    private void indexWeights(Category category) {
+        final String gender = category.getGender();
+        final Double min = category.getMinimumWeight();
+        final Double max = category.getMaximumWeight();
+        if (gender == null || min == null || max == null) {
+            return;
+        }
+        for (int kilogram = kilogram(min); kilogram <= kilogram(max); kilogram++) {
+            final String key = weightKey(gender, kilogram);
+            List<Category> categories = categoriesByWeight.get(key);
+            if (categories == null) {
+                categories = new ArrayList<Category>(2);
+                categoriesByWeight.put(key, categories);
+            }
+            categories.add(category);
+        }
+    }
+
+    private static int kilogram(double weight) {
+        return (int) Math.floor(Math.min(weight, MAX_WEIGHT));
+    }
+
+    private static String weightKey(String gender, int kilogram) {
+        return gender.trim().toUpperCase(Locale.ENGLISH) + "|" + kilogram; //$NON-NLS-1$
+    }
+
+    private static String normalize(String name) {
+        return (name == null ? "" : name.trim().toLowerCase(Locale.ENGLISH)); //$NON-NLS-1$
+    }
+
+    private static <T> void putFirst(Map<String, T> map, String name, T value) {
+        final String key = normalize(name);
+        if (key.isEmpty()) {
+            return;
+        }
+        if (map.containsKey(key)) {
+            logger.warn("{} is defined more than once, using the first one", name); //$NON-NLS-1$
+            return;
+        }
+        map.put(key, value);
+    }
+
+    private static void count(Map<String, Integer> map, String name) {
+        final String key = (name == null ? "" : name.trim()); //$NON-NLS-1$
+        synchronized (map) {
+            final Integer count = map.get(key);
+            map.put(key, (count == null ? 1 : count + 1));
+        }
+    }
+}
@@ -13,9 +13,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.SortedSet;
 
 import net.sf.jxls.transformer.XLSTransformer;
 
@@ -23,11 +22,10 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.Lifter;
-import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.concordiainternational.competition.data.lifterSort.CompetitionRankings;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.CompetitionApplication;
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,14 +64,30 @@ public class JXLSCompetitionBook extends JXLSWorkbookStreamSource {
         return resourceAsStream;
     }
 
-    @SuppressWarnings("unchecked")
+    @Override
+    protected String getTemplateStamp() throws IOException {
+        return getFileStamp(new File(SheetUtils.getCompetition().getResultTemplateFileName()));
+    }
+
+    /**
+     * Books for large meets use a template named *.stream.xlsx, which is written without keeping the whole workbook in memory.
+     *
+     * @see org.concordiainternational.competition.spreadsheet.StreamingWorkbookWriter
+     */
+    @Override
+    protected boolean isStreaming() {
+        try {
+            return StreamingWorkbookWriter.isStreamingTemplate(SheetUtils.getCompetition().getResultTemplateFileName());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     @Override
     public void init() {
         super.init();
 
-        final Session hbnSession = CompetitionApplication.getCurrent().getHbnSession();
-        List<Competition> competitionList = hbnSession.createCriteria(Competition.class).list();
-        Competition competition = competitionList.get(0);
+        Competition competition = Competition.getCompetition();
         getReportingBeans().put("competition", competition);
     }
 
@@ -86,95 +100,57 @@ public class JXLSCompetitionBook extends JXLSWorkbookStreamSource {
             // prevent outputting silliness.
             throw new RuntimeException(Messages.getString("OutputSheet.EmptySpreadsheet", CompetitionApplication.getCurrentLocale())); //$NON-NLS-1$
         }
-        // extract club lists
-        TreeSet<String> clubs = new TreeSet<String>();
-        for (Lifter curLifter : lifters) {
-            clubs.add(curLifter.getClub());
-        }
+        CompetitionRankings rankings = new CompetitionRankings(lifters);
+        SortedSet<String> clubs = rankings.getClubs();
         reportingBeans.put("clubs", clubs);
 
-        List<Lifter> sortedLifters;
-
-        sortedLifters = LifterSorter.resultsOrderCopy(lifters, Ranking.SNATCH);
-        LifterSorter.assignCategoryRanks(sortedLifters, Ranking.SNATCH);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mSn", sortedMen);
-        reportingBeans.put("wSn", sortedWomen);
+        reportingBeans.put("mSn", rankings.getMenResults(Ranking.SNATCH));
+        reportingBeans.put("wSn", rankings.getWomenResults(Ranking.SNATCH));
 
         // only needed once
-        reportingBeans.put("nbMen", sortedMen.size());
-        reportingBeans.put("nbWomen", sortedWomen.size());
-        reportingBeans.put("nbLifters", sortedLifters.size());
+        final int nbMen = rankings.getMen().size();
+        final int nbWomen = rankings.getWomen().size();
+        reportingBeans.put("nbMen", nbMen);
+        reportingBeans.put("nbWomen", nbWomen);
+        reportingBeans.put("nbLifters", lifters.size());
         reportingBeans.put("nbClubs", clubs.size());
-        if (sortedMen.size() > 0) {
+        if (nbMen > 0) {
             reportingBeans.put("mClubs", clubs);
         } else {
             reportingBeans.put("mClubs", new ArrayList<String>());
         }
-        if (sortedWomen.size() > 0) {
+        if (nbWomen > 0) {
             reportingBeans.put("wClubs", clubs);
         } else {
             reportingBeans.put("wClubs", new ArrayList<String>());
         }
 
-        sortedLifters = LifterSorter.resultsOrderCopy(lifters, Ranking.CLEANJERK);
-        LifterSorter.assignCategoryRanks(sortedLifters, Ranking.CLEANJERK);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mCJ", sortedMen);
-        reportingBeans.put("wCJ", sortedWomen);
-
-        sortedLifters = LifterSorter.resultsOrderCopy(lifters, Ranking.TOTAL);
-        LifterSorter.assignCategoryRanks(sortedLifters, Ranking.TOTAL);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mTot", sortedMen);
-        reportingBeans.put("wTot", sortedWomen);
-
-        sortedLifters = LifterSorter.resultsOrderCopy(lifters, Ranking.SINCLAIR);
-        LifterSorter.assignSinclairRanksAndPoints(sortedLifters, Ranking.SINCLAIR);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mSinclair", sortedMen);
-        reportingBeans.put("wSinclair", sortedWomen);
-
-        sortedLifters = LifterSorter.resultsOrderCopy(lifters, Ranking.CUSTOM);
-        LifterSorter.assignCategoryRanks(sortedLifters, Ranking.CUSTOM);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mCus", sortedMen);
-        reportingBeans.put("wCus", sortedWomen);
+        reportingBeans.put("mCJ", rankings.getMenResults(Ranking.CLEANJERK));
+        reportingBeans.put("wCJ", rankings.getWomenResults(Ranking.CLEANJERK));
+
+        reportingBeans.put("mTot", rankings.getMenResults(Ranking.TOTAL));
+        reportingBeans.put("wTot", rankings.getWomenResults(Ranking.TOTAL));
+
+        reportingBeans.put("mSinclair", rankings.getMenResults(Ranking.SINCLAIR));
+        reportingBeans.put("wSinclair", rankings.getWomenResults(Ranking.SINCLAIR));
+
+        reportingBeans.put("mCus", rankings.getMenResults(Ranking.CUSTOM));
+        reportingBeans.put("wCus", rankings.getWomenResults(Ranking.CUSTOM));
 
         // team-oriented rankings. These put all the lifters from the same team together,
         // sorted from best to worst, so that the top "n" can be given points
-        sortedLifters = LifterSorter.teamRankingOrderCopy(lifters, Ranking.CUSTOM);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mCustom", sortedMen);
-        reportingBeans.put("wCustom", sortedWomen);
-
-        sortedLifters = LifterSorter.teamRankingOrderCopy(lifters, Ranking.COMBINED);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
-        reportingBeans.put("mCombined", sortedMen);
-        reportingBeans.put("wCombined", sortedWomen);
-        reportingBeans.put("mwCombined", sortedLifters);
-
-        LifterSorter.teamRankingOrder(sortedLifters, Ranking.TOTAL);
-        sortedMen = new ArrayList<Lifter>(sortedLifters.size());
-        sortedWomen = new ArrayList<Lifter>(sortedLifters.size());
-        splitByGender(sortedLifters, sortedMen, sortedWomen);
+        reportingBeans.put("mCustom", rankings.getMenTeamResults(Ranking.CUSTOM));
+        reportingBeans.put("wCustom", rankings.getWomenTeamResults(Ranking.CUSTOM));
+
+        reportingBeans.put("mCombined", rankings.getMenTeamResults(Ranking.COMBINED));
+        reportingBeans.put("wCombined", rankings.getWomenTeamResults(Ranking.COMBINED));
+        reportingBeans.put("mwCombined", rankings.getTeamResults(Ranking.COMBINED));
+
+        sortedMen = rankings.getMenTeamResults(Ranking.TOTAL);
+        sortedWomen = rankings.getWomenTeamResults(Ranking.TOTAL);
         reportingBeans.put("mTeam", sortedMen);
         reportingBeans.put("wTeam", sortedWomen);
-        reportingBeans.put("mwTeam", sortedLifters);
+        reportingBeans.put("mwTeam", rankings.getTeamResults(Ranking.TOTAL));
     }
 
     @Override
@@ -258,15 +234,4 @@ public class JXLSCompetitionBook extends JXLSWorkbookStreamSource {
                 curSheet.getFooter().setRight(rightFooter);
         }
     }
-
-    public static void splitByGender(List<Lifter> sortedLifters,
-            List<Lifter> sortedMen, List<Lifter> sortedWomen) {
-        for (Lifter l : sortedLifters) {
-            if ("m".equalsIgnoreCase(l.getGender())) {
-                sortedMen.add(l);
-            } else {
-                sortedWomen.add(l);
-            }
-        }
-    }
 }
@@ -49,9 +49,23 @@ public class JXLSLifterCard extends JXLSWorkbookStreamSource {
     @SuppressWarnings("unused")
     private final static Logger logger = LoggerFactory.getLogger(JXLSLifterCard.class);
 
+    @Override
+    protected String getTemplateStamp() {
+        return getResourceStamp(getTemplateName());
+    }
+
+    @Override
+    protected boolean isSessionDependent() {
+        return true;
+    }
+
+    private String getTemplateName() {
+        return "/LifterCardTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+    }
+
     @Override
     public InputStream getTemplate() throws IOException {
-        String templateName = "/LifterCardTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+        String templateName = getTemplateName();
         final InputStream resourceAsStream = app.getResourceAsStream(templateName);
         if (resourceAsStream == null) {
             throw new IOException("resource not found: " + templateName);} //$NON-NLS-1$
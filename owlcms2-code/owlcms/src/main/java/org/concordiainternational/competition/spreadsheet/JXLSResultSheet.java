@@ -53,6 +53,17 @@ public class JXLSResultSheet extends JXLSWorkbookStreamSource {
         //System.err.println("masters = "+getReportingBeans().get("masters"));
     }
 
+    @Override
+    protected String getTemplateStamp() throws IOException {
+        String protocolTemplateFileName = competition.getProtocolFileName();
+        return (protocolTemplateFileName != null ? getFileStamp(new File(protocolTemplateFileName)) : null);
+    }
+
+    @Override
+    protected boolean isSessionDependent() {
+        return true;
+    }
+
     @Override
     public InputStream getTemplate() throws IOException {
         String protocolTemplateFileName = competition.getProtocolFileName();
@@ -9,13 +9,11 @@ package org.concordiainternational.competition.spreadsheet;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
 
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.ui.CompetitionApplication;
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,20 +34,26 @@ public class JXLSStartingList extends JXLSWorkbookStreamSource {
 
     Logger logger = LoggerFactory.getLogger(JXLSStartingList.class);
 
-    @SuppressWarnings("unchecked")
     @Override
     protected void init() {
         super.init();
 
-        final Session hbnSession = CompetitionApplication.getCurrent().getHbnSession();
-        List<Competition> competitionList = hbnSession.createCriteria(Competition.class).list();
-        Competition competition = competitionList.get(0);
+        Competition competition = Competition.getCompetition();
         getReportingBeans().put("competition", competition);
     }
 
+    @Override
+    protected String getTemplateStamp() {
+        return getResourceStamp(getTemplateName());
+    }
+
+    private String getTemplateName() {
+        return "/StartSheetTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+    }
+
     @Override
     public InputStream getTemplate() throws IOException {
-        String templateName = "/StartSheetTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+        String templateName = getTemplateName();
         final InputStream resourceAsStream = app.getResourceAsStream(templateName);
         if (resourceAsStream == null) {
             throw new IOException("resource not found: " + templateName);} //$NON-NLS-1$
@@ -20,7 +20,6 @@ import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.CompetitionApplication;
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -171,23 +170,29 @@ public class JXLSTimingStats extends JXLSWorkbookStreamSource {
         reportingBeans.put("groups", sessions);
     }
 
+    @Override
+    protected String getTemplateStamp() {
+        return getResourceStamp(getTemplateName());
+    }
+
+    private String getTemplateName() {
+        return "/TimingStatsTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+    }
+
     @Override
     public InputStream getTemplate() throws IOException {
-        String templateName = "/TimingStatsTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+        String templateName = getTemplateName();
         final InputStream resourceAsStream = app.getResourceAsStream(templateName);
         if (resourceAsStream == null) {
             throw new IOException("resource not found: " + templateName);} //$NON-NLS-1$
         return resourceAsStream;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     protected void init() {
         super.init();
 
-        final Session hbnSession = CompetitionApplication.getCurrent().getHbnSession();
-        List<Competition> competitionList = hbnSession.createCriteria(Competition.class).list();
-        Competition competition = competitionList.get(0);
+        Competition competition = Competition.getCompetition();
         getReportingBeans().put("competition", competition);
 
     }
@@ -46,9 +46,23 @@ public class JXLSWeighInSheet extends JXLSWorkbookStreamSource {
         getReportingBeans().put("session", app.getCurrentCompetitionSession());
     }
 
+    @Override
+    protected String getTemplateStamp() {
+        return getResourceStamp(getTemplateName());
+    }
+
+    @Override
+    protected boolean isSessionDependent() {
+        return true;
+    }
+
+    private String getTemplateName() {
+        return "/WeighInSheetTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+    }
+
     @Override
     public InputStream getTemplate() throws IOException {
-        String templateName = "/WeighInSheetTemplate_" + CompetitionApplication.getCurrentSupportedLocale().getLanguage() + ".xls";
+        String templateName = getTemplateName();
         final InputStream resourceAsStream = app.getResourceAsStream(templateName);
         if (resourceAsStream == null) {
             throw new IOException("resource not found: " + templateName);} //$NON-NLS-1$
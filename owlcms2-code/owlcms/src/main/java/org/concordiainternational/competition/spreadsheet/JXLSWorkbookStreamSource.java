@@ -7,12 +7,18 @@
  */
 package org.concordiainternational.competition.spreadsheet;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sf.jxls.transformer.XLSTransformer;
 
@@ -20,13 +26,16 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.concordiainternational.competition.data.Category;
 import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.data.Competition;
+import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.ui.CompetitionApplication;
-import org.concordiainternational.competition.utils.LoggerUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.Metrics;
 
 import com.vaadin.terminal.StreamResource;
 
@@ -36,7 +45,9 @@ import com.vaadin.terminal.StreamResource;
  */
 @SuppressWarnings("serial")
 public abstract class JXLSWorkbookStreamSource implements StreamResource.StreamSource {
-    private final static Logger logger = LoggerFactory.getLogger(JXLSWorkbookStreamSource.class);
+    private static final Histogram transformTimes = Metrics.histogram("report.transform"); //$NON-NLS-1$
+    private static final Histogram writeTimes = Metrics.histogram("report.write"); //$NON-NLS-1$
+    private static final AtomicLong failures = Metrics.counter("report.failed"); //$NON-NLS-1$
 
     protected CategoryLookup categoryLookup;
     protected CompetitionApplication app;
@@ -71,45 +82,227 @@ public abstract class JXLSWorkbookStreamSource implements StreamResource.StreamS
      */
     abstract protected void getSortedLifters();
 
+    /**
+     * The workbook is produced by the {@link ReportService}, and sent to the browser as it is written.
+     */
     @Override
     public InputStream getStream() {
+        return ReportService.open(getClass().getSimpleName(), getCacheKey(), new ReportService.ReportWriter() {
+            @Override
+            public void write(OutputStream out, ReportService.Job job) throws Exception {
+                writeWorkbook(out, job);
+            }
+        });
+    }
+
+    /**
+     * Identifies the report produced: the template and the data it shows. Two calls that return the same key must produce the same
+     * workbook, which is then written only once and served again from memory.
+     * <p>
+     * The key is a digest of the template stamp, the locale, the competition, the current session if the report depends on it, and the
+     * id and version of every lifter shown (Hibernate increments the version each time a lifter is saved). Sessions and categories have
+     * no version, so the fields of those the lifters belong to are part of the key as well: a session time or a category name edited
+     * after a report was produced gives a new key. This is cheap compared to producing the workbook, and the same for all the users that
+     * download the same sheet.
+     * </p>
+     *
+     * @return null if the report is not to be cached.
+     */
+    protected String getCacheKey() {
+        final String templateStamp;
         try {
-            PipedInputStream in = new PipedInputStream();
-            final PipedOutputStream out = new PipedOutputStream(in);
-
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        LoggerUtils.mdcSetup(app.getCurrentView().getLoggingId(),null);
-                        XLSTransformer transformer = new XLSTransformer();
-                        configureTransformer(transformer);
-                        HashMap<String, Object> reportingBeans2 = getReportingBeans();
-                        Workbook workbook = null;
-                        try {
-                            workbook = transformer.transformXLS(getTemplate(), reportingBeans2);
-                        } catch (Exception e) {
-                            LoggerUtils.infoException(logger, e);
-                        }
-                        if (workbook != null) {
-                            postProcess(workbook);
-                            workbook.write(out);
-                        }
-                    } catch (IOException e) {
-                        // ignore
-                    } catch (Throwable e) {
-                        LoggerUtils.infoException(logger, e);
-                        throw new RuntimeException(e);
-                    }
-                }
-            }).start();
+            templateStamp = getTemplateStamp();
+        } catch (IOException e) {
+            return null;
+        }
+        if (templateStamp == null || lifters == null) {
+            return null;
+        }
+        final StringBuilder stamp = new StringBuilder(templateStamp);
+        stamp.append('|').append(CompetitionApplication.getCurrentLocale()).append('|').append(excludeNotWeighed);
+        appendCompetitionStamp(stamp, Competition.getCompetition());
+        if (isSessionDependent()) {
+            appendSessionStamp(stamp, app != null ? app.getCurrentCompetitionSession() : null);
+        }
+        final Map<Long, CompetitionSession> sessions = new LinkedHashMap<Long, CompetitionSession>();
+        final Map<Long, Category> categories = new LinkedHashMap<Long, Category>();
+        for (Lifter lifter : lifters) {
+            stamp.append('|').append(lifter.getId()).append(':').append(lifter.getVersion());
+            final CompetitionSession session = lifter.getCompetitionSession();
+            if (session != null) {
+                stamp.append(':').append(session.getId());
+                sessions.put(session.getId(), session);
+            }
+            final Category category = lifter.getCategory();
+            if (category != null) {
+                stamp.append(':').append(category.getId());
+                categories.put(category.getId(), category);
+            }
+            final Category registrationCategory = lifter.getRegistrationCategory();
+            if (registrationCategory != null) {
+                stamp.append(':').append(registrationCategory.getId());
+                categories.put(registrationCategory.getId(), registrationCategory);
+            }
+        }
+        for (CompetitionSession session : sessions.values()) {
+            appendSessionStamp(stamp, session);
+        }
+        for (Category category : categories.values()) {
+            appendCategoryStamp(stamp, category);
+        }
+        return getClass().getSimpleName() + ":" + digest(stamp.toString()); //$NON-NLS-1$
+    }
+
+    /**
+     * @return identifies the template and its version, e.g. its file name and modification time; null if the report is not to be cached.
+     * @throws IOException
+     */
+    protected String getTemplateStamp() throws IOException {
+        return null;
+    }
+
+    /**
+     * @return true if the report shows the current session, or only its lifters.
+     */
+    protected boolean isSessionDependent() {
+        return false;
+    }
+
+    /**
+     * @param templateName
+     * @return stamp for a template found by {@link CompetitionApplication#getResourceAsStream(String)}.
+     * @see TemplateCache#resourceStamp(String)
+     */
+    protected String getResourceStamp(String templateName) {
+        return TemplateCache.resourceStamp(templateName);
+    }
+
+    /**
+     * @param file
+     * @return the file and its modification time.
+     * @see TemplateCache#fileStamp(File)
+     */
+    protected String getFileStamp(File file) {
+        return TemplateCache.fileStamp(file);
+    }
+
+    private static void appendCompetitionStamp(StringBuilder stamp, Competition competition) {
+        if (competition == null) {
+            return;
+        }
+        stamp.append('|').append(competition.getCompetitionName()).append('|').append(competition.getCompetitionSite())
+                .append('|').append(competition.getCompetitionDate()).append('|').append(competition.getCompetitionCity())
+                .append('|').append(competition.getCompetitionOrganizer()).append('|').append(competition.getFederation())
+                .append('|').append(competition.getFederationAddress()).append('|').append(competition.getFederationWebSite())
+                .append('|').append(competition.getFederationEMail()).append('|').append(competition.getMasters())
+                .append('|').append(competition.getInvitedIfBornBefore());
+    }
+
+    private static void appendSessionStamp(StringBuilder stamp, CompetitionSession session) {
+        if (session == null) {
+            stamp.append("|-"); //$NON-NLS-1$
+            return;
+        }
+        stamp.append('|').append(session.getId()).append('|').append(session.getName()).append('|')
+                .append(session.getPlatform() != null ? session.getPlatform().getName() : null).append('|')
+                .append(session.getWeighInTime()).append('|').append(session.getCompetitionTime()).append('|')
+                .append(session.getAnnouncer()).append('|').append(session.getMarshall()).append('|')
+                .append(session.getTimeKeeper()).append('|').append(session.getTechnicalController()).append('|')
+                .append(session.getReferee1()).append('|').append(session.getReferee2()).append('|')
+                .append(session.getReferee3()).append('|').append(session.getJury());
+    }
+
+    private static void appendCategoryStamp(StringBuilder stamp, Category category) {
+        stamp.append('|').append(category.getId()).append('|').append(category.getName()).append('|').append(category.getGender())
+                .append('|').append(category.getMinimumWeight()).append('|').append(category.getMaximumWeight()).append('|')
+                .append(category.getActive());
+    }
 
-            return in;
-        } catch (Throwable e) {
+    private static String digest(String stamp) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(stamp.getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+            final StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void writeWorkbook(OutputStream out, ReportService.Job job) throws Exception {
+        XLSTransformer transformer = new XLSTransformer();
+        configureTransformer(transformer);
+        HashMap<String, Object> reportingBeans2 = getReportingBeans();
+        Workbook workbook = null;
+        final long start = System.nanoTime();
+        try {
+            try {
+                // the template is parsed in advance; the same stamp is used as for the report cache.
+                String templateStamp = null;
+                try {
+                    templateStamp = getTemplateStamp();
+                } catch (IOException e) {
+                    // read without caching
+                }
+                workbook = TemplateCache.getWorkbook(templateStamp, new TemplateCache.Loader() {
+                    @Override
+                    public InputStream open() throws IOException {
+                        return getTemplate();
+                    }
+                });
+                if (isStreaming()) {
+                    if (!(workbook instanceof XSSFWorkbook)) {
+                        throw new IllegalArgumentException("streaming templates must be .xlsx files"); //$NON-NLS-1$
+                    }
+                    workbook = new StreamingWorkbookWriter((XSSFWorkbook) workbook, reportingBeans2).fill();
+                } else {
+                    transformer.transformWorkbook(workbook, reportingBeans2);
+                }
+                postProcess(workbook);
+                transformTimes.recordSince(start);
+            } catch (Exception e) {
+                // logged by the report service
+                failures.incrementAndGet();
+                throw e;
+            }
+            job.writing();
+            final long writeStart = System.nanoTime();
+            workbook.write(out);
+            writeTimes.recordSince(writeStart);
+        } finally {
+            // the rows of a streamed workbook are in temporary files.
+            if (workbook instanceof SXSSFWorkbook) {
+                StreamingWorkbookWriter.dispose((SXSSFWorkbook) workbook);
+            }
+        }
+    }
+
+    /**
+     * @return true if the template is to be filled in by the {@link StreamingWorkbookWriter} instead of JXLS, so that the whole workbook
+     *         is never in memory.
+     */
+    protected boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * @return the extension of the file downloaded.
+     */
+    public String getFileExtension() {
+        return (isStreaming() ? ".xlsx" : ".xls"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * @return the MIME type of the file downloaded.
+     */
+    public String getMimeType() {
+        return (isStreaming() ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet" : "application/x-msexcel"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
     protected void configureTransformer(XLSTransformer transformer) {
         // do nothing, to be overridden as needed,
     }
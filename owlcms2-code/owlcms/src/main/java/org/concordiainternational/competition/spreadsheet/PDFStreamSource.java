@@ -8,8 +8,7 @@
 package org.concordiainternational.competition.spreadsheet;
 
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
 
 import com.vaadin.terminal.StreamResource;
 
@@ -22,28 +21,15 @@ public class PDFStreamSource implements StreamResource.StreamSource {
 
     @Override
     public InputStream getStream() {
-        try {
-            PipedInputStream in = new PipedInputStream();
-            final PipedOutputStream out = new PipedOutputStream(in);
-
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        writePdf(out);
-                    } catch (Throwable e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }).start();
-
-            return in;
-        } catch (Throwable e) {
-            throw new RuntimeException(e);
-        }
+        return ReportService.open(getClass().getSimpleName(), null, new ReportService.ReportWriter() {
+            @Override
+            public void write(OutputStream out, ReportService.Job job) throws Exception {
+                writePdf(out);
+            }
+        });
     }
 
-    protected void writePdf(PipedOutputStream out) {
+    protected void writePdf(OutputStream out) {
         // call PDF library to write on "out"
     }
 
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Imports a registration file without holding it all in memory, and without holding up the user interface.
+ * <p>
+ * The import used to read the whole file into a list, then save the lifters one at a time in the transaction of the request, so that
+ * large files froze the browser and filled the Hibernate session. It now runs in the background, in two stages connected by a bounded
+ * queue:
+ * <ol>
+ * <li>a reader ({@link CSVHelper} or {@link ExtenXLSReader}) turns each row into a lifter, as it is read; a row that cannot be converted
+ * (unknown session, bad date...) is reported with its row number instead of stopping the import;</li>
+ * <li>each lifter is checked (names, gender, duplicates in the file), then saved in a session of its own; the session is flushed and
+ * cleared every {@link #BATCH_SIZE} lifters, so memory does not grow with the size of the file.</li>
+ * </ol>
+ * The import is all or nothing: if any row is in error, the transaction is rolled back and the errors are listed, so the corrected file
+ * can be loaded again without creating duplicates. In a dry run, the rows are checked but nothing is written.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class RegistrationImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationImporter.class);
+
+    /** lifters saved between flushes of the session */
+    static final int BATCH_SIZE = 50;
+    /** rows read ahead of the validation */
+    private static final int QUEUE_SIZE = 2 * BATCH_SIZE;
+    /** rows between progress reports */
+    private static final int PROGRESS_INTERVAL = 25;
+    /** errors listed; the others are only counted */
+    static final int MAX_ERRORS = 100;
+
+    private static final Histogram importTimes = Metrics.histogram("import.registration"); //$NON-NLS-1$
+    private static final AtomicLong importedLifters = Metrics.counter("import.lifters"); //$NON-NLS-1$
+
+    /**
+     * Reads the rows of a registration file, one at a time.
+     */
+    public interface RowReader {
+        /**
+         * @param is
+         *            the file, to be closed by the reader
+         * @param handler
+         *            receives each row as it is read
+         * @throws Exception
+         *             if the file cannot be read at all
+         */
+        void readRows(InputStream is, RowHandler handler) throws Exception;
+    }
+
+    /**
+     * Receives the rows of a registration file.
+     */
+    public interface RowHandler {
+        /**
+         * @param rowNumber
+         *            as shown by the spreadsheet or text editor
+         * @param lifter
+         *            null if the row could not be converted
+         * @param error
+         *            why the row could not be converted, null if it was
+         * @throws InterruptedException
+         *             if the import was stopped
+         */
+        void row(int rowNumber, Lifter lifter, String error) throws InterruptedException;
+    }
+
+    /**
+     * Told of the progress, from the import thread.
+     */
+    public interface Listener {
+        void progress(Result result);
+
+        void finished(Result result);
+    }
+
+    /**
+     * Outcome of an import, updated as it goes.
+     */
+    public static class Result {
+        private volatile int rows = 0;
+        private volatile int saved = 0;
+        private volatile int errorCount = 0;
+        private volatile boolean done = false;
+        private volatile boolean written = false;
+        private volatile String failure = null;
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+        /**
+         * @return rows read so far.
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return lifters saved (not yet committed while the import runs).
+         */
+        public int getSaved() {
+            return saved;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return the first {@link RegistrationImporter#MAX_ERRORS} errors, e.g. "12: unknown session H7"
+         */
+        public List<String> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<String>(errors);
+            }
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return true if the lifters were committed to the database.
+         */
+        public boolean isWritten() {
+            return written;
+        }
+
+        /**
+         * @return why the file could not be imported at all, null if it could be read.
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        void error(int rowNumber, String message) {
+            errorCount++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(rowNumber + ": " + message); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * A row on its way from the reader to the database.
+     */
+    private static class ImportRow {
+        final int rowNumber;
+        final Lifter lifter;
+        final String error;
+
+        ImportRow(int rowNumber, Lifter lifter, String error) {
+            this.rowNumber = rowNumber;
+            this.lifter = lifter;
+            this.error = error;
+        }
+    }
+
+    /** marks the end of the file */
+    private static final ImportRow END = new ImportRow(-1, null, null);
+
+    private final CompetitionApplication app;
+    private final boolean dryRun;
+    private final Listener listener;
+    private final Result result = new Result();
+    private final BlockingQueue<ImportRow> queue = new ArrayBlockingQueue<ImportRow>(QUEUE_SIZE);
+    private final Map<String, Integer> seen = new HashMap<String, Integer>();
+
+    /**
+     * @param app
+     * @param dryRun
+     *            true to check the file without writing anything
+     * @param listener
+     *            may be null
+     */
+    public RegistrationImporter(CompetitionApplication app, boolean dryRun, Listener listener) {
+        this.app = app;
+        this.dryRun = dryRun;
+        this.listener = listener;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * Import in the background.
+     *
+     * @param file
+     * @param reader
+     */
+    public void start(final File file, final RowReader reader) {
+        final String loggingId = LoggerUtils.mdcGet(LoggerUtils.LoggingKeys.view.name());
+        final Thread parser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                setup(loggingId);
+                try {
+                    reader.readRows(new FileInputStream(file), new RowHandler() {
+                        @Override
+                        public void row(int rowNumber, Lifter lifter, String error) throws InterruptedException {
+                            queue.put(new ImportRow(rowNumber, lifter, error));
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    // import stopped
+                } catch (Throwable t) {
+                    result.failure = (t.getLocalizedMessage() != null ? t.getLocalizedMessage() : t.toString());
+                    LoggerUtils.infoException(logger, t);
+                } finally {
+                    try {
+                        queue.put(END);
+                    } catch (InterruptedException e) {
+                        // import stopped
+                    }
+                    CompetitionApplication.setCurrent(null);
+                }
+            }
+        }, "import-reader"); //$NON-NLS-1$
+
+        final Thread importer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                setup(loggingId);
+                try {
+                    importRows();
+                } catch (Throwable t) {
+                    result.failure = (t.getLocalizedMessage() != null ? t.getLocalizedMessage() : t.toString());
+                    LoggerUtils.infoException(logger, t);
+                    parser.interrupt();
+                } finally {
+                    result.done = true;
+                    if (listener != null) {
+                        listener.finished(result);
+                    }
+                    CompetitionApplication.setCurrent(null);
+                }
+            }
+        }, "import-writer"); //$NON-NLS-1$
+
+        parser.setDaemon(true);
+        importer.setDaemon(true);
+        parser.start();
+        importer.start();
+    }
+
+    private void setup(String loggingId) {
+        CompetitionApplication.setCurrent(app);
+        if (loggingId != null) {
+            LoggerUtils.mdcSetup(loggingId, null);
+        }
+    }
+
+    /**
+     * Check and save the rows as they come.
+     *
+     * @throws InterruptedException
+     */
+    void importRows() throws InterruptedException {
+        final long start = System.nanoTime();
+        final Session session = (dryRun ? null : app.openSession());
+        Transaction transaction = null;
+        try {
+            if (session != null) {
+                transaction = session.beginTransaction();
+            }
+            int pending = 0;
+            while (true) {
+                final ImportRow row = queue.take();
+                if (row == END) {
+                    break;
+                }
+                result.rows++;
+                final String error = (row.error != null ? row.error : validate(row));
+                if (error != null) {
+                    result.error(row.rowNumber, error);
+                } else if (session != null && result.errorCount == 0) {
+                    session.save(row.lifter);
+                    result.saved++;
+                    if (++pending >= BATCH_SIZE) {
+                        // send the inserts and forget the lifters, so the session does not grow.
+                        session.flush();
+                        session.clear();
+                        pending = 0;
+                    }
+                }
+                if (result.rows % PROGRESS_INTERVAL == 0 && listener != null) {
+                    listener.progress(result);
+                }
+            }
+
+            if (transaction != null) {
+                if (result.errorCount == 0 && result.failure == null) {
+                    transaction.commit();
+                    result.written = true;
+                    importedLifters.addAndGet(result.saved);
+                } else {
+                    transaction.rollback();
+                }
+            }
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            if (session != null && session.isOpen()) {
+                session.close();
+            }
+            importTimes.recordSince(start);
+            logger.info("import {}: {} rows, {} errors, {} saved, written={}", new Object[] { dryRun ? "dry run" : "", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    result.rows, result.errorCount, result.saved, result.written });
+        }
+    }
+
+    /**
+     * Checks that need the lifter as a whole, or the other rows.
+     *
+     * @param row
+     * @return the error, null if the lifter is fine.
+     */
+    private String validate(ImportRow row) {
+        final Lifter lifter = row.lifter;
+        final Locale locale = CompetitionApplication.getCurrentLocale();
+        if (lifter == null) {
+            return Messages.getString("RegistrationImporter.NoData", locale); //$NON-NLS-1$
+        }
+        if (isEmpty(lifter.getLastName())) {
+            return Messages.getString("RegistrationImporter.LastNameMissing", locale); //$NON-NLS-1$
+        }
+        if (isEmpty(lifter.getFirstName())) {
+            return Messages.getString("RegistrationImporter.FirstNameMissing", locale); //$NON-NLS-1$
+        }
+        if (isEmpty(lifter.getGender())) {
+            return Messages.getString("RegistrationImporter.GenderMissing", locale); //$NON-NLS-1$
+        }
+        final String key = duplicateKey(lifter);
+        final Integer previous = seen.get(key);
+        if (previous != null) {
+            return MessageFormat.format(Messages.getString("RegistrationImporter.SameLifter", locale), previous.toString()); //$NON-NLS-1$
+        }
+        seen.put(key, row.rowNumber);
+        return null;
+    }
+
+    private static String duplicateKey(Lifter lifter) {
+        final Date birthDate = lifter.getFullBirthDate();
+        return (lifter.getLastName().trim() + "|" + lifter.getFirstName().trim() + "|" + lifter.getClub() + "|" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + (birthDate != null ? birthDate.getTime() : lifter.getYearOfBirth())).toLowerCase();
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Connects a report being written by a {@link ReportService} thread to the download that reads it.
+ * <p>
+ * Unlike PipedInputStream, the writer never waits forever: it stops with an {@link AbandonedException} as soon as the download closes its
+ * stream (the browser went away) or stops reading for longer than the stall delay. Conversely, a failure of the writer is reported to the
+ * reader instead of looking like the end of the file.
+ * </p>
+ *
+ * @author jflamy
+ */
+class ReportPipe {
+
+    /**
+     * The download is no longer being read.
+     */
+    static class AbandonedException extends InterruptedIOException {
+        private static final long serialVersionUID = 4049391212541369523L;
+
+        AbandonedException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final long stallMillis;
+    private int readPos = 0;
+    private int count = 0;
+    private boolean writerClosed = false;
+    private boolean readerClosed = false;
+    private String abandonReason = null;
+    private Throwable failure = null;
+
+    private final InputStream inputStream = new InputStream() {
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            final int read = read(one, 0, 1);
+            return (read < 0 ? -1 : one[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return readFromPipe(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            synchronized (ReportPipe.this) {
+                return count;
+            }
+        }
+
+        @Override
+        public void close() {
+            abandon("download closed"); //$NON-NLS-1$
+        }
+    };
+
+    private final OutputStream outputStream = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeToPipe(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            synchronized (ReportPipe.this) {
+                writerClosed = true;
+                ReportPipe.this.notifyAll();
+            }
+        }
+    };
+
+    /**
+     * @param stallMillis
+     *            how long the writer waits for the reader to make room before giving up.
+     */
+    ReportPipe(long stallMillis) {
+        this.stallMillis = stallMillis;
+    }
+
+    InputStream getInputStream() {
+        return inputStream;
+    }
+
+    OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * The writer failed; the reader gets an IOException instead of a truncated file.
+     *
+     * @param t
+     */
+    synchronized void fail(Throwable t) {
+        failure = t;
+        writerClosed = true;
+        notifyAll();
+    }
+
+    /**
+     * Stop the writer, e.g. because the download was closed or the report was cancelled.
+     *
+     * @param reason
+     */
+    synchronized void abandon(String reason) {
+        if (!readerClosed) {
+            readerClosed = true;
+            abandonReason = reason;
+        }
+        notifyAll();
+    }
+
+    synchronized boolean isAbandoned() {
+        return readerClosed;
+    }
+
+    private synchronized int readFromPipe(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (count == 0) {
+            if (failure != null) {
+                throw new IOException("report could not be produced", failure); //$NON-NLS-1$
+            }
+            if (writerClosed || readerClosed) {
+                return -1;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        final int n = Math.min(len, Math.min(count, buffer.length - readPos));
+        System.arraycopy(buffer, readPos, b, off, n);
+        readPos = (readPos + n) % buffer.length;
+        count -= n;
+        notifyAll();
+        return n;
+    }
+
+    private synchronized void writeToPipe(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            long deadline = System.currentTimeMillis() + stallMillis;
+            while (count == buffer.length && !readerClosed) {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    abandon("download stalled for " + stallMillis + " ms"); //$NON-NLS-1$ //$NON-NLS-2$
+                    break;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    abandon("report cancelled"); //$NON-NLS-1$
+                }
+            }
+            if (readerClosed) {
+                throw new AbandonedException(abandonReason);
+            }
+            final int writePos = (readPos + count) % buffer.length;
+            final int n = Math.min(len, Math.min(buffer.length - count, buffer.length - writePos));
+            System.arraycopy(b, off, buffer, writePos, n);
+            count += n;
+            off += n;
+            len -= n;
+            notifyAll();
+        }
+    }
+}
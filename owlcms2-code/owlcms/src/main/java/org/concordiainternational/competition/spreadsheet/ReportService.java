@@ -0,0 +1,482 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Session;
+import org.hibernate.context.ThreadLocalSessionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Produces the spreadsheets and PDFs that are downloaded, a few at a time.
+ * <p>
+ * Each report used to be written by a new thread into a PipedOutputStream. When the browser went away, that thread waited forever, and
+ * when several people exported the competition book at the same time, each built a full workbook in memory at once. Reports are now
+ * written by a small pool of {@link #POOL_SIZE} threads; up to {@link #QUEUE_SIZE} more wait their turn, after which requests are refused.
+ * The download reads the report as it is written, and the writer is stopped when the download is closed or stalls.
+ * </p>
+ * <p>
+ * A report that has a cache key (see {@link JXLSWorkbookStreamSource#getCacheKey()}) is kept in memory once written, so that the same
+ * report, when the data has not changed, is served again at once. The cache is bounded to {@link #CACHE_BYTES} bytes, least recently used
+ * reports being dropped first.
+ * </p>
+ * <p>
+ * The reports in progress are listed on jsp/reports.jsp.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class ReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+
+    /** workbooks are big: only a few are built at a time. */
+    static final int POOL_SIZE = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()));
+    static final int QUEUE_SIZE = 8;
+    /** a download that does not read anything for that long is abandoned */
+    static final long STALL_MILLIS = 60000L;
+    static final long CACHE_BYTES = 32L * 1024 * 1024;
+    /** larger reports are not cached */
+    static final long MAX_CACHED_REPORT_BYTES = 8L * 1024 * 1024;
+    /** finished jobs still listed */
+    private static final int KEPT_JOBS = 20;
+
+    private static ThreadPoolExecutor executor = null;
+
+    private static final CopyOnWriteArrayList<Job> jobs = new CopyOnWriteArrayList<Job>();
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private static final AtomicLong cacheHits = Metrics.counter("report.cacheHits"); //$NON-NLS-1$
+    private static final AtomicLong cacheMisses = Metrics.counter("report.cacheMisses"); //$NON-NLS-1$
+    private static final AtomicLong rejected = Metrics.counter("report.rejected"); //$NON-NLS-1$
+    private static final AtomicLong abandoned = Metrics.counter("report.abandoned"); //$NON-NLS-1$
+
+    /** access-ordered, so iteration starts with the least recently used */
+    private static final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private static long cachedBytes = 0L;
+
+    static {
+        Metrics.gauge("report.queued", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return count(State.QUEUED);
+            }
+        });
+        Metrics.gauge("report.cachedBytes", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getCachedBytes();
+            }
+        });
+    }
+
+    private ReportService() {
+    }
+
+    /**
+     * Writes a report.
+     */
+    public interface ReportWriter {
+        /**
+         * @param out
+         *            where the report goes; do not close.
+         * @param job
+         *            to report progress
+         * @throws Exception
+         */
+        void write(OutputStream out, Job job) throws Exception;
+    }
+
+    public enum State {
+        QUEUED, BUILDING, WRITING, DONE, FAILED, CANCELLED
+    }
+
+    /**
+     * A report being produced, for the progress page.
+     */
+    public static final class Job {
+        private final long id = sequence.incrementAndGet();
+        private final String name;
+        private final String requester;
+        private final long submittedMillis = System.currentTimeMillis();
+        private volatile long startedMillis = 0L;
+        private volatile long finishedMillis = 0L;
+        private volatile State state = State.QUEUED;
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile ReportPipe pipe;
+        private volatile Thread thread;
+
+        Job(String name, String requester) {
+            this.name = name;
+            this.requester = requester;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRequester() {
+            return requester;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getSubmittedMillis() {
+            return submittedMillis;
+        }
+
+        /**
+         * @return time waiting for a thread, in milliseconds.
+         */
+        public long getQueuedMillis() {
+            final long started = startedMillis;
+            return (started == 0L ? System.currentTimeMillis() : started) - submittedMillis;
+        }
+
+        /**
+         * @return time since the report started being built, in milliseconds.
+         */
+        public long getRunningMillis() {
+            final long started = startedMillis;
+            if (started == 0L) {
+                return 0L;
+            }
+            final long finished = finishedMillis;
+            return (finished == 0L ? System.currentTimeMillis() : finished) - started;
+        }
+
+        /**
+         * @return bytes sent to the download so far.
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * The data is ready and is being written to the download.
+         */
+        public void writing() {
+            state = State.WRITING;
+        }
+
+        /**
+         * Stop the report; the download gets an error.
+         */
+        public void cancel() {
+            final ReportPipe p = pipe;
+            if (p != null) {
+                p.abandon("report cancelled"); //$NON-NLS-1$
+            }
+            final Thread t = thread;
+            if (t != null) {
+                t.interrupt();
+            }
+        }
+
+        public boolean isFinished() {
+            return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+        }
+    }
+
+    /**
+     * Produce a report in the background.
+     *
+     * @param name
+     *            shown on the progress page
+     * @param cacheKey
+     *            identifies the template and the data; null if the report is not to be cached
+     * @param writer
+     * @return the report, as it is being written
+     */
+    public static InputStream open(String name, final String cacheKey, final ReportWriter writer) {
+        if (cacheKey != null) {
+            final byte[] cached = getCached(cacheKey);
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                logger.debug("{} served from cache", name); //$NON-NLS-1$
+                return new ByteArrayInputStream(cached);
+            }
+            cacheMisses.incrementAndGet();
+        }
+
+        final CompetitionApplication app = CompetitionApplication.getCurrent();
+        final String loggingId = (app != null && app.getCurrentView() != null ? app.getCurrentView().getLoggingId() : null);
+        final Job job = new Job(name, loggingId);
+        final ReportPipe pipe = new ReportPipe(STALL_MILLIS);
+        job.pipe = pipe;
+        addJob(job);
+        try {
+            getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    produce(app, job, pipe, cacheKey, writer);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            job.state = State.FAILED;
+            job.finishedMillis = System.currentTimeMillis();
+            throw new RuntimeException(Messages.getString("OutputSheet.TooManyReports", CompetitionApplication.getCurrentLocale())); //$NON-NLS-1$
+        }
+        return pipe.getInputStream();
+    }
+
+    private static void produce(CompetitionApplication app, Job job, ReportPipe pipe, String cacheKey, ReportWriter writer) {
+        job.thread = Thread.currentThread();
+        job.startedMillis = System.currentTimeMillis();
+        job.state = State.BUILDING;
+        CompetitionApplication.setCurrent(app);
+        if (job.getRequester() != null) {
+            LoggerUtils.mdcSetup(job.getRequester(), null);
+        }
+        final CapturingOutputStream out = new CapturingOutputStream(pipe.getOutputStream(), job.bytes,
+                cacheKey != null ? MAX_CACHED_REPORT_BYTES : -1);
+        try {
+            if (pipe.isAbandoned()) {
+                throw new ReportPipe.AbandonedException("download closed before the report started"); //$NON-NLS-1$
+            }
+            writer.write(out, job);
+            out.flush();
+            pipe.getOutputStream().close();
+            job.state = State.DONE;
+            final byte[] bytes = out.getCapture();
+            if (cacheKey != null && bytes != null) {
+                putCached(cacheKey, bytes);
+            }
+        } catch (ReportPipe.AbandonedException e) {
+            abandoned.incrementAndGet();
+            job.state = State.CANCELLED;
+            logger.info("{} abandoned: {}", job.getName(), e.getMessage()); //$NON-NLS-1$
+        } catch (Throwable t) {
+            job.state = (pipe.isAbandoned() ? State.CANCELLED : State.FAILED);
+            pipe.fail(t);
+            if (job.state == State.FAILED) {
+                LoggerUtils.infoException(logger, t);
+            }
+        } finally {
+            job.finishedMillis = System.currentTimeMillis();
+            job.thread = null;
+            job.pipe = null;
+            Thread.interrupted();
+            closeHibernateSession();
+            // pool threads must not keep a closed application alive.
+            CompetitionApplication.setCurrent(null);
+        }
+    }
+
+    /**
+     * Sessions opened by a report on a pool thread would otherwise stay open, with their transaction, until the thread runs again.
+     */
+    private static void closeHibernateSession() {
+        try {
+            final Session session = ThreadLocalSessionContext.unbind(WebApplicationConfiguration.getSessionFactory());
+            if (session != null && session.isOpen()) {
+                if (session.getTransaction() != null && session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                session.close();
+            }
+        } catch (RuntimeException e) {
+            logger.debug("closing report session: {}", e.toString()); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return the reports in progress and the last ones finished, most recent first.
+     */
+    public static List<Job> getJobs() {
+        final List<Job> result = new ArrayList<Job>(jobs);
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static void addJob(Job job) {
+        jobs.add(job);
+        int finished = 0;
+        for (Job j : jobs) {
+            if (j.isFinished()) {
+                finished++;
+            }
+        }
+        // drop the oldest finished jobs
+        final Iterator<Job> iterator = jobs.iterator();
+        while (finished > KEPT_JOBS && iterator.hasNext()) {
+            final Job j = iterator.next();
+            if (j.isFinished()) {
+                jobs.remove(j);
+                finished--;
+            }
+        }
+    }
+
+    private static long count(State state) {
+        long n = 0;
+        for (Job job : jobs) {
+            if (job.state == state) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    static byte[] getCached(String cacheKey) {
+        synchronized (cache) {
+            return cache.get(cacheKey);
+        }
+    }
+
+    static void putCached(String cacheKey, byte[] bytes) {
+        synchronized (cache) {
+            final byte[] previous = cache.put(cacheKey, bytes);
+            if (previous != null) {
+                cachedBytes -= previous.length;
+            }
+            cachedBytes += bytes.length;
+            final Iterator<Map.Entry<String, byte[]>> iterator = cache.entrySet().iterator();
+            while (cachedBytes > CACHE_BYTES && iterator.hasNext()) {
+                final Map.Entry<String, byte[]> eldest = iterator.next();
+                cachedBytes -= eldest.getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Forget the cached reports.
+     */
+    public static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+            cachedBytes = 0L;
+        }
+    }
+
+    public static long getCachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    public static int getCachedReports() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Stop all threads. Called when the web application is stopped; the pool starts again if used afterwards.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            for (Job job : jobs) {
+                job.cancel();
+            }
+            executor.shutdownNow();
+            executor = null;
+            logger.debug("report service stopped"); //$NON-NLS-1$
+        }
+        clearCache();
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+                    new ReportThreadFactory());
+            // idle servers do not keep the threads.
+            executor.allowCoreThreadTimeOut(true);
+            logger.debug("report service started with {} threads", POOL_SIZE); //$NON-NLS-1$
+        }
+        return executor;
+    }
+
+    private static class ReportThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "report-" + threadNumber.getAndIncrement()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Counts the bytes written, and keeps a copy for the cache as long as the report is small enough.
+     */
+    private static class CapturingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final AtomicLong counter;
+        private final long maxCapture;
+        private ByteArrayOutputStream capture;
+
+        CapturingOutputStream(OutputStream out, AtomicLong counter, long maxCapture) {
+            this.out = out;
+            this.counter = counter;
+            this.maxCapture = maxCapture;
+            this.capture = (maxCapture > 0 ? new ByteArrayOutputStream() : null);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.addAndGet(len);
+            if (capture != null) {
+                if (capture.size() + len > maxCapture) {
+                    capture = null;
+                } else {
+                    capture.write(b, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        byte[] getCapture() {
+            return (capture != null ? capture.toByteArray() : null);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.extentech.ExtenXLS.CellHandle;
+import com.extentech.ExtenXLS.DateConverter;
+import com.extentech.ExtenXLS.WorkSheetHandle;
+import com.extentech.formats.XLS.CellNotFoundException;
+
+/**
+ * A copy of the values of the lifter rows of a registration sheet.
+ * <p>
+ * The cells are read once, in order, from the workbook; the copy can then be read by several threads at the same time, which the
+ * workbook itself is not meant for. The values are those that {@link ExtenXLSReader} would have obtained from the cells, including the
+ * errors: a missing cell, or a number asked of a text, fails when it is read, not when it is copied.
+ * </p>
+ *
+ * @author jflamy
+ */
+final class SheetRows implements ExtenXLSReader.Cells {
+
+    /** values of one cell */
+    private static final class Cell {
+        final String string;
+        final boolean date;
+        final Date dateVal;
+        final int intVal;
+        final double doubleVal;
+        final RuntimeException numberError;
+
+        Cell(CellHandle cell) {
+            string = cell.getStringVal();
+            date = cell.isDate();
+            dateVal = (date ? DateConverter.getDateFromCell(cell) : null);
+            int i = 0;
+            double d = 0;
+            RuntimeException error = null;
+            try {
+                i = cell.getIntVal();
+                d = cell.getDoubleVal();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            intVal = i;
+            doubleVal = d;
+            numberError = error;
+        }
+    }
+
+    private final String sheetName;
+    private final int firstRow;
+    private final List<Cell[]> rows;
+
+    private SheetRows(String sheetName, int firstRow, List<Cell[]> rows) {
+        this.sheetName = sheetName;
+        this.firstRow = firstRow;
+        this.rows = rows;
+    }
+
+    /**
+     * Copy the rows until the first one without a last name or a first name.
+     *
+     * @param sheet
+     * @param firstRow
+     *            index of the first lifter row, starting at 0
+     * @param columns
+     *            number of columns copied
+     * @param lastNameColumn
+     * @param firstNameColumn
+     * @return the rows
+     */
+    static SheetRows read(WorkSheetHandle sheet, int firstRow, int columns, int lastNameColumn, int firstNameColumn) {
+        final List<Cell[]> rows = new ArrayList<Cell[]>();
+        for (int row = firstRow; true; row++) {
+            final Cell[] cells = new Cell[columns];
+            for (int column = 0; column < columns; column++) {
+                try {
+                    cells[column] = new Cell(sheet.getCell(row, column));
+                } catch (CellNotFoundException e) {
+                    // left null, reported when read.
+                }
+            }
+            if (isEmpty(cells[lastNameColumn]) && isEmpty(cells[firstNameColumn])) {
+                break; // no data on this row.
+            }
+            rows.add(cells);
+        }
+        return new SheetRows(sheet.getSheetName(), firstRow, rows);
+    }
+
+    private static boolean isEmpty(Cell cell) {
+        return cell == null || cell.string == null || cell.string.trim().isEmpty();
+    }
+
+    /**
+     * @return the index of the first row after the lifters.
+     */
+    int getEndRow() {
+        return firstRow + rows.size();
+    }
+
+    private Cell getCell(int row, int column) throws CellNotFoundException {
+        final int index = row - firstRow;
+        if (index >= 0 && index < rows.size()) {
+            final Cell[] cells = rows.get(index);
+            if (column >= 0 && column < cells.length && cells[column] != null) {
+                return cells[column];
+            }
+        }
+        throw new CellNotFoundException(sheetName + ":" + row + "," + column); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private Cell getNumber(int row, int column) throws CellNotFoundException {
+        final Cell cell = getCell(row, column);
+        if (cell.numberError != null) {
+            throw cell.numberError;
+        }
+        return cell;
+    }
+
+    @Override
+    public String getString(int row, int column) throws CellNotFoundException {
+        return getCell(row, column).string.trim();
+    }
+
+    @Override
+    public Integer getInt(int row, int column) throws CellNotFoundException {
+        return getNumber(row, column).intVal;
+    }
+
+    @Override
+    public Double getDouble(int row, int column) throws CellNotFoundException {
+        return getNumber(row, column).doubleVal;
+    }
+
+    @Override
+    public boolean isDate(int row, int column) throws CellNotFoundException {
+        return getCell(row, column).date;
+    }
+
+    @Override
+    public Date getDate(int row, int column) throws CellNotFoundException {
+        final Cell cell = getNumber(row, column);
+        if (cell.doubleVal > 9999) {
+            return DateConverter.getDateFromNumber(cell.doubleVal);
+        }
+        return cell.dateVal;
+    }
+}
@@ -9,7 +9,6 @@ package org.concordiainternational.competition.spreadsheet;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.i18n.Messages;
@@ -23,7 +22,6 @@ import org.hibernate.HibernateException;
  */
 public class SheetUtils {
 
-    private static Competition competition;
     private static SimpleDateFormat dateFormat = new SimpleDateFormat(Messages.getString(
             "OutputSheet.DateFormat", CompetitionApplication.getCurrentLocale())); //$NON-NLS-1$
 
@@ -60,14 +58,7 @@ public class SheetUtils {
      * @return
      * @throws HibernateException
      */
-    @SuppressWarnings("unchecked")
     static Competition getCompetition() throws HibernateException {
-        if (competition == null) {
-            List<Competition> competitions = CompetitionApplication.getCurrent().getHbnSession().createCriteria(
-                    Competition.class).list();
-            if (competitions.size() > 0)
-                competition = competitions.get(0);
-        }
-        return competition;
+        return Competition.getCompetition();
     }
 }
@@ -8,6 +8,7 @@
 package org.concordiainternational.competition.spreadsheet;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.text.MessageFormat;
@@ -17,23 +18,21 @@ import java.util.Locale;
 import javax.servlet.ServletContext;
 
 import org.concordiainternational.competition.data.CompetitionSession;
-import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.RuleViolationException;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.ui.components.ApplicationView;
 import org.concordiainternational.competition.utils.LoggerUtils;
-import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
-import com.vaadin.terminal.DownloadStream;
-import com.vaadin.terminal.FileResource;
 import com.vaadin.terminal.SystemError;
+import com.vaadin.ui.CheckBox;
 import com.vaadin.ui.CustomComponent;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.Panel;
+import com.vaadin.ui.ProgressIndicator;
 import com.vaadin.ui.Upload;
 import com.vaadin.ui.Window.CloseEvent;
 import com.vaadin.ui.Window.CloseListener;
@@ -55,6 +54,9 @@ public class SpreadsheetUploader extends CustomComponent implements Upload.Succe
     private CompetitionApplication app;
 
     private Label status;
+    private Upload upload;
+    private CheckBox dryRun;
+    private ProgressIndicator progress;
 
     private Locale locale;
     private String viewName;
@@ -75,7 +77,7 @@ public class SpreadsheetUploader extends CustomComponent implements Upload.Succe
 
         // Create the Upload component.
         //final Upload upload = new Upload(Messages.getString("SpreadsheetUploader.ChooseFile",locale), this); //$NON-NLS-1$
-        final Upload upload = new Upload("", this); //$NON-NLS-1$
+        upload = new Upload("", this); //$NON-NLS-1$
         upload.setImmediate(true); // start immediately as soon as the file is
         // selected.
 
@@ -86,12 +88,18 @@ public class SpreadsheetUploader extends CustomComponent implements Upload.Succe
         upload.addListener((Upload.SucceededListener) this);
         upload.addListener((Upload.FailedListener) this);
         root.addComponent(upload);
+        dryRun = new CheckBox(Messages.getString("SpreadsheetUploader.DryRun", locale)); //$NON-NLS-1$
+        root.addComponent(dryRun);
         root.addComponent(new Label());
 
         // Create a panel for displaying the uploaded file.
         resultPanel = new Panel();
         status = new Label(Messages.getString("SpreadsheetUploader.NoSpreadsheetUploadedYet", locale)); //$NON-NLS-1$
         resultPanel.addComponent(status);
+        progress = new ProgressIndicator();
+        progress.setIndeterminate(true);
+        progress.setVisible(false);
+        resultPanel.addComponent(progress);
         root.addComponent(resultPanel);
 
         registerAsListener();
@@ -136,51 +144,98 @@ public class SpreadsheetUploader extends CustomComponent implements Upload.Succe
     }
 
     /**
+     * Import the file in the background; the progress and the errors are shown as they come.
+     *
      * @param mimeType
      * @throws SystemError
      */
     private void processUploadedFile(String mimeType) throws SystemError {
         // process the file
         logger.debug("reading from: {}", file); //$NON-NLS-1$
-        final FileResource fileResource = new FileResource(file, getApplication());
-        DownloadStream ds = fileResource.getStream();
-        if (file.getPath().endsWith(".csv")) {
-            processCSV(ds);
-        } else if (file.getPath().endsWith(".xls") || mimeType.endsWith("xls") || mimeType.endsWith("excel")) {
-            processXLS(ds);
+        final ImportIndex importIndex = new ImportIndex((HbnSessionManager) app);
+        final RegistrationImporter.RowReader reader;
+        if (file.getPath().endsWith(".csv")) { //$NON-NLS-1$
+            reader = new CSVHelper(importIndex);
+        } else if (file.getPath().endsWith(".xls") || mimeType.endsWith("xls") || mimeType.endsWith("excel")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            final ExtenXLSReader xlsReader = new ExtenXLSReader(importIndex);
+            if (!isDryRun()) {
+                // the competition information is updated in the current request.
+                try {
+                    xlsReader.readHeader(new FileInputStream(file), app.getHbnSession());
+                } catch (Throwable t) {
+                    LoggerUtils.infoException(logger, t);
+                    throw new SystemError(t);
+                }
+            }
+            reader = xlsReader;
         } else {
             throw new RuntimeException("File not recognized as a .xls Excel file.");
         }
 
+        // remove the errors from the previous file.
+        resultPanel.removeAllComponents();
+        resultPanel.addComponent(status);
+        resultPanel.addComponent(progress);
+        progress.setVisible(true);
+        upload.setEnabled(false);
+        new RegistrationImporter(app, isDryRun(), new ImportListener(importIndex)).start(file, reader);
     }
 
-    private void processCSV(DownloadStream ds) {
-        try {
-            final Session hbnSession = app.getHbnSession();
-            CSVHelper iCSV = new CSVHelper(app);
-            List<Lifter> lifters = iCSV.getAllLifters(ds.getStream(), hbnSession);
-            for (Lifter curLifter : lifters) {
-                hbnSession.save(curLifter);
+    private boolean isDryRun() {
+        return Boolean.TRUE.equals(dryRun.getValue());
+    }
+
+    /**
+     * Shows the progress of the import; called from the import thread.
+     */
+    private class ImportListener implements RegistrationImporter.Listener {
+        private final ImportIndex importIndex;
+
+        ImportListener(ImportIndex importIndex) {
+            this.importIndex = importIndex;
+        }
+
+        @Override
+        public void progress(RegistrationImporter.Result result) {
+            synchronized (app) {
+                status.setValue(MessageFormat.format(Messages.getString("SpreadsheetUploader.Progress", locale), //$NON-NLS-1$
+                        result.getRows(), result.getErrorCount()));
             }
-        } catch (Throwable t) {
-            t.printStackTrace();
-            throw new SystemError(t);
+            app.push();
         }
-    }
 
-    private void processXLS(DownloadStream ds) {
-        try {
-            final Session hbnSession = app.getHbnSession();
-            final WeighInSheetReader weighInSheetReader = new WeighInSheetReader();
-            weighInSheetReader.init(new ExtenXLSReader((HbnSessionManager) app));
-            weighInSheetReader.readHeader(ds.getStream(), hbnSession);
-            List<Lifter> lifters = weighInSheetReader.getAllLifters(ds.getStream(), hbnSession);
-            for (Lifter curLifter : lifters) {
-                hbnSession.save(curLifter);
+        @Override
+        public void finished(RegistrationImporter.Result result) {
+            synchronized (app) {
+                progress.setVisible(false);
+                upload.setEnabled(true);
+                final String key;
+                if (result.isWritten()) {
+                    key = "SpreadsheetUploader.Imported"; //$NON-NLS-1$
+                } else if (result.getErrorCount() == 0 && result.getFailure() == null) {
+                    key = "SpreadsheetUploader.Checked"; //$NON-NLS-1$
+                } else {
+                    key = "SpreadsheetUploader.NothingImported"; //$NON-NLS-1$
+                }
+                status.setValue(MessageFormat.format(Messages.getString(key, locale),
+                        (result.isWritten() ? result.getSaved() : result.getRows()), result.getErrorCount()));
+                if (result.getFailure() != null) {
+                    resultPanel.addComponent(new Label(result.getFailure()));
+                }
+                final List<String> unmatched = importIndex.getUnmatched();
+                if (!unmatched.isEmpty()) {
+                    // a wrong name is usually wrong on many rows: list it once.
+                    resultPanel.addComponent(new Label(MessageFormat.format(
+                            Messages.getString("SpreadsheetUploader.NotFound", locale), unmatched.toString()))); //$NON-NLS-1$
+                }
+                for (String error : result.getErrors()) {
+                    resultPanel.addComponent(new Label(error));
+                }
+                if (result.getErrorCount() > result.getErrors().size()) {
+                    resultPanel.addComponent(new Label("...")); //$NON-NLS-1$
+                }
             }
-        } catch (Throwable t) {
-            t.printStackTrace();
-            throw new SystemError(t);
+            app.push();
         }
     }
 
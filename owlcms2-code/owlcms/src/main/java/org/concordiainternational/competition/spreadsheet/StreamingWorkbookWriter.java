@@ -0,0 +1,366 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fills in an .xlsx template while writing it, so that the memory used does not depend on the number of lifters.
+ * <p>
+ * JXLS builds the whole workbook in memory before it is written, which is too much for the competition book of a large meet on a small
+ * laptop. With this writer, only the last {@link #WINDOW} rows of each sheet are in memory; the others are already on their way to the
+ * output (POI's SXSSF). In exchange, the templates must keep to a subset of what JXLS understands:
+ * <ul>
+ * <li><code>${bean.property}</code> expressions, in any cell, possibly several in a cell with text around them; the beans are the
+ * reporting beans and, inside a loop, the loop variable; properties may be nested (<code>${l.category.name}</code>).</li>
+ * <li>at most one <code>&lt;jx:forEach items="${collection}" var="l"&gt;</code> ... <code>&lt;/jx:forEach&gt;</code> per sheet, each
+ * tag alone in the first cell of its row, with the body rows in between. The loop must be the last thing on the sheet: streamed rows can
+ * only be added after the rows of the template.</li>
+ * </ul>
+ * Other tags, and formulas in the body of a loop, are not supported; such templates should be used with JXLS.
+ * </p>
+ * <p>
+ * The rows that left the window are kept in temporary files until the workbook is written; {@link #dispose(SXSSFWorkbook)} must be
+ * called once it has been, or the files stay on disk until the server stops.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class StreamingWorkbookWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingWorkbookWriter.class);
+
+    /** rows kept in memory per sheet */
+    static final int WINDOW = 100;
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}"); //$NON-NLS-1$
+    private static final Pattern FOR_EACH = Pattern
+            .compile("<jx:forEach\\s+items\\s*=\\s*\"\\$\\{([^}]+)\\}\"\\s+var\\s*=\\s*\"(\\w+)\"\\s*>"); //$NON-NLS-1$
+    private static final String END_FOR_EACH = "</jx:forEach>"; //$NON-NLS-1$
+
+    private static final ConcurrentMap<String, Method> getters = new ConcurrentHashMap<String, Method>();
+
+    /**
+     * A cell of the body of a loop.
+     */
+    private static class BodyCell {
+        final int column;
+        final CellStyle style;
+        final String text;
+        final double number;
+        final boolean numeric;
+
+        BodyCell(int column, CellStyle style, String text, double number, boolean numeric) {
+            this.column = column;
+            this.style = style;
+            this.text = text;
+            this.number = number;
+            this.numeric = numeric;
+        }
+    }
+
+    /**
+     * The rows repeated for each item of a collection.
+     */
+    private static class Loop {
+        final int sheetIndex;
+        final int firstRow;
+        final String items;
+        final String var;
+        final List<List<BodyCell>> body = new ArrayList<List<BodyCell>>();
+        final List<Float> heights = new ArrayList<Float>();
+
+        Loop(int sheetIndex, int firstRow, String items, String var) {
+            this.sheetIndex = sheetIndex;
+            this.firstRow = firstRow;
+            this.items = items;
+            this.var = var;
+        }
+    }
+
+    private final XSSFWorkbook template;
+    private final Map<String, Object> beans;
+
+    /**
+     * @param template
+     *            an .xlsx template, filled in place: it cannot be reused.
+     * @param beans
+     *            the reporting beans
+     */
+    public StreamingWorkbookWriter(XSSFWorkbook template, Map<String, Object> beans) {
+        this.template = template;
+        this.beans = beans;
+    }
+
+    /**
+     * @param fileName
+     * @return true if the template is meant for this writer: its name ends with ".stream.xlsx"
+     */
+    public static boolean isStreamingTemplate(String fileName) {
+        return fileName != null && fileName.toLowerCase().endsWith(".stream.xlsx"); //$NON-NLS-1$
+    }
+
+    /**
+     * Fill in the template.
+     *
+     * @return a workbook whose rows go to disk as they are created; write it, then {@link #dispose(SXSSFWorkbook)} it.
+     */
+    public SXSSFWorkbook fill() {
+        final List<Loop> loops = new ArrayList<Loop>();
+        for (int i = 0; i < template.getNumberOfSheets(); i++) {
+            final Loop loop = extractLoop(i, template.getSheetAt(i));
+            fillFixedCells(template.getSheetAt(i));
+            if (loop != null) {
+                loops.add(loop);
+            }
+        }
+
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(template, WINDOW);
+        for (Loop loop : loops) {
+            final Object items = beans.get(loop.items);
+            if (!(items instanceof Collection)) {
+                logger.debug("{} is not a collection, sheet {} left empty", loop.items, loop.sheetIndex); //$NON-NLS-1$
+                continue;
+            }
+            final Sheet sheet = workbook.getSheetAt(loop.sheetIndex);
+            int rowNum = loop.firstRow;
+            for (Object item : (Collection<?>) items) {
+                for (int b = 0; b < loop.body.size(); b++) {
+                    final Row row = sheet.createRow(rowNum++);
+                    final Float height = loop.heights.get(b);
+                    if (height != null) {
+                        row.setHeightInPoints(height);
+                    }
+                    for (BodyCell bodyCell : loop.body.get(b)) {
+                        final Cell cell = row.createCell(bodyCell.column);
+                        cell.setCellStyle(bodyCell.style);
+                        if (bodyCell.numeric) {
+                            cell.setCellValue(bodyCell.number);
+                        } else if (bodyCell.text != null) {
+                            setValue(cell, evaluate(bodyCell.text, loop.var, item));
+                        }
+                    }
+                }
+            }
+        }
+        return workbook;
+    }
+
+    /**
+     * Delete the temporary files of a workbook produced by {@link #fill()}; it can no longer be written afterwards.
+     *
+     * @param workbook
+     */
+    public static void dispose(SXSSFWorkbook workbook) {
+        if (!workbook.dispose()) {
+            logger.warn("temporary files of a streamed workbook could not be deleted"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Find the loop of a sheet, remember its body and remove its rows from the template.
+     */
+    private Loop extractLoop(int sheetIndex, Sheet sheet) {
+        Loop loop = null;
+        int endRow = -1;
+        for (int r = sheet.getFirstRowNum(); r <= sheet.getLastRowNum(); r++) {
+            final Row row = sheet.getRow(r);
+            final String first = firstCellText(row);
+            if (loop == null) {
+                final Matcher matcher = (first != null ? FOR_EACH.matcher(first.trim()) : null);
+                if (matcher != null && matcher.matches()) {
+                    loop = new Loop(sheetIndex, r, matcher.group(1).trim(), matcher.group(2));
+                }
+            } else if (endRow < 0) {
+                if (first != null && first.trim().equals(END_FOR_EACH)) {
+                    endRow = r;
+                } else {
+                    loop.body.add(bodyCells(row));
+                    loop.heights.add(row != null ? Float.valueOf(row.getHeightInPoints()) : null);
+                }
+            } else if (row != null && row.getPhysicalNumberOfCells() > 0) {
+                throw new IllegalArgumentException(sheet.getSheetName()
+                        + ": nothing may follow the loop in a streaming template, found row " + (r + 1)); //$NON-NLS-1$
+            }
+        }
+        if (loop == null) {
+            return null;
+        }
+        if (endRow < 0) {
+            throw new IllegalArgumentException(sheet.getSheetName() + ": missing " + END_FOR_EACH); //$NON-NLS-1$
+        }
+        for (int r = loop.firstRow; r <= endRow; r++) {
+            final Row row = sheet.getRow(r);
+            if (row != null) {
+                sheet.removeRow(row);
+            }
+        }
+        return loop;
+    }
+
+    private static List<BodyCell> bodyCells(Row row) {
+        final List<BodyCell> cells = new ArrayList<BodyCell>();
+        if (row == null) {
+            return cells;
+        }
+        for (Cell cell : row) {
+            switch (cell.getCellType()) {
+            case Cell.CELL_TYPE_NUMERIC:
+                cells.add(new BodyCell(cell.getColumnIndex(), cell.getCellStyle(), null, cell.getNumericCellValue(), true));
+                break;
+            case Cell.CELL_TYPE_STRING:
+                cells.add(new BodyCell(cell.getColumnIndex(), cell.getCellStyle(), cell.getStringCellValue(), 0.0, false));
+                break;
+            case Cell.CELL_TYPE_FORMULA:
+                throw new IllegalArgumentException(row.getSheet().getSheetName()
+                        + ": formulas are not supported in the loop of a streaming template"); //$NON-NLS-1$
+            default:
+                // keep the formatting of empty cells
+                cells.add(new BodyCell(cell.getColumnIndex(), cell.getCellStyle(), null, 0.0, false));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Replace the expressions in the cells outside the loop (titles, headers).
+     */
+    private void fillFixedCells(Sheet sheet) {
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                if (cell.getCellType() == Cell.CELL_TYPE_STRING) {
+                    final String text = cell.getStringCellValue();
+                    if (text.indexOf("${") >= 0) { //$NON-NLS-1$
+                        setValue(cell, evaluate(text, null, null));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String firstCellText(Row row) {
+        if (row == null) {
+            return null;
+        }
+        final Cell cell = row.getCell(row.getFirstCellNum() >= 0 ? row.getFirstCellNum() : 0);
+        if (cell == null || cell.getCellType() != Cell.CELL_TYPE_STRING) {
+            return null;
+        }
+        return cell.getStringCellValue();
+    }
+
+    /**
+     * @param text
+     *            e.g. "${l.lastName}" or "${l.firstName} ${l.lastName}"
+     * @param var
+     *            name of the loop variable, null outside loops
+     * @param item
+     *            value of the loop variable
+     * @return the value of a lone expression, with its type, otherwise the text with the expressions replaced.
+     */
+    Object evaluate(String text, String var, Object item) {
+        final Matcher matcher = EXPRESSION.matcher(text);
+        if (matcher.matches()) {
+            return resolve(matcher.group(1).trim(), var, item);
+        }
+        final StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            final Object value = resolve(matcher.group(1).trim(), var, item);
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(value != null ? value.toString() : "")); //$NON-NLS-1$
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private Object resolve(String expression, String var, Object item) {
+        final String[] path = expression.split("\\."); //$NON-NLS-1$
+        Object value = (var != null && var.equals(path[0]) ? item : beans.get(path[0]));
+        for (int i = 1; i < path.length && value != null; i++) {
+            value = property(value, path[i]);
+        }
+        return value;
+    }
+
+    private static Object property(Object bean, String name) {
+        if (bean instanceof Map) {
+            return ((Map<?, ?>) bean).get(name);
+        }
+        final Method getter = getter(bean.getClass(), name);
+        if (getter == null) {
+            return null;
+        }
+        try {
+            return getter.invoke(bean);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(bean.getClass().getSimpleName() + "." + name, e); //$NON-NLS-1$
+        }
+    }
+
+    private static Method getter(Class<?> beanClass, String name) {
+        final String key = beanClass.getName() + "#" + name; //$NON-NLS-1$
+        Method getter = getters.get(key);
+        if (getter == null) {
+            try {
+                final BeanInfo info = Introspector.getBeanInfo(beanClass);
+                for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+                    if (descriptor.getName().equals(name)) {
+                        getter = descriptor.getReadMethod();
+                        break;
+                    }
+                }
+            } catch (IntrospectionException e) {
+                throw new IllegalArgumentException(beanClass.getSimpleName(), e);
+            }
+            if (getter == null) {
+                logger.debug("no property {} in {}", name, beanClass.getSimpleName()); //$NON-NLS-1$
+            } else {
+                getters.put(key, getter);
+            }
+        }
+        return getter;
+    }
+
+    private static void setValue(Cell cell, Object value) {
+        if (value == null) {
+            cell.setCellValue(""); //$NON-NLS-1$
+        } else if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof Calendar) {
+            cell.setCellValue((Calendar) value);
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((Boolean) value);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.spreadsheet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the report templates in memory, ready to be filled in.
+ * <p>
+ * Reading and parsing a template used to be done for every report. Each template (identified by its stamp, see
+ * {@link #fileStamp(File)}) is now read once, and a parsed copy is kept ready: JXLS fills in the workbook it is given, so a parsed
+ * workbook cannot be used twice, but as soon as one is taken the next one is parsed in the background. A report therefore only spends
+ * time on its data.
+ * </p>
+ * <p>
+ * The directories of the template files (templates, competitionBook, protocolSheet, or wherever the competition's templates are) are
+ * watched, and a template that is edited, replaced or deleted is dropped. Since the stamp includes the modification time, a changed file
+ * is also read again when the directory cannot be watched.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class TemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    /** templates kept; there are only a few, but stale versions accumulate if the files are not watched */
+    private static final int MAX_TEMPLATES = 32;
+
+    private static final AtomicLong parsed = Metrics.counter("template.parsed"); //$NON-NLS-1$
+    private static final AtomicLong ready = Metrics.counter("template.ready"); //$NON-NLS-1$
+    private static final AtomicLong dropped = Metrics.counter("template.dropped"); //$NON-NLS-1$
+    private static final Histogram parseTimes = Metrics.histogram("template.parse"); //$NON-NLS-1$
+
+    /** access-ordered */
+    private static final LinkedHashMap<String, Template> templates = new LinkedHashMap<String, Template>(16, 0.75f, true);
+
+    private static final Set<Path> watchedDirectories = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+    private static WatchService watchService = null;
+    private static Thread watcher = null;
+    private static ExecutorService parser = null;
+
+    private TemplateCache() {
+    }
+
+    /**
+     * Reads the template the first time it is needed.
+     */
+    public interface Loader {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * A template read in memory, and the next workbook to be handed out.
+     */
+    private static final class Template {
+        private final String stamp;
+        private final byte[] bytes;
+        private Workbook spare;
+        private boolean preparing;
+
+        Template(String stamp, byte[] bytes) {
+            this.stamp = stamp;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * @param file
+     *            a template file
+     * @return the file and its modification time; the directory of the file is watched from then on.
+     */
+    public static String fileStamp(File file) {
+        final File absolute = file.getAbsoluteFile();
+        watch(absolute);
+        return absolute.getPath() + "@" + absolute.lastModified(); //$NON-NLS-1$
+    }
+
+    /**
+     * Stamp for a template found by the application's getResourceAsStream: a copy in the home directory may be edited while the
+     * application runs, whereas the one packaged with the application does not change.
+     *
+     * @param templateName
+     *            e.g. /StartSheetTemplate_en.xls
+     * @return the file and its modification time, or the name of the packaged template.
+     */
+    public static String resourceStamp(String templateName) {
+        final String homePath = WebApplicationConfiguration.getHomePath();
+        File file = new File(homePath, templateName);
+        if (!file.exists()) {
+            file = new File(homePath + "/templates", templateName); //$NON-NLS-1$
+        }
+        if (file.exists()) {
+            return fileStamp(file);
+        }
+        return templateName;
+    }
+
+    /**
+     * @param stamp
+     *            identifies the template and its version; null to read the template without keeping it.
+     * @param loader
+     *            reads the template if it is not in memory
+     * @return a workbook that the caller may fill in.
+     * @throws IOException
+     */
+    public static Workbook getWorkbook(String stamp, Loader loader) throws IOException {
+        if (stamp == null) {
+            return parse(read(loader));
+        }
+        Template template;
+        synchronized (templates) {
+            template = templates.get(stamp);
+        }
+        if (template == null) {
+            template = new Template(stamp, read(loader));
+            synchronized (templates) {
+                final Template previous = templates.get(stamp);
+                if (previous != null) {
+                    template = previous;
+                } else {
+                    templates.put(stamp, template);
+                    trim();
+                }
+            }
+        }
+
+        Workbook workbook;
+        synchronized (template) {
+            workbook = template.spare;
+            template.spare = null;
+        }
+        if (workbook != null) {
+            ready.incrementAndGet();
+        } else {
+            workbook = parse(template.bytes);
+        }
+        prepare(template);
+        return workbook;
+    }
+
+    /**
+     * Forget all templates.
+     */
+    public static void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    /**
+     * Stop watching and parsing. Called when the web application is stopped.
+     */
+    public static synchronized void shutdown() {
+        clear();
+        if (parser != null) {
+            parser.shutdownNow();
+            parser = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // ignored
+            }
+            watchService = null;
+            watcher = null;
+            watchedDirectories.clear();
+        }
+    }
+
+    /**
+     * Parse the next workbook in the background.
+     *
+     * @param template
+     */
+    private static void prepare(final Template template) {
+        synchronized (template) {
+            if (template.spare != null || template.preparing) {
+                return;
+            }
+            template.preparing = true;
+        }
+        getParser().execute(new Runnable() {
+            @Override
+            public void run() {
+                Workbook workbook = null;
+                try {
+                    if (isCached(template)) {
+                        workbook = parse(template.bytes);
+                    }
+                } catch (Throwable t) {
+                    LoggerUtils.infoException(logger, t);
+                } finally {
+                    synchronized (template) {
+                        template.spare = workbook;
+                        template.preparing = false;
+                    }
+                }
+            }
+        });
+    }
+
+    private static boolean isCached(Template template) {
+        synchronized (templates) {
+            return templates.get(template.stamp) == template;
+        }
+    }
+
+    private static void trim() {
+        final Iterator<Template> iterator = templates.values().iterator();
+        while (templates.size() > MAX_TEMPLATES && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * A template file has changed: drop all its versions.
+     *
+     * @param file
+     */
+    static void changed(File file) {
+        final String prefix = file.getAbsolutePath() + "@"; //$NON-NLS-1$
+        synchronized (templates) {
+            final Iterator<Map.Entry<String, Template>> iterator = templates.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getKey().startsWith(prefix)) {
+                    iterator.remove();
+                    dropped.incrementAndGet();
+                    logger.info("template {} changed", file); //$NON-NLS-1$
+                }
+            }
+        }
+    }
+
+    private static byte[] read(Loader loader) throws IOException {
+        final InputStream in = loader.open();
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Workbook parse(byte[] bytes) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            return WorkbookFactory.create(new ByteArrayInputStream(bytes));
+        } catch (InvalidFormatException e) {
+            throw new IOException(e);
+        } finally {
+            parsed.incrementAndGet();
+            parseTimes.recordSince(start);
+        }
+    }
+
+    private static synchronized ExecutorService getParser() {
+        if (parser == null) {
+            parser = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "template-parser"); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        }
+        return parser;
+    }
+
+    private static void watch(File file) {
+        final File parent = file.getParentFile();
+        if (parent == null) {
+            return;
+        }
+        final Path directory = parent.toPath();
+        if (watchedDirectories.contains(directory)) {
+            return;
+        }
+        synchronized (TemplateCache.class) {
+            if (!watchedDirectories.add(directory)) {
+                return;
+            }
+            try {
+                if (watchService == null) {
+                    watchService = FileSystems.getDefault().newWatchService();
+                    watcher = new Thread(new Watcher(watchService), "template-watcher"); //$NON-NLS-1$
+                    watcher.setDaemon(true);
+                    watcher.start();
+                }
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                logger.debug("watching templates in {}", directory); //$NON-NLS-1$
+            } catch (IOException e) {
+                // the stamps still detect the changes.
+                logger.info("cannot watch {}: {}", directory, e.toString()); //$NON-NLS-1$
+            } catch (UnsupportedOperationException e) {
+                logger.info("cannot watch {}: {}", directory, e.toString()); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Drops the templates whose files change.
+     */
+    private static class Watcher implements Runnable {
+        private final WatchService service;
+
+        Watcher(WatchService service) {
+            this.service = service;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final WatchKey key = service.take();
+                    final Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            clear();
+                        } else {
+                            changed(directory.resolve((Path) event.context()).toFile());
+                        }
+                    }
+                    if (!key.reset()) {
+                        watchedDirectories.remove(directory);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            } catch (ClosedWatchServiceException e) {
+                // stopped
+            }
+        }
+    }
+}
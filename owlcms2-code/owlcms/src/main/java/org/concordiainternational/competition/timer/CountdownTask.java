@@ -8,16 +8,18 @@
 package org.concordiainternational.competition.timer;
 
 import java.io.Serializable;
-import java.util.TimerTask;
 
+import org.concordiainternational.competition.timer.TickDispatcher.Kind;
+import org.concordiainternational.competition.ui.generators.TimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Runnable task for counting down. run() is invoked every "decrement" milliseconds. For convenience we count down in milliseconds.
+ * Listeners are notified when the displayed second changes and at the warnings, not at every run.
  * 
  */
-class CountdownTask extends TimerTask implements Serializable {
+class CountdownTask implements Runnable, Serializable {
 
     private static final long serialVersionUID = -2967275874759395049L;
 
@@ -33,6 +35,11 @@ class CountdownTask extends TimerTask implements Serializable {
     private boolean finalWarningSignaled = false;
     private boolean noTimeLeftSignaled = false;
 
+    /**
+     * whole seconds shown by the listeners after the last notification.
+     */
+    private int lastPublishedSeconds = Integer.MIN_VALUE;
+
     private int finalWarningTick;
     private int firstWarningTick;
     private int noTimeLeftTicks;
@@ -123,64 +130,40 @@ class CountdownTask extends TimerTask implements Serializable {
         }
     }
 
+    /**
+     * Listeners only show whole seconds, so they are only told when the displayed second changes.
+     */
     private void normalTick() {
-        logger.trace("normalTick: " + ticks / 1000 + " " + (System.currentTimeMillis() - startMillis)); //$NON-NLS-1$ //$NON-NLS-2$
-        final CountdownTimerListener countdownDisplay = countdownTimer.getCountdownDisplay();
-        final CountdownTimerListener masterBuzzer = countdownTimer.getMasterBuzzer();
-        if (countdownDisplay != null) {
-            countdownDisplay.normalTick((int) getBestTimeRemaining());
-        }
-        if (masterBuzzer != null) {
-            masterBuzzer.normalTick((int) getBestTimeRemaining());
-        }
-        for (CountdownTimerListener curListener : countdownTimer.getListeners()) {
-            curListener.normalTick((int) getBestTimeRemaining());
+        final int timeRemaining = (int) getBestTimeRemaining();
+        final int seconds = TimeFormatter.getSeconds(timeRemaining);
+        if (seconds == lastPublishedSeconds) {
+            return;
         }
+        lastPublishedSeconds = seconds;
+        logger.trace("normalTick: " + ticks / 1000 + " " + (System.currentTimeMillis() - startMillis)); //$NON-NLS-1$ //$NON-NLS-2$
+        countdownTimer.fireTick(Kind.NORMAL_TICK, timeRemaining);
     }
 
     private void initialWarning() {
         logger.info("initial warning: " + ticks / 1000 + " " + (System.currentTimeMillis() - startMillis)); //$NON-NLS-1$ //$NON-NLS-2$
-        final CountdownTimerListener countdownDisplay = countdownTimer.getCountdownDisplay();
-        final CountdownTimerListener masterBuzzer = countdownTimer.getMasterBuzzer();
-        if (countdownDisplay != null) {
-            countdownDisplay.initialWarning((int) getBestTimeRemaining());
-        }
-        if (masterBuzzer != null) {
-            masterBuzzer.initialWarning((int) getBestTimeRemaining());
-        }
-        for (CountdownTimerListener curListener : countdownTimer.getListeners()) {
-            curListener.initialWarning((int) getBestTimeRemaining());
-        }
+        fireEdge(Kind.INITIAL_WARNING);
     }
 
     private void finalWarning() {
         logger.info("final warning: " + ticks / 1000 + " " + (System.currentTimeMillis() - startMillis)); //$NON-NLS-1$ //$NON-NLS-2$
-        final CountdownTimerListener countdownDisplay = countdownTimer.getCountdownDisplay();
-        final CountdownTimerListener masterBuzzer = countdownTimer.getMasterBuzzer();
-        if (countdownDisplay != null) {
-            countdownDisplay.finalWarning((int) getBestTimeRemaining());
-        }
-        if (masterBuzzer != null) {
-            masterBuzzer.finalWarning((int) getBestTimeRemaining());
-        }
-        for (CountdownTimerListener curListener : countdownTimer.getListeners()) {
-            curListener.finalWarning((int) getBestTimeRemaining());
-        }
+        fireEdge(Kind.FINAL_WARNING);
     }
 
     private void noTimeLeft() {
         logger.info("time over: " + ticks / 1000 + " " + (System.currentTimeMillis() - startMillis)); //$NON-NLS-1$ //$NON-NLS-2$
-        final CountdownTimerListener countdownDisplay = countdownTimer.getCountdownDisplay();
-        final CountdownTimerListener masterBuzzer = countdownTimer.getMasterBuzzer();
-        if (countdownDisplay != null) {
-            countdownDisplay.noTimeLeft((int) getBestTimeRemaining());
-        }
-        if (masterBuzzer != null) {
-            masterBuzzer.noTimeLeft((int) getBestTimeRemaining());
-        }
-        for (CountdownTimerListener curListener : countdownTimer.getListeners()) {
-            curListener.noTimeLeft((int) getBestTimeRemaining());
-        }
+        fireEdge(Kind.NO_TIME_LEFT);
+    }
+
+    /**
+     * Not all listeners refresh their display on warnings, so the next normal tick is still published.
+     */
+    private void fireEdge(Kind kind) {
+        countdownTimer.fireTick(kind, (int) getBestTimeRemaining());
     }
 
     /**
@@ -8,11 +8,14 @@
 package org.concordiainternational.competition.timer;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.Timer;
+import java.util.concurrent.ScheduledFuture;
 
 import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.timer.TickDispatcher.Kind;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.ui.InteractionNotificationReason;
 import org.concordiainternational.competition.ui.LifterInfo;
@@ -42,7 +45,8 @@ public class CountdownTimer implements Serializable {
 
     final private static int DECREMENT = 100; // milliseconds
     private int timeRemaining;
-    private Timer timer = null;
+    /** guarded by this */
+    private transient ScheduledFuture<?> timer = null;
     private CountdownTask countdownTask;
 
     /*
@@ -52,6 +56,11 @@ public class CountdownTimer implements Serializable {
     private Set<CountdownTimerListener> listeners = new HashSet<CountdownTimerListener>();
     private CountdownTimerListener countdownDisplay = null;
 
+    /**
+     * delivers ticks to the other listeners, so slow displays do not hold up the clock.
+     */
+    private transient TickDispatcher tickDispatcher = null;
+
     /**
      * Buzzer is controlled by LifterInfo on announcer console (legacy design -- buzzer used to be on client side)
      */
@@ -68,12 +77,7 @@ public class CountdownTimer implements Serializable {
      */
     public void start() {
         logger.debug("enter start {} {}", this, getTimeRemaining()); //$NON-NLS-1$
-        if (timer != null) {
-            timer.cancel();
-        }
-        if (countdownTask != null) {
-            countdownTask.cancel();
-        }
+        cancelTimer();
         if (owner == null)
             return;
         if (timeRemaining <= 0) {
@@ -81,12 +85,8 @@ public class CountdownTimer implements Serializable {
             return;
         }
 
-        timer = new Timer();
-
         countdownTask = new CountdownTask(this, timeRemaining, DECREMENT);
-        timer.scheduleAtFixedRate(countdownTask,
-                0, // start right away
-                DECREMENT); // 100ms precision is good enough
+        schedule(countdownTask);
 
         final Set<CountdownTimerListener> listeners2 = getListeners();
         logger.trace("start: {}  - {} listeners", timeRemaining, listeners2.size()); //$NON-NLS-1$
@@ -127,14 +127,9 @@ public class CountdownTimer implements Serializable {
         if (countdownTask != null) {
             setTimeRemaining((int) countdownTask.getBestTimeRemaining());
         }
-        if (timer != null) {
-            timer.cancel();
-        }
-        timer = null;
-        if (countdownTask != null) {
-            countdownTask.cancel();
-            countdownTask = null;
-        }
+        cancelTimer();
+        countdownTask = null;
+        getTickDispatcher().discardPending();
         setStarted(false);
         if (timeRemaining > 0) {
             logger.debug("pause: {}", timeRemaining); //$NON-NLS-1$
@@ -180,13 +175,11 @@ public class CountdownTimer implements Serializable {
 
     public void stop(InteractionNotificationReason reason) {
         logger.debug("enter stop {} {}", getTimeRemaining()); //$NON-NLS-1$
-        if (timer != null)
-            timer.cancel();
-        timer = null;
+        cancelTimer();
         if (countdownTask != null) {
-            countdownTask.cancel();
             setTimeRemaining((int) countdownTask.getBestTimeRemaining());
         }
+        getTickDispatcher().discardPending();
         setOwner(null);
         setStarted(false);
         logger.debug("stop: {}", timeRemaining); //$NON-NLS-1$
@@ -219,13 +212,9 @@ public class CountdownTimer implements Serializable {
     }
 
     public void forceTimeRemaining(int remainingTime, InteractionNotificationReason reason) {
-        if (timer != null)
-            timer.cancel();
-        timer = null;
-        if (countdownTask != null) {
-            countdownTask.cancel();
-            countdownTask = null;
-        }
+        cancelTimer();
+        countdownTask = null;
+        getTickDispatcher().discardPending();
         setTimeRemaining(remainingTime);
         logger.debug("forceTimeRemaining: {} {}", getTimeRemaining(), reason); //$NON-NLS-1$
         if (countdownDisplay != null) {
@@ -253,10 +242,25 @@ public class CountdownTimer implements Serializable {
     /**
      * @return true if the timer is actually counting down.
      */
-    public boolean isRunning() {
+    public synchronized boolean isRunning() {
         return timer != null;
     }
 
+    /**
+     * The task starts right away, and may call {@link #cancel()} before scheduleAtFixedRate has returned; the field is therefore only
+     * used while holding the lock of this timer, so that cancel() waits for it to be set.
+     */
+    private synchronized void schedule(CountdownTask task) {
+        timer = TimingService.scheduleAtFixedRate(task,
+                0, // start right away
+                DECREMENT); // 100ms precision is good enough
+    }
+
+    private synchronized void cancelTimer() {
+        TimingService.cancel(timer);
+        timer = null;
+    }
+
     /**
      * Set the time remaining for the next start.
      *
@@ -316,17 +320,67 @@ public class CountdownTimer implements Serializable {
     public void removeAllListeners() {
         listenerLogger.debug("removeAllListeners: no one listens to {}", this); //$NON-NLS-1$
         listeners.clear();
+        getTickDispatcher().clear();
     }
 
     public void removeListener(CountdownTimerListener timerListener) {
         listenerLogger.debug("removeListener: {} no longer listened by {}", this, timerListener); //$NON-NLS-1$
         listeners.remove(timerListener);
+        getTickDispatcher().remove(timerListener);
     }
 
     public Set<CountdownTimerListener> getListeners() {
         return listeners;
     }
 
+    /**
+     * Notify the listeners of a tick or warning. The countdown display and the buzzer are called right away, on the clock thread; the
+     * other listeners are notified through the {@link TickDispatcher}.
+     *
+     * @param kind
+     * @param timeRemaining
+     */
+    void fireTick(Kind kind, int timeRemaining) {
+        if (countdownDisplay != null) {
+            notifyListener(countdownDisplay, kind, timeRemaining);
+        }
+        if (masterBuzzer != null) {
+            notifyListener(masterBuzzer, kind, timeRemaining);
+        }
+        final List<CountdownTimerListener> others = new ArrayList<CountdownTimerListener>(listeners.size());
+        for (CountdownTimerListener curListener : listeners) {
+            // avoid duplicate notifications
+            if (curListener != masterBuzzer && curListener != countdownDisplay) {
+                others.add(curListener);
+            }
+        }
+        getTickDispatcher().publish(others, kind, timeRemaining);
+    }
+
+    private static void notifyListener(CountdownTimerListener listener, Kind kind, int timeRemaining) {
+        switch (kind) {
+        case NORMAL_TICK:
+            listener.normalTick(timeRemaining);
+            break;
+        case INITIAL_WARNING:
+            listener.initialWarning(timeRemaining);
+            break;
+        case FINAL_WARNING:
+            listener.finalWarning(timeRemaining);
+            break;
+        case NO_TIME_LEFT:
+            listener.noTimeLeft(timeRemaining);
+            break;
+        }
+    }
+
+    private synchronized TickDispatcher getTickDispatcher() {
+        if (tickDispatcher == null) {
+            tickDispatcher = new TickDispatcher();
+        }
+        return tickDispatcher;
+    }
+
     /**
      * @param countdownDisplay
      *            the countdownDisplay to set
@@ -382,9 +436,12 @@ public class CountdownTimer implements Serializable {
         }
     }
 
-    public void cancel() {
+    /**
+     * Stop the ticks, called by the countdown task once it is over.
+     */
+    public synchronized void cancel() {
         logger.debug("cancelling timer");
-        this.timer.cancel();
+        TimingService.cancel(this.timer);
     }
 
     public boolean isStarted() {
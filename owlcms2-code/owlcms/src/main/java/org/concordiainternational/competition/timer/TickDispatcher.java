@@ -0,0 +1,211 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.timer;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the countdown ticks to the displays without holding up the clock.
+ * <p>
+ * Each listener has its own queue, drained by a small shared pool, so a display that is slow to push (e.g. a remote browser on a bad
+ * network) only delays itself. A tick waiting in a queue is replaced by the next one: the display skips straight to the current time
+ * instead of replaying every second it missed. Warnings and time over are never dropped, and are delivered in order.
+ * </p>
+ *
+ * @author jflamy
+ */
+class TickDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickDispatcher.class);
+
+    private static final int POOL_SIZE = 4;
+
+    private static ExecutorService executor = null;
+
+    private static final AtomicLong droppedTicks = new AtomicLong();
+
+    enum Kind {
+        NORMAL_TICK, INITIAL_WARNING, FINAL_WARNING, NO_TIME_LEFT
+    }
+
+    private final Map<CountdownTimerListener, Channel> channels = new IdentityHashMap<CountdownTimerListener, Channel>();
+
+    /**
+     * Queue the event for each listener.
+     *
+     * @param listeners
+     * @param kind
+     * @param timeRemaining
+     */
+    void publish(Collection<CountdownTimerListener> listeners, Kind kind, int timeRemaining) {
+        for (CountdownTimerListener curListener : listeners) {
+            getChannel(curListener).offer(kind, timeRemaining);
+        }
+    }
+
+    /**
+     * Forget the ticks not yet delivered; called when the clock is stopped or reset, so that a late tick does not overwrite the new
+     * time.
+     */
+    void discardPending() {
+        synchronized (channels) {
+            for (Channel channel : channels.values()) {
+                channel.discard();
+            }
+        }
+    }
+
+    void remove(CountdownTimerListener listener) {
+        synchronized (channels) {
+            final Channel channel = channels.remove(listener);
+            if (channel != null) {
+                channel.discard();
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (channels) {
+            for (Channel channel : channels.values()) {
+                channel.discard();
+            }
+            channels.clear();
+        }
+    }
+
+    private Channel getChannel(CountdownTimerListener listener) {
+        synchronized (channels) {
+            Channel channel = channels.get(listener);
+            if (channel == null) {
+                channel = new Channel(listener);
+                channels.put(listener, channel);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * @return number of ticks replaced by a more recent one before being delivered.
+     */
+    static long getDroppedTicks() {
+        return droppedTicks.get();
+    }
+
+    static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(POOL_SIZE, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "tick-dispatch-" + threadNumber.getAndIncrement()); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    private static class Event {
+        final Kind kind;
+        int timeRemaining;
+
+        Event(Kind kind, int timeRemaining) {
+            this.kind = kind;
+            this.timeRemaining = timeRemaining;
+        }
+    }
+
+    /**
+     * Events waiting for one listener. At most one drain task per listener is queued in the pool.
+     */
+    private static class Channel implements Runnable {
+        private final CountdownTimerListener listener;
+        private final ArrayDeque<Event> events = new ArrayDeque<Event>();
+        private boolean scheduled = false;
+
+        Channel(CountdownTimerListener listener) {
+            this.listener = listener;
+        }
+
+        synchronized void offer(Kind kind, int timeRemaining) {
+            final Event last = events.peekLast();
+            if (kind == Kind.NORMAL_TICK && last != null && last.kind == Kind.NORMAL_TICK) {
+                last.timeRemaining = timeRemaining;
+                droppedTicks.incrementAndGet();
+            } else {
+                events.addLast(new Event(kind, timeRemaining));
+            }
+            if (!scheduled) {
+                scheduled = true;
+                getExecutor().execute(this);
+            }
+        }
+
+        synchronized void discard() {
+            events.clear();
+        }
+
+        private synchronized Event poll() {
+            final Event event = events.pollFirst();
+            if (event == null) {
+                scheduled = false;
+            }
+            return event;
+        }
+
+        @Override
+        public void run() {
+            Event event;
+            while ((event = poll()) != null) {
+                try {
+                    deliver(event);
+                } catch (RuntimeException e) {
+                    LoggerUtils.errorException(logger, e);
+                }
+            }
+        }
+
+        private void deliver(Event event) {
+            switch (event.kind) {
+            case NORMAL_TICK:
+                listener.normalTick(event.timeRemaining);
+                break;
+            case INITIAL_WARNING:
+                listener.initialWarning(event.timeRemaining);
+                break;
+            case FINAL_WARNING:
+                listener.finalWarning(event.timeRemaining);
+                break;
+            case NO_TIME_LEFT:
+                listener.noTimeLeft(event.timeRemaining);
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.timer;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler shared by all the clocks and delays of the application (platform countdown timers, intermission timers, referee and jury
+ * decision delays, message removal).
+ * <p>
+ * A java.util.Timer creates a thread every time it is instantiated, and that thread lives until the Timer is cancelled or garbage
+ * collected. A small pool of daemon threads is used instead, and the tasks are cancelled through the {@link ScheduledFuture} returned.
+ * </p>
+ * <p>
+ * Periodic tasks are measured: the lateness of each run with respect to its fixed-rate schedule is accumulated, so that an overloaded
+ * server shows up as late ticks rather than as a clock that mysteriously drifts.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class TimingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingService.class);
+
+    /**
+     * a tick this late (in milliseconds) is counted as late.
+     */
+    static final int LATE_TICK_THRESHOLD = 50;
+
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static ScheduledThreadPoolExecutor executor = null;
+
+    private static final AtomicLong ticks = new AtomicLong();
+    private static final AtomicLong lateTicks = new AtomicLong();
+    private static final AtomicLong totalLatenessMillis = new AtomicLong();
+    private static final AtomicLong maxLatenessMillis = new AtomicLong();
+
+    private static final Histogram tickLateness = Metrics.histogram("timing.tickLateness"); //$NON-NLS-1$
+
+    static {
+        Metrics.gauge("timing.ticks", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getTicks();
+            }
+        });
+        Metrics.gauge("timing.lateTicks", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getLateTicks();
+            }
+        });
+        Metrics.gauge("timing.droppedTicks", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getDroppedTicks();
+            }
+        });
+    }
+
+    private TimingService() {
+    }
+
+    /**
+     * Run a task once, after a delay.
+     *
+     * @param task
+     * @param delayMillis
+     * @return the handle used to cancel the task.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return getExecutor().schedule(new LoggingTask(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a task at a fixed rate until cancelled. Runs of the same task never overlap; if a run is late, the following ones are run as
+     * soon as possible to catch up, as with java.util.Timer.
+     *
+     * @param task
+     * @param initialDelayMillis
+     * @param periodMillis
+     * @return the handle used to cancel the task.
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelayMillis, long periodMillis) {
+        final MeasuredTask measuredTask = new MeasuredTask(task, initialDelayMillis, periodMillis);
+        return getExecutor().scheduleAtFixedRate(measuredTask, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancel a task, if there is one. A task already running is allowed to finish.
+     *
+     * @param future
+     *            may be null.
+     */
+    public static void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Stop all threads. Called when the web application is stopped; the service starts again if used afterwards.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            logger.debug("timing service stopped, {}", getStatistics()); //$NON-NLS-1$
+        }
+        TickDispatcher.shutdown();
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(POOL_SIZE, new TimerThreadFactory());
+            // cancelled countdowns must not accumulate in the queue.
+            executor.setRemoveOnCancelPolicy(true);
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            logger.debug("timing service started with {} threads", POOL_SIZE); //$NON-NLS-1$
+        }
+        return executor;
+    }
+
+    /**
+     * @return number of periodic runs since the last reset.
+     */
+    public static long getTicks() {
+        return ticks.get();
+    }
+
+    /**
+     * @return number of periodic runs that started more than {@link #LATE_TICK_THRESHOLD} ms after their scheduled time.
+     */
+    public static long getLateTicks() {
+        return lateTicks.get();
+    }
+
+    /**
+     * @return number of ticks that were replaced by a more recent one because a display was still busy with the previous one.
+     */
+    public static long getDroppedTicks() {
+        return TickDispatcher.getDroppedTicks();
+    }
+
+    public static long getMaxLatenessMillis() {
+        return maxLatenessMillis.get();
+    }
+
+    public static double getAverageLatenessMillis() {
+        final long nbTicks = ticks.get();
+        return (nbTicks == 0 ? 0.0 : (double) totalLatenessMillis.get() / nbTicks);
+    }
+
+    public static String getStatistics() {
+        return "ticks=" + getTicks() + " late=" + getLateTicks() + " maxLatenessMs=" + getMaxLatenessMillis() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                + " avgLatenessMs=" + String.format("%.1f", getAverageLatenessMillis()) //$NON-NLS-1$ //$NON-NLS-2$
+                + " droppedTicks=" + getDroppedTicks(); //$NON-NLS-1$
+    }
+
+    public static void resetStatistics() {
+        ticks.set(0);
+        lateTicks.set(0);
+        totalLatenessMillis.set(0);
+        maxLatenessMillis.set(0);
+    }
+
+    static void recordLateness(long latenessMillis) {
+        ticks.incrementAndGet();
+        if (latenessMillis <= 0) {
+            tickLateness.recordMicros(0);
+            return;
+        }
+        tickLateness.recordMicros(latenessMillis * 1000);
+        totalLatenessMillis.addAndGet(latenessMillis);
+        if (latenessMillis > LATE_TICK_THRESHOLD) {
+            lateTicks.incrementAndGet();
+        }
+        long max = maxLatenessMillis.get();
+        while (latenessMillis > max && !maxLatenessMillis.compareAndSet(max, latenessMillis)) {
+            max = maxLatenessMillis.get();
+        }
+    }
+
+    /**
+     * An exception must not kill the pool thread silently, nor go unnoticed.
+     */
+    private static class LoggingTask implements Runnable {
+        private final Runnable task;
+
+        LoggingTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LoggerUtils.errorException(logger, e);
+            }
+        }
+    }
+
+    /**
+     * Measures how late each run is with respect to the fixed-rate schedule.
+     */
+    private static class MeasuredTask extends LoggingTask {
+        private final long firstRunNanos;
+        private final long periodNanos;
+        private long runs = 0;
+
+        MeasuredTask(Runnable task, long initialDelayMillis, long periodMillis) {
+            super(task);
+            this.firstRunNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+            this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        }
+
+        @Override
+        public void run() {
+            final long scheduledNanos = firstRunNanos + (runs++ * periodNanos);
+            recordLateness(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledNanos));
+            super.run();
+        }
+    }
+
+    private static class TimerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "timer-" + threadNumber.getAndIncrement()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            // clocks and buzzers matter more than reports and refreshes.
+            thread.setPriority(Thread.NORM_PRIORITY + 1);
+            return thread;
+        }
+    }
+}
@@ -9,15 +9,13 @@ package org.concordiainternational.competition.ui;
 
 import java.text.MessageFormat;
 import java.util.Locale;
-import java.util.Timer;
-import java.util.TimerTask;
 
-import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.CompetitionSessionLookup;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.RuleViolationException;
 import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.timer.TimingService;
 import org.concordiainternational.competition.ui.components.ApplicationView;
 import org.concordiainternational.competition.utils.LoggerUtils;
 import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
@@ -277,7 +275,6 @@ public class AnnouncerView extends VerticalSplitPanel implements
     @Override
     public void refresh() {
         logger.debug("start refresh ----------{}", mode); //$NON-NLS-1$
-        CategoryLookup.getSharedInstance().reload();
         liftList.refresh();
         setStickyEditor(false, false);
         masterData.getRefereeDecisionController().reset();
@@ -355,7 +352,7 @@ public class AnnouncerView extends VerticalSplitPanel implements
      */
     @Override
     public void sessionDataUpdateEvent(final SessionDataUpdateEvent sessionDataUpdateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -402,7 +399,7 @@ public class AnnouncerView extends VerticalSplitPanel implements
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
@@ -587,7 +584,7 @@ public class AnnouncerView extends VerticalSplitPanel implements
      * @param i
      */
     public void scheduleMessageRemoval(final Message addedMessage, int msgRemovalMs) {
-        new Timer().schedule(new TimerTask() {
+        TimingService.schedule(new Runnable() {
             @Override
             public void run() {
                 // remove message, push to client.
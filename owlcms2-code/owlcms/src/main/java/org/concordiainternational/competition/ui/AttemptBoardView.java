@@ -178,6 +178,8 @@ public class AttemptBoardView extends WeeLayout implements
     protected void createDecisionLights() {
         logger.trace("entry");
         decisionLights = new DecisionLights(publicFacing, app, false);
+        decisionLights.setTraceName(publicFacing ? CompetitionApplicationComponents.PUBLIC_ATTEMPT_BOARD_VIEW
+                : CompetitionApplicationComponents.LIFTER_ATTEMPT_BOARD_VIEW);
         decisionLights.setSizeFull();
         decisionLights.setMargin(true);
         decisionLights.setSpacing(true);
@@ -194,7 +196,7 @@ public class AttemptBoardView extends WeeLayout implements
 
                 @Override
                 public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().executeLatest(AttemptBoardView.this, new Runnable() {
                         @Override
                         public void run() {
                             logger.trace("entry");
@@ -204,7 +206,7 @@ public class AttemptBoardView extends WeeLayout implements
                             }
                             logger.trace("exit");
                         }
-                    }).start();
+                    });
                 }
 
             };
@@ -780,7 +782,7 @@ public class AttemptBoardView extends WeeLayout implements
      */
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -834,7 +836,7 @@ public class AttemptBoardView extends WeeLayout implements
                     }
                 }
             }
-        }).start();
+        });
     }
 
     @Override
@@ -10,8 +10,8 @@ package org.concordiainternational.competition.ui;
 import java.util.Locale;
 
 import org.concordiainternational.competition.data.Category;
-import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.ReferenceData;
 import org.concordiainternational.competition.data.RuleViolationException;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.components.ApplicationView;
@@ -84,7 +84,7 @@ public class CategoryList extends GenericHbnList<Category> implements Applicatio
     public void toggleEditable() {
         super.toggleEditable();
         if (!table.isEditable()) {
-            CategoryLookup.getSharedInstance().reload();
+            ReferenceData.categoriesChanged();
         }
     }
 
@@ -34,10 +34,13 @@ import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.mobile.MJuryConsole;
 import org.concordiainternational.competition.mobile.MRefereeConsole;
 import org.concordiainternational.competition.mobile.MobileHome;
+import org.concordiainternational.competition.spreadsheet.JXLSWorkbookStreamSource;
 import org.concordiainternational.competition.ui.components.ApplicationView;
 import org.concordiainternational.competition.ui.components.Menu;
+import org.concordiainternational.competition.utils.Histogram;
 import org.concordiainternational.competition.utils.Localized;
 import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
 import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -91,6 +94,7 @@ public class CompetitionApplication extends Application implements HbnSessionMan
 
     private static Logger logger = LoggerFactory.getLogger(CompetitionApplication.class);
     private static Logger resourceLogger = LoggerFactory.getLogger("ResourceLogger");
+    private static final Histogram pushTimes = Metrics.histogram("application.push"); //$NON-NLS-1$
     public static XLogger traceLogger = XLoggerFactory.getXLogger("Tracing"); //$NON-NLS-1$
 
     private static LocalizedSystemMessages localizedMessages;
@@ -216,6 +220,8 @@ public class CompetitionApplication extends Application implements HbnSessionMan
 
     transient public CompetitionApplicationComponents components;
 
+    transient private volatile EventDispatchQueue eventDispatchQueue;
+
     protected UriFragmentUtility uriFragmentUtility = null;
 
     /*
@@ -345,6 +351,26 @@ public class CompetitionApplication extends Application implements HbnSessionMan
         return pusher;
     }
 
+    /**
+     * Queue used by the views of this application to react to events from other sessions without creating threads. Not synchronized on
+     * the application, since the senders must not wait for a request being processed.
+     *
+     * @return the event queue for this application.
+     */
+    public EventDispatchQueue getEventDispatchQueue() {
+        EventDispatchQueue queue = eventDispatchQueue;
+        if (queue == null) {
+            synchronized (EventDispatchQueue.class) {
+                queue = eventDispatchQueue;
+                if (queue == null) {
+                    queue = new EventDispatchQueue(this);
+                    eventDispatchQueue = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
     synchronized public void push() {
         // if (logger.isDebugEnabled()) {
         // String string = LoggerUtils.mdcGet("view");
@@ -356,7 +382,9 @@ public class CompetitionApplication extends Application implements HbnSessionMan
         pusher = this.ensurePusher();
         if (!pusherDisabled) {
             logger.trace("pushing with {} on window {}", pusher, getMainWindow());
+            final long start = System.nanoTime();
             pusher.push();
+            pushTimes.recordSince(start);
         }
     }
 
@@ -665,9 +693,16 @@ public class CompetitionApplication extends Application implements HbnSessionMan
      */
     @Override
     public void openSpreadsheet(StreamResource.StreamSource streamSource, final String filename) {
-        StreamResource streamResource = new StreamResource(streamSource, filename + ".xls", this); //$NON-NLS-1$
+        String extension = ".xls"; //$NON-NLS-1$
+        String mimeType = "application/x-msexcel"; //$NON-NLS-1$
+        if (streamSource instanceof JXLSWorkbookStreamSource) {
+            // streaming templates produce .xlsx files
+            extension = ((JXLSWorkbookStreamSource) streamSource).getFileExtension();
+            mimeType = ((JXLSWorkbookStreamSource) streamSource).getMimeType();
+        }
+        StreamResource streamResource = new StreamResource(streamSource, filename + extension, this);
         streamResource.setCacheTime(5000); // no cache (<=0) does not work with IE8
-        streamResource.setMIMEType("application/x-msexcel"); //$NON-NLS-1$
+        streamResource.setMIMEType(mimeType);
         // WebApplicationContext webAppContext = (WebApplicationContext)this.getContext();
         // if (webAppContext.getBrowser().isChrome()) {
         //            this.getMainWindow().open(streamResource, "_blank"); //$NON-NLS-1$
@@ -9,13 +9,16 @@ package org.concordiainternational.competition.ui;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.Locale;
 
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.ReferenceData;
 import org.concordiainternational.competition.data.RuleViolationException;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.publicAddress.LogoUploader;
@@ -64,6 +67,21 @@ public class CompetitionEditor extends VerticalLayout implements ApplicationView
     Logger logger = LoggerFactory.getLogger(CompetitionEditor.class);
     private static Logger resourceLogger = LoggerFactory.getLogger("ResourceLogger");
 
+    /**
+     * The templates that can be chosen: .xls files for JXLS, .xlsx for the competition books that are streamed.
+     */
+    private static final FilenameFilter TEMPLATE_FILES = new TemplateFilter();
+
+    private static class TemplateFilter implements FilenameFilter, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean accept(File dir, String name) {
+            final String lowerCase = name.toLowerCase();
+            return lowerCase.endsWith(".xls") || lowerCase.endsWith(".xlsx"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
     private TextField displayFN;
     private TextField displayPS;
     private Select editFN;
@@ -192,7 +210,7 @@ public class CompetitionEditor extends VerticalLayout implements ApplicationView
         File file = new File(realPath);
         resourceLogger.debug("addFileSelector {} {}",file.getCanonicalPath(),file.isDirectory());
         if (realPath != null && file.isDirectory()) {
-            fsContainer = new FilesystemContainer(file, "xls", false);
+            fsContainer = new FilesystemContainer(file, TEMPLATE_FILES, false);
         } else {
             fsContainer = findTemplatesWhenRunningInPlace(wContext);
         }
@@ -244,7 +262,7 @@ public class CompetitionEditor extends VerticalLayout implements ApplicationView
             if (realPath != null && file1.isDirectory()) {
                 file1 = new File(file1, "resources/templates/competitionBook");
                 resourceLogger.debug("findTemplatesWhenRunningInPlace 3 {}", file1.getAbsolutePath());
-                fsContainer = new FilesystemContainer(file1, "xls", false);
+                fsContainer = new FilesystemContainer(file1, TEMPLATE_FILES, false);
             } else {
                 throw new RuntimeException("templates not found in WEB-INF or application root");
             }
@@ -372,6 +390,7 @@ public class CompetitionEditor extends VerticalLayout implements ApplicationView
                 final Session session = app.getHbnSession();
                 session.merge(competition);
                 session.flush();
+                ReferenceData.competitionChanged();
             };
         });
         return hl;
@@ -101,12 +101,12 @@ public class CountdownDisplay extends VerticalLayout implements
 
                 @Override
                 public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().executeLatest(CountdownDisplay.this, new Runnable() {
                         @Override
                         public void run() {
                             updateTimeDisplay(platformName1, masterData1);
                         }
-                    }).start();
+                    });
                 }
 
             };
@@ -134,6 +134,7 @@ public class CountdownDisplay extends VerticalLayout implements
 
         timeDisplay = createTimeDisplay();
         decisionLights = new DecisionLights(false, app1, false);
+        decisionLights.setTraceName(CompetitionApplicationComponents.COUNTDOWN_DISPLAY);
         showTimeDisplay();
 
     }
@@ -316,7 +317,7 @@ public class CountdownDisplay extends VerticalLayout implements
 
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -360,7 +361,7 @@ public class CountdownDisplay extends VerticalLayout implements
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
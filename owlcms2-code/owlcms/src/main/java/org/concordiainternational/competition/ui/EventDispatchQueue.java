@@ -0,0 +1,231 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.ui;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.utils.Histogram;
+import org.concordiainternational.competition.utils.LoggerUtils;
+import org.concordiainternational.competition.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Runs the updates of one application's user interface in the background, one at a time and in the order they were submitted.
+ * <p>
+ * Views get events from other sessions (lifter updates, decisions, clock changes) and must not hold up the thread that sends them, so they
+ * used to start a new thread for every event. The queues of all applications now share a small pool of threads instead. Because the tasks
+ * of one application never run concurrently, an update cannot overtake an earlier one for the same screen.
+ * </p>
+ * <p>
+ * A task submitted with a key replaces the task with the same key that has not started yet: when the attempt board is told three times in
+ * a row that the lifting order changed, it is redrawn once, with the latest data.
+ * </p>
+ * <p>
+ * A task runs with its application as the current one, and with the logging context of the thread that submitted it, as it did when it
+ * had a thread of its own.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class EventDispatchQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatchQueue.class);
+
+    private static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static ThreadPoolExecutor executor = null;
+
+    private static final AtomicLong executedTasks = new AtomicLong();
+    private static final AtomicLong supersededTasks = new AtomicLong();
+
+    private static final Histogram waitTimes = Metrics.histogram("dispatch.wait"); //$NON-NLS-1$
+    private static final Histogram runTimes = Metrics.histogram("dispatch.run"); //$NON-NLS-1$
+
+    static {
+        Metrics.gauge("dispatch.executed", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getExecutedTasks();
+            }
+        });
+        Metrics.gauge("dispatch.superseded", new Metrics.Gauge() { //$NON-NLS-1$
+            @Override
+            public long getValue() {
+                return getSupersededTasks();
+            }
+        });
+    }
+
+    private final CompetitionApplication app;
+    private final ArrayDeque<Task> tasks = new ArrayDeque<Task>();
+    private boolean scheduled = false;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * @param app
+     *            the application the tasks run for; null for a queue shared by several applications, whose tasks run with no current
+     *            application and hand the user interface work to the applications' own queues.
+     */
+    public EventDispatchQueue(CompetitionApplication app) {
+        this.app = app;
+    }
+
+    /**
+     * Run a task after the ones already submitted.
+     *
+     * @param task
+     */
+    public void execute(Runnable task) {
+        enqueue(new Task(null, task));
+    }
+
+    /**
+     * Run a task after the ones already submitted, dropping the task with the same key if it has not started yet.
+     *
+     * @param key
+     *            identifies what the task refreshes (compared with equals()).
+     * @param task
+     */
+    public void executeLatest(Object key, Runnable task) {
+        enqueue(new Task(key, task));
+    }
+
+    private synchronized void enqueue(Task task) {
+        if (task.key != null) {
+            final Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                if (task.key.equals(iterator.next().key)) {
+                    iterator.remove();
+                    supersededTasks.incrementAndGet();
+                }
+            }
+        }
+        tasks.addLast(task);
+        if (!scheduled) {
+            scheduled = true;
+            getExecutor().execute(drain);
+        }
+    }
+
+    private synchronized Task poll() {
+        final Task task = tasks.pollFirst();
+        if (task == null) {
+            scheduled = false;
+        }
+        return task;
+    }
+
+    /**
+     * Run the tasks until the queue is empty. Only one drain per queue is submitted to the pool at any time.
+     */
+    private void drain() {
+        Task task;
+        while ((task = poll()) != null) {
+            task.run();
+            executedTasks.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of tasks run since the application started.
+     */
+    public static long getExecutedTasks() {
+        return executedTasks.get();
+    }
+
+    /**
+     * @return number of tasks replaced by a more recent one before they started.
+     */
+    public static long getSupersededTasks() {
+        return supersededTasks.get();
+    }
+
+    /**
+     * Stop all threads. Called when the web application is stopped; the pool starts again if used afterwards.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            logger.debug("event dispatch stopped, executed={} superseded={}", getExecutedTasks(), getSupersededTasks()); //$NON-NLS-1$
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new DispatchThreadFactory());
+            // idle servers do not keep the threads.
+            executor.allowCoreThreadTimeOut(true);
+            logger.debug("event dispatch started with {} threads", POOL_SIZE); //$NON-NLS-1$
+        }
+        return executor;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private class Task {
+        final Object key;
+        final Runnable runnable;
+        final Map loggingContext;
+        final long submitted = System.nanoTime();
+
+        Task(Object key, Runnable runnable) {
+            this.key = key;
+            this.runnable = runnable;
+            this.loggingContext = MDC.getCopyOfContextMap();
+        }
+
+        void run() {
+            final long start = System.nanoTime();
+            waitTimes.recordNanos(start - submitted);
+            CompetitionApplication.setCurrent(app);
+            if (loggingContext != null) {
+                MDC.setContextMap(loggingContext);
+            } else {
+                MDC.clear();
+            }
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                LoggerUtils.errorException(logger, e);
+            } finally {
+                runTimes.recordSince(start);
+                // pool threads must not keep a closed application alive.
+                CompetitionApplication.setCurrent(null);
+                MDC.clear();
+            }
+        }
+    }
+
+    private static class DispatchThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "event-dispatch-" + threadNumber.getAndIncrement()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -713,7 +713,7 @@ public class LifterInfo extends VerticalLayout implements
      */
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 // show a notification
@@ -807,7 +807,7 @@ public class LifterInfo extends VerticalLayout implements
                 }
             }
 
-        }).start();
+        });
     }
 
     public void doDisplayDecision(final Boolean accepted, Integer attemptedWeight, final Lifter lifter2) {
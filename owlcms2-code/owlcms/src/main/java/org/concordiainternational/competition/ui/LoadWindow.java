@@ -111,12 +111,12 @@ public class LoadWindow extends Window implements Property.ValueChangeListener,
         groupDataListener = new SessionData.SessionDataUpdateEventListener() {
             @Override
             public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                new Thread(new Runnable() {
+                app.getEventDispatchQueue().executeLatest(LoadWindow.this, new Runnable() {
                     @Override
                     public void run() {
                         display(locale);
                     }
-                }).start();
+                });
             }
         };
         masterData.addListener(groupDataListener);
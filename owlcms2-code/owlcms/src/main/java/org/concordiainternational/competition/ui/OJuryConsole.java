@@ -136,21 +136,21 @@ public class OJuryConsole extends VerticalLayout implements DecisionEventListene
             public void layoutClick(LayoutClickEvent event) {
                 Component child = event.getChildComponent();
                 if (child == red) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().execute(new Runnable() {
                         @Override
                         public void run() {
                             decisionController
                                     .decisionMade(refereeIndex, false);
                         }
-                    }).start();
+                    });
                     redSelected();
                 } else if (child == white) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().execute(new Runnable() {
                         @Override
                         public void run() {
                             decisionController.decisionMade(refereeIndex, true);
                         }
-                    }).start();
+                    });
                     whiteSelected();
                 }
             }
@@ -205,7 +205,7 @@ public class OJuryConsole extends VerticalLayout implements DecisionEventListene
 
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -248,7 +248,7 @@ public class OJuryConsole extends VerticalLayout implements DecisionEventListene
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
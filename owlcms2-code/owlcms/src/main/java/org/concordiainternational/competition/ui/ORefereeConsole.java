@@ -136,21 +136,11 @@ public class ORefereeConsole extends VerticalLayout implements DecisionEventList
             public void layoutClick(LayoutClickEvent event) {
                 Component child = event.getChildComponent();
                 if (child == red) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            decisionController
-                                    .decisionMade(refereeIndex, false);
-                        }
-                    }).start();
+                    // the controller records the decision at once and sends the events from its own queue.
+                    decisionController.decisionMade(refereeIndex, false, System.nanoTime());
                     redSelected();
                 } else if (child == white) {
-                    new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            decisionController.decisionMade(refereeIndex, true);
-                        }
-                    }).start();
+                    decisionController.decisionMade(refereeIndex, true, System.nanoTime());
                     whiteSelected();
                 }
             }
@@ -205,7 +195,7 @@ public class ORefereeConsole extends VerticalLayout implements DecisionEventList
 
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -248,7 +238,7 @@ public class ORefereeConsole extends VerticalLayout implements DecisionEventList
                 }
                 app.push();
             }
-        }).start();
+        });
     }
 
     /**
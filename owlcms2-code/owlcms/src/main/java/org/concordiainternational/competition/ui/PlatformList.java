@@ -12,6 +12,7 @@ import java.util.Objects;
 
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.Platform;
+import org.concordiainternational.competition.data.ReferenceData;
 import org.concordiainternational.competition.data.RuleViolationException;
 import org.concordiainternational.competition.decision.Speakers;
 import org.concordiainternational.competition.i18n.Messages;
@@ -100,8 +101,18 @@ public class PlatformList extends GenericHbnList<Platform> implements Applicatio
     @Override
     protected void loadData() {
         super.loadData();
-        // bruteforce caching
-        Platform.getAll();
+        Platform.reload();
+    }
+
+    /**
+     * This method is used in response to a button click.
+     */
+    @Override
+    public void toggleEditable() {
+        super.toggleEditable();
+        if (!table.isEditable()) {
+            ReferenceData.platformsChanged();
+        }
     }
 
     /**
@@ -127,7 +138,7 @@ public class PlatformList extends GenericHbnList<Platform> implements Applicatio
 //                                    Platform platformBean = (Platform) platform.getPojo();
                                     deleteItem(itemId);
 //                                    Platform.removePlatform(platformBean);
-                                    Platform.getAll(); // recompute cache
+                                    ReferenceData.platformsChanged();
                                 } catch (ConstraintViolationException exception) {
                                     throw new RuntimeException(Messages.getString("PlatformList.MustNotBeInUse", app
                                             .getLocale()));
@@ -177,7 +188,7 @@ public class PlatformList extends GenericHbnList<Platform> implements Applicatio
                                 public void valueChange(ValueChangeEvent event) {
                                     Platform pl = (Platform) ((EntityItem) item).getPojo();
                                     pl.setMixerName((String) event.getProperty().getValue());
-                                    Platform.getAll(); // recompute cache
+                                    ReferenceData.platformsChanged();
                                     String mixerName = Platform.getByName(pl.getName()).getMixerName();
                                     String mixerName2 = pl.getMixerName();
 
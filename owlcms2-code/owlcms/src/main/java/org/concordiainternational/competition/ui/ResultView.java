@@ -7,7 +7,6 @@
  */
 package org.concordiainternational.competition.ui;
 
-import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.CompetitionSessionLookup;
 import org.concordiainternational.competition.data.Lifter;
@@ -198,7 +197,6 @@ public class ResultView extends VerticalSplitPanel implements ApplicationView, S
     @Override
     public void refresh() {
         logger.debug("start refresh ----------"); //$NON-NLS-1$
-        CategoryLookup.getSharedInstance().reload();
         resultList.refresh();
         loadFirstLifterInfo(groupData);
         logger.debug("end refresh ----------"); //$NON-NLS-1$
@@ -204,7 +204,7 @@ Bookmarkable
 
                 @Override
                 public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().executeLatest(SecretaryResultsView.this, new Runnable() {
 
                         @Override
                         public void run() {
@@ -214,7 +214,7 @@ Bookmarkable
                             sessionSelect.select(currentSession.getId());
                             display(platformName, groupName, masterData1);
                         }
-                    }).start();
+                    });
                 }
             };
             return listener;
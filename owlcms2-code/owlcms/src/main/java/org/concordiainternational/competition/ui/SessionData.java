@@ -9,12 +9,15 @@ package org.concordiainternational.competition.ui;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletContext;
 
@@ -23,7 +26,9 @@ import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.LifterContainer;
+import org.concordiainternational.competition.data.LifterWriteBehind;
 import org.concordiainternational.competition.data.Platform;
+import org.concordiainternational.competition.data.lifterSort.IncrementalLifterSorter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
 import org.concordiainternational.competition.decision.Decision;
@@ -40,8 +45,11 @@ import org.concordiainternational.competition.timer.CountdownTimer;
 import org.concordiainternational.competition.ui.PlatesInfoEvent.PlatesInfoListener;
 import org.concordiainternational.competition.ui.components.ApplicationView;
 import org.concordiainternational.competition.utils.EventHelper;
+import org.concordiainternational.competition.utils.Histogram;
 import org.concordiainternational.competition.utils.IdentitySet;
+import org.concordiainternational.competition.utils.Metrics;
 import org.concordiainternational.competition.utils.NotificationManager;
+import org.concordiainternational.competition.webapp.ScoreboardFeed;
 import org.hibernate.Session;
 import org.hibernate.StaleObjectStateException;
 import org.slf4j.Logger;
@@ -56,6 +64,7 @@ import com.vaadin.data.Item;
 import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
 import com.vaadin.event.EventRouter;
 import com.vaadin.ui.Component;
+import com.vaadin.ui.Window.Notification;
 
 /**
  * Data about a competition group.
@@ -75,6 +84,12 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
     private static final Logger timingLogger = LoggerFactory.getLogger("timing." + SessionData.class.getSimpleName()); //$NON-NLS-1$
     private static Logger listenerLogger = LoggerFactory.getLogger("listeners." + SessionData.class.getSimpleName()); //$NON-NLS-1$
 
+    private static final Histogram sortTimes = Metrics.histogram("sessionData.sortLists"); //$NON-NLS-1$
+    private static final Histogram notifyTimes = Metrics.histogram("sessionData.notifyListeners"); //$NON-NLS-1$
+    private static final Histogram publishTimes = Metrics.histogram("sessionData.publish"); //$NON-NLS-1$
+    private static final AtomicLong incrementalSorts = Metrics.counter("sessionData.sortLists.incremental"); //$NON-NLS-1$
+    private static final AtomicLong fullSorts = Metrics.counter("sessionData.sortLists.full"); //$NON-NLS-1$
+
     public List<Lifter> lifters;
     /**
      * list of currently displayed lifters that, if updated, will notify us. We use an IdentitySet because the same lifter can appear in two
@@ -84,6 +99,7 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
     private List<Lifter> liftTimeOrder;
     private List<Lifter> displayOrder;
     private List<Lifter> resultOrder;
+    private transient IncrementalLifterSorter sorter;
     //private CompetitionApplication app;
 
     private CompetitionSession currentSession;
@@ -237,9 +253,15 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
      * If one wanted to make sure that this operation will be successful a (Hibernate) transaction commit and error checking ought to be
      * done.
      *
+     * When the lifters are saved in the background ({@link LifterWriteBehind}), a lifter is only written to the journal.
+     *
      * @param object
      */
     public void persistPojo(Object object) {
+        if (LifterWriteBehind.save(object)) {
+            reportRejected();
+            return;
+        }
         try {
             CompetitionApplication current = CompetitionApplication.getCurrent();
             ((HbnSessionManager) current).getHbnSession().merge(object);
@@ -277,26 +299,41 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
             }
         }
 
-        boolean needToAnnounce = sortLists(letClockRun);
+        boolean needToAnnounce = sortLists(updatedLifter, letClockRun);
         publishListsToServletContext();
         notifyListeners(needToAnnounce);
 
     }
 
     /**
-     * @param b
+     * Bring the lifting, display, result and lift time orders up to date.
      *
+     * @param updatedLifter
+     *            the only lifter that changed, or null if the lists must be sorted from scratch.
+     * @param letClockRun
      */
-    private boolean sortLists(boolean letClockRun) {
+    private boolean sortLists(Lifter updatedLifter, boolean letClockRun) {
         logger.debug("sortLists"); //$NON-NLS-1$
-
-        displayOrder = LifterSorter.displayOrderCopy(lifters);
-        setLiftTimeOrder(LifterSorter.LiftTimeOrderCopy(lifters));
-        setResultOrder(LifterSorter.resultsOrderCopy(lifters, Ranking.TOTAL));
+        final long start = System.nanoTime();
+
+        final IncrementalLifterSorter sorter = getSorter();
+        final boolean incremental = sorter.update(lifters, updatedLifter);
+        timingLogger.debug("sortLists incremental={}", incremental); //$NON-NLS-1$
+        (incremental ? incrementalSorts : fullSorts).incrementAndGet();
+        displayOrder = sorter.displayOrderCopy();
+        setLiftTimeOrder(sorter.liftTimeOrderCopy());
+        setResultOrder(sorter.resultOrderCopy());
+        LifterSorter.assignResultOrderRanks(getResultOrder(), Ranking.TOTAL);
         LifterSorter.assignCategoryRanks(getResultOrder(), Ranking.TOTAL);
         this.liftsDone = LifterSorter.countLiftsDone(lifters);
 
-        LifterSorter.liftingOrder(lifters);
+        LifterSorter.assignLiftOrderRanks(lifters);
+        for (Lifter lifter : lifters) {
+            if (lifter.isForcedAsCurrent()) {
+                // markCurrentLifter clears the flag, so the lifter must move back on next update.
+                sorter.markPending(lifter);
+            }
+        }
         currentLifter = LifterSorter.markCurrentLifter(lifters);
 
         Integer currentRequest = (currentLifter != null ? currentLifter.getNextAttemptRequestedWeight() : null);
@@ -337,6 +374,7 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
             priorRequestNum = null;
         }
 
+        sortTimes.recordSince(start);
         return needToAnnounce;
     }
 
@@ -358,7 +396,9 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
         // notify listeners to pick up the new information.
         final Lifter firstLifter = lifters.size() > 0 ? lifters.get(0) : null;
         e.setCurrentLifter(firstLifter);
+        final long start = System.nanoTime();
         fireEvent(e);
+        notifyTimes.recordSince(start);
     }
 
     /**
@@ -372,11 +412,14 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
         String name = (currentGroup != null ? (String) currentGroup.getName() : null);
         ServletContext sCtx = current.getServletContext();
         if (sCtx != null) {
+            final long start = System.nanoTime();
             logger.debug("current group for platformName " + platformName + " = " + name); //$NON-NLS-1$ //$NON-NLS-2$
             currentLiftingOrder = getAttemptOrder();
             currentDisplayOrder = getDisplayOrder();
             currentResultOrder = getResultOrder();
             sCtx.setAttribute("groupData_" + platformName, this); //$NON-NLS-1$
+            ScoreboardFeed.publish(platformName, this);
+            publishTimes.recordSince(start);
         }
     }
 
@@ -384,6 +427,16 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
         return lifters;
     }
 
+    /**
+     * @return the engine that keeps the various orders sorted.
+     */
+    private IncrementalLifterSorter getSorter() {
+        if (sorter == null) {
+            sorter = new IncrementalLifterSorter();
+        }
+        return sorter;
+    }
+
     /**
      * @return lifters in standard display order
      */
@@ -656,7 +709,7 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
 
 
         loadData();
-        sortLists(false);
+        sortLists(null, false);
         publishListsToServletContext();
         setTimeKeepingInUse(false); // will switch to true if Start/stop is used.
         getTimer().forceTimeRemaining(getDisplayTime());
@@ -1076,6 +1129,10 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
      * @param currentLifter2
      */
     public void saveLifter(final Lifter currentLifter2) {
+        if (LifterWriteBehind.save(currentLifter2)) {
+            reportRejected();
+            return;
+        }
         CompetitionApplication current = CompetitionApplication.getCurrent();
         Session session = current.getHbnSession();
         session.merge(currentLifter2);
@@ -1087,6 +1144,28 @@ public class SessionData implements Lifter.UpdateEventListener, Serializable {
         }
     }
 
+    /**
+     * Tell the user about the changes that could not be saved in the background; they are in the log.
+     */
+    private void reportRejected() {
+        final List<String> names = LifterWriteBehind.takeRejected();
+        final CompetitionApplication current = CompetitionApplication.getCurrent();
+        if (names.isEmpty() || current == null || current.getMainWindow() == null) {
+            return;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            if (sb.length() > 0) {
+                sb.append(", "); //$NON-NLS-1$
+            }
+            sb.append(name);
+        }
+        final Locale locale = CompetitionApplication.getCurrentLocale();
+        current.getMainWindow().showNotification(Messages.getString("RuleValidation.error", locale), //$NON-NLS-1$
+                MessageFormat.format(Messages.getString("GroupData.NotSaved", locale), sb.toString()), //$NON-NLS-1$
+                Notification.TYPE_ERROR_MESSAGE);
+    }
+
     public void downSignal() {
 //        final CountdownDisplay countDownDisplay = (CountdownDisplay) getTimer().getCountdownDisplay();
 //        if (countDownDisplay != null) {
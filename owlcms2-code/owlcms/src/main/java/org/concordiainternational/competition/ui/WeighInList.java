@@ -12,7 +12,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
-import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.CompetitionSessionLookup;
@@ -929,7 +928,6 @@ public class WeighInList extends LifterHbnList implements ApplicationView, Bookm
     // }
 
     public void fullReload() {
-        CategoryLookup.getSharedInstance().reload();
 
         WeighInList.this.removeComponent(table);
         populateAndConfigureTable();
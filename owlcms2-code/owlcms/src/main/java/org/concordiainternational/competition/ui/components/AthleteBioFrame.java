@@ -142,7 +142,7 @@ public class AthleteBioFrame extends VerticalLayout implements
 
                 @Override
                 public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().executeLatest(AthleteBioFrame.this, new Runnable() {
 
                         @Override
                         public void run() {
@@ -150,7 +150,7 @@ public class AthleteBioFrame extends VerticalLayout implements
                             logger.debug("updateEvent {}", AthleteBioFrame.this);
                             display(platformName1, masterData1);
                         }
-                    }).start();
+                    });
                 }
             };
             return listener;
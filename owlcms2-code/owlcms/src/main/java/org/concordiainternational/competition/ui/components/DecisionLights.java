@@ -10,6 +10,7 @@ package org.concordiainternational.competition.ui.components;
 import org.concordiainternational.competition.decision.Decision;
 import org.concordiainternational.competition.decision.DecisionEvent;
 import org.concordiainternational.competition.decision.DecisionEventListener;
+import org.concordiainternational.competition.decision.DecisionTrace;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.slf4j.Logger;
@@ -37,6 +38,9 @@ public class DecisionLights extends HorizontalLayout implements DecisionEventLis
 
     private CompetitionApplication app;
 
+    /** the kind of board showing the lights, for the decision traces */
+    private String traceName = "decisionLights"; //$NON-NLS-1$
+
     public DecisionLights(boolean publicFacing, CompetitionApplication app, boolean small) {
         this.publicFacing = publicFacing;
         this.app = app;
@@ -102,7 +106,7 @@ public class DecisionLights extends HorizontalLayout implements DecisionEventLis
 
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 synchronized (app) {
@@ -153,9 +157,25 @@ public class DecisionLights extends HorizontalLayout implements DecisionEventLis
                     }
                 }
                 app.push();
+                final DecisionTrace trace = updateEvent.getTrace();
+                if (trace != null) {
+                    trace.pushed(traceName, updateEvent);
+                }
             }
 
-        }).start();
+        });
+    }
+
+    public String getTraceName() {
+        return traceName;
+    }
+
+    /**
+     * @param traceName
+     *            the kind of board showing the lights, e.g. resultBoard; used to tell boards apart in the decision traces.
+     */
+    public void setTraceName(String traceName) {
+        this.traceName = traceName;
     }
 
     /**
@@ -134,6 +134,7 @@ public class ResultFrame extends VerticalLayout implements
                 try {
                     app.setPusherDisabled(true);
                     decisionLights = new DecisionLights(true, app, true);
+                    decisionLights.setTraceName(getViewName());
                     display(platformName, masterData);
                 } finally {
                     app.setPusherDisabled(prevDisabled);
@@ -168,7 +169,7 @@ public class ResultFrame extends VerticalLayout implements
 
                 @Override
                 public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
-                    new Thread(new Runnable() {
+                    app.getEventDispatchQueue().executeLatest(ResultFrame.this, new Runnable() {
 
                         @Override
                         public void run() {
@@ -183,7 +184,7 @@ public class ResultFrame extends VerticalLayout implements
                                 // trigger the update once the decision lights go off
                             }
                         }
-                    }).start();
+                    });
                 }
             };
             return listener;
@@ -656,7 +657,7 @@ public class ResultFrame extends VerticalLayout implements
      */
     @Override
     public void updateEvent(final DecisionEvent updateEvent) {
-        new Thread(new Runnable() {
+        app.getEventDispatchQueue().execute(new Runnable() {
             @Override
             public void run() {
                 if (showDecisions) {
@@ -699,7 +700,7 @@ public class ResultFrame extends VerticalLayout implements
                     }
                 }
             }
-        }).start();
+        });
     }
 
     /*
@@ -8,7 +8,6 @@
 package org.concordiainternational.competition.ui.list;
 
 
-import org.concordiainternational.competition.data.CategoryLookup;
 import org.concordiainternational.competition.i18n.Messages;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.ui.generators.CommonFieldFactory;
@@ -60,7 +59,6 @@ public abstract class GenericList<T> extends ToolbarView {
     @Override
     public void refresh() {
         Component oldTable = table;
-        CategoryLookup.getSharedInstance().reload();
         this.populateAndConfigureTable();
         this.replaceComponent(oldTable, table);
         this.positionTable();
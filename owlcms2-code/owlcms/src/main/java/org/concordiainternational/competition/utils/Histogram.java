@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations, counted in buckets whose width grows with the duration, as in HdrHistogram: each power of two is split in
+ * {@link #SUB_BUCKETS} buckets, so a percentile is never off by more than about 6%, whatever the duration.
+ * <p>
+ * Durations are kept in microseconds, from 1 microsecond to several days. Recording is lock-free and does not allocate, so it can be done
+ * on every call of the methods that matter (sorting, pushing, queries); the percentiles are only computed when someone looks.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** 2^40 microseconds is about 12 days */
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record the time elapsed since a call to System.nanoTime().
+     *
+     * @param startNanos
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        final long value = Math.max(0L, micros);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalMicros.addAndGet(value);
+        long max = maxMicros.get();
+        while (value > max && !maxMicros.compareAndSet(max, value)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /**
+     * @return the counts as they are now; recording goes on while the copy is made, so the totals may be off by the few values recorded
+     *         meanwhile.
+     */
+    public Snapshot snapshot() {
+        final long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        return new Snapshot(name, copy, n, totalMicros.get(), maxMicros.get());
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        final int shift = Math.min(highestBit, MAX_BITS) - SUB_BUCKET_BITS;
+        final long top = Math.min(micros >>> shift, 2 * SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (top - SUB_BUCKETS);
+    }
+
+    /**
+     * @param bucket
+     * @return the largest value counted in the bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long top = SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * The state of a histogram at one point in time.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(String name, long[] counts, long count, long totalMicros, long maxMicros) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return (count == 0 ? 0.0 : totalMicros / 1000.0 / count);
+        }
+
+        public double getMaxMillis() {
+            return maxMicros / 1000.0;
+        }
+
+        /**
+         * @param percentile
+         *            between 0 and 100
+         * @return the duration under which that percentage of the values fall, in milliseconds.
+         */
+        public double getPercentileMillis(double percentile) {
+            if (count == 0) {
+                return 0.0;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), maxMicros) / 1000.0;
+                }
+            }
+            return getMaxMillis();
+        }
+    }
+}
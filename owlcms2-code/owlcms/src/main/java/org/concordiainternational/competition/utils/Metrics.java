@@ -0,0 +1,208 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and duration histograms for the code that runs on every change during a meet (sorting, notifying the screens, pushing,
+ * database queries, decisions, reports), so that one can tell where the announcer's lag comes from.
+ * <p>
+ * Classes keep the histograms and counters they use in static fields, so recording costs a few atomic increments. Values that are already
+ * counted elsewhere (e.g. the timing service statistics) are registered as gauges and read when the metrics are shown. Everything is
+ * visible on jsp/metrics.jsp and from {@link org.concordiainternational.competition.webapp.MetricsServlet}.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class Metrics {
+
+    /**
+     * A value computed when the metrics are shown.
+     */
+    public interface Gauge {
+        long getValue();
+    }
+
+    private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+    private static final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+    private static final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+    /** the percentiles shown for every histogram */
+    public static final double[] PERCENTILES = { 50.0, 90.0, 99.0 };
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name
+     * @return the histogram with that name, created if needed.
+     */
+    public static Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram(name);
+            final Histogram previous = histograms.putIfAbsent(name, histogram);
+            if (previous != null) {
+                histogram = previous;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @param name
+     * @return the counter with that name, created if needed.
+     */
+    public static AtomicLong counter(String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            final AtomicLong previous = counters.putIfAbsent(name, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * @param name
+     * @param gauge
+     *            replaces the gauge with the same name, if any.
+     */
+    public static void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Set the counters and histograms back to zero, e.g. at the start of a session. Gauges are not affected.
+     */
+    public static void reset() {
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (AtomicLong counter : counters.values()) {
+            counter.set(0);
+        }
+    }
+
+    /**
+     * @return the histograms, sorted by name.
+     */
+    public static List<Histogram.Snapshot> getHistograms() {
+        final List<Histogram.Snapshot> result = new ArrayList<Histogram.Snapshot>();
+        for (Histogram histogram : new TreeMap<String, Histogram>(histograms).values()) {
+            result.add(histogram.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * @return the counters and the gauges, by name.
+     */
+    public static SortedMap<String, Long> getValues() {
+        final SortedMap<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return result;
+    }
+
+    /**
+     * @return one line per value and per histogram, durations in milliseconds.
+     */
+    public static String toText() {
+        final StringBuilder sb = new StringBuilder(2048);
+        for (Map.Entry<String, Long> entry : getValues().entrySet()) {
+            sb.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        for (Histogram.Snapshot h : getHistograms()) {
+            sb.append(h.getName()).append(" count=").append(h.getCount()); //$NON-NLS-1$
+            sb.append(" mean=").append(format(h.getMeanMillis())); //$NON-NLS-1$
+            for (double p : PERCENTILES) {
+                sb.append(" p").append((int) p).append('=').append(format(h.getPercentileMillis(p))); //$NON-NLS-1$
+            }
+            sb.append(" max=").append(format(h.getMaxMillis())).append('\n'); //$NON-NLS-1$
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return {"values":{name:value,...},"histograms":{name:{"count":n,"mean":ms,"p50":ms,...,"max":ms},...}}
+     */
+    public static String toJson() {
+        final StringBuilder sb = new StringBuilder(2048);
+        sb.append("{\"values\":{"); //$NON-NLS-1$
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : getValues().entrySet()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendName(sb, entry.getKey());
+            sb.append(':').append(entry.getValue());
+        }
+        sb.append("},\"histograms\":{"); //$NON-NLS-1$
+        first = true;
+        for (Histogram.Snapshot h : getHistograms()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendName(sb, h.getName());
+            sb.append(":{\"count\":").append(h.getCount()); //$NON-NLS-1$
+            sb.append(",\"mean\":").append(format(h.getMeanMillis())); //$NON-NLS-1$
+            for (double p : PERCENTILES) {
+                sb.append(",\"p").append((int) p).append("\":").append(format(h.getPercentileMillis(p))); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            sb.append(",\"max\":").append(format(h.getMaxMillis())).append('}'); //$NON-NLS-1$
+        }
+        return sb.append("}}").toString(); //$NON-NLS-1$
+    }
+
+    /**
+     * Append the name as a JSON string; names may contain what was typed by the users, e.g. the platform names.
+     *
+     * @param sb
+     * @param name
+     */
+    private static void appendName(StringBuilder sb, String name) {
+        sb.append('"');
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * @param millis
+     * @return the value with 3 decimals, whatever the locale.
+     */
+    public static String format(double millis) {
+        return String.format(Locale.ENGLISH, "%.3f", millis); //$NON-NLS-1$
+    }
+}
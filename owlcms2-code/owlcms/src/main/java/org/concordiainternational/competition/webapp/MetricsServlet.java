@@ -0,0 +1,50 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.webapp;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.concordiainternational.competition.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link Metrics} as plain text (one line per value, durations in milliseconds) or, with <code>?format=json</code>, as JSON, for
+ * scripts and monitoring tools. <code>?reset=true</code> sets the counters and histograms back to zero after they have been returned.
+ * jsp/metrics.jsp shows the same values as a page.
+ *
+ * @author jflamy
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = -2424170418954283571L;
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServlet.class);
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final boolean json = "json".equals(request.getParameter("format")); //$NON-NLS-1$ //$NON-NLS-2$
+        final String body = (json ? Metrics.toJson() : Metrics.toText());
+        if ("true".equals(request.getParameter("reset"))) { //$NON-NLS-1$ //$NON-NLS-2$
+            Metrics.reset();
+            logger.info("metrics reset from {}", request.getRemoteAddr()); //$NON-NLS-1$
+        }
+
+        response.setContentType(json ? "application/json" : "text/plain"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.setCharacterEncoding("UTF-8"); //$NON-NLS-1$
+        response.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
+        final PrintWriter writer = response.getWriter();
+        writer.write(body);
+        writer.flush();
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.webapp;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.concordiainternational.competition.data.Competition;
+import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.Platform;
+import org.concordiainternational.competition.ui.SessionData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * What the public scoreboards of a platform show, so that browsers can be sent only what changed.
+ * <p>
+ * Every time the session data publishes its lists, each lifter is copied to a {@link ScoreboardRow} (the same cells as the result board
+ * JSPs). A row remembers the version at which it last changed, so a browser that has version <i>n</i> is sent the rows that changed since,
+ * and the new order if it changed. The boards (results, ranks, lifting order) show the same rows in a different order.
+ * </p>
+ * <p>
+ * The rows are computed by the thread that updated the lifters, right after sorting, so the browsers never see a lifter half-updated.
+ * Each change produces a new {@link ScoreboardSnapshot}, which the JSPs and the servlet render from.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class ScoreboardFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreboardFeed.class);
+
+    /**
+     * The public boards, and the order in which each shows the lifters.
+     */
+    public enum Board {
+        /** resultBoard-*.jsp : display order */
+        RESULTS("results"), //$NON-NLS-1$
+        /** winningBoard-*.jsp : ranking order */
+        WINNING("winning"), //$NON-NLS-1$
+        /** liftingOrder-*.jsp : lifting order */
+        LIFTING_ORDER("liftingOrder"); //$NON-NLS-1$
+
+        private final String parameterValue;
+
+        private Board(String parameterValue) {
+            this.parameterValue = parameterValue;
+        }
+
+        public String getParameterValue() {
+            return parameterValue;
+        }
+
+        /**
+         * @param value
+         *            the value of the "board" request parameter
+         * @return the board, RESULTS if value is null or unknown.
+         */
+        public static Board fromParameter(String value) {
+            for (Board board : values()) {
+                if (board.parameterValue.equals(value)) {
+                    return board;
+                }
+            }
+            return RESULTS;
+        }
+    }
+
+    private static final Map<String, ScoreboardFeed> feeds = new HashMap<String, ScoreboardFeed>();
+
+    private long version = 0;
+    private final Map<String, Row> rows = new HashMap<String, Row>();
+    private final Map<Board, List<String>> orders = new EnumMap<Board, List<String>>(Board.class);
+    private final Map<Board, Long> orderVersions = new EnumMap<Board, Long>(Board.class);
+    private String groupName = null;
+    private int liftsDone = 0;
+    private long headerVersion = 0;
+
+    private volatile ScoreboardSnapshot snapshot = ScoreboardSnapshot.EMPTY;
+
+    /**
+     * A feed that is not published under a platform name; the servlet and the JSPs only see the feeds of the platforms that have
+     * published their lists.
+     */
+    public ScoreboardFeed() {
+    }
+
+    /**
+     * @param platformName
+     *            as given by the browser
+     * @return the feed for the platform, null if the platform has not published anything.
+     */
+    public static ScoreboardFeed findFeed(String platformName) {
+        synchronized (feeds) {
+            return feeds.get(platformName);
+        }
+    }
+
+    /**
+     * @param platformName
+     *            as given by the browser
+     * @return what the platform's boards show now, empty if the platform has not published anything.
+     */
+    public static ScoreboardSnapshot getSnapshot(String platformName) {
+        final ScoreboardFeed feed = findFeed(platformName);
+        return feed != null ? feed.getSnapshot() : ScoreboardSnapshot.EMPTY;
+    }
+
+    /**
+     * Record the current state of the platform's boards. Called by {@link SessionData} when it publishes its lists. The feed is
+     * created the first time, but only for a platform that exists, so that the map only ever holds the competition's platforms.
+     *
+     * @param platformName
+     * @param data
+     */
+    public static void publish(String platformName, SessionData data) {
+        ScoreboardFeed feed;
+        synchronized (feeds) {
+            feed = feeds.get(platformName);
+            if (feed == null) {
+                if (platformName == null || Platform.getByName(platformName) == null) {
+                    logger.debug("not publishing boards for unknown platform {}", platformName); //$NON-NLS-1$
+                    return;
+                }
+                feed = new ScoreboardFeed();
+                feeds.put(platformName, feed);
+            }
+        }
+        final CompetitionSession session = data.getCurrentSession();
+        feed.update(
+                session != null ? session.getName() : null,
+                data.getLiftsDone(),
+                Competition.isMasters(),
+                data.getCurrentDisplayOrder(),
+                data.getCurrentResultOrder(),
+                data.getCurrentLiftingOrder());
+    }
+
+    /**
+     * For session data that is shown by session name rather than by platform, and therefore not published to a feed.
+     *
+     * @param data
+     * @return the boards as they are now, with version 0.
+     */
+    public static ScoreboardSnapshot snapshotOf(SessionData data) {
+        final CompetitionSession session = data.getCurrentSession();
+        final Map<Lifter, ScoreboardRow> copies = new IdentityHashMap<Lifter, ScoreboardRow>();
+        return new ScoreboardSnapshot(0, session != null ? session.getName() : null, data.getLiftsDone(), copyBoards(Competition.isMasters(),
+                data.getCurrentDisplayOrder(), data.getCurrentResultOrder(), data.getCurrentLiftingOrder(), copies));
+    }
+
+    /**
+     * Replace the boards' contents; waiting browsers are woken up if anything changed.
+     *
+     * @param newGroupName
+     * @param newLiftsDone
+     * @param masters
+     *            true if the age group is shown
+     * @param displayOrder
+     * @param resultOrder
+     * @param liftingOrder
+     */
+    public void update(String newGroupName, int newLiftsDone, boolean masters, List<Lifter> displayOrder, List<Lifter> resultOrder,
+            List<Lifter> liftingOrder) {
+        // the three orders normally hold the same lifters; each is copied once, before taking the lock.
+        final Map<Lifter, ScoreboardRow> copies = new IdentityHashMap<Lifter, ScoreboardRow>();
+        final Map<Board, List<ScoreboardRow>> newBoards = copyBoards(masters, displayOrder, resultOrder, liftingOrder, copies);
+
+        synchronized (this) {
+            final long next = version + 1;
+            boolean changed = false;
+            final Map<String, ScoreboardRow> newRows = new HashMap<String, ScoreboardRow>();
+            for (ScoreboardRow row : copies.values()) {
+                newRows.put(row.getId(), row);
+                final Row previous = rows.get(row.getId());
+                if (previous == null || !previous.json.equals(row.getJson())) {
+                    rows.put(row.getId(), new Row(row.getJson(), next));
+                    changed = true;
+                }
+            }
+            final Iterator<String> rowIds = rows.keySet().iterator();
+            while (rowIds.hasNext()) {
+                if (!newRows.containsKey(rowIds.next())) {
+                    // the orders no longer refer to the row; browsers drop it when they get the new order.
+                    rowIds.remove();
+                    changed = true;
+                }
+            }
+            for (Map.Entry<Board, List<ScoreboardRow>> entry : newBoards.entrySet()) {
+                final List<String> order = ids(entry.getValue());
+                if (!order.equals(orders.get(entry.getKey()))) {
+                    orders.put(entry.getKey(), order);
+                    orderVersions.put(entry.getKey(), next);
+                    changed = true;
+                }
+            }
+            if (!equal(groupName, newGroupName) || liftsDone != newLiftsDone) {
+                groupName = newGroupName;
+                liftsDone = newLiftsDone;
+                headerVersion = next;
+                changed = true;
+            }
+
+            if (changed) {
+                version = next;
+                snapshot = new ScoreboardSnapshot(version, groupName, liftsDone, newBoards);
+                logger.trace("scoreboard version {}", version); //$NON-NLS-1$
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the boards as of the last change; never null.
+     */
+    public ScoreboardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Wait until there is something newer than what the browser has, then describe the changes.
+     *
+     * @param board
+     * @param since
+     *            the version the browser has; 0 (or a version we never produced, after a restart) to get everything.
+     * @param locale
+     *            for the number of lifts done
+     * @param timeoutMillis
+     *            how long to wait for a change
+     * @return the changes as JSON, with only the version if nothing changed before the timeout.
+     * @throws InterruptedException
+     */
+    public synchronized String await(Board board, long since, Locale locale, long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (since == version && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return changesSince(board, since, locale);
+    }
+
+    /**
+     * @param board
+     * @param since
+     * @param locale
+     * @return the changes as JSON.
+     */
+    public synchronized String changesSince(Board board, long since, Locale locale) {
+        if (since == version) {
+            return "{\"v\":" + version + "}"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if (since <= 0 || since > version) {
+            // the snapshot renders the full board once for all the browsers.
+            return snapshot.getJson(board, locale);
+        }
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"v\":").append(version); //$NON-NLS-1$
+        sb.append(",\"full\":false"); //$NON-NLS-1$
+        if (headerVersion > since) {
+            snapshot.appendHeader(sb, locale);
+        }
+        final List<String> order = orders.get(board);
+        final Long orderVersion = orderVersions.get(board);
+        if (order != null && orderVersion > since) {
+            sb.append(",\"order\":["); //$NON-NLS-1$
+            for (int i = 0; i < order.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                ScoreboardRow.appendString(sb, order.get(i));
+            }
+            sb.append(']');
+        }
+        sb.append(",\"rows\":{"); //$NON-NLS-1$
+        if (order != null) {
+            boolean first = true;
+            for (String id : order) {
+                final Row row = rows.get(id);
+                if (row != null && row.version > since) {
+                    if (!first) {
+                        sb.append(',');
+                    }
+                    first = false;
+                    ScoreboardRow.appendString(sb, id);
+                    sb.append(':').append(row.json);
+                }
+            }
+        }
+        return sb.append("}}").toString(); //$NON-NLS-1$
+    }
+
+    private static Map<Board, List<ScoreboardRow>> copyBoards(boolean masters, List<Lifter> displayOrder, List<Lifter> resultOrder,
+            List<Lifter> liftingOrder, Map<Lifter, ScoreboardRow> copies) {
+        final Map<Board, List<ScoreboardRow>> boards = new EnumMap<Board, List<ScoreboardRow>>(Board.class);
+        boards.put(Board.RESULTS, copy(displayOrder, copies, masters));
+        boards.put(Board.WINNING, copy(resultOrder, copies, masters));
+        boards.put(Board.LIFTING_ORDER, copy(liftingOrder, copies, masters));
+        return boards;
+    }
+
+    private static List<ScoreboardRow> copy(List<Lifter> lifters, Map<Lifter, ScoreboardRow> copies, boolean masters) {
+        final List<ScoreboardRow> board = new ArrayList<ScoreboardRow>(lifters != null ? lifters.size() : 0);
+        if (lifters == null) {
+            return board;
+        }
+        for (Lifter lifter : lifters) {
+            ScoreboardRow row = copies.get(lifter);
+            if (row == null) {
+                final Long lifterId = lifter.getId();
+                final String id = (lifterId != null ? lifterId.toString() : "n" + System.identityHashCode(lifter)); //$NON-NLS-1$
+                row = new ScoreboardRow(id, lifter, masters);
+                copies.put(lifter, row);
+            }
+            board.add(row);
+        }
+        return board;
+    }
+
+    private static List<String> ids(List<ScoreboardRow> board) {
+        final List<String> ids = new ArrayList<String>(board.size());
+        for (ScoreboardRow row : board) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return (a == null ? b == null : a.equals(b));
+    }
+
+    private static class Row {
+        final String json;
+        final long version;
+
+        Row(String json, long version) {
+            this.json = json;
+            this.version = version;
+        }
+    }
+}
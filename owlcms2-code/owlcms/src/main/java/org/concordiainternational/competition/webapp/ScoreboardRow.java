@@ -0,0 +1,336 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.webapp;
+
+import java.util.Locale;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.ui.generators.WeightFormatter;
+
+/**
+ * What a scoreboard shows about a lifter, copied from the lifter at one point in time.
+ * <p>
+ * The values are computed once, by the thread that updated the lifter; rendering a row afterwards (as JSON for the live boards, as HTML
+ * for the JSPs) only reads these copies, so it can be done by any number of requests while the lifter is being changed.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class ScoreboardRow {
+
+    static final String NDASH = "\u2013"; //$NON-NLS-1$
+
+    private final String id;
+    private final String startNumber;
+    private final String name;
+    private final String ageGroup;
+    private final String shortCategory;
+    private final String longCategory;
+    private final String bodyWeight;
+    private final String club;
+    private final boolean current;
+    private final String[][] cells;
+    private final String total;
+    private final String rank;
+    private final String requestedWeight;
+    private final int attemptsDone;
+    private final int currentTry;
+    private final String json;
+
+    /**
+     * Copy what the boards need.
+     *
+     * @param id
+     *            identifies the lifter in the board orders
+     * @param lifter
+     * @param masters
+     *            true if the age group is shown
+     */
+    public ScoreboardRow(String id, Lifter lifter, boolean masters) {
+        this.id = id;
+        this.current = lifter.isCurrentLifter();
+        this.startNumber = toString(lifter.getStartNumber());
+        final String lastName = lifter.getLastName();
+        this.name = (lastName != null ? lastName.toUpperCase() : "") + ", " + toString(lifter.getFirstName()); //$NON-NLS-1$ //$NON-NLS-2$
+        this.ageGroup = (masters ? lifter.getMastersAgeGroup() : null);
+        this.shortCategory = lifter.getShortCategory();
+        this.longCategory = lifter.getLongCategory();
+        final Double bw = lifter.getBodyWeight();
+        this.bodyWeight = (bw != null ? WeightFormatter.formatBodyWeight(bw) : ""); //$NON-NLS-1$
+        this.club = lifter.getClub();
+
+        final int snatchDone = intValue(lifter.getSnatchAttemptsDone());
+        final int cleanJerkDone = intValue(lifter.getCleanJerkAttemptsDone());
+        this.attemptsDone = intValue(lifter.getAttemptsDone());
+        this.currentTry = 1 + (attemptsDone >= 3 ? cleanJerkDone : snatchDone);
+        this.requestedWeight = toString(lifter.getNextAttemptRequestedWeight());
+
+        // same choices as the JSPs: the requested weight for the next attempt, the result of attempts done, blank otherwise.
+        this.cells = new String[6][];
+        cells[0] = attemptCell(snatchDone, 0, lifter.getSnatch1ActualLift());
+        cells[1] = attemptCell(snatchDone, 1, lifter.getSnatch2ActualLift());
+        cells[2] = attemptCell(snatchDone, 2, lifter.getSnatch3ActualLift());
+        if (attemptsDone == 3) {
+            cells[3] = requestedCell();
+        } else if (cleanJerkDone > 0) {
+            cells[3] = actualCell(lifter.getCleanJerk1ActualLift());
+        } else {
+            cells[3] = new String[] { "requestedWeight", toString(lifter.getRequestedWeightForAttempt(4)) }; //$NON-NLS-1$
+        }
+        cells[4] = attemptCell(cleanJerkDone, 1, lifter.getCleanJerk2ActualLift());
+        cells[5] = attemptCell(cleanJerkDone, 2, lifter.getCleanJerk3ActualLift());
+
+        final int totalValue = intValue(lifter.getTotal());
+        this.total = (totalValue > 0 ? Integer.toString(totalValue) : NDASH);
+        final int rankValue = intValue(lifter.getRank());
+        this.rank = (rankValue > 0 ? Integer.toString(rankValue) : NDASH);
+
+        this.json = buildJson();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLongCategory() {
+        return longCategory;
+    }
+
+    public int getAttemptsDone() {
+        return attemptsDone;
+    }
+
+    /**
+     * @return the row as a JSON object.
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Append the row as shown by resultBoard-*.jsp and winningBoard-*.jsp.
+     *
+     * @param sb
+     */
+    void appendResultHtml(StringBuilder sb) {
+        sb.append("<tr>"); //$NON-NLS-1$
+        sb.append("<td class='narrow' style='text-align: right'>").append(escape(startNumber)).append("&nbsp;</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append(current ? "<td class='name current'><nobr>" : "<td class='name'><nobr>") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(escape(name)).append("</nobr></td>"); //$NON-NLS-1$
+        if (ageGroup != null) {
+            sb.append("<td class='club'><nobr>").append(escape(ageGroup)).append("</nobr></td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        sb.append("<td class=\"cat\" ><nobr>").append(escape(shortCategory)).append("</nobr></td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("<td class='narrow'>").append(escape(bodyWeight)).append("</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("<td class='club'><nobr>").append(escape(club)).append("</nobr></td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        for (String[] cell : cells) {
+            sb.append("<td class='").append(cell[0]).append("'>").append(escape(cell[1])).append("</td>"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        sb.append("<td class='weight'>").append(escape(total)).append("</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("<td class='cat'>").append(escape(rank)).append("</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("</tr>\n"); //$NON-NLS-1$
+    }
+
+    /**
+     * Append the row as shown by liftingOrder-*.jsp.
+     *
+     * @param sb
+     * @param firstAttemptsDone
+     *            attempts done by the first lifter in lifting order
+     * @param locale
+     */
+    void appendLiftingOrderHtml(StringBuilder sb, int firstAttemptsDone, Locale locale) {
+        sb.append("<tr>"); //$NON-NLS-1$
+        sb.append(current ? "<td class='name current'><nobr>" : "<td class='name'><nobr>") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(escape(name)).append("</nobr></td>"); //$NON-NLS-1$
+        sb.append(current ? "<td class='current weight'>" : "<td class='weight'>") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(escape(requestedWeight)).append("</td>"); //$NON-NLS-1$
+        sb.append(current ? "<td class='weight current'>" : "<td class='weight'>") //$NON-NLS-1$ //$NON-NLS-2$
+                .append(escape(formatTry(firstAttemptsDone, locale))).append("</td>"); //$NON-NLS-1$
+        sb.append("<td class=\"cat\" ><nobr>").append(escape(shortCategory)).append("</nobr></td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("<td class=\"weight\"><nobr>").append(escape(club)).append("</nobr></td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("<td class='narrow' style='text-align: right'>").append(escape(startNumber)).append("</td>"); //$NON-NLS-1$ //$NON-NLS-2$
+        sb.append("</tr>\n"); //$NON-NLS-1$
+    }
+
+    /**
+     * Same as {@link org.concordiainternational.competition.ui.generators.TryFormatter#htmlFormatTry(java.util.List, Lifter, Locale)}.
+     */
+    String formatTry(int firstAttemptsDone, Locale locale) {
+        if (currentTry > 3) {
+            return Messages.getString("TryFormatter.Done", locale); //$NON-NLS-1$
+        }
+        if (firstAttemptsDone < 3 && attemptsDone >= 3) {
+            // this lifter is done with the snatch whereas the top lifter on the board is still doing snatch.
+            return currentTry + Messages.getString("TryFormatter.shortCleanJerk", locale); //$NON-NLS-1$
+        }
+        return Integer.toString(currentTry);
+    }
+
+    private String buildJson() {
+        final StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"id\":"); //$NON-NLS-1$
+        appendString(sb, id);
+        sb.append(",\"start\":"); //$NON-NLS-1$
+        appendString(sb, startNumber);
+        sb.append(",\"name\":"); //$NON-NLS-1$
+        appendString(sb, name);
+        if (ageGroup != null) {
+            sb.append(",\"ageGroup\":"); //$NON-NLS-1$
+            appendString(sb, ageGroup);
+        }
+        sb.append(",\"cat\":"); //$NON-NLS-1$
+        appendString(sb, shortCategory);
+        sb.append(",\"longCat\":"); //$NON-NLS-1$
+        appendString(sb, longCategory);
+        sb.append(",\"bw\":"); //$NON-NLS-1$
+        appendString(sb, bodyWeight);
+        sb.append(",\"club\":"); //$NON-NLS-1$
+        appendString(sb, club);
+        sb.append(",\"current\":").append(current); //$NON-NLS-1$
+        sb.append(",\"cells\":["); //$NON-NLS-1$
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('[');
+            appendString(sb, cells[i][0]);
+            sb.append(',');
+            appendString(sb, cells[i][1]);
+            sb.append(']');
+        }
+        sb.append(']');
+        sb.append(",\"total\":"); //$NON-NLS-1$
+        appendString(sb, total);
+        sb.append(",\"rank\":"); //$NON-NLS-1$
+        appendString(sb, rank);
+        sb.append(",\"requested\":"); //$NON-NLS-1$
+        appendString(sb, requestedWeight);
+        sb.append(",\"attemptsDone\":").append(attemptsDone); //$NON-NLS-1$
+        sb.append(",\"currentTry\":").append(currentTry); //$NON-NLS-1$
+        return sb.append('}').toString();
+    }
+
+    private String[] attemptCell(int done, int attemptIndex, String actualLift) {
+        if (done == attemptIndex) {
+            return requestedCell();
+        } else if (done > attemptIndex) {
+            return actualCell(actualLift);
+        } else {
+            return new String[] { "weight", "" }; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private String[] requestedCell() {
+        return new String[] { current ? "currentWeight" : "requestedWeight", requestedWeight }; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Same classes as {@link WeightFormatter#htmlFormatWeight(String)}.
+     */
+    private static String[] actualCell(String value) {
+        final String trimmed = (value != null ? value.trim() : ""); //$NON-NLS-1$
+        if (trimmed.isEmpty()) {
+            return new String[] { "empty", "" }; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        try {
+            final int intValue = WeightFormatter.parseInt(trimmed);
+            if (intValue == 0) {
+                return new String[] { "fail", NDASH }; //$NON-NLS-1$
+            } else if (intValue > 0) {
+                return new String[] { "success", trimmed }; //$NON-NLS-1$
+            } else {
+                return new String[] { "fail", "(" + (-intValue) + ")" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+        } catch (NumberFormatException e) {
+            return new String[] { "other", trimmed }; //$NON-NLS-1$
+        }
+    }
+
+    static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null"); //$NON-NLS-1$
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                sb.append("\\\""); //$NON-NLS-1$
+                break;
+            case '\\':
+                sb.append("\\\\"); //$NON-NLS-1$
+                break;
+            case '\n':
+                sb.append("\\n"); //$NON-NLS-1$
+                break;
+            case '\r':
+                sb.append("\\r"); //$NON-NLS-1$
+                break;
+            case '\t':
+                sb.append("\\t"); //$NON-NLS-1$
+                break;
+            default:
+                if (c < 0x20 || c == '<' || c == '>' || c == '&') {
+                    // also keeps the JSON safe to embed in a page.
+                    sb.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return ""; //$NON-NLS-1$
+        }
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final String replacement;
+            switch (c) {
+            case '<':
+                replacement = "&lt;"; //$NON-NLS-1$
+                break;
+            case '>':
+                replacement = "&gt;"; //$NON-NLS-1$
+                break;
+            case '&':
+                replacement = "&amp;"; //$NON-NLS-1$
+                break;
+            case '"':
+                replacement = "&quot;"; //$NON-NLS-1$
+                break;
+            default:
+                replacement = null;
+            }
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.length() + 16);
+                    sb.append(value, 0, i);
+                }
+                sb.append(replacement);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return (sb != null ? sb.toString() : value);
+    }
+
+    private static int intValue(Integer value) {
+        return (value != null ? value : 0);
+    }
+
+    private static String toString(Object value) {
+        return (value != null ? value.toString() : ""); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.webapp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.concordiainternational.competition.webapp.ScoreboardFeed.Board;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-poll endpoint for the live scoreboards (jsp/liveBoard.jsp).
+ * <p>
+ * <code>scoreboard?platformName=X&amp;board=results&amp;lang=en&amp;since=n</code> answers as soon as the platform's boards are newer
+ * than version <i>n</i>, with the rows that changed; if nothing changes for {@link #POLL_TIMEOUT_MILLIS} it answers with the current
+ * version only, and the browser asks again. A browser therefore costs nothing while the scoreboard does not change, instead of re-rendering the whole page
+ * every 5 seconds.
+ * </p>
+ * <p>
+ * The servlet API used (2.5) has no asynchronous requests, so a waiting browser holds a container thread. The number of waiting requests
+ * is capped; above the cap, requests are answered right away with a <code>Retry-After</code> of {@link #OVERLOAD_RETRY_SECONDS}, which
+ * the browser waits before asking again.
+ * </p>
+ * <p>
+ * Without <code>since</code>, the whole board is returned as it was at the last change (<code>&amp;format=html</code> for the table rows,
+ * JSON otherwise), copied from the {@link ScoreboardSnapshot}. The response carries an ETag, so a client that already has the current
+ * version gets a 304.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class ScoreboardServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 4313915207713624787L;
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreboardServlet.class);
+
+    /**
+     * below the usual 30 to 60 second idle timeouts of proxies and browsers.
+     */
+    static final long POLL_TIMEOUT_MILLIS = 25000;
+
+    static final int MAX_WAITING = 100;
+
+    /**
+     * how long a browser turned away by the cap waits before polling again.
+     */
+    static final int OVERLOAD_RETRY_SECONDS = 3;
+
+    private static final AtomicInteger waiting = new AtomicInteger();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String platformName = request.getParameter("platformName"); //$NON-NLS-1$
+        if (platformName == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "URL must include ?platformName=X"); //$NON-NLS-1$
+            return;
+        }
+        final Board board = Board.fromParameter(request.getParameter("board")); //$NON-NLS-1$
+        final String sinceParameter = request.getParameter("since"); //$NON-NLS-1$
+        final String lang = request.getParameter("lang"); //$NON-NLS-1$
+        final Locale locale = (lang != null ? new Locale(lang) : Locale.ENGLISH);
+
+        final ScoreboardFeed feed = ScoreboardFeed.findFeed(platformName);
+        if (feed == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown platform"); //$NON-NLS-1$
+            return;
+        }
+        if (sinceParameter == null) {
+            sendSnapshot(request, response, feed.getSnapshot(), board, locale);
+            return;
+        }
+
+        final long since = parseVersion(sinceParameter);
+        String json;
+        if (waiting.incrementAndGet() > MAX_WAITING) {
+            waiting.decrementAndGet();
+            json = feed.changesSince(board, since, locale);
+            response.setIntHeader("Retry-After", OVERLOAD_RETRY_SECONDS); //$NON-NLS-1$
+        } else {
+            try {
+                json = feed.await(board, since, locale, POLL_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                // server stopping.
+                Thread.currentThread().interrupt();
+                json = feed.changesSince(board, since, locale);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        logger.trace("{} {} since {}: {} chars", new Object[] { platformName, board, since, json.length() }); //$NON-NLS-1$
+
+        response.setContentType("application/json"); //$NON-NLS-1$
+        response.setCharacterEncoding("UTF-8"); //$NON-NLS-1$
+        response.setHeader("Cache-Control", "no-cache, no-store"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.setDateHeader("Expires", 0); //$NON-NLS-1$
+        final PrintWriter writer = response.getWriter();
+        writer.write(json);
+        writer.flush();
+    }
+
+    private static void sendSnapshot(HttpServletRequest request, HttpServletResponse response, ScoreboardSnapshot snapshot, Board board,
+            Locale locale) throws IOException {
+        final boolean html = "html".equals(request.getParameter("format")); //$NON-NLS-1$ //$NON-NLS-2$
+        final String eTag = snapshot.getETag(board, locale, html ? "html" : "json"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.setHeader("ETag", eTag); //$NON-NLS-1$
+        response.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
+        if (eTag.equals(request.getHeader("If-None-Match"))) { //$NON-NLS-1$
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        final byte[] content = (html ? snapshot.getHtmlBytes(board, locale) : snapshot.getJsonBytes(board, locale));
+        response.setContentType(html ? "text/html" : "application/json"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.setCharacterEncoding("UTF-8"); //$NON-NLS-1$
+        response.setContentLength(content.length);
+        final OutputStream os = response.getOutputStream();
+        os.write(content);
+        os.flush();
+    }
+
+    private static long parseVersion(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.webapp;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.concordiainternational.competition.ui.generators.TryFormatter;
+import org.concordiainternational.competition.webapp.ScoreboardFeed.Board;
+
+/**
+ * The public scoreboards of a platform at one version. Never modified once created.
+ * <p>
+ * Each rendering (HTML rows for the JSPs, JSON for the live boards and other clients) is produced the first time it is asked for, for a
+ * given board and locale, and kept: all the screens showing the same board get the same string or bytes until the next change. Two
+ * requests may occasionally render the same thing at the same time; they get identical results, so no locking is needed.
+ * </p>
+ *
+ * @author jflamy
+ */
+public final class ScoreboardSnapshot {
+
+    /**
+     * the versions start again at 0 when the application does: tells the versions of one start from those of the previous ones.
+     */
+    private static final long EPOCH = System.currentTimeMillis();
+
+    static final ScoreboardSnapshot EMPTY = new ScoreboardSnapshot(0, null, 0, new EnumMap<Board, List<ScoreboardRow>>(Board.class));
+
+    private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+    private final long version;
+    private final String groupName;
+    private final int liftsDone;
+    private final Map<Board, List<ScoreboardRow>> boards;
+
+    private final ConcurrentMap<String, String> texts = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, byte[]> bytes = new ConcurrentHashMap<String, byte[]>();
+
+    /**
+     * @param version
+     * @param groupName
+     * @param liftsDone
+     * @param boards
+     *            the rows in each board's order; the lists must not be modified afterwards.
+     */
+    ScoreboardSnapshot(long version, String groupName, int liftsDone, Map<Board, List<ScoreboardRow>> boards) {
+        this.version = version;
+        this.groupName = groupName;
+        this.liftsDone = liftsDone;
+        final Map<Board, List<ScoreboardRow>> copy = new EnumMap<Board, List<ScoreboardRow>>(Board.class);
+        for (Board board : Board.values()) {
+            final List<ScoreboardRow> rows = boards.get(board);
+            copy.put(board, rows != null ? Collections.unmodifiableList(rows) : Collections.<ScoreboardRow> emptyList());
+        }
+        this.boards = Collections.unmodifiableMap(copy);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the name of the current session, null if none.
+     */
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public int getLiftsDone() {
+        return liftsDone;
+    }
+
+    public String getLiftsDoneText(Locale locale) {
+        return TryFormatter.htmlFormatLiftsDone(liftsDone, locale);
+    }
+
+    /**
+     * @param board
+     * @return the rows, in the board's order.
+     */
+    public List<ScoreboardRow> getRows(Board board) {
+        return boards.get(board);
+    }
+
+    public boolean isEmpty(Board board) {
+        return boards.get(board).isEmpty();
+    }
+
+    /**
+     * @param board
+     * @param locale
+     * @param format
+     *            "html" or "json"
+     * @return an entity tag that changes whenever the rendering does, including across restarts.
+     */
+    public String getETag(Board board, Locale locale, String format) {
+        return "\"" + EPOCH + "-" + version + "-" + board.getParameterValue() + "-" + locale + "-" + format + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+    }
+
+    /**
+     * @param board
+     * @param locale
+     * @return the table rows, as the board's JSP would write them.
+     */
+    public String getHtml(Board board, Locale locale) {
+        final String key = "html-" + board + "-" + locale; //$NON-NLS-1$ //$NON-NLS-2$
+        String html = texts.get(key);
+        if (html == null) {
+            html = renderHtml(board, locale);
+            texts.putIfAbsent(key, html);
+        }
+        return html;
+    }
+
+    public byte[] getHtmlBytes(Board board, Locale locale) {
+        return toBytes("html-" + board + "-" + locale, getHtml(board, locale)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * @param board
+     * @param locale
+     * @return the whole board as JSON, in the format used by {@link ScoreboardFeed} for a full update.
+     */
+    public String getJson(Board board, Locale locale) {
+        final String key = "json-" + board + "-" + locale; //$NON-NLS-1$ //$NON-NLS-2$
+        String json = texts.get(key);
+        if (json == null) {
+            json = renderJson(board, locale);
+            texts.putIfAbsent(key, json);
+        }
+        return json;
+    }
+
+    public byte[] getJsonBytes(Board board, Locale locale) {
+        return toBytes("json-" + board + "-" + locale, getJson(board, locale)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private byte[] toBytes(String key, String text) {
+        byte[] result = bytes.get(key);
+        if (result == null) {
+            try {
+                result = text.getBytes(UTF_8);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+            bytes.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    private String renderHtml(Board board, Locale locale) {
+        final List<ScoreboardRow> rows = boards.get(board);
+        final StringBuilder sb = new StringBuilder(rows.size() * 600);
+        if (board == Board.LIFTING_ORDER) {
+            final int firstAttemptsDone = (rows.isEmpty() ? 0 : rows.get(0).getAttemptsDone());
+            for (ScoreboardRow row : rows) {
+                row.appendLiftingOrderHtml(sb, firstAttemptsDone, locale);
+            }
+        } else {
+            String prevCat = null;
+            for (ScoreboardRow row : rows) {
+                final String curCat = row.getLongCategory();
+                if (curCat == null || !curCat.equals(prevCat)) {
+                    sb.append("<tr><td colspan=\"0\" style=\"height:0.1ex; border:none\"></td></tr>\n"); //$NON-NLS-1$
+                }
+                prevCat = curCat;
+                row.appendResultHtml(sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String renderJson(Board board, Locale locale) {
+        final List<ScoreboardRow> rows = boards.get(board);
+        final StringBuilder sb = new StringBuilder(rows.size() * 400);
+        sb.append("{\"v\":").append(version); //$NON-NLS-1$
+        sb.append(",\"full\":true"); //$NON-NLS-1$
+        appendHeader(sb, locale);
+        sb.append(",\"order\":["); //$NON-NLS-1$
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            ScoreboardRow.appendString(sb, rows.get(i).getId());
+        }
+        sb.append("],\"rows\":{"); //$NON-NLS-1$
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            ScoreboardRow.appendString(sb, rows.get(i).getId());
+            sb.append(':').append(rows.get(i).getJson());
+        }
+        return sb.append("}}").toString(); //$NON-NLS-1$
+    }
+
+    void appendHeader(StringBuilder sb, Locale locale) {
+        sb.append(",\"group\":"); //$NON-NLS-1$
+        ScoreboardRow.appendString(sb, groupName);
+        sb.append(",\"liftsDone\":"); //$NON-NLS-1$
+        ScoreboardRow.appendString(sb, getLiftsDoneText(locale));
+    }
+}
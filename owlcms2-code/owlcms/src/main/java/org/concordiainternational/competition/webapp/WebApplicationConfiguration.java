@@ -32,10 +32,17 @@ import org.concordiainternational.competition.data.Category;
 import org.concordiainternational.competition.data.Competition;
 import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.LifterReadModel;
+import org.concordiainternational.competition.data.LifterWriteBehind;
 import org.concordiainternational.competition.data.Platform;
+import org.concordiainternational.competition.decision.AudioEngine;
 import org.concordiainternational.competition.decision.Speakers;
 import org.concordiainternational.competition.i18n.LocalizedApplication;
 import org.concordiainternational.competition.i18n.Messages;
+import org.concordiainternational.competition.spreadsheet.ReportService;
+import org.concordiainternational.competition.spreadsheet.TemplateCache;
+import org.concordiainternational.competition.timer.TimingService;
+import org.concordiainternational.competition.ui.EventDispatchQueue;
 import org.concordiainternational.competition.utils.LoggerUtils;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -139,6 +146,10 @@ public class WebApplicationConfiguration implements HbnSessionManager, ServletCo
 
                 // listeners
                 cnf.setListener("merge", new OverrideMergeEventListener()); //$NON-NLS-1$
+                final LifterReadModel.Listener readModelListener = new LifterReadModel.Listener();
+                cnf.setListeners("post-commit-insert", new Object[] { readModelListener }); //$NON-NLS-1$
+                cnf.setListeners("post-commit-update", new Object[] { readModelListener }); //$NON-NLS-1$
+                cnf.setListeners("post-commit-delete", new Object[] { readModelListener }); //$NON-NLS-1$
 
                 sessionFactory = cnf.buildSessionFactory();
                 // create the standard categories, etc.
@@ -493,7 +504,14 @@ public class WebApplicationConfiguration implements HbnSessionManager, ServletCo
 
     @Override
     public void contextDestroyed(ServletContextEvent arg0) {
+        TimingService.shutdown();
+        EventDispatchQueue.shutdown();
+        AudioEngine.shutdown();
+        ReportService.shutdown();
+        TemplateCache.shutdown();
+        LifterWriteBehind.shutdown();
         WebApplicationConfiguration.getSessionFactory().close();
+        LifterReadModel.clear();
         h2Shutdown();
         logger.debug("contextDestroyed() done"); //$NON-NLS-1$
     }
@@ -573,6 +591,16 @@ public class WebApplicationConfiguration implements HbnSessionManager, ServletCo
             dbFile = new File(getHomePath(), "db/" + getServletContext().getServletContextName());
         }
         WebApplicationConfiguration.getSessionFactory(TEST_MODE, dbFile.getAbsolutePath()).getCurrentSession();
+
+        // the journal is replayed before the first lifter is read.
+        if (getBooleanConfigParameter(getServletContext(), "writeBehind", "Saving lifters in the background", false)) {
+            final File journalFile = new File(dbFile.getAbsolutePath() + ".journal"); //$NON-NLS-1$
+            try {
+                LifterWriteBehind.start(journalFile);
+            } catch (IOException e) {
+                logger.error("cannot use {}, saving lifters as usual: {}", journalFile, e.toString()); //$NON-NLS-1$
+            }
+        }
     }
 
     private void initConfigProperties() {
@@ -0,0 +1,57 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8"
+	pageEncoding="UTF-8" isELIgnored="false" import="java.util.*,org.concordiainternational.competition.decision.*"%>
+<!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
+<html><!--
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+ --><head>
+<meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+<meta http-equiv="refresh" content="5">
+<%
+	response.setHeader("Cache-Control", "no-cache");
+%>
+<title>Decision timings</title>
+<link rel="stylesheet" type="text/css" href="result.css" />
+</head>
+<body>
+<%	for (String platformName : DecisionTrace.getPlatformNames()) { %>
+<div class="title"><%= platformName %> &ndash; last decisions, in ms after the first referee pressed
+(received by the console / processed by the controller); see also the <a href="metrics.jsp">metrics</a></div>
+<table>
+<thead>
+	<tr>
+		<th class="narrow">#</th>
+		<th class="narrow">Time</th>
+		<th>Lifter</th>
+		<th class="narrow">Ref. 1</th>
+		<th class="narrow">Ref. 2</th>
+		<th class="narrow">Ref. 3</th>
+		<th class="narrow">Sound</th>
+		<th>Boards</th>
+	</tr>
+</thead>
+<tbody>
+<%		for (DecisionTrace trace : DecisionTrace.getRecent(platformName)) { %>
+	<tr>
+		<td class="narrow"><%= trace.getId() %></td>
+		<td class="narrow"><%= String.format("%tT", trace.getStartMillis()) %></td>
+		<td class="name"><%= trace.getLifterName() %></td>
+<%			for (int i = 0; i < 3; i++) { %>
+		<td class="narrow"><%= trace.getReceived(i) %> / <%= trace.getProcessed(i) %></td>
+<%			} %>
+		<td class="narrow"><%= trace.getSound() %></td>
+		<td class="name"><%
+			for (String push : trace.getPushes()) { %><%= push %><br><% } %></td>
+	</tr>
+<%		} %>
+</tbody>
+</table>
+<br>
+<%	} %>
+</body>
+</html>
@@ -1,6 +1,6 @@
 <%@page import="java.util.Locale"%>
 <%@ page language="java" contentType="text/html; charset=UTF-8"
-	pageEncoding="UTF-8" isELIgnored="false" import="org.concordiainternational.competition.ui.generators.*,org.concordiainternational.competition.ui.*,org.concordiainternational.competition.data.*"%>
+	pageEncoding="UTF-8" isELIgnored="false" import="org.concordiainternational.competition.ui.generators.*,org.concordiainternational.competition.ui.*,org.concordiainternational.competition.data.*,org.concordiainternational.competition.webapp.*"%>
 <!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
 <html><!--
@@ -33,25 +33,32 @@
     CompetitionApplication.setCurrent(app); // (ouch. global variable of the worst kind.)
     java.util.Locale locale = CompetitionApplication.getCurrentLocale();
 
-	java.util.List<Lifter> lifters = groupData.getCurrentLiftingOrder();
-	if (lifters == null || lifters.size() == 0) {
+	ScoreboardFeed.Board board = ScoreboardFeed.Board.LIFTING_ORDER;
+	ScoreboardSnapshot snapshot = ScoreboardFeed.getSnapshot(platform);
+	String eTag = snapshot.getETag(board, PAGE_LOCALE, "html");
+	if (eTag.equals(request.getHeader("If-None-Match"))) {
+		// the browser already shows this version.
+		out.clearBuffer();
+		response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		return;
+	}
+	response.setHeader("ETag", eTag);
+	if (snapshot.isEmpty(board)) {
 		out.println("</head><body></body></html>");
 		out.flush();
 		return;
 	}
-	pageContext.setAttribute("lifters", lifters);
 	pageContext.setAttribute("isMasters", Competition.isMasters());
 
-	CompetitionSession group = groupData.getCurrentSession();
-	if (group == null) {
+	String groupName = snapshot.getGroupName();
+	if (groupName == null) {
 		pageContext.removeAttribute("groupName");
 		pageContext.setAttribute("useGroupName", false);
 	} else {
-		String groupName = group.getName();
 		pageContext.setAttribute("groupName", groupName);
 		pageContext.setAttribute("useGroupName", true);
 		pageContext.setAttribute("liftsDone",
-				TryFormatter.htmlFormatLiftsDone(groupData.getLiftsDone(),PAGE_LOCALE)
+				TryFormatter.htmlFormatLiftsDone(snapshot.getLiftsDone(),PAGE_LOCALE)
 				);
 	}
 %>
@@ -94,39 +101,7 @@
 		</tr>
 	</thead>
 	<tbody>
-		<c:forEach var="lifter" items="${lifters}">
-			<jsp:useBean id="lifter" type="org.concordiainternational.competition.data.Lifter" />
-			<tr>
-				<c:choose>
-					<c:when test="${lifter.currentLifter}">
-						<td class='name current'><nobr><%= lifter.getLastName().toUpperCase() %>, ${lifter.firstName}</nobr></td>
-					</c:when>
-					<c:otherwise>
-						<td class='name'><nobr><%= lifter.getLastName().toUpperCase() %>, ${lifter.firstName}</nobr></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.currentLifter}">
-						<td class='current weight'>${lifter.nextAttemptRequestedWeight}</td>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'>${lifter.nextAttemptRequestedWeight}</td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.currentLifter}">
-						<td class='weight current'><%= TryFormatter.htmlFormatTry(lifters,lifter,PAGE_LOCALE) %></td>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'><%= TryFormatter.htmlFormatTry(lifters,lifter,PAGE_LOCALE) %></td>
-					</c:otherwise>
-				</c:choose>
-				<td class="cat" ><nobr>${lifter.shortCategory}</nobr></td>
-				<td class="weight"><nobr>${lifter.club}</nobr></td>
-				<td class='narrow' style='text-align: right'>${lifter.startNumber}</td>
-			</tr>
-		</c:forEach>
-	</tbody>
+<%= snapshot.getHtml(board, PAGE_LOCALE) %>	</tbody>
 </table>
 </body>
 </html>
@@ -0,0 +1,284 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8"
+	pageEncoding="UTF-8" isELIgnored="false" import="org.concordiainternational.competition.data.*,org.concordiainternational.competition.i18n.*,org.concordiainternational.competition.webapp.*"%>
+<!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
+<html><!--
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+ --><head>
+<meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+<%
+	// Same boards as resultBoard-*.jsp, winningBoard-*.jsp and liftingOrder-*.jsp, but the page is loaded once;
+	// the rows are then patched with the changes sent by the scoreboard servlet.
+	String platform = request.getParameter("platformName");
+	if (platform == null) {
+		out.println("Platform parameter expected. URL must include ?platformName=X");
+		return;
+	}
+	String style = request.getParameter("style");
+	if (style == null) {
+		style = "result.css";
+	}
+	ScoreboardFeed.Board board = ScoreboardFeed.Board.fromParameter(request.getParameter("board"));
+	String lang = request.getParameter("lang");
+	if (lang == null || !(lang.equals("fr") || lang.equals("da") || lang.equals("es"))) {
+		lang = "en";
+	}
+
+	// start, name, age group, category, body weight, team, snatch, clean and jerk, total, rank, group, results, ranks, attempt board,
+	// requested weight, try
+	java.util.Map<String, String[]> labels = new java.util.HashMap<String, String[]>();
+	labels.put("en", new String[] { "Start", "Name", "Age Gr.", "Cat.", "B.W.", "Team", "Snatch", "Clean&amp;Jerk", "Total", "Rank",
+			"Group", "Results", "Ranks", "Attempt Board", "Requested Weight", "Try" });
+	labels.put("fr", new String[] { "Départ", "Nom", "Gr. Age.", "Cat.", "P.C.", "Équipe", "Arraché", "Épaulé-jeté", "Total", "Rang",
+			"Groupe", "Résultats", "Classement", "Ordre de passage", "Poids demandé", "Essai" });
+	labels.put("da", new String[] { "Start", "Navn", "Alders Gr.", "Kat.", "K.V.", "Klub", "Træk", "Stød", "Tokamp", "Plac.",
+			"Gruppe", "Resultater", "Placering", "Løfterækkefølge", "Ønsket Vægt", "Forsøg" });
+	labels.put("es", new String[] { "Comenzar", "Nombre", "Edad", "Cat.", "Peso", "Equipo", "Arrancada", "Dos Tiempos", "Total",
+			"Posición", "Grupo", "Resultados", "Clasificación", "Orden de levantamiento", "Peso solicitado", "Intento" });
+	String[] l = labels.get(lang);
+	String boardTitle = (board == ScoreboardFeed.Board.WINNING ? l[12] : (board == ScoreboardFeed.Board.LIFTING_ORDER ? l[13] : l[11]));
+	boolean isMasters = Competition.isMasters();
+	boolean liftingOrder = (board == ScoreboardFeed.Board.LIFTING_ORDER);
+	java.util.Locale locale = new java.util.Locale(lang);
+%>
+<title><%= boardTitle %></title>
+<link rel="stylesheet" type="text/css" href="<%= style %>" />
+</head>
+<body>
+<div class="title">
+	<span class="title" id="title"><%= boardTitle %></span>
+	<span class="liftsDone" id="liftsDone"></span>
+</div>
+
+<table>
+	<thead>
+<%	if (liftingOrder) { %>
+		<tr>
+			<th><%= l[1] %></th>
+			<th class='weight'><%= l[14] %></th>
+			<th><%= l[15] %></th>
+			<th class="cat"><%= l[3] %></th>
+			<th class='narrow'><%= l[5] %></th>
+			<th class="narrow" style='text-align: center'><%= l[0] %></th>
+		</tr>
+<%	} else { %>
+		<tr>
+			<th class="narrow" style='text-align: center'><%= l[0] %></th>
+			<th><%= l[1] %></th>
+<%	if (isMasters) { %>
+			<th><nobr><%= l[2] %></nobr></th>
+<%	} %>
+			<th class="cat"><%= l[3] %></th>
+			<th class='weight'><%= l[4] %></th>
+			<th class='club'><%= l[5] %></th>
+			<th colspan="3"><%= l[6] %></th>
+			<th colspan="3"><%= l[7] %></th>
+			<th><%= l[8] %></th>
+			<th class="cat" style='text-align: center'><%= l[9] %></th>
+		</tr>
+<%	} %>
+	</thead>
+	<tbody id="lifters">
+	</tbody>
+</table>
+<script type="text/javascript">
+(function() {
+	var feedUrl = "../scoreboard?platformName=<%= java.net.URLEncoder.encode(platform, "UTF-8") %>&board=<%= board.getParameterValue() %>&lang=<%= lang %>";
+	var boardTitle = "<%= boardTitle %>";
+	var groupLabel = "<%= l[10] %>";
+	var isMasters = <%= isMasters %>;
+	var liftingOrder = <%= liftingOrder %>;
+	var doneText = "<%= Messages.getString("TryFormatter.Done", locale) %>";
+	var cleanJerkSuffix = "<%= Messages.getString("TryFormatter.shortCleanJerk", locale) %>";
+
+	var version = 0;
+	var order = [];
+	var rowElements = {};
+	var tbody = document.getElementById("lifters");
+
+	function parse(text) {
+		return (window.JSON ? JSON.parse(text) : eval("(" + text + ")"));
+	}
+
+	function setText(element, text) {
+		while (element.firstChild) {
+			element.removeChild(element.firstChild);
+		}
+		element.appendChild(document.createTextNode(text == null ? "" : text));
+	}
+
+	function cell(tr, className, text, noBreak) {
+		var td = document.createElement("td");
+		td.className = className;
+		if (noBreak) {
+			var nobr = document.createElement("nobr");
+			setText(nobr, text);
+			td.appendChild(nobr);
+		} else {
+			setText(td, text);
+		}
+		tr.appendChild(td);
+		return td;
+	}
+
+	// same as TryFormatter.htmlFormatTry : depends on where the first lifter on the board is.
+	function tryText(row, firstAttemptsDone) {
+		if (row.currentTry > 3) {
+			return doneText;
+		}
+		if (firstAttemptsDone < 3 && row.attemptsDone >= 3) {
+			return row.currentTry + cleanJerkSuffix;
+		}
+		return "" + row.currentTry;
+	}
+
+	function createLiftingOrderRow(row) {
+		var tr = document.createElement("tr");
+		cell(tr, row.current ? "name current" : "name", row.name, true);
+		cell(tr, row.current ? "current weight" : "weight", row.requested, false);
+		tr.tryCell = cell(tr, row.current ? "weight current" : "weight", "", false);
+		cell(tr, "cat", row.cat, true);
+		cell(tr, "weight", row.club, true);
+		var start = cell(tr, "narrow", row.start, false);
+		start.style.textAlign = "right";
+		tr.row = row;
+		return tr;
+	}
+
+	function createRow(row) {
+		if (liftingOrder) {
+			return createLiftingOrderRow(row);
+		}
+		var tr = document.createElement("tr");
+		var start = cell(tr, "narrow", row.start + " ", false);
+		start.style.textAlign = "right";
+		cell(tr, row.current ? "name current" : "name", row.name, true);
+		if (isMasters) {
+			cell(tr, "club", row.ageGroup, true);
+		}
+		cell(tr, "cat", row.cat, true);
+		cell(tr, "narrow", row.bw, false);
+		cell(tr, "club", row.club, true);
+		for (var i = 0; i < row.cells.length; i++) {
+			cell(tr, row.cells[i][0], row.cells[i][1], false);
+		}
+		cell(tr, "weight", row.total, false);
+		cell(tr, "cat", row.rank, false);
+		tr.longCat = row.longCat;
+		return tr;
+	}
+
+	function separator() {
+		var tr = document.createElement("tr");
+		var td = document.createElement("td");
+		td.colSpan = 0;
+		td.style.height = "0.1ex";
+		td.style.border = "none";
+		tr.appendChild(td);
+		return tr;
+	}
+
+	function apply(changes) {
+		if (changes.full) {
+			rowElements = {};
+		}
+		if (changes.group !== undefined) {
+			setText(document.getElementById("title"), changes.group != null ? groupLabel + " " + changes.group + " – " + boardTitle : boardTitle);
+			setText(document.getElementById("liftsDone"), changes.liftsDone);
+		}
+		if (changes.rows) {
+			for (var id in changes.rows) {
+				if (changes.rows.hasOwnProperty(id)) {
+					var previous = rowElements[id];
+					var tr = createRow(changes.rows[id]);
+					if (previous && previous.parentNode) {
+						previous.parentNode.replaceChild(tr, previous);
+					}
+					rowElements[id] = tr;
+				}
+			}
+		}
+		if (changes.order) {
+			order = changes.order;
+		}
+		if (changes.full || changes.order || changes.rows) {
+			// moving the existing rows is enough; only the changed rows were rebuilt.
+			var kept = {};
+			var prevCat = null;
+			for (var j = 0; j < order.length; j++) {
+				var row = rowElements[order[j]];
+				if (!row) {
+					continue;
+				}
+				if (!liftingOrder && prevCat != null && row.longCat != prevCat) {
+					tbody.appendChild(separator());
+				}
+				prevCat = row.longCat;
+				tbody.appendChild(row);
+				kept[order[j]] = true;
+			}
+			// what is left in front of the rows just appended (old separators, lifters gone) is obsolete.
+			var first = (order.length > 0 && rowElements[order[0]]) ? rowElements[order[0]] : null;
+			while (tbody.firstChild && tbody.firstChild !== first) {
+				tbody.removeChild(tbody.firstChild);
+			}
+			if (liftingOrder && first) {
+				// the try shown depends on the first lifter, so it changes when the order does.
+				for (var k = 0; k < order.length; k++) {
+					if (rowElements[order[k]]) {
+						setText(rowElements[order[k]].tryCell, tryText(rowElements[order[k]].row, first.row.attemptsDone));
+					}
+				}
+			}
+			for (var key in rowElements) {
+				if (rowElements.hasOwnProperty(key) && !kept[key]) {
+					delete rowElements[key];
+				}
+			}
+		}
+		version = changes.v;
+	}
+
+	function poll() {
+		var request = new XMLHttpRequest();
+		request.open("GET", feedUrl + "&since=" + version + "&t=" + new Date().getTime(), true);
+		request.onreadystatechange = function() {
+			if (request.readyState != 4) {
+				return;
+			}
+			if (request.status == 200) {
+				var since = version;
+				try {
+					apply(parse(request.responseText));
+				} catch (e) {
+					// start over with a full update.
+					version = 0;
+				}
+				// the server is busy and did not wait for a change: ask again later, as it says.
+				var retryAfter = parseInt(request.getResponseHeader("Retry-After"), 10);
+				if (retryAfter > 0) {
+					setTimeout(poll, retryAfter * 1000);
+				} else if (version == since) {
+					// nothing new: do not hammer the server if it answers without waiting.
+					setTimeout(poll, 1000);
+				} else {
+					setTimeout(poll, 0);
+				}
+			} else {
+				// server restarting or unreachable
+				setTimeout(poll, 5000);
+			}
+		};
+		request.send(null);
+	}
+
+	poll();
+})();
+</script>
+</body>
+</html>
@@ -0,0 +1,67 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8"
+	pageEncoding="UTF-8" isELIgnored="false" import="java.util.*,org.concordiainternational.competition.utils.*"%>
+<!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
+<html><!--
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+ --><head>
+<meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+<meta http-equiv="refresh" content="5">
+<%
+	response.setHeader("Cache-Control", "no-cache");
+	if ("true".equals(request.getParameter("reset"))) {
+		Metrics.reset();
+		response.sendRedirect("metrics.jsp");
+		return;
+	}
+%>
+<title>Metrics</title>
+<link rel="stylesheet" type="text/css" href="result.css" />
+</head>
+<body>
+<div class="title">Durations (ms) since the last <a href="metrics.jsp?reset=true">reset</a> &ndash; also available as
+<a href="../metrics">text</a> and <a href="../metrics?format=json">JSON</a></div>
+<table>
+<thead>
+	<tr>
+		<th class="narrow">Operation</th>
+		<th>Count</th>
+		<th>Mean</th>
+<%	for (double p : Metrics.PERCENTILES) { %>
+		<th>p<%= (int) p %></th>
+<%	} %>
+		<th>Max</th>
+	</tr>
+</thead>
+<tbody>
+<%	for (Histogram.Snapshot h : Metrics.getHistograms()) { %>
+	<tr>
+		<td class="name"><%= h.getName() %></td>
+		<td class="narrow"><%= h.getCount() %></td>
+		<td class="narrow"><%= Metrics.format(h.getMeanMillis()) %></td>
+<%		for (double p : Metrics.PERCENTILES) { %>
+		<td class="narrow"><%= Metrics.format(h.getPercentileMillis(p)) %></td>
+<%		} %>
+		<td class="narrow"><%= Metrics.format(h.getMaxMillis()) %></td>
+	</tr>
+<%	} %>
+</tbody>
+</table>
+<br>
+<table>
+<thead>
+	<tr><th class="narrow">Counter</th><th>Value</th></tr>
+</thead>
+<tbody>
+<%	for (Map.Entry<String, Long> entry : Metrics.getValues().entrySet()) { %>
+	<tr><td class="name"><%= entry.getKey() %></td><td class="narrow"><%= entry.getValue() %></td></tr>
+<%	} %>
+</tbody>
+</table>
+</body>
+</html>
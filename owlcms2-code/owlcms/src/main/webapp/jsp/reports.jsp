@@ -0,0 +1,59 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8"
+	pageEncoding="UTF-8" isELIgnored="false" import="java.util.*,org.concordiainternational.competition.spreadsheet.*"%>
+<!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
+<html><!--
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+ --><head>
+<meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+<meta http-equiv="refresh" content="5">
+<%
+	response.setHeader("Cache-Control", "no-cache");
+	if ("true".equals(request.getParameter("clear"))) {
+		ReportService.clearCache();
+		response.sendRedirect("reports.jsp");
+		return;
+	}
+%>
+<title>Reports</title>
+<link rel="stylesheet" type="text/css" href="result.css" />
+</head>
+<body>
+<div class="title">Reports in progress and recently produced &ndash; <%= ReportService.getCachedReports() %> reports
+(<%= ReportService.getCachedBytes() / 1024 %> KB) in memory, <a href="reports.jsp?clear=true">clear</a>;
+see also the <a href="metrics.jsp">metrics</a></div>
+<table>
+<thead>
+	<tr>
+		<th class="narrow">#</th>
+		<th class="narrow">Time</th>
+		<th>Report</th>
+		<th>Requested by</th>
+		<th class="narrow">State</th>
+		<th class="narrow">Waited (ms)</th>
+		<th class="narrow">Running (ms)</th>
+		<th class="narrow">KB sent</th>
+	</tr>
+</thead>
+<tbody>
+<%	for (ReportService.Job job : ReportService.getJobs()) { %>
+	<tr>
+		<td class="narrow"><%= job.getId() %></td>
+		<td class="narrow"><%= String.format("%tT", job.getSubmittedMillis()) %></td>
+		<td class="name"><%= job.getName() %></td>
+		<td class="name"><%= job.getRequester() != null ? job.getRequester() : "" %></td>
+		<td class="narrow"><%= job.getState() %></td>
+		<td class="narrow"><%= job.getQueuedMillis() %></td>
+		<td class="narrow"><%= job.getRunningMillis() %></td>
+		<td class="narrow"><%= job.getBytes() / 1024 %></td>
+	</tr>
+<%	} %>
+</tbody>
+</table>
+</body>
+</html>
@@ -1,5 +1,5 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8"
-	pageEncoding="UTF-8" isELIgnored="false" import="org.concordiainternational.competition.ui.generators.*,org.concordiainternational.competition.ui.*,org.concordiainternational.competition.data.*"%>
+	pageEncoding="UTF-8" isELIgnored="false" import="org.concordiainternational.competition.ui.generators.*,org.concordiainternational.competition.ui.*,org.concordiainternational.competition.data.*,org.concordiainternational.competition.webapp.*"%>
 <!DOCTYPE html PUBLIC "-//W3C//DTD HTML 4.01 Transitional//EN" "http://www.w3.org/TR/html4/loose.dtd">
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c"%>
 <html><!--
@@ -40,25 +40,32 @@
 	SessionData groupData = (SessionData)sCtx.getAttribute(SessionData.MASTER_KEY+platform);
 	if (groupData == null) return;
 
-	java.util.List<Lifter> lifters = groupData.getCurrentDisplayOrder();
-	if (lifters == null || lifters.size() == 0) {
+	ScoreboardFeed.Board board = ScoreboardFeed.Board.RESULTS;
+	ScoreboardSnapshot snapshot = ScoreboardFeed.getSnapshot(platform);
+	String eTag = snapshot.getETag(board, java.util.Locale.ENGLISH, "html");
+	if (eTag.equals(request.getHeader("If-None-Match"))) {
+		// the browser already shows this version.
+		out.clearBuffer();
+		response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		return;
+	}
+	response.setHeader("ETag", eTag);
+	if (snapshot.isEmpty(board)) {
 		out.println("</head><body></body></html>");
 		out.flush();
 		return;
 	}
-	pageContext.setAttribute("lifters", lifters);
 	pageContext.setAttribute("isMasters", Competition.isMasters());
 
-	CompetitionSession group = groupData.getCurrentSession();
-	if (group == null) {
+	String groupName = snapshot.getGroupName();
+	if (groupName == null) {
 		pageContext.removeAttribute("groupName");
 		pageContext.setAttribute("useGroupName", false);
 	} else {
-		String groupName = group.getName();
 		pageContext.setAttribute("groupName", groupName);
 		pageContext.setAttribute("useGroupName", true);
 		pageContext.setAttribute("liftsDone",
-				TryFormatter.htmlFormatLiftsDone(groupData.getLiftsDone(),java.util.Locale.ENGLISH)
+				TryFormatter.htmlFormatLiftsDone(snapshot.getLiftsDone(),java.util.Locale.ENGLISH)
 				);
 	}
 %>
@@ -109,169 +116,7 @@
 		</tr>
 	</thead>
     <tbody>
-           <%
-            String prevCat = null;
-           %>
-        <c:forEach var="lifter" items="${lifters}">
-            <jsp:useBean id="lifter" type="org.concordiainternational.competition.data.Lifter" />
-            <%
-                Lifter curLifter = (Lifter) pageContext.getAttribute("lifter");
-                String curCat = curLifter.getLongCategory();
-                System.out.println(curLifter.getLongCategory());
-                pageContext.setAttribute("newCategory", !curCat.equals(prevCat));
-                prevCat = curCat;
-            %>
-             <c:choose>
-                 <c:when test="${newCategory}">
-                 <tr><td colspan="0" style="height:0.1ex; border:none"></td></tr>
-                 </c:when>
-             </c:choose>
-            <tr>
-				<td class='narrow' style='text-align: right'>${lifter.startNumber}&nbsp;</td>
-				<c:choose>
-					<c:when test="${lifter.currentLifter}">
-						<td class='name current'><nobr><%= lifter.getLastName().toUpperCase() %>, ${lifter.firstName}</nobr></td>
-					</c:when>
-					<c:otherwise>
-						<td class='name'><nobr><%= lifter.getLastName().toUpperCase() %>, ${lifter.firstName}</nobr></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${isMasters}">
-						<td class='club'><nobr>${lifter.mastersAgeGroup}</nobr></td>
-					</c:when>
-				</c:choose>
-				<td class="cat" ><nobr>${lifter.shortCategory}</nobr></td>
-				<td class='narrow'><%= WeightFormatter.formatBodyWeight(lifter.getBodyWeight()) %></td>
-				<td class='club'><nobr>${lifter.club}</nobr></td>
-				<!--  td class="weight">&nbsp;</td>  -->
-				<c:choose>
-					<c:when test="${lifter.snatchAttemptsDone == 0}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.snatchAttemptsDone > 0 }">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getSnatch1ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.snatchAttemptsDone == 1}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.snatchAttemptsDone > 1}">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getSnatch2ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.snatchAttemptsDone == 2}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.snatchAttemptsDone > 2}">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getSnatch3ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.attemptsDone == 3}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.cleanJerkAttemptsDone > 0}">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getCleanJerk1ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='requestedWeight'><%= lifter.getRequestedWeightForAttempt(4) %></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.cleanJerkAttemptsDone == 1}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.cleanJerkAttemptsDone > 1}">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getCleanJerk2ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.cleanJerkAttemptsDone == 2}">
-						<c:choose>
-							<c:when test="${lifter.currentLifter}">
-								<td class='currentWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:when>
-							<c:otherwise>
-								<td class='requestedWeight'>${lifter.nextAttemptRequestedWeight}</td>
-							</c:otherwise>
-						</c:choose>
-					</c:when>
-					<c:when test="${lifter.cleanJerkAttemptsDone > 2}">
-						<%= WeightFormatter.htmlFormatWeight(lifter.getCleanJerk3ActualLift()) %>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'></td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.total > 0}">
-						<td class='weight'>${lifter.total}</td>
-					</c:when>
-					<c:otherwise>
-						<td class='weight'>&ndash;</td>
-					</c:otherwise>
-				</c:choose>
-				<c:choose>
-					<c:when test="${lifter.rank > 0}">
-						<td class='cat'>${lifter.rank}</td>
-					</c:when>
-					<c:otherwise>
-						<td class='cat'>&ndash;</td>
-					</c:otherwise>
-				</c:choose>
-			</tr>
-		</c:forEach>
-	</tbody>
+<%= snapshot.getHtml(board, java.util.Locale.ENGLISH) %>	</tbody>
 </table>
 </body>
 </html>
\ No newline at end of file
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.concordiainternational.competition.tests.AllTests;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * In the package of {@link LifterWriteBehind}, to build journals without a running writer.
+ *
+ * @author jflamy
+ *
+ */
+public class LifterWriteBehindTest {
+
+    HbnSessionManager hbnSessionManager = AllTests.getSessionManager();
+    File journalFile = null;
+    Lifter lifter = null;
+    String club = null;
+    Lifter other = null;
+    String otherClub = null;
+
+    @Before
+    public void setupTest() throws IOException {
+        System.setProperty("owlcms.locale","en");
+        Assert.assertNotNull(hbnSessionManager);
+        Assert.assertNotNull(hbnSessionManager.getHbnSession());
+        journalFile = File.createTempFile("lifters", ".journal"); //$NON-NLS-1$ //$NON-NLS-2$
+        LifterReadModel.invalidate();
+        lifter = LifterReadModel.getAll(false).get(0);
+        club = lifter.getClub();
+        other = LifterReadModel.getAll(false).get(1);
+        otherClub = other.getClub();
+        LifterWriteBehind.takeRejected();
+    }
+
+    @After
+    public void tearDownTest() throws IOException {
+        LifterWriteBehind.shutdown();
+        LifterWriteBehind.start(journalFile);
+        // as stored: the lifters in memory may be behind.
+        LifterReadModel.invalidate();
+        final Lifter stored = LifterReadModel.getAll(false).get(0);
+        stored.setClub(club);
+        LifterWriteBehind.save(stored);
+        final Lifter otherStored = LifterReadModel.getAll(false).get(1);
+        otherStored.setClub(otherClub);
+        LifterWriteBehind.save(otherStored);
+        LifterWriteBehind.shutdown();
+        journalFile.delete();
+        LifterReadModel.invalidate();
+    }
+
+    /**
+     * Nothing is kept unless the lifters are saved in the background.
+     */
+    @Test
+    public void testDisabled() {
+        assertFalse(LifterWriteBehind.isEnabled());
+        assertFalse(LifterWriteBehind.save(lifter));
+    }
+
+    /**
+     * A change is written, and the journal emptied, at the latest when stopping.
+     */
+    @Test
+    public void testWritten() throws IOException {
+        LifterWriteBehind.start(journalFile);
+        lifter.setClub("first"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(lifter));
+        lifter.setClub("second"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(lifter));
+        LifterWriteBehind.shutdown();
+
+        assertEquals("second", LifterReadModel.getAll(false).get(0).getClub()); //$NON-NLS-1$
+        assertEquals(0L, journalFile.length());
+    }
+
+    /**
+     * A change the database refuses is set aside and reported; the others are written.
+     */
+    @Test
+    public void testSetAside() throws IOException {
+        LifterWriteBehind.start(journalFile);
+        // longer than the column.
+        final char[] tooLong = new char[300];
+        Arrays.fill(tooLong, 'x');
+        lifter.setClub(new String(tooLong));
+        assertTrue(LifterWriteBehind.save(lifter));
+        other.setClub("written"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(other));
+        LifterWriteBehind.shutdown();
+
+        assertEquals(club, LifterReadModel.getAll(false).get(0).getClub());
+        assertEquals("written", LifterReadModel.getAll(false).get(1).getClub()); //$NON-NLS-1$
+        assertEquals(0L, journalFile.length());
+        assertEquals(Arrays.asList(lifter.getFirstName() + " " + lifter.getLastName()), LifterWriteBehind.takeRejected()); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.takeRejected().isEmpty());
+    }
+
+    /**
+     * A change made elsewhere (at the weigh-in) since the lifter in memory was read is not overwritten; the writer's own changes do not
+     * count.
+     */
+    @Test
+    public void testStale() throws IOException {
+        LifterWriteBehind.start(journalFile);
+        lifter.setClub("first"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(lifter));
+        LifterWriteBehind.shutdown();
+        LifterWriteBehind.start(journalFile);
+        lifter.setClub("second"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(lifter));
+        LifterWriteBehind.shutdown();
+        assertEquals("second", LifterReadModel.getAll(false).get(0).getClub()); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.takeRejected().isEmpty());
+
+        final Session session = WebApplicationConfiguration.getSessionFactory().openSession();
+        try {
+            final Transaction transaction = session.beginTransaction();
+            ((Lifter) session.get(Lifter.class, lifter.getId())).setClub("weighIn"); //$NON-NLS-1$
+            transaction.commit();
+        } finally {
+            session.close();
+        }
+
+        LifterWriteBehind.start(journalFile);
+        lifter.setClub("stale"); //$NON-NLS-1$
+        assertTrue(LifterWriteBehind.save(lifter));
+        LifterWriteBehind.shutdown();
+        LifterReadModel.invalidate();
+        assertEquals("weighIn", LifterReadModel.getAll(false).get(0).getClub()); //$NON-NLS-1$
+        assertEquals(Arrays.asList(lifter.getFirstName() + " " + lifter.getLastName()), LifterWriteBehind.takeRejected()); //$NON-NLS-1$
+    }
+
+    /**
+     * The journal left by a stop is replayed, up to the record cut short.
+     */
+    @Test
+    public void testReplay() throws IOException {
+        // the journal as a stop leaves it: a change not yet written, then a record cut short.
+        lifter.setClub("replayed"); //$NON-NLS-1$
+        LifterWriteBehind.journal(journalFile, lifter);
+        final FileOutputStream out = new FileOutputStream(journalFile, true);
+        try {
+            out.write(new byte[] { 0, 0, 1, 0, 42 });
+        } finally {
+            out.close();
+        }
+        assertEquals(club, LifterReadModel.getAll(false).get(0).getClub());
+
+        LifterWriteBehind.start(journalFile);
+        assertEquals("replayed", LifterReadModel.getAll(false).get(0).getClub()); //$NON-NLS-1$
+        assertEquals(0L, journalFile.length());
+        LifterWriteBehind.shutdown();
+    }
+}
@@ -17,6 +17,7 @@ import java.io.InputStreamReader;
 import java.util.List;
 
 import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.LifterWriteBehindTest;
 import org.concordiainternational.competition.spreadsheet.ExtenXLSReader;
 import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
 import org.hibernate.Session;
@@ -26,7 +27,7 @@ import org.junit.runners.Suite;
 import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses( { CategoryLookupTest.class, GroupLookupTest.class, LifterEditorTest.class, LifterSorterTest.class, LifterTest.class, SpreadsheetTest.class, TwoMinutesRuleTest.class, CSVTest.class })
+@Suite.SuiteClasses( { CategoryLookupTest.class, GroupLookupTest.class, ImportIndexTest.class, LifterEditorTest.class, LifterReadModelTest.class, LifterSorterTest.class, LifterTest.class, LifterWriteBehindTest.class, RefereeDecisionControllerTest.class, SpreadsheetTest.class, StreamingWorkbookWriterTest.class, TwoMinutesRuleTest.class, CSVTest.class, CompetitionSimulatorTest.class, AudioEngineTest.class })
 public class AllTests implements HbnSessionManager {
 
     final static String lineSeparator = System.getProperty("line.separator"); //$NON-NLS-1$
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.concordiainternational.competition.decision.AudioEngine;
+import org.concordiainternational.competition.decision.AudioEngine.Samples;
+import org.concordiainternational.competition.utils.Metrics;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks the audio engine without speakers: sounds are decoded once and plays on a null mixer are counted.
+ *
+ * @author jflamy
+ */
+public class AudioEngineTest {
+
+    @After
+    public void tearDown() {
+        AudioEngine.setSilent(false);
+        AudioEngine.shutdown();
+    }
+
+    @Test
+    public void soundsAreDecodedOnce() {
+        final Samples down = AudioEngine.sound("/sounds/down.wav"); //$NON-NLS-1$
+        assertTrue(down.getLength() > 0);
+        assertSame(down, AudioEngine.sound("/sounds/down.wav")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void tonesAreComputedOnce() {
+        final Samples tone = AudioEngine.tone(1100, 1200, 1.0);
+        // 8000 one-byte samples per second
+        assertEquals(1200 * 8, tone.getLength());
+        assertSame(tone, AudioEngine.tone(1100, 1200, 1.0));
+    }
+
+    @Test
+    public void nullMixerIsSilent() {
+        final long before = Metrics.counter("audio.silent").get(); //$NON-NLS-1$
+        final AtomicInteger started = new AtomicInteger();
+        final Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                started.incrementAndGet();
+            }
+        };
+        AudioEngine.play(null, AudioEngine.tone(1100, 1200, 1.0), callback);
+        AudioEngine.setSilent(true);
+        AudioEngine.play(null, AudioEngine.sound("/sounds/initialWarning2.wav"), callback); //$NON-NLS-1$
+        // no sound, so no sound time.
+        assertEquals(0, started.get());
+        assertEquals(before + 2, Metrics.counter("audio.silent").get()); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,825 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.concordiainternational.competition.data.CategoryLookup;
+import org.concordiainternational.competition.data.Competition;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter;
+import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
+import org.concordiainternational.competition.decision.DecisionEvent;
+import org.concordiainternational.competition.decision.DecisionEventListener;
+import org.concordiainternational.competition.decision.IDecisionController;
+import org.concordiainternational.competition.decision.RefereeDecisionController;
+import org.concordiainternational.competition.timer.CountdownTimer;
+import org.concordiainternational.competition.timer.CountdownTimerListener;
+import org.concordiainternational.competition.timer.TimingService;
+import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.concordiainternational.competition.ui.CompetitionApplicationComponents;
+import org.concordiainternational.competition.ui.InteractionNotificationReason;
+import org.concordiainternational.competition.ui.SessionData;
+import org.concordiainternational.competition.ui.SessionData.SessionDataUpdateEventListener;
+import org.concordiainternational.competition.ui.SessionDataUpdateEvent;
+import org.concordiainternational.competition.webapp.ScoreboardFeed;
+import org.concordiainternational.competition.webapp.ScoreboardFeed.Board;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+import com.vaadin.ui.Label;
+
+/**
+ * Runs a competition day without Vaadin, through the same {@link SessionData}, {@link RefereeDecisionController},
+ * {@link org.concordiainternational.competition.decision.JuryDecisionController} and {@link CountdownTimer} calls as the announcer,
+ * timekeeper, referee and jury screens, in order to reproduce on a laptop the slowdowns seen at big meets.
+ * <p>
+ * Each platform runs in its own thread and goes through its sessions one after the other. For every attempt, coaches make declarations
+ * and changes, the announcer calls the lifter, the timekeeper starts and stops the clock, and the referees (and sometimes the jury) press
+ * their buttons; the simulator then waits for the decision to be recorded on the timing service threads, as it is in the real application.
+ * Each platform has a configurable number of simulated boards, which listen to the session data and the clock and read the
+ * {@link ScoreboardFeed} as the browsers would.
+ * </p>
+ * <p>
+ * Reference data (competition, categories) is read from the in-memory test database; saving the lifters is skipped, because the lifters
+ * are generated and never stored. The settings come from system properties (see {@link Settings#fromSystemProperties()}), so that the
+ * same run can be made bigger from the command line.
+ * </p>
+ *
+ * @author jflamy
+ */
+public class CompetitionSimulator {
+
+    final static Logger logger = LoggerFactory.getLogger(CompetitionSimulator.class);
+
+    private static final String[] fnames = { "Peter", "Albert", "Joshua", "Mike", "Oliver", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            "Paul", "Alex", "Richard", "Dan", "Umberto", "Henrik", "Rene", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            "Fred", "Donald" }; //$NON-NLS-1$ //$NON-NLS-2$
+    private static final String[] lnames = { "Smith", "Gordon", "Simpson", "Brown", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "Clavel", "Simons", "Verne", "Scott", "Allison", "Gates", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            "Rowling", "Barks", "Ross", "Schneider", "Tate" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+    /** a change made by a coach, for the current lifter or another one */
+    public static final String CHANGE = "change"; //$NON-NLS-1$
+    /** announcer calls the lifter */
+    public static final String CALL_LIFTER = "callLifter"; //$NON-NLS-1$
+    /** timekeeper starts the clock */
+    public static final String CLOCK_START = "clockStart"; //$NON-NLS-1$
+    /** timekeeper stops the clock */
+    public static final String CLOCK_STOP = "clockStop"; //$NON-NLS-1$
+    /** one referee presses a button */
+    public static final String REFEREE_DECISION = "refereeDecision"; //$NON-NLS-1$
+    /** one jury member presses a button */
+    public static final String JURY_DECISION = "juryDecision"; //$NON-NLS-1$
+    /** from the time the decision was due (last referee + reversal delay) to the end of its recording, boards included */
+    public static final String DECISION_LAG = "decisionLag"; //$NON-NLS-1$
+    /** the new lists are copied to the scoreboard feed */
+    public static final String FEED_PUBLISH = "feedPublish"; //$NON-NLS-1$
+    /** one board reads what changed */
+    public static final String BOARD_REFRESH = "boardRefresh"; //$NON-NLS-1$
+
+    /**
+     * What to simulate.
+     */
+    public static class Settings {
+        int platforms = 2;
+        int sessions = 2;
+        int liftersPerSession = 8;
+        int boardsPerPlatform = 3;
+        /** time between the start of the clock and the referee decisions */
+        int liftMillis = 10;
+        /** replaces the 3 seconds during which referees can change their minds */
+        int decisionReversalMillis = 20;
+        /** probability that a coach makes a change before an attempt */
+        double changeRate = 0.3;
+        /** probability that the jury presses its buttons on an attempt */
+        double juryRate = 0.1;
+        /** probability that a referee gives a good lift */
+        double goodLiftRate = 0.7;
+        long seed = 1;
+
+        /**
+         * @return the defaults, overridden by the simulator.* system properties (e.g. -Dsimulator.platforms=6)
+         */
+        public static Settings fromSystemProperties() {
+            final Settings s = new Settings();
+            s.platforms = Integer.getInteger("simulator.platforms", s.platforms); //$NON-NLS-1$
+            s.sessions = Integer.getInteger("simulator.sessions", s.sessions); //$NON-NLS-1$
+            s.liftersPerSession = Integer.getInteger("simulator.lifters", s.liftersPerSession); //$NON-NLS-1$
+            s.boardsPerPlatform = Integer.getInteger("simulator.boards", s.boardsPerPlatform); //$NON-NLS-1$
+            s.liftMillis = Integer.getInteger("simulator.liftMillis", s.liftMillis); //$NON-NLS-1$
+            s.decisionReversalMillis = Integer.getInteger("simulator.decisionReversalMillis", s.decisionReversalMillis); //$NON-NLS-1$
+            s.changeRate = doubleProperty("simulator.changeRate", s.changeRate); //$NON-NLS-1$
+            s.juryRate = doubleProperty("simulator.juryRate", s.juryRate); //$NON-NLS-1$
+            s.goodLiftRate = doubleProperty("simulator.goodLiftRate", s.goodLiftRate); //$NON-NLS-1$
+            s.seed = Long.getLong("simulator.seed", s.seed); //$NON-NLS-1$
+            return s;
+        }
+
+        private static double doubleProperty(String name, double defaultValue) {
+            final String value = System.getProperty(name);
+            return (value == null || value.trim().isEmpty() ? defaultValue : Double.parseDouble(value.trim()));
+        }
+
+        @Override
+        public String toString() {
+            return "platforms=" + platforms + " sessions=" + sessions + " lifters=" + liftersPerSession //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + " boards=" + boardsPerPlatform + " liftMillis=" + liftMillis //$NON-NLS-1$ //$NON-NLS-2$
+                    + " decisionReversalMillis=" + decisionReversalMillis + " changeRate=" + changeRate //$NON-NLS-1$ //$NON-NLS-2$
+                    + " juryRate=" + juryRate + " goodLiftRate=" + goodLiftRate + " seed=" + seed; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+    }
+
+    private final Settings settings;
+    private final Latencies latencies = new Latencies();
+    private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    private final AtomicLong liftsDone = new AtomicLong();
+    private final AtomicLong rejectedChanges = new AtomicLong();
+    private final AtomicLong boardEvents = new AtomicLong();
+    private final AtomicLong clockTicks = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    public CompetitionSimulator(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Run the competition day, from the command line or an IDE.
+     *
+     * @param args
+     * @throws InterruptedException
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final CompetitionSimulator simulator = new CompetitionSimulator(Settings.fromSystemProperties());
+        final Report report = simulator.run();
+        System.out.println(report);
+        System.exit(report.getErrors().isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Run all the platforms and wait until every session is over.
+     *
+     * @return the measurements.
+     * @throws InterruptedException
+     */
+    public Report run() throws InterruptedException {
+        final HbnSessionManager sessionManager = AllTests.getSessionManager();
+        sessionManager.getHbnSession().beginTransaction();
+        CategoryLookup.getSharedInstance(sessionManager);
+
+        final CompetitionApplication application = new SimulatedApplication();
+        final CompetitionApplication previous = CompetitionApplication.getCurrent();
+        CompetitionApplication.setCurrent(application);
+        application.components = new CompetitionApplicationComponents(null, null);
+        application.setPlatformByName(CompetitionApplicationComponents.firstPlatformName());
+        // read once; the value is kept for the whole competition.
+        Competition.isMasters();
+
+        // the timing service threads inherit the current application, and record the decisions; make sure they are created anew.
+        TimingService.shutdown();
+        TimingService.resetStatistics();
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        final int threadsBefore = threads.getThreadCount();
+        final long startedBefore = threads.getTotalStartedThreadCount();
+        final boolean allocationMeasured = allocatedBytes(threads) >= 0;
+        final long[] gcBefore = gcCountAndTime();
+        final long start = System.nanoTime();
+
+        logger.info("simulating {}", settings); //$NON-NLS-1$
+        final List<Thread> platformThreads = new ArrayList<Thread>();
+        for (int platformNo = 1; platformNo <= settings.platforms; platformNo++) {
+            final Thread t = new Thread(new PlatformRun(platformNo), "simulator-platform-" + platformNo); //$NON-NLS-1$
+            platformThreads.add(t);
+            t.start();
+        }
+        for (Thread t : platformThreads) {
+            t.join();
+        }
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final long[] gcAfter = gcCountAndTime();
+        final Report report = new Report(latencies.summarize(), new ArrayList<Throwable>(errors), liftsDone.get(), rejectedChanges.get(),
+                boardEvents.get(), clockTicks.get(), elapsedMillis, threadsBefore, threads.getPeakThreadCount(),
+                threads.getTotalStartedThreadCount() - startedBefore, (allocationMeasured ? allocatedBytes.get() : -1L), gcAfter[0] - gcBefore[0],
+                gcAfter[1] - gcBefore[1], TimingService.getStatistics());
+
+        TimingService.shutdown();
+        CompetitionApplication.setCurrent(previous);
+        sessionManager.getHbnSession().close();
+        return report;
+    }
+
+    /**
+     * One platform: its sessions, one after the other.
+     */
+    private class PlatformRun implements Runnable {
+        private final int platformNo;
+        private final Random r;
+
+        PlatformRun(int platformNo) {
+            this.platformNo = platformNo;
+            this.r = new Random(settings.seed * 1000 + platformNo);
+        }
+
+        @Override
+        public void run() {
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            final long allocatedBefore = allocatedBytes(threads);
+            try {
+                for (int sessionNo = 1; sessionNo <= settings.sessions; sessionNo++) {
+                    runSession("P" + platformNo + "-S" + sessionNo); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+            } catch (Throwable t) {
+                logger.error("platform {} failed: {}", platformNo, t); //$NON-NLS-1$
+                errors.add(t);
+            } finally {
+                if (allocatedBefore >= 0) {
+                    allocatedBytes.addAndGet(allocatedBytes(threads) - allocatedBefore);
+                }
+            }
+        }
+
+        private void runSession(String sessionName) throws InterruptedException {
+            final List<Lifter> lifters = createLifters();
+            final SessionData groupData = new SessionData(lifters);
+            final IDecisionController referees = groupData.getRefereeDecisionController();
+            final IDecisionController jury = groupData.getJuryDecisionController();
+            if (referees instanceof RefereeDecisionController) {
+                final RefereeDecisionController rdc = (RefereeDecisionController) referees;
+                rdc.setDecisionReversalDelay(settings.decisionReversalMillis);
+                rdc.setDecisionDisplayDelay(settings.decisionReversalMillis / 2);
+                rdc.setResetDisplayDelay(settings.decisionReversalMillis / 2);
+            }
+            jury.setBlocked(false);
+
+            // the announcer's lifter card: the session data listens to the lifters, and re-sorts when they change.
+            final Label announcerCard = new Label();
+            for (Lifter lifter : lifters) {
+                groupData.listenToLifter(lifter, announcerCard);
+            }
+
+            final ScoreboardFeed feed = new ScoreboardFeed();
+            groupData.addListener(new FeedPublisher(feed, sessionName, groupData));
+            final CountdownTimer timer = groupData.getTimer();
+            final List<SimulatedBoard> boards = new ArrayList<SimulatedBoard>();
+            for (int i = 0; i < settings.boardsPerPlatform; i++) {
+                final SimulatedBoard board = new SimulatedBoard(feed, Board.values()[i % Board.values().length]);
+                boards.add(board);
+                groupData.addListener(board);
+                timer.addListener(board);
+            }
+            final DecisionMonitor monitor = new DecisionMonitor();
+            referees.addListener(monitor);
+
+            final int maxAttempts = lifters.size() * 6;
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                final Lifter lifter = groupData.getCurrentLifter();
+                if (lifter == null || lifter.getAttemptsDone() >= 6) {
+                    break;
+                }
+                doAttempt(groupData, lifters, lifter, monitor);
+            }
+
+            referees.removeListener(monitor);
+            for (SimulatedBoard board : boards) {
+                timer.removeListener(board);
+            }
+            for (Lifter lifter : lifters) {
+                groupData.stopListeningTo(lifter, announcerCard);
+            }
+            groupData.removeAllListeners();
+            logger.info("session {} done", sessionName); //$NON-NLS-1$
+        }
+
+        private void doAttempt(SessionData groupData, List<Lifter> lifters, Lifter lifter, DecisionMonitor monitor)
+                throws InterruptedException {
+            // coaches
+            if (r.nextDouble() < settings.changeRate) {
+                change(lifter);
+            }
+            if (r.nextDouble() < settings.changeRate) {
+                change(lifters.get(r.nextInt(lifters.size())));
+            }
+            final Lifter current = groupData.getCurrentLifter();
+            if (current == null || current.getAttemptsDone() >= 6) {
+                return;
+            }
+
+            // announcer and timekeeper
+            long t0 = System.nanoTime();
+            groupData.callLifter(current);
+            latencies.record(CALL_LIFTER, System.nanoTime() - t0);
+
+            final CountdownTimer timer = groupData.getTimer();
+            t0 = System.nanoTime();
+            timer.start();
+            latencies.record(CLOCK_START, System.nanoTime() - t0);
+            if (settings.liftMillis > 0) {
+                Thread.sleep(settings.liftMillis);
+            }
+            t0 = System.nanoTime();
+            timer.pause();
+            latencies.record(CLOCK_STOP, System.nanoTime() - t0);
+
+            // referees, then the jury
+            monitor.expectDecision();
+            final IDecisionController referees = groupData.getRefereeDecisionController();
+            for (int refereeNo = 0; refereeNo < 3; refereeNo++) {
+                final boolean good = r.nextDouble() < settings.goodLiftRate;
+                t0 = System.nanoTime();
+                referees.decisionMade(refereeNo, good);
+                latencies.record(REFEREE_DECISION, System.nanoTime() - t0);
+            }
+            monitor.lastDecision(System.nanoTime());
+            if (r.nextDouble() < settings.juryRate) {
+                final IDecisionController jury = groupData.getJuryDecisionController();
+                for (int juryNo = 0; juryNo < 3; juryNo++) {
+                    t0 = System.nanoTime();
+                    jury.decisionMade(juryNo, r.nextDouble() < settings.goodLiftRate);
+                    latencies.record(JURY_DECISION, System.nanoTime() - t0);
+                }
+            }
+
+            // the decision is recorded, and the referee devices reset, by the timing service.
+            final long timeout = settings.decisionReversalMillis * 3L + 10000L;
+            if (!monitor.awaitRecorded(timeout) || !monitor.awaitReset(timeout)) {
+                throw new IllegalStateException("decision for " + current + " not recorded after " + timeout + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            liftsDone.incrementAndGet();
+        }
+
+        /**
+         * A coach asks for more weight: the declaration if there was none, otherwise the first change.
+         */
+        private void change(Lifter lifter) {
+            final int attempt = lifter.getAttemptsDone() + 1;
+            if (attempt > 6) {
+                return;
+            }
+            final Integer requested = lifter.getNextAttemptRequestedWeight();
+            final String weight = Integer.toString((requested != null ? requested : 0) + 1 + r.nextInt(2));
+            final long t0 = System.nanoTime();
+            try {
+                if (isEmpty(lifter.getCurrentDeclaration())) {
+                    declare(lifter, attempt, weight);
+                } else if (isEmpty(lifter.getCurrentChange1())) {
+                    change1(lifter, attempt, weight);
+                } else {
+                    return;
+                }
+                latencies.record(CHANGE, System.nanoTime() - t0);
+            } catch (RuntimeException e) {
+                // refused by the rules (e.g. 20kg rule); the announcer's screen would have shown an error.
+                rejectedChanges.incrementAndGet();
+            }
+        }
+
+        private List<Lifter> createLifters() {
+            final List<Lifter> lifters = new ArrayList<Lifter>(settings.liftersPerSession);
+            for (int i = 0; i < settings.liftersPerSession; i++) {
+                final Lifter p = new Lifter();
+                final boolean male = r.nextInt(3) > 0;
+                p.setFirstName(fnames[r.nextInt(fnames.length)]);
+                p.setLastName(lnames[r.nextInt(lnames.length)]);
+                p.setGender(male ? "M" : "F"); //$NON-NLS-1$ //$NON-NLS-2$
+                p.setBirthDate(1950 + r.nextInt(50));
+                final double bodyWeight = (male ? 55.0 + r.nextInt(60) : 46.0 + r.nextInt(45)) + r.nextInt(10) / 10.0;
+                p.setBodyWeight(bodyWeight);
+                final int snatch = (int) (bodyWeight * (0.8 + r.nextDouble() * 0.6));
+                p.setSnatch1Declaration(Integer.toString(snatch));
+                p.setCleanJerk1Declaration(Integer.toString(snatch + 15 + r.nextInt(20)));
+                lifters.add(p);
+            }
+            LifterSorter.assignLotNumbers(lifters);
+            LifterSorter.assignStartNumbers(lifters);
+            return lifters;
+        }
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private static void declare(Lifter lifter, int attempt, String weight) {
+        switch (attempt) {
+        case 1:
+            lifter.setSnatch1Declaration(weight);
+            break;
+        case 2:
+            lifter.setSnatch2Declaration(weight);
+            break;
+        case 3:
+            lifter.setSnatch3Declaration(weight);
+            break;
+        case 4:
+            lifter.setCleanJerk1Declaration(weight);
+            break;
+        case 5:
+            lifter.setCleanJerk2Declaration(weight);
+            break;
+        case 6:
+            lifter.setCleanJerk3Declaration(weight);
+            break;
+        }
+    }
+
+    private static void change1(Lifter lifter, int attempt, String weight) {
+        switch (attempt) {
+        case 1:
+            lifter.setSnatch1Change1(weight);
+            break;
+        case 2:
+            lifter.setSnatch2Change1(weight);
+            break;
+        case 3:
+            lifter.setSnatch3Change1(weight);
+            break;
+        case 4:
+            lifter.setCleanJerk1Change1(weight);
+            break;
+        case 5:
+            lifter.setCleanJerk2Change1(weight);
+            break;
+        case 6:
+            lifter.setCleanJerk3Change1(weight);
+            break;
+        }
+    }
+
+    /**
+     * Copies the lists to the platform's feed, as {@link SessionData} does when it runs in a servlet container.
+     */
+    private class FeedPublisher implements SessionDataUpdateEventListener {
+        private final ScoreboardFeed feed;
+        private final String sessionName;
+        private final SessionData groupData;
+
+        FeedPublisher(ScoreboardFeed feed, String sessionName, SessionData groupData) {
+            this.feed = feed;
+            this.sessionName = sessionName;
+            this.groupData = groupData;
+        }
+
+        @Override
+        public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
+            final long t0 = System.nanoTime();
+            final List<Lifter> lifters = groupData.getLifters();
+            feed.update(sessionName, groupData.getLiftsDone(), false, groupData.getDisplayOrder(),
+                    LifterSorter.resultsOrderCopy(lifters, Ranking.TOTAL), groupData.getAttemptOrder());
+            latencies.record(FEED_PUBLISH, System.nanoTime() - t0);
+        }
+    }
+
+    /**
+     * A browser showing one of the public boards, with the clock.
+     */
+    private class SimulatedBoard implements SessionDataUpdateEventListener, CountdownTimerListener {
+        private final ScoreboardFeed feed;
+        private final Board board;
+        private long version = 0;
+
+        SimulatedBoard(ScoreboardFeed feed, Board board) {
+            this.feed = feed;
+            this.board = board;
+        }
+
+        @Override
+        public void sessionDataUpdateEvent(SessionDataUpdateEvent sessionDataUpdateEvent) {
+            final long t0 = System.nanoTime();
+            feed.changesSince(board, version, Locale.ENGLISH);
+            version = feed.getVersion();
+            feed.getSnapshot().getHtml(board, Locale.ENGLISH);
+            latencies.record(BOARD_REFRESH, System.nanoTime() - t0);
+            boardEvents.incrementAndGet();
+        }
+
+        @Override
+        public void normalTick(int timeRemaining) {
+            clockTicks.incrementAndGet();
+        }
+
+        @Override
+        public void finalWarning(int timeRemaining) {
+        }
+
+        @Override
+        public void initialWarning(int timeRemaining) {
+        }
+
+        @Override
+        public void noTimeLeft(int timeRemaining) {
+        }
+
+        @Override
+        public void pause(int timeRemaining, CompetitionApplication originatingApp, InteractionNotificationReason reason) {
+        }
+
+        @Override
+        public void start(int timeRemaining) {
+        }
+
+        @Override
+        public void stop(int timeRemaining, CompetitionApplication originatingApp, InteractionNotificationReason reason) {
+        }
+
+        @Override
+        public void forceTimeRemaining(int startTime, CompetitionApplication originatingApp, InteractionNotificationReason reason) {
+        }
+    }
+
+    /**
+     * Follows the referee decision controller: BLOCK is sent once the decision has been recorded and the lists updated, RESET once the
+     * referee devices are ready for the next lifter.
+     */
+    private class DecisionMonitor implements DecisionEventListener {
+        private volatile CountDownLatch recorded = new CountDownLatch(0);
+        private volatile CountDownLatch reset = new CountDownLatch(0);
+        private volatile long lastDecisionNanos;
+
+        void expectDecision() {
+            recorded = new CountDownLatch(1);
+            reset = new CountDownLatch(1);
+        }
+
+        void lastDecision(long nanos) {
+            lastDecisionNanos = nanos;
+        }
+
+        boolean awaitRecorded(long timeoutMillis) throws InterruptedException {
+            return recorded.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        boolean awaitReset(long timeoutMillis) throws InterruptedException {
+            return reset.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void updateEvent(DecisionEvent updateEvent) {
+            switch (updateEvent.getType()) {
+            case BLOCK:
+                final long due = lastDecisionNanos + TimeUnit.MILLISECONDS.toNanos(settings.decisionReversalMillis);
+                latencies.record(DECISION_LAG, Math.max(0L, System.nanoTime() - due));
+                recorded.countDown();
+                break;
+            case RESET:
+                if (recorded.getCount() == 0) {
+                    reset.countDown();
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * The application as seen by the session data and the decision controllers. Lifters are generated, so saving them is skipped; everything
+     * else goes to the in-memory test database.
+     */
+    private static class SimulatedApplication extends CompetitionApplication {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Session getHbnSession() {
+            final Session session = AllTests.getSessionManager().getHbnSession();
+            if (!session.getTransaction().isActive()) {
+                session.beginTransaction();
+            }
+            return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] { Session.class },
+                    new LifterSaveSkipper(session));
+        }
+    }
+
+    private static class LifterSaveSkipper implements InvocationHandler {
+        private final Session session;
+
+        LifterSaveSkipper(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null && args.length == 1 && args[0] instanceof Lifter) {
+                if ("merge".equals(method.getName())) { //$NON-NLS-1$
+                    return args[0];
+                }
+                if ("saveOrUpdate".equals(method.getName()) || "update".equals(method.getName())) { //$NON-NLS-1$ //$NON-NLS-2$
+                    return null;
+                }
+            }
+            try {
+                return method.invoke(session, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long[] gcCountAndTime() {
+        final long[] result = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result[0] += Math.max(0L, gc.getCollectionCount());
+            result[1] += Math.max(0L, gc.getCollectionTime());
+        }
+        return result;
+    }
+
+    /**
+     * Latency samples, in nanoseconds, by operation.
+     */
+    static class Latencies {
+        private final Map<String, long[]> samples = new TreeMap<String, long[]>();
+        private final Map<String, Integer> counts = new TreeMap<String, Integer>();
+
+        synchronized void record(String operation, long nanos) {
+            long[] values = samples.get(operation);
+            final Integer count = counts.get(operation);
+            final int n = (count == null ? 0 : count);
+            if (values == null) {
+                values = new long[256];
+            } else if (n == values.length) {
+                values = Arrays.copyOf(values, n * 2);
+            }
+            values[n] = nanos;
+            samples.put(operation, values);
+            counts.put(operation, n + 1);
+        }
+
+        synchronized Map<String, Stats> summarize() {
+            final Map<String, Stats> result = new TreeMap<String, Stats>();
+            for (Map.Entry<String, long[]> entry : samples.entrySet()) {
+                final long[] values = Arrays.copyOf(entry.getValue(), counts.get(entry.getKey()));
+                Arrays.sort(values);
+                result.put(entry.getKey(), new Stats(values));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Percentiles for one operation.
+     */
+    public static class Stats {
+        private final int count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        Stats(long[] sorted) {
+            count = sorted.length;
+            p50 = percentile(sorted, 50);
+            p90 = percentile(sorted, 90);
+            p99 = percentile(sorted, 99);
+            max = (count == 0 ? 0 : sorted[count - 1]);
+        }
+
+        private static long percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getP50Millis() {
+            return p50 / 1e6;
+        }
+
+        public double getP90Millis() {
+            return p90 / 1e6;
+        }
+
+        public double getP99Millis() {
+            return p99 / 1e6;
+        }
+
+        public double getMaxMillis() {
+            return max / 1e6;
+        }
+    }
+
+    /**
+     * What was measured during a run.
+     */
+    public static class Report {
+        private final Map<String, Stats> operations;
+        private final List<Throwable> errors;
+        private final long lifts;
+        private final long rejectedChanges;
+        private final long boardEvents;
+        private final long clockTicks;
+        private final long elapsedMillis;
+        private final int threadsBefore;
+        private final int peakThreads;
+        private final long startedThreads;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+        private final String timingStatistics;
+
+        Report(Map<String, Stats> operations, List<Throwable> errors, long lifts, long rejectedChanges, long boardEvents,
+                long clockTicks, long elapsedMillis, int threadsBefore, int peakThreads, long startedThreads, long allocatedBytes,
+                long gcCount, long gcMillis, String timingStatistics) {
+            this.operations = operations;
+            this.errors = errors;
+            this.lifts = lifts;
+            this.rejectedChanges = rejectedChanges;
+            this.boardEvents = boardEvents;
+            this.clockTicks = clockTicks;
+            this.elapsedMillis = elapsedMillis;
+            this.threadsBefore = threadsBefore;
+            this.peakThreads = peakThreads;
+            this.startedThreads = startedThreads;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.timingStatistics = timingStatistics;
+        }
+
+        /**
+         * @return the percentiles, by operation name (see the constants in {@link CompetitionSimulator}).
+         */
+        public Map<String, Stats> getOperations() {
+            return operations;
+        }
+
+        public List<Throwable> getErrors() {
+            return errors;
+        }
+
+        public long getLifts() {
+            return lifts;
+        }
+
+        public long getStartedThreads() {
+            return startedThreads;
+        }
+
+        public int getPeakThreads() {
+            return peakThreads;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%-16s %8s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "max ms")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            for (Map.Entry<String, Stats> entry : operations.entrySet()) {
+                final Stats s = entry.getValue();
+                sb.append(String.format("%-16s %8d %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(), s.getCount(), s.getP50Millis(), //$NON-NLS-1$
+                        s.getP90Millis(), s.getP99Millis(), s.getMaxMillis()));
+            }
+            sb.append("lifts=").append(lifts).append(" rejectedChanges=").append(rejectedChanges) //$NON-NLS-1$ //$NON-NLS-2$
+                    .append(" boardEvents=").append(boardEvents).append(" clockTicks=").append(clockTicks) //$NON-NLS-1$ //$NON-NLS-2$
+                    .append(" elapsedMs=").append(elapsedMillis).append(String.format("%n")); //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append("threads before=").append(threadsBefore).append(" peak=").append(peakThreads) //$NON-NLS-1$ //$NON-NLS-2$
+                    .append(" started=").append(startedThreads).append(String.format("%n")); //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append("allocated by the platform threads=") //$NON-NLS-1$
+                    .append(allocatedBytes >= 0 ? (allocatedBytes / 1024) + " KiB" : "n/a") //$NON-NLS-1$ //$NON-NLS-2$
+                    .append(" gcCount=").append(gcCount).append(" gcMs=").append(gcMillis).append(String.format("%n")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            sb.append("timing service: ").append(timingStatistics).append(String.format("%n")); //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append("errors=").append(errors.size()); //$NON-NLS-1$
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.concordiainternational.competition.tests.CompetitionSimulator.Report;
+import org.concordiainternational.competition.tests.CompetitionSimulator.Settings;
+import org.concordiainternational.competition.tests.CompetitionSimulator.Stats;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a small competition through the simulator. A bigger one, with a limit on the 99th percentiles, is obtained with e.g.
+ * <code>mvn test -Dtest=CompetitionSimulatorTest -Dsimulator.platforms=6 -Dsimulator.lifters=20 -Dsimulator.boards=30 -Dsimulator.maxP99Millis=50</code>
+ *
+ * @author jflamy
+ */
+public class CompetitionSimulatorTest {
+    final static Logger logger = LoggerFactory.getLogger(CompetitionSimulatorTest.class);
+
+    @Test
+    public void competitionDay() throws InterruptedException {
+        final Settings settings = Settings.fromSystemProperties();
+        final Report report = new CompetitionSimulator(settings).run();
+        logger.info("simulation results\n{}", report); //$NON-NLS-1$
+
+        assertTrue("errors during simulation: " + report.getErrors(), report.getErrors().isEmpty()); //$NON-NLS-1$
+        assertEquals("every lifter should have done 6 attempts", //$NON-NLS-1$
+                (long) settings.platforms * settings.sessions * settings.liftersPerSession * 6, report.getLifts());
+
+        final String maxP99 = System.getProperty("simulator.maxP99Millis"); //$NON-NLS-1$
+        if (maxP99 != null && !maxP99.trim().isEmpty()) {
+            final double limit = Double.parseDouble(maxP99.trim());
+            for (Map.Entry<String, Stats> entry : report.getOperations().entrySet()) {
+                final double p99 = entry.getValue().getP99Millis();
+                assertTrue(entry.getKey() + " p99=" + p99 + "ms exceeds " + limit + "ms", p99 <= limit); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+        }
+    }
+}
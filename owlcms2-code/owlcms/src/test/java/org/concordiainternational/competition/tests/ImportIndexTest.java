@@ -0,0 +1,94 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.concordiainternational.competition.data.Category;
+import org.concordiainternational.competition.data.CategoryLookup;
+import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.CompetitionSessionLookup;
+import org.concordiainternational.competition.data.Gender;
+import org.concordiainternational.competition.spreadsheet.ImportIndex;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * @author jflamy
+ *
+ */
+public class ImportIndexTest {
+
+    HbnSessionManager hbnSessionManager = AllTests.getSessionManager();
+    CategoryLookup categoryLookup = null;
+    ImportIndex importIndex = null;
+
+    @Before
+    public void setupTest() {
+        System.setProperty("owlcms.locale","en");
+        Assert.assertNotNull(hbnSessionManager);
+        Assert.assertNotNull(hbnSessionManager.getHbnSession());
+        hbnSessionManager.getHbnSession().beginTransaction();
+        categoryLookup = CategoryLookup.getSharedInstance(hbnSessionManager);
+        categoryLookup.reload();
+        importIndex = new ImportIndex(hbnSessionManager);
+    }
+
+    @After
+    public void tearDownTest() {
+        hbnSessionManager.getHbnSession().close();
+    }
+
+    @Test
+    public void testCategoryByName() {
+        Category found = importIndex.getCategory(" M94 "); //$NON-NLS-1$
+        assertNotNull("category not found", found); //$NON-NLS-1$
+        assertEquals("m94", found.getName()); //$NON-NLS-1$
+        assertNull(importIndex.getCategory("m170")); //$NON-NLS-1$
+    }
+
+    /**
+     * The index must find the same category as {@link CategoryLookup#lookup(String, Double)}, including at the boundaries.
+     */
+    @Test
+    public void testCategoryByWeightSameAsLookup() {
+        for (Gender gender : Gender.values()) {
+            for (double bodyWeight = 20.0; bodyWeight <= 200.0; bodyWeight += 0.25) {
+                Category expected = categoryLookup.lookup(gender.toString(), bodyWeight);
+                Category found = importIndex.getCategory(gender.toString(), bodyWeight);
+                assertEquals(gender + " " + bodyWeight, (expected != null ? expected.getName() : null), //$NON-NLS-1$
+                        (found != null ? found.getName() : null));
+            }
+        }
+    }
+
+    @Test
+    public void testSessionByName() {
+        for (CompetitionSession session : new CompetitionSessionLookup(hbnSessionManager).getGroups()) {
+            assertEquals(session.getName(), importIndex.getSession(session.getName().toLowerCase()).getName());
+        }
+        assertNull(importIndex.getSession("no such session")); //$NON-NLS-1$
+    }
+
+    @Test
+    public void testUnmatched() {
+        importIndex.sessionNotFound("H7"); //$NON-NLS-1$
+        importIndex.sessionNotFound("H7 "); //$NON-NLS-1$
+        importIndex.categoryNotFound("m170"); //$NON-NLS-1$
+        assertEquals(Integer.valueOf(2), importIndex.getUnmatchedSessions().get("H7")); //$NON-NLS-1$
+        assertEquals(Integer.valueOf(1), importIndex.getUnmatchedCategories().get("m170")); //$NON-NLS-1$
+        assertTrue(importIndex.getUnmatched().contains("H7 (2)")); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.concordiainternational.competition.data.CompetitionSession;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.LifterReadModel;
+import org.concordiainternational.competition.webapp.WebApplicationConfiguration;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * @author jflamy
+ *
+ */
+public class LifterReadModelTest {
+
+    HbnSessionManager hbnSessionManager = AllTests.getSessionManager();
+
+    @Before
+    public void setupTest() {
+        System.setProperty("owlcms.locale","en");
+        Assert.assertNotNull(hbnSessionManager);
+        Assert.assertNotNull(hbnSessionManager.getHbnSession());
+        LifterReadModel.invalidate();
+    }
+
+    @After
+    public void tearDownTest() {
+        LifterReadModel.invalidate();
+    }
+
+    /**
+     * The lifters in memory are the same as those in the database.
+     */
+    @Test
+    public void testSameAsDatabase() {
+        Session session = WebApplicationConfiguration.getSessionFactory().openSession();
+        try {
+            assertEquals(ids(Lifter.getAll(session, false)), ids(LifterReadModel.getAll(false)));
+            assertEquals(ids(Lifter.getAll(session, true)), ids(LifterReadModel.getAll(true)));
+            for (CompetitionSession competitionSession : CompetitionSession.getAll(hbnSessionManager)) {
+                assertEquals(ids(Lifter.getAllCurrentGroup(session, competitionSession, true)),
+                        ids(LifterReadModel.getAllCurrentGroup(competitionSession, true)));
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Changing a lifter that was returned does not change the next ones.
+     */
+    @Test
+    public void testCopies() {
+        Lifter first = LifterReadModel.getAll(false).get(0);
+        final String lastName = first.getLastName();
+        first.setLastName("changed"); //$NON-NLS-1$
+        Lifter again = LifterReadModel.getAll(false).get(0);
+        assertNotSame(first, again);
+        assertEquals(lastName, again.getLastName());
+    }
+
+    /**
+     * A committed change is seen, a rolled back one is not.
+     */
+    @Test
+    public void testCommitAndRollback() {
+        final Lifter first = LifterReadModel.getAll(false).get(0);
+        final String club = first.getClub();
+        try {
+            setClub(first.getId(), "committed", true); //$NON-NLS-1$
+            assertEquals("committed", LifterReadModel.getAll(false).get(0).getClub()); //$NON-NLS-1$
+
+            setClub(first.getId(), "rolled back", false); //$NON-NLS-1$
+            assertFalse("rolled back".equals(LifterReadModel.getAll(false).get(0).getClub())); //$NON-NLS-1$
+        } finally {
+            setClub(first.getId(), club, true);
+        }
+        assertEquals(club, LifterReadModel.getAll(false).get(0).getClub());
+    }
+
+    private void setClub(Long id, String club, boolean commit) {
+        Session session = WebApplicationConfiguration.getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            Lifter lifter = (Lifter) session.get(Lifter.class, id);
+            lifter.setClub(club);
+            session.flush();
+            if (commit) {
+                session.getTransaction().commit();
+            } else {
+                session.getTransaction().rollback();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    private static List<Long> ids(List<Lifter> lifters) {
+        List<Long> ids = new ArrayList<Long>();
+        for (Lifter lifter : lifters) {
+            ids.add(lifter.getId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -10,15 +10,23 @@ package org.concordiainternational.competition.tests;
 import static org.concordiainternational.competition.tests.AllTests.assertEqualsToReferenceFile;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
 import org.concordiainternational.competition.data.Category;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.LifterContainer;
+import org.concordiainternational.competition.data.lifterSort.CompetitionRankings;
+import org.concordiainternational.competition.data.lifterSort.DisplayOrderComparator;
+import org.concordiainternational.competition.data.lifterSort.IncrementalLifterSorter;
+import org.concordiainternational.competition.data.lifterSort.LiftOrderComparator;
+import org.concordiainternational.competition.data.lifterSort.LiftTimeStampComparator;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter.Ranking;
 import org.concordiainternational.competition.data.lifterSort.WinningOrderComparator;
@@ -385,10 +393,231 @@ public class LifterSorterTest {
         assertEquals(schneiderF, lifters.get(0));
     }
 
+    @Test
+    public void sortKeysMatchComparators() {
+        LifterSorter.assignLotNumbers(lifters);
+        LifterSorter.assignStartNumbers(lifters);
+        assertSortKeysMatchComparators(lifters);
+
+        // hide non-lifters
+        final int size = lifters.size();
+        for (int i = 4; i < size; i++)
+            lifters.remove(4);
+
+        Random rnd = new Random(0);
+        for (Lifter lifter : lifters) {
+            // body weights give the lifters different Sinclair scores.
+            lifter.setBodyWeight(60.0 + rnd.nextInt(20));
+            lifter.setSnatch1Declaration(Integer.toString(55 + rnd.nextInt(3)));
+            lifter.setCleanJerk1Declaration(Integer.toString(75 + rnd.nextInt(3)));
+        }
+        LifterSorter.liftingOrder(lifters);
+        assertSortKeysMatchComparators(lifters);
+
+        // go through the whole competition, checking the orders after each lift
+        while (lifters.get(0).getAttemptsDone() < 6) {
+            if (rnd.nextBoolean()) {
+                successfulLift(lifters);
+            } else {
+                failedLift(lifters);
+            }
+            assertSortKeysMatchComparators(lifters);
+        }
+    }
+
+    /**
+     * The competition book rankings, computed together, must be those that the book used to compute one ranking at a time.
+     */
+    @Test
+    public void competitionRankingsMatchLifterSorter() {
+        LifterSorter.assignLotNumbers(lifters);
+        LifterSorter.assignStartNumbers(lifters);
+
+        // hide non-lifters
+        final int size = lifters.size();
+        for (int i = 6; i < size; i++)
+            lifters.remove(6);
+
+        Random rnd = new Random(1);
+        for (Lifter lifter : lifters) {
+            lifter.setBodyWeight(60.0 + rnd.nextInt(20));
+            lifter.setSnatch1Declaration(Integer.toString(55 + rnd.nextInt(3)));
+            lifter.setCleanJerk1Declaration(Integer.toString(75 + rnd.nextInt(3)));
+        }
+        LifterSorter.liftingOrder(lifters);
+        while (lifters.get(0).getAttemptsDone() < 6) {
+            if (rnd.nextBoolean()) {
+                successfulLift(lifters);
+            } else {
+                failedLift(lifters);
+            }
+        }
+
+        final boolean reset = LifterSorter.isSortKeys();
+        try {
+            for (boolean sortKeys : new boolean[] { true, false }) {
+                LifterSorter.setSortKeys(sortKeys);
+                assertRankingsMatchLifterSorter(lifters);
+            }
+        } finally {
+            LifterSorter.setSortKeys(reset);
+        }
+    }
+
+    /**
+     * Lifters that cannot be told apart (same lot and start number, same requests) must be left by the incremental sorter in the order
+     * that a full sort of the previous lifting order gives them.
+     */
+    @Test
+    public void incrementalSortWithTies() {
+        // hide non-lifters
+        final int size = lifters.size();
+        for (int i = 4; i < size; i++)
+            lifters.remove(4);
+
+        for (Lifter lifter : lifters) {
+            lifter.setLotNumber(1);
+            lifter.setStartNumber(1);
+            lifter.setBodyWeight(68.0);
+            lifter.setSnatch1Declaration("60"); //$NON-NLS-1$
+            lifter.setCleanJerk1Declaration("80"); //$NON-NLS-1$
+        }
+        final IncrementalLifterSorter sorter = new IncrementalLifterSorter();
+        sorter.sortAll(lifters);
+
+        // move lifters out of the tie and back in.
+        Random rnd = new Random(0);
+        for (int i = 0; i < 50; i++) {
+            final List<Lifter> previous = new ArrayList<Lifter>(lifters);
+            final Lifter lifter = lifters.get(rnd.nextInt(lifters.size()));
+            lifter.setSnatch1Declaration(Integer.toString(60 + rnd.nextInt(2)));
+            assertTrue(sorter.update(lifters, lifter));
+
+            assertSameOrder("lifting", sortedCopy(previous, new LiftOrderComparator()), lifters); //$NON-NLS-1$
+            assertSameOrder("display", sortedCopy(previous, new DisplayOrderComparator()), sorter.displayOrderCopy()); //$NON-NLS-1$
+            assertSameOrder("result", sortedCopy(previous, new WinningOrderComparator(Ranking.TOTAL)), sorter.resultOrderCopy()); //$NON-NLS-1$
+            assertSameOrder("liftTime", sortedCopy(previous, new LiftTimeStampComparator()), sorter.liftTimeOrderCopy()); //$NON-NLS-1$
+        }
+    }
+
     /*************************************************************************************
      * Utility routines
      */
 
+    /**
+     * Compare {@link CompetitionRankings} with the rankings computed as the competition book used to, in the same sequence, for every
+     * ranking: the individual rankings except COMBINED, which only exists for teams, and the team rankings that the book uses.
+     */
+    private void assertRankingsMatchLifterSorter(List<Lifter> lifters1) {
+        final CompetitionRankings rankings = new CompetitionRankings(lifters1);
+        final List<String> ranksAndPoints = ranksAndPoints(lifters1);
+
+        for (Ranking ranking : new Ranking[] { Ranking.SNATCH, Ranking.CLEANJERK, Ranking.TOTAL, Ranking.SINCLAIR, Ranking.CUSTOM }) {
+            final List<Lifter> sorted = LifterSorter.resultsOrderCopy(lifters1, ranking);
+            if (ranking == Ranking.SINCLAIR) {
+                LifterSorter.assignSinclairRanksAndPoints(sorted, ranking);
+            } else {
+                LifterSorter.assignCategoryRanks(sorted, ranking);
+            }
+            assertSameGenderSplit(ranking.toString(), sorted, rankings.getResults(ranking), rankings.getMenResults(ranking),
+                    rankings.getWomenResults(ranking));
+        }
+
+        List<Lifter> sorted = LifterSorter.teamRankingOrderCopy(lifters1, Ranking.CUSTOM);
+        assertSameGenderSplit("team " + Ranking.CUSTOM, sorted, rankings.getTeamResults(Ranking.CUSTOM), //$NON-NLS-1$
+                rankings.getMenTeamResults(Ranking.CUSTOM), rankings.getWomenTeamResults(Ranking.CUSTOM));
+        sorted = LifterSorter.teamRankingOrderCopy(lifters1, Ranking.COMBINED);
+        assertSameGenderSplit("team " + Ranking.COMBINED, sorted, rankings.getTeamResults(Ranking.COMBINED), //$NON-NLS-1$
+                rankings.getMenTeamResults(Ranking.COMBINED), rankings.getWomenTeamResults(Ranking.COMBINED));
+        LifterSorter.teamRankingOrder(sorted, Ranking.TOTAL);
+        assertSameGenderSplit("team " + Ranking.TOTAL, sorted, rankings.getTeamResults(Ranking.TOTAL), //$NON-NLS-1$
+                rankings.getMenTeamResults(Ranking.TOTAL), rankings.getWomenTeamResults(Ranking.TOTAL));
+
+        // computing the rankings one at a time gives the lifters the same ranks and points.
+        assertEquals(ranksAndPoints, ranksAndPoints(lifters1));
+    }
+
+    private static void assertSameGenderSplit(String rankingName, List<Lifter> expected, List<Lifter> all, List<Lifter> men,
+            List<Lifter> women) {
+        final List<Lifter> expectedMen = new ArrayList<Lifter>();
+        final List<Lifter> expectedWomen = new ArrayList<Lifter>();
+        for (Lifter lifter : expected) {
+            if ("m".equalsIgnoreCase(lifter.getGender())) { //$NON-NLS-1$
+                expectedMen.add(lifter);
+            } else {
+                expectedWomen.add(lifter);
+            }
+        }
+        assertSameOrder(rankingName, expected, all);
+        assertSameOrder("men " + rankingName, expectedMen, men); //$NON-NLS-1$
+        assertSameOrder("women " + rankingName, expectedWomen, women); //$NON-NLS-1$
+    }
+
+    private static List<String> ranksAndPoints(List<Lifter> lifters1) {
+        final List<String> values = new ArrayList<String>();
+        for (Lifter lifter : lifters1) {
+            values.add(lifter.getLastName() + " " + lifter.getSnatchRank() + " " + lifter.getCleanJerkRank() + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + lifter.getTotalRank() + " " + lifter.getSinclairRank() + " " + lifter.getCustomRank() + " " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    + lifter.getSnatchPoints() + " " + lifter.getCleanJerkPoints() + " " + lifter.getTotalPoints()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return values;
+    }
+
+    private static List<Lifter> sortedCopy(List<Lifter> lifters1, Comparator<Lifter> comparator) {
+        final List<Lifter> sorted = new ArrayList<Lifter>(lifters1);
+        Collections.sort(sorted, comparator);
+        return sorted;
+    }
+
+    /**
+     * Lifter.equals compares the fields, which tied lifters may share, so the lists are compared by identity.
+     */
+    private static void assertSameOrder(String orderName, List<Lifter> expected, List<Lifter> actual) {
+        assertEquals(orderName, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(orderName + " order at " + i, expected.get(i), actual.get(i)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Check that sorting on precomputed keys gives the same order as the comparators.
+     *
+     * @param lifters1
+     */
+    private void assertSortKeysMatchComparators(List<Lifter> lifters1) {
+        final boolean reset = LifterSorter.isSortKeys();
+        try {
+            // the rankings that have result keys (COMBINED only exists for teams).
+            for (Ranking ranking : new Ranking[] { Ranking.SNATCH, Ranking.CLEANJERK, Ranking.TOTAL, Ranking.SINCLAIR, Ranking.CUSTOM }) {
+                LifterSorter.setSortKeys(true);
+                List<Lifter> withKeys = LifterSorter.resultsOrderCopy(lifters1, ranking);
+                LifterSorter.setSortKeys(false);
+                List<Lifter> withComparator = LifterSorter.resultsOrderCopy(lifters1, ranking);
+                assertEquals(ranking.toString(), withComparator, withKeys);
+            }
+            for (Ranking ranking : Ranking.values()) {
+                LifterSorter.setSortKeys(true);
+                List<Lifter> withKeys = LifterSorter.teamRankingOrderCopy(lifters1, ranking);
+                LifterSorter.setSortKeys(false);
+                List<Lifter> withComparator = LifterSorter.teamRankingOrderCopy(lifters1, ranking);
+                assertEquals("team " + ranking, withComparator, withKeys); //$NON-NLS-1$
+            }
+            LifterSorter.setSortKeys(true);
+            List<Lifter> withKeys = LifterSorter.liftingOrderCopy(lifters1);
+            LifterSorter.setSortKeys(false);
+            List<Lifter> withComparator = LifterSorter.liftingOrderCopy(lifters1);
+            assertEquals("lifting order", withComparator, withKeys); //$NON-NLS-1$
+
+            LifterSorter.setSortKeys(true);
+            withKeys = LifterSorter.displayOrderCopy(lifters1);
+            LifterSorter.setSortKeys(false);
+            withComparator = LifterSorter.displayOrderCopy(lifters1);
+            assertEquals("display order", withComparator, withKeys); //$NON-NLS-1$
+        } finally {
+            LifterSorter.setSortKeys(reset);
+        }
+    }
+
     /**
      * Current lifter has successul lift
      *
@@ -130,6 +130,57 @@ public class LifterTest {
         assertEquals("total with full bomb out", 0, (long) lifter.getTotal()); //$NON-NLS-1$
     }
 
+    /**
+     * Test method for
+     * {@link org.concordiainternational.competition.data.Lifter#zeroIfInvalid(String)}.
+     */
+    @Test
+    public void testZeroIfInvalid() {
+        assertEquals(0, Lifter.zeroIfInvalid(null));
+        assertEquals(0, Lifter.zeroIfInvalid("")); //$NON-NLS-1$
+        assertEquals(0, Lifter.zeroIfInvalid("-")); //$NON-NLS-1$
+        assertEquals(0, Lifter.zeroIfInvalid("6o")); //$NON-NLS-1$
+        assertEquals(0, Lifter.zeroIfInvalid("99999999999")); //$NON-NLS-1$
+        assertEquals(60, Lifter.zeroIfInvalid("60")); //$NON-NLS-1$
+        assertEquals(60, Lifter.zeroIfInvalid("+60")); //$NON-NLS-1$
+        assertEquals(-60, Lifter.zeroIfInvalid("-60")); //$NON-NLS-1$
+    }
+
+    /**
+     * Derived results must follow the attempt cells as they are updated.
+     */
+    @Test
+    public void testDerivedResultsFollowUpdates() {
+        Lifter lifter1 = new Lifter();
+        lifter1.setGender("M"); //$NON-NLS-1$
+        lifter1.setBodyWeight(68.5);
+        lifter1.setSnatch1Declaration("60"); //$NON-NLS-1$
+        lifter1.setCleanJerk1Declaration("80"); //$NON-NLS-1$
+        assertEquals(0, (long) lifter1.getAttemptsDone());
+        assertEquals(60, (long) lifter1.getNextAttemptRequestedWeight());
+        assertEquals(null, lifter1.getPreviousLiftTime());
+
+        lifter1.successfulLift();
+        assertEquals(1, (long) lifter1.getAttemptsDone());
+        assertEquals(60, (long) lifter1.getBestSnatch());
+        assertEquals(61, (long) lifter1.getNextAttemptRequestedWeight());
+        assertEquals(lifter1.getSnatch1LiftTime(), lifter1.getPreviousLiftTime());
+
+        lifter1.setSnatch2Change1("63"); //$NON-NLS-1$
+        assertEquals(63, (long) lifter1.getNextAttemptRequestedWeight());
+        lifter1.failedLift();
+        assertEquals(2, (long) lifter1.getAttemptsDone());
+        assertEquals(60, (long) lifter1.getBestSnatch());
+        assertEquals(63, (long) lifter1.getNextAttemptRequestedWeight());
+
+        lifter1.successfulLift();
+        lifter1.successfulLift();
+        assertEquals(4, (long) lifter1.getAttemptsDone());
+        assertEquals(143, (long) lifter1.getTotal());
+        assertEquals(81, (long) lifter1.getNextAttemptRequestedWeight());
+        assertEquals(lifter1.getCleanJerk1LiftTime(), lifter1.getPreviousLiftTime());
+    }
+
     @Test
     public void ageGroup() {
         int thisYear = Calendar.getInstance().get(Calendar.YEAR);
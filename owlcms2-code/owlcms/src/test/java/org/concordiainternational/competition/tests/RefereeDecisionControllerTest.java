@@ -0,0 +1,188 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.data.LifterContainer;
+import org.concordiainternational.competition.decision.Decision;
+import org.concordiainternational.competition.decision.DecisionEvent;
+import org.concordiainternational.competition.decision.DecisionEventListener;
+import org.concordiainternational.competition.decision.RefereeDecisionController;
+import org.concordiainternational.competition.ui.CompetitionApplication;
+import org.concordiainternational.competition.ui.CompetitionApplicationComponents;
+import org.concordiainternational.competition.ui.SessionData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * The three referees press at the same time, many times over; the lights must never go back to an older state.
+ *
+ * @author jflamy
+ */
+public class RefereeDecisionControllerTest {
+
+    private static final int LIFTS = 200;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    HbnSessionManager hbnSessionManager = AllTests.getSessionManager();
+    RefereeDecisionController referees;
+    final Recorder recorder = new Recorder();
+
+    @Before
+    public void setupTest() {
+        assertNotNull(hbnSessionManager);
+        assertNotNull(hbnSessionManager.getHbnSession());
+        hbnSessionManager.getHbnSession().beginTransaction();
+
+        // mock the application
+        final CompetitionApplication application = new CompetitionApplication();
+        CompetitionApplication.setCurrent(application);
+        application.components = new CompetitionApplicationComponents(null, null);
+        application.setPlatformByName(CompetitionApplicationComponents.firstPlatformName());
+        final List<Lifter> lifters = new LifterContainer(application, false).getAllPojos();
+
+        final SessionData groupData = new SessionData(lifters);
+        referees = (RefereeDecisionController) groupData.getRefereeDecisionController();
+        // the decision is shown as soon as the third referee has pressed, so the display races with the presses; it is never recorded
+        // (the lift is reset long before).
+        referees.setDecisionDisplayDelay(0);
+        referees.setDecisionReversalDelay(60000);
+        referees.addListener(recorder);
+    }
+
+    @After
+    public void tearDownTest() {
+        referees.removeListener(recorder);
+        hbnSessionManager.getHbnSession().close();
+    }
+
+    /**
+     * Within a lift, each event shows at least as many decisions as the one before, and the last one shows the three decisions.
+     */
+    @Test
+    public void concurrentDecisions() throws Exception {
+        final Random rnd = new Random(1);
+        for (int lift = 0; lift < LIFTS; lift++) {
+            final boolean[] decisions = { rnd.nextBoolean(), rnd.nextBoolean(), rnd.nextBoolean() };
+            final List<DecisionEvent> events = recorder.expect();
+            press(decisions);
+            assertTrue("decision not shown for lift " + lift, recorder.awaitShown(TIMEOUT_SECONDS)); //$NON-NLS-1$
+
+            referees.reset();
+            assertTrue("lift " + lift + " not reset", recorder.awaitReset(TIMEOUT_SECONDS)); //$NON-NLS-1$ //$NON-NLS-2$
+
+            int previousCount = 0;
+            for (DecisionEvent event : events) {
+                final int count = count(event.getDecisions());
+                assertTrue("lift " + lift + ": " + event + " after an event showing " + previousCount + " decisions", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                        count >= previousCount);
+                previousCount = count;
+            }
+            final DecisionEvent last = events.get(events.size() - 1);
+            assertEquals("lift " + lift + ": last event", DecisionEvent.Type.SHOW, last.getType()); //$NON-NLS-1$ //$NON-NLS-2$
+            for (int i = 0; i < 3; i++) {
+                assertEquals(decisions[i], last.getDecisions()[i].accepted);
+            }
+        }
+    }
+
+    /**
+     * The three referees press together, each from its own thread.
+     */
+    private void press(final boolean[] decisions) throws InterruptedException {
+        final CyclicBarrier start = new CyclicBarrier(3);
+        final List<Thread> threads = new ArrayList<Thread>();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        for (int i = 0; i < 3; i++) {
+            final int refereeNo = i;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        referees.decisionMade(refereeNo, decisions[refereeNo]);
+                    } catch (Throwable t) {
+                        synchronized (errors) {
+                            errors.add(t);
+                        }
+                    }
+                }
+            }, "referee-" + (i + 1)); //$NON-NLS-1$
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("errors while pressing: " + errors, errors.isEmpty()); //$NON-NLS-1$
+    }
+
+    private static int count(Decision[] decisions) {
+        int count = 0;
+        for (Decision decision : decisions) {
+            if (decision.accepted != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Keeps the events of the current lift, in the order the listeners received them.
+     */
+    private static class Recorder implements DecisionEventListener {
+        private List<DecisionEvent> events = new ArrayList<DecisionEvent>();
+        private CountDownLatch shown = new CountDownLatch(0);
+        private CountDownLatch reset = new CountDownLatch(0);
+
+        synchronized List<DecisionEvent> expect() {
+            events = new ArrayList<DecisionEvent>();
+            shown = new CountDownLatch(1);
+            reset = new CountDownLatch(1);
+            return events;
+        }
+
+        boolean awaitShown(long timeoutSeconds) throws InterruptedException {
+            return latch(true).await(timeoutSeconds, TimeUnit.SECONDS);
+        }
+
+        boolean awaitReset(long timeoutSeconds) throws InterruptedException {
+            return latch(false).await(timeoutSeconds, TimeUnit.SECONDS);
+        }
+
+        private synchronized CountDownLatch latch(boolean show) {
+            return show ? shown : reset;
+        }
+
+        @Override
+        public synchronized void updateEvent(DecisionEvent updateEvent) {
+            if (updateEvent.getType() == DecisionEvent.Type.RESET) {
+                reset.countDown();
+                return;
+            }
+            events.add(updateEvent);
+            if (updateEvent.getType() == DecisionEvent.Type.SHOW) {
+                shown.countDown();
+            }
+        }
+    }
+}
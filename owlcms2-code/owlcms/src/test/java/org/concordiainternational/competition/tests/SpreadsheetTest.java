@@ -7,14 +7,19 @@
  */
 package org.concordiainternational.competition.tests;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.concordiainternational.competition.data.Category;
 import org.concordiainternational.competition.data.CategoryLookup;
+import org.concordiainternational.competition.data.CompetitionSession;
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.spreadsheet.ExtenXLSReader;
 import org.concordiainternational.competition.spreadsheet.InputSheet;
+import org.concordiainternational.competition.spreadsheet.RegistrationImporter;
 import org.concordiainternational.competition.spreadsheet.WeighInSheetReader;
 import org.hibernate.Session;
 import org.junit.After;
@@ -24,6 +29,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.extentech.ExtenXLS.WorkBookHandle;
 import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
 
 /**
@@ -70,6 +76,119 @@ public class SpreadsheetTest {
         System.out.println(AllTests.longDump(sortedLifters));
     }
 
+    /**
+     * The rows handed over by readRows, converted in parallel from a copy of the sheet, are the lifters read one at a time from the
+     * workbook, in the same order.
+     */
+    @Test
+    public void readRowsMatchesGetAllLifters() throws Throwable {
+        final Session hbnSession = hbnSessionManager.getHbnSession();
+        final List<Lifter> expected = new ExtenXLSReader(hbnSessionManager).getAllLifters(
+                AllTests.class.getResourceAsStream(ROUND_TRIP_SHEET), hbnSession);
+        final List<ReadRow> rows = readRows(AllTests.class.getResourceAsStream(ROUND_TRIP_SHEET));
+
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            final ReadRow row = rows.get(i);
+            final Lifter lifter = expected.get(i);
+            Assert.assertEquals(FIRST_ROW_NUMBER + i, row.rowNumber);
+            if (row.error != null) {
+                // getAllLifters keeps a lifter whose session or category is unknown, readRows reports the row.
+                Assert.assertTrue(row.rowNumber + ": " + row.error, //$NON-NLS-1$
+                        lifter.getCompetitionSession() == null || lifter.getRegistrationCategory() == null);
+                continue;
+            }
+            Assert.assertEquals("row " + row.rowNumber, describe(lifter), describe(row.lifter)); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * A cell that cannot be converted rejects its row only; the other rows are read as if it were not there.
+     */
+    @Test
+    public void readRowsWithBadCell() throws Throwable {
+        final List<ReadRow> clean = readRows(AllTests.class.getResourceAsStream(ROUND_TRIP_SHEET));
+        Assert.assertTrue(clean.size() > 1);
+
+        final WorkBookHandle workBook = new WorkBookHandle(AllTests.class.getResourceAsStream(ROUND_TRIP_SHEET));
+        final byte[] bytes;
+        try {
+            // the gender of the second lifter is neither M nor F.
+            workBook.getWorkSheet(0).getCell(FIRST_ROW_NUMBER, GENDER_COLUMN).setVal("X"); //$NON-NLS-1$
+            bytes = workBook.getBytes();
+        } finally {
+            workBook.close();
+        }
+        final List<ReadRow> rows = readRows(new ByteArrayInputStream(bytes));
+
+        Assert.assertEquals(clean.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            final ReadRow row = rows.get(i);
+            Assert.assertEquals(clean.get(i).rowNumber, row.rowNumber);
+            if (i == 1) {
+                Assert.assertNull(row.lifter);
+                Assert.assertNotNull(row.error);
+            } else {
+                Assert.assertEquals(clean.get(i).error, row.error);
+                if (row.lifter != null) {
+                    Assert.assertEquals("row " + row.rowNumber, describe(clean.get(i).lifter), describe(row.lifter)); //$NON-NLS-1$
+                }
+            }
+        }
+    }
+
+    /** number shown by the spreadsheet for the first lifter row (ExtenXLSReader.START_ROW + 1) */
+    private static final int FIRST_ROW_NUMBER = 8;
+    private static final int GENDER_COLUMN = 4;
+    private static final String ROUND_TRIP_SHEET = "/testData/roundTripInputSheet.xls"; //$NON-NLS-1$
+
+    /**
+     * A row as handed over by {@link ExtenXLSReader#readRows(InputStream, RegistrationImporter.RowHandler)}.
+     */
+    private static class ReadRow {
+        final int rowNumber;
+        final Lifter lifter;
+        final String error;
+
+        ReadRow(int rowNumber, Lifter lifter, String error) {
+            this.rowNumber = rowNumber;
+            this.lifter = lifter;
+            this.error = error;
+        }
+    }
+
+    private List<ReadRow> readRows(InputStream is) throws Exception {
+        final List<ReadRow> rows = new ArrayList<ReadRow>();
+        new ExtenXLSReader(hbnSessionManager).readRows(is, new RegistrationImporter.RowHandler() {
+            @Override
+            public void row(int rowNumber, Lifter lifter, String error) {
+                rows.add(new ReadRow(rowNumber, lifter, error));
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * @return what the reader fills in; categories and sessions by name, as the two readers may have looked them up separately.
+     */
+    private static String describe(Lifter lifter) {
+        final Category category = lifter.getRegistrationCategory();
+        final CompetitionSession session = lifter.getCompetitionSession();
+        return new StringBuilder()
+                .append(lifter.getMembership()).append('|').append(lifter.getLotNumber())
+                .append('|').append(lifter.getLastName()).append('|').append(lifter.getFirstName())
+                .append('|').append(lifter.getGender()).append('|').append(category != null ? category.getName() : null)
+                .append('|').append(lifter.getBodyWeight()).append('|').append(lifter.getClub())
+                .append('|').append(lifter.getYearOfBirth()).append('|').append(lifter.getFullBirthDate())
+                .append('|').append(lifter.getSnatch1Declaration()).append('|').append(lifter.getSnatch1ActualLift())
+                .append('|').append(lifter.getSnatch2ActualLift()).append('|').append(lifter.getSnatch3ActualLift())
+                .append('|').append(lifter.getCleanJerk1Declaration()).append('|').append(lifter.getCleanJerk1ActualLift())
+                .append('|').append(lifter.getCleanJerk2ActualLift()).append('|').append(lifter.getCleanJerk3ActualLift())
+                .append('|').append(session != null ? session.getName() : null).append('|').append(lifter.getQualifyingTotal())
+                .toString();
+    }
+
 
 
 
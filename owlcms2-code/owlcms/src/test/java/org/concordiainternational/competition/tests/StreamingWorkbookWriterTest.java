@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009-2012, Jean-François Lamy
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.concordiainternational.competition.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.concordiainternational.competition.data.CategoryLookup;
+import org.concordiainternational.competition.data.Competition;
+import org.concordiainternational.competition.data.Lifter;
+import org.concordiainternational.competition.spreadsheet.StreamingWorkbookWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.hbnutil.HbnContainer.HbnSessionManager;
+
+/**
+ * Fills the streaming competition book template with more lifters than the writer keeps in memory.
+ *
+ * @author jflamy
+ */
+public class StreamingWorkbookWriterTest {
+
+    private static final String TEMPLATE = "/templates/competitionBook/CompetitionBook_Total_en.stream.xlsx"; //$NON-NLS-1$
+    private static final int NB_MEN = 250;
+
+    HbnSessionManager hbnSessionManager = AllTests.getSessionManager();
+
+    @Before
+    public void setupTest() {
+        assertNotNull(hbnSessionManager);
+        assertNotNull(hbnSessionManager.getHbnSession());
+        hbnSessionManager.getHbnSession().beginTransaction();
+        CategoryLookup.getSharedInstance(hbnSessionManager).reload();
+    }
+
+    @After
+    public void tearDownTest() {
+        hbnSessionManager.getHbnSession().close();
+    }
+
+    @Test
+    public void competitionBook() throws Exception {
+        assertTrue(StreamingWorkbookWriter.isStreamingTemplate(TEMPLATE));
+
+        final List<Lifter> men = new ArrayList<Lifter>();
+        for (int i = 0; i < NB_MEN; i++) {
+            final Lifter lifter = new Lifter();
+            lifter.setLastName("Lifter" + i); //$NON-NLS-1$
+            lifter.setFirstName("First" + i); //$NON-NLS-1$
+            lifter.setClub("Club" + (i % 7)); //$NON-NLS-1$
+            lifter.setGender("M"); //$NON-NLS-1$
+            lifter.setBodyWeight(60.0 + i % 40);
+            men.add(lifter);
+        }
+        final Competition competition = new Competition();
+        competition.setCompetitionName("Streaming Open"); //$NON-NLS-1$
+        final Map<String, Object> beans = new HashMap<String, Object>();
+        beans.put("competition", competition); //$NON-NLS-1$
+        beans.put("nbLifters", NB_MEN); //$NON-NLS-1$
+        beans.put("mTot", men); //$NON-NLS-1$
+        beans.put("wTot", new ArrayList<Lifter>()); //$NON-NLS-1$
+
+        final InputStream is = AllTests.class.getResourceAsStream(TEMPLATE);
+        assertNotNull(TEMPLATE, is);
+        final XSSFWorkbook template;
+        try {
+            template = new XSSFWorkbook(is);
+        } finally {
+            is.close();
+        }
+        final SXSSFWorkbook workbook = new StreamingWorkbookWriter(template, beans).fill();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            workbook.write(out);
+        } finally {
+            // the rows that left the window are in temporary files, which must all be gone.
+            assertTrue("temporary files left behind", workbook.dispose()); //$NON-NLS-1$
+        }
+
+        final XSSFWorkbook result = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+        final Sheet info = result.getSheet("C"); //$NON-NLS-1$
+        assertEquals("Streaming Open", info.getRow(0).getCell(1).getStringCellValue()); //$NON-NLS-1$
+        assertEquals(NB_MEN, (int) info.getRow(3).getCell(1).getNumericCellValue());
+
+        final Sheet menSheet = result.getSheet("M6"); //$NON-NLS-1$
+        assertEquals("Last Name", menSheet.getRow(0).getCell(1).getStringCellValue()); //$NON-NLS-1$
+        for (int i = 0; i < NB_MEN; i++) {
+            final Row row = menSheet.getRow(i + 1);
+            assertNotNull("row " + (i + 1), row); //$NON-NLS-1$
+            assertEquals("Lifter" + i, row.getCell(1).getStringCellValue()); //$NON-NLS-1$
+            assertEquals(60.0 + i % 40, row.getCell(5).getNumericCellValue(), 0.001);
+        }
+        assertNull("nothing after the lifters", menSheet.getRow(NB_MEN + 1)); //$NON-NLS-1$
+
+        final Sheet womenSheet = result.getSheet("W6"); //$NON-NLS-1$
+        assertEquals("only the heading", 0, womenSheet.getLastRowNum()); //$NON-NLS-1$
+    }
+}
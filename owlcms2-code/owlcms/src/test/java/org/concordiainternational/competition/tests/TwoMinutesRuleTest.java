@@ -18,6 +18,7 @@ import java.util.Properties;
 
 import org.concordiainternational.competition.data.Lifter;
 import org.concordiainternational.competition.data.LifterContainer;
+import org.concordiainternational.competition.data.lifterSort.IncrementalLifterSorter;
 import org.concordiainternational.competition.data.lifterSort.LifterSorter;
 import org.concordiainternational.competition.ui.CompetitionApplication;
 import org.concordiainternational.competition.ui.CompetitionApplicationComponents;
@@ -44,6 +45,9 @@ public class TwoMinutesRuleTest {
         assertNotNull(hbnSessionManager.getHbnSession());
         hbnSessionManager.getHbnSession().beginTransaction();
 
+        // every incremental update of the lifting order is checked against a full sort.
+        IncrementalLifterSorter.setConsistencyCheck(true);
+
         // mock the application
         final CompetitionApplication application = new CompetitionApplication();
         CompetitionApplication.setCurrent(application);
@@ -73,6 +77,7 @@ public class TwoMinutesRuleTest {
 
     @After
     public void tearDownTest() {
+        IncrementalLifterSorter.setConsistencyCheck(false);
         hbnSessionManager.getHbnSession().close();
     }
 